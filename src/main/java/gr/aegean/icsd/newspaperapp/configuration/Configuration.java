@@ -1,9 +1,18 @@
 package gr.aegean.icsd.newspaperapp.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @org.springframework.context.annotation.Configuration
+@EnableScheduling
 public class Configuration {
 
     @Bean
@@ -11,4 +20,42 @@ public class Configuration {
         return new MethodValidationPostProcessor();
     }
 
+
+    /**
+     * Executor that runs the branches of a unified search in parallel. <br>
+     *
+     * Every task runs with the security context and the request of the thread that submitted it,
+     * so the services apply the role-based filtering of the calling User and links can be built
+     *
+     * @param threads Number of threads in the pool
+     *
+     * @return The configured executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchExecutor(@Value("${search.fan-out.threads}") int threads) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("search-");
+        executor.setTaskDecorator(task -> {
+
+            SecurityContext securityContext = SecurityContextHolder.getContext();
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+            Runnable securedTask = new DelegatingSecurityContextRunnable(task, securityContext);
+
+            return () -> {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    securedTask.run();
+                }
+                finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            };
+        });
+
+        return executor;
+    }
+
 }
@@ -39,6 +39,8 @@ public class SecurityConfiguration {
     private final String storiesMapping = apiBaseMapping + "/stories/**";
     private final String commentsMapping = apiBaseMapping + "/comments/**";
     private final String topicsMapping = apiBaseMapping + "/topics/**";
+    private final String searchMapping = apiBaseMapping + "/search/**";
+    private final String actuatorMapping = "/actuator/**";
 
 
     @Value("${users.testCuratorPassword}")
@@ -120,6 +122,16 @@ public class SecurityConfiguration {
                         // Reject Topic
                         .requestMatchers(HttpMethod.DELETE, topicsMapping).hasRole("CURATOR")
 
+                        // ### SEARCH ENDPOINTS ### //
+
+                        // Search Stories, Topics and Comments at once
+                        .requestMatchers(HttpMethod.GET, searchMapping).permitAll()
+
+                        // ### ACTUATOR ENDPOINTS ### //
+
+                        // Search term statistics
+                        .requestMatchers(HttpMethod.GET, actuatorMapping).hasRole("CURATOR")
+
                         .anyRequest().denyAll()
 
                 )
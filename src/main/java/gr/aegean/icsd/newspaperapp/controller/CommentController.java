@@ -1,13 +1,15 @@
 package gr.aegean.icsd.newspaperapp.controller;
 
 import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentView;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentWindow;
 import gr.aegean.icsd.newspaperapp.model.representation.comment.CommentModel;
 import gr.aegean.icsd.newspaperapp.model.representation.comment.CommentModelAssembler;
 import gr.aegean.icsd.newspaperapp.model.service.CommentService;
 import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.PagedModel;
@@ -20,8 +22,8 @@ import java.net.URI;
 
 /**
  * Controller that handles requests related to the 'Comment' resource. <br>
- * Maps all operations, except {@link #showAllCommentsForAStory(long, int, int) showAllCommentsForAStory}, at 'api/v0/comments' <br>
- * @see #showAllCommentsForAStory(long, int, int)
+ * Maps all operations, except {@link #showAllCommentsForAStory(long, int, int, String, Boolean) showAllCommentsForAStory}, at 'api/v0/comments' <br>
+ * @see #showAllCommentsForAStory(long, int, int, String, Boolean)
  */
 @RestController
 public class CommentController {
@@ -34,7 +36,7 @@ public class CommentController {
     * The baseMapping string is used instead of the RequestMapping annotation
     * at the class level, <br> solely because of the special mapping required by
     * the showAllCommentsForAStory method.
-    * @see #showAllCommentsForAStory(long, int, int)
+    * @see #showAllCommentsForAStory(long, int, int, String, Boolean)
     */
     private static final String baseMapping = "/api/v0/comments";
 
@@ -71,7 +73,7 @@ public class CommentController {
         log.info("New 'create comment' Request");
 
         Comment savedComment = service.createComment(newComment.getStoryID(), newComment.getContent());
-        CommentModel savedCommentModel = assembler.toModel(savedComment);
+        CommentModel savedCommentModel = assembler.toModel(CommentView.of(savedComment));
 
         URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
                 .path("api/v0/stories/{storyId}/comments")
@@ -111,19 +113,33 @@ public class CommentController {
      * @param storyId ID of the Story entity that contains the comments
      * @param page Number of the page the client has requested
      * @param size Size of the requested page
+     * @param cursor Cursor of the requested page, empty for the first page. <br>
+     *               When provided, the page is read by keyset and carries cursor links instead of page numbers
+     * @param total Whether to count the total number of Comments, false to only tell whether more Comments follow
      *
      * @return a PagedModel containing the Comment representations, sorted by their creation date in
-     * ascending order, and the links to navigate it
+     * descending order, and the links to navigate it
      */
     @GetMapping(path = "api/v0/stories/{storyId}/comments", produces = "application/json")
     public ResponseEntity<PagedModel<CommentModel>> showAllCommentsForAStory(@PathVariable long storyId,
                                                                              @RequestParam(defaultValue = "0") int page,
-                                                                             @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                             @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                             @RequestParam(required = false) String cursor,
+                                                                             @RequestParam(defaultValue = "true") Boolean total) {
 
         log.info("New 'show all comments for a story' Request");
+
+        if (cursor != null) {
+            CommentWindow commentWindow = service.scrollCommentsByStory(storyId, cursor, size);
+            return new ResponseEntity<>(assembler.createCursorModel(commentWindow, storyId, cursor, size),
+                    HttpStatus.OK);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<Comment> commentList = service.showCommentsByStory(storyId, pageable);
+        Slice<CommentView> commentList = Boolean.FALSE.equals(total)
+                ? service.sliceCommentsByStory(storyId, pageable)
+                : service.showCommentsByStory(storyId, pageable);
 
         PagedModel<CommentModel> commentPagedModel = assembler.createPagedModel(commentList, storyId);
 
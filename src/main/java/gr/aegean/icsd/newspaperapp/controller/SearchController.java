@@ -0,0 +1,83 @@
+package gr.aegean.icsd.newspaperapp.controller;
+
+import gr.aegean.icsd.newspaperapp.model.representation.comment.CommentModel;
+import gr.aegean.icsd.newspaperapp.model.representation.comment.CommentModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.representation.search.SearchModel;
+import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModel;
+import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModel;
+import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.service.SearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Controller that handles searches across the 'Story', 'Topic' and 'Comment' resources. <br>
+ * Maps all operations at 'api/v0/search' <br>
+ */
+@RestController
+@RequestMapping(value = "api/v0/search", produces = "application/json")
+public class SearchController {
+
+    private final SearchService service;
+    private final StoryModelAssembler storyAssembler;
+    private final TopicModelAssembler topicAssembler;
+    private final CommentModelAssembler commentAssembler;
+
+    /** Default number of results in every section of the response */
+    private static final String defaultSectionSize = "10";
+    private static final Logger log = LoggerFactory.getLogger("SearchController");
+
+
+
+    public SearchController(SearchService service, StoryModelAssembler storyAssembler,
+                            TopicModelAssembler topicAssembler, CommentModelAssembler commentAssembler) {
+
+        this.service = service;
+        this.storyAssembler = storyAssembler;
+        this.topicAssembler = topicAssembler;
+        this.commentAssembler = commentAssembler;
+
+    }
+
+
+
+    /**
+     * Search Stories, Topics and Comments matching the provided query, in a single request. <br>
+     * Every entity is searched in parallel and only includes the results visible to the current User
+     *
+     * @param q The query
+     * @param size Maximum number of results in every section
+     * @return a SearchModel with a section of results for every entity
+     */
+    @GetMapping
+    public ResponseEntity<SearchModel> search(@RequestParam String q,
+                                              @RequestParam(defaultValue = defaultSectionSize) int size) {
+
+        log.info("New 'search' Request");
+        SearchService.SearchResults<StoryModel, TopicModel, CommentModel> results =
+                service.search(q, size, storyAssembler::toModel, topicAssembler::toModel, commentAssembler::toModel);
+
+        SearchModel searchModel = new SearchModel();
+        searchModel.setQuery(q);
+        searchModel.setStories(results.stories());
+        searchModel.setTopics(results.topics());
+        searchModel.setComments(results.comments());
+
+        searchModel.add(linkTo(methodOn(SearchController.class).search(q, size)).withSelfRel());
+
+
+        return new ResponseEntity<>(searchModel, HttpStatus.OK);
+    }
+
+
+}
@@ -0,0 +1,63 @@
+package gr.aegean.icsd.newspaperapp.controller;
+
+import gr.aegean.icsd.newspaperapp.model.search.HeavyHitters;
+import gr.aegean.icsd.newspaperapp.model.search.SearchTermStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint that reports the most frequently searched terms. <br>
+ * Maps its only operation at '/actuator/searchterms'
+ */
+@Component
+@Endpoint(id = "searchterms")
+public class SearchTermsEndpoint {
+
+    private final SearchTermStatistics statistics;
+
+
+    /**
+     * Most frequent terms of one kind of search
+     *
+     * @param searchedTerms Number of terms searched since the application started
+     * @param topTerms Most frequent terms and their estimated frequencies, most frequent first
+     */
+    public record SearchTerms(long searchedTerms, List<HeavyHitters.Estimate> topTerms) {}
+
+
+    /**
+     * Most frequent terms of every kind of search
+     *
+     * @param stories Terms of Story searches
+     * @param topics Terms of Topic searches
+     */
+    public record SearchTermsReport(SearchTerms stories, SearchTerms topics) {}
+
+
+    public SearchTermsEndpoint(SearchTermStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+
+
+    /**
+     * Report the most frequent terms of Story and Topic searches
+     *
+     * @return The report
+     */
+    @ReadOperation
+    public SearchTermsReport searchTerms() {
+        return new SearchTermsReport(report(statistics.getStoryTerms()), report(statistics.getTopicTerms()));
+    }
+
+
+
+    private SearchTerms report(HeavyHitters terms) {
+        return new SearchTerms(terms.total(), terms.top());
+    }
+
+
+}
@@ -1,8 +1,13 @@
 package gr.aegean.icsd.newspaperapp.controller;
 
 import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryCursor;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFilter;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryWindow;
 import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModel;
 import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.representation.story.StoryPagedModel;
 import gr.aegean.icsd.newspaperapp.model.service.StoryService;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
 import org.slf4j.Logger;
@@ -10,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,9 +25,9 @@ import java.util.Date;
 
 /**
  * Controller that handles requests related to the 'Story' resource. <br>
- * Maps all operations, except {@link #showATopicsStories(long, int, int) showATopicsStories}, at 'api/v0/stories' <br>
+ * Maps all operations, except {@link #showATopicsStories(long, int, int, String) showATopicsStories}, at 'api/v0/stories' <br>
  *
- * @see #showATopicsStories(long, int, int)
+ * @see #showATopicsStories(long, int, int, String)
  */
 @RestController
 @RequestMapping(produces = "application/json")
@@ -36,7 +42,7 @@ public class StoryController {
      * The baseMapping string is used instead of the RequestMapping annotation
      * at the class level, <br> solely because of the special mapping required by
      * the showAllStoriesForAStory method.
-     * @see #showATopicsStories(long, int, int)
+     * @see #showATopicsStories(long, int, int, String)
      */
     private static final String baseMapping = "/api/v0/stories";
 
@@ -75,7 +81,7 @@ public class StoryController {
         log.info("New 'create story' Request");
         Story requestedStory = service.createStory(newStory.getName(), newStory.getContent(), newStory.getTopicsList());
 
-        StoryModel storyModel = assembler.toModel(requestedStory);
+        StoryModel storyModel = assembler.toModel(StoryView.of(requestedStory).withContent(requestedStory.getContent()));
 
         return new ResponseEntity<>(storyModel, HttpStatus.CREATED);
 
@@ -103,21 +109,54 @@ public class StoryController {
 
 
 
+    /**
+     * Display a specific Story, along with its whole content <br>
+     *
+     * Listings only show an excerpt of each Story's content
+     *
+     * @param id The id of the Story
+     * @return a StoryModel representation of the requested Story
+     */
+    @GetMapping(path = baseMapping + "/{id}", produces = "application/json")
+    public ResponseEntity<StoryModel> showStory(@PathVariable long id) {
+
+        log.info("New 'show story' Request");
+        StoryView requestedStory = service.showStory(id);
+
+        StoryModel storyModel = assembler.toModel(requestedStory);
+
+        return new ResponseEntity<>(storyModel, HttpStatus.OK);
+
+    }
+
+
+
     /**
      * Show all Stories, sorted by their state
      *
      * @param page Requested page
      * @param size Size of the requested page
+     * @param cursor Cursor of the requested page, empty for the first page. <br>
+     *               When provided, the page is read by keyset and carries cursor links instead of page numbers
      *
      * @return A PagedModel with the Stories
      */
     @GetMapping(value = baseMapping, produces = "application/json")
     public ResponseEntity<PagedModel<StoryModel>> showAllStories(@RequestParam(defaultValue = "0") int page,
-                                                                 @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                 @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                 @RequestParam(required = false) String cursor) {
 
         log.info("New 'show all stories' Request");
+
+        if (cursor != null) {
+            StoryWindow storyWindow = service.scrollStories
+                    (new StoryFilter(null, null, null, null, null, null), StoryCursor.Order.WORKFLOW, cursor, size);
+            return new ResponseEntity<>(assembler.createCursorModelForShowAllStories(storyWindow, cursor, size),
+                    HttpStatus.OK);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findAllStories(pageable);
+        Page<StoryView> storyPage = service.findAllStories(pageable);
 
         PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStories(storyPage);
 
@@ -130,21 +169,42 @@ public class StoryController {
      * Show all Stories whose name is similar to the provided name
      *
      * @param name Provided name
+     * @param fuzzy Whether misspelled names should match as well, ranking Stories by similarity
+     * @param highlight Whether highlighted snippets of the matching fields should be included
      * @param page Requested page
      * @param size Size of the requested page
+     * @param total Whether to count the total number of Stories, false to only tell whether more Stories follow. <br>
+     *              Fuzzy searches rank every match, so they are always counted
      *
      * @return A PagedModel with the Stories
      */
     @GetMapping(value = baseMapping, produces = "application/json", params = "name")
     public ResponseEntity<PagedModel<StoryModel>> showAllStoriesByName(@RequestParam String name,
+                                                                       @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                                       @RequestParam(defaultValue = "false") boolean highlight,
                                                                        @RequestParam(defaultValue = "0") int page,
-                                                                       @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                       @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                       @RequestParam(defaultValue = "true") Boolean total) {
 
         log.info("New 'show all stories filtered by name' Request");
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findStoriesByName(name, pageable);
+        Slice<StoryView> storyPage;
+
+        if (fuzzy) {
+            storyPage = service.findStoriesBySimilarName(name, pageable);
+        }
+        else {
+            storyPage = Boolean.FALSE.equals(total)
+                    ? service.sliceStoriesBySearch(name, null, pageable)
+                    : service.findStoriesByName(name, pageable);
+        }
+
+        PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByName
+                                                    (storyPage, name, fuzzy, highlight);
 
-        PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByName(storyPage, name);
+        if (highlight) {
+            assembler.addHighlights(storyPagedModel, service.highlightStories(storyPage.getContent(), name, null));
+        }
 
 
         return new ResponseEntity<>(storyPagedModel, HttpStatus.OK);
@@ -156,22 +216,33 @@ public class StoryController {
      * Show all Stories whose content is similar to the provided content
      *
      * @param content Provided content
+     * @param highlight Whether highlighted snippets of the matching fields should be included
      * @param page Requested page
      * @param size Size of the requested page
+     * @param total Whether to count the total number of Stories, false to only tell whether more Stories follow
      *
      * @return A PagedModel with the Stories
      */
     @GetMapping(value = baseMapping, produces = "application/json", params = "content")
     public ResponseEntity<PagedModel<StoryModel>> showAllStoriesByContent(@RequestParam String content,
+                                                                          @RequestParam(defaultValue = "false") boolean highlight,
                                                                           @RequestParam(defaultValue = "0") int page,
-                                                                          @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                          @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                          @RequestParam(defaultValue = "true") Boolean total) {
 
         log.info("New 'show all stories filtered by content' Request");
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findStoriesByContent(content, pageable);
+        Slice<StoryView> storyPage = Boolean.FALSE.equals(total)
+                ? service.sliceStoriesBySearch(null, content, pageable)
+                : service.findStoriesByContent(content, pageable);
 
 
-        PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByContent(storyPage, content);
+        PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByContent
+                                                    (storyPage, content, highlight);
+
+        if (highlight) {
+            assembler.addHighlights(storyPagedModel, service.highlightStories(storyPage.getContent(), null, content));
+        }
 
         return new ResponseEntity<>(storyPagedModel, HttpStatus.OK);
     }
@@ -183,23 +254,33 @@ public class StoryController {
      *
      * @param name Provided name
      * @param content Provided content
+     * @param highlight Whether highlighted snippets of the matching fields should be included
      * @param page Requested page
      * @param size Size of the requested page
+     * @param total Whether to count the total number of Stories, false to only tell whether more Stories follow
      *
      * @return A PagedModel with the Stories
      */
     @GetMapping(value = baseMapping, produces = "application/json", params = {"content","name"})
     public ResponseEntity<PagedModel<StoryModel>> showAllStoriesByNameAndContent(@RequestParam String name,
                                                                                  @RequestParam String content,
+                                                                                 @RequestParam(defaultValue = "false") boolean highlight,
                                                                                  @RequestParam(defaultValue = "0") int page,
-                                                                                 @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                                 @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                                 @RequestParam(defaultValue = "true") Boolean total) {
 
         log.info("New 'show all stories filtered by content and name' Request");
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findStoriesByContentAndName(name, content, pageable);
+        Slice<StoryView> storyPage = Boolean.FALSE.equals(total)
+                ? service.sliceStoriesBySearch(name, content, pageable)
+                : service.findStoriesByContentAndName(name, content, pageable);
 
         PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByNameAndContent
-                                                    (storyPage, name, content);
+                                                    (storyPage, name, content, highlight);
+
+        if (highlight) {
+            assembler.addHighlights(storyPagedModel, service.highlightStories(storyPage.getContent(), name, content));
+        }
 
         return new ResponseEntity<>(storyPagedModel, HttpStatus.OK);
     }
@@ -213,6 +294,9 @@ public class StoryController {
      * @param maxDate Provided date, ending point
      * @param page Requested page
      * @param size Size of the requested page
+     * @param cursor Cursor of the requested page, empty for the first page. <br>
+     *               When provided, the page is read by keyset and carries cursor links instead of page numbers
+     * @param total Whether to count the total number of Stories, false to only tell whether more Stories follow
      *
      * @return A PagedModel with the Stories
      */
@@ -220,11 +304,23 @@ public class StoryController {
     public ResponseEntity<PagedModel<StoryModel>> showAllStoriesByDate(@RequestParam Date minDate,
                                                                        @RequestParam Date maxDate,
                                                                        @RequestParam(defaultValue = "0") int page,
-                                                                       @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                       @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "true") Boolean total) {
 
         log.info("New 'show all stories filtered by a range of dates' Request");
+
+        if (cursor != null) {
+            StoryWindow storyWindow = service.scrollStories
+                    (new StoryFilter(null, null, minDate, maxDate, null, null), StoryCursor.Order.NEWEST, cursor, size);
+            return new ResponseEntity<>(assembler.createCursorModelForShowAllStoriesByDate
+                    (storyWindow, minDate, maxDate, cursor, size), HttpStatus.OK);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findStoriesByDateRange(minDate, maxDate, pageable);
+        Slice<StoryView> storyPage = Boolean.FALSE.equals(total)
+                ? service.sliceStoriesByDateRange(minDate, maxDate, pageable)
+                : service.findStoriesByDateRange(minDate, maxDate, pageable);
 
         PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByDate
                 (storyPage, minDate, maxDate);
@@ -240,17 +336,27 @@ public class StoryController {
      * @param state Provided state
      * @param page Requested page
      * @param size Size of the page
+     * @param cursor Cursor of the requested page, empty for the first page. <br>
+     *               When provided, the page is read by keyset and carries cursor links instead of page numbers
      *
      * @return A PagedModel with the Stories
      */
     @GetMapping(value = baseMapping, produces = "application/json", params = {"state"})
     public ResponseEntity<PagedModel<StoryModel>> showAllStoriesByState(@RequestParam StoryState state,
                                                                         @RequestParam(defaultValue = "0") int page,
-                                                                        @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                        @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                        @RequestParam(required = false) String cursor) {
 
         log.info("New 'show all stories filtered by state' Request");
+
+        if (cursor != null) {
+            StoryWindow storyWindow = service.scrollStoriesByState(state, cursor, size);
+            return new ResponseEntity<>(assembler.createCursorModelForShowAllStoriesByState
+                    (storyWindow, state, cursor, size), HttpStatus.OK);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findStoriesByState(state, pageable);
+        Page<StoryView> storyPage = service.findStoriesByState(state, pageable);
 
         PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowAllStoriesByState
                 (storyPage, state);
@@ -260,21 +366,88 @@ public class StoryController {
 
 
 
+    /**
+     * Show all Stories matching any combination of the provided criteria, <br>
+     * every criterion is optional and all provided criteria must match
+     *
+     * @param name Text the Story's name must contain
+     * @param content Text the Story's content must contain
+     * @param minDate Earliest creation date
+     * @param maxDate Latest creation date
+     * @param state State of the Story
+     * @param topicID ID of a Topic associated with the Story
+     * @param facets Whether to include the number of matching Stories per state, Topic and creation month
+     * @param page Requested page
+     * @param size Size of the requested page
+     * @param cursor Cursor of the requested page, empty for the first page. <br>
+     *               When provided, the page is read by keyset and carries cursor links instead of page numbers
+     * @param total Whether to count the total number of Stories, false to only tell whether more Stories follow
+     *
+     * @return A PagedModel with the Stories
+     */
+    @GetMapping(value = baseMapping + "/filter", produces = "application/json")
+    public ResponseEntity<PagedModel<StoryModel>> filterStories(@RequestParam(required = false) String name,
+                                                                @RequestParam(required = false) String content,
+                                                                @RequestParam(required = false) Date minDate,
+                                                                @RequestParam(required = false) Date maxDate,
+                                                                @RequestParam(required = false) StoryState state,
+                                                                @RequestParam(required = false) Long topicID,
+                                                                @RequestParam(defaultValue = "false") boolean facets,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "true") Boolean total) {
+
+        log.info("New 'filter stories' Request");
+        StoryFilter filter = new StoryFilter(name, content, minDate, maxDate, state, topicID);
+        PagedModel<StoryModel> storyPagedModel;
+
+        if (cursor != null) {
+            StoryWindow storyWindow = service.scrollStories(filter, StoryCursor.Order.NEWEST, cursor, size);
+            storyPagedModel = assembler.createCursorModelForFilterStories(storyWindow, filter, facets, cursor, size);
+        }
+        else {
+            Slice<StoryView> storyPage = Boolean.FALSE.equals(total)
+                    ? service.sliceFilteredStories(filter, PageRequest.of(page, size))
+                    : service.filterStories(filter, PageRequest.of(page, size));
+            storyPagedModel = assembler.createPagedModelForFilterStories(storyPage, filter, facets);
+        }
+
+        if (facets) {
+            storyPagedModel = new StoryPagedModel(storyPagedModel, service.countStoryFacets(filter));
+        }
+
+        return new ResponseEntity<>(storyPagedModel, HttpStatus.OK);
+    }
+
+
+
     /**
      * Get all Stories associated with a Topic
      *
      * @param topicId ID of the Topic whose Stories will be extracted
      * @param page Number of the page the client has requested
      * @param size Size of the requested page
+     * @param cursor Cursor of the requested page, empty for the first page. <br>
+     *               When provided, the page is read by keyset and carries cursor links instead of page numbers
      * @return a PagedModel containing the Story representations as well as the links to navigate it
      */
     @GetMapping(path = "api/v0/topics/{topicId}/stories", produces = "application/json")
     public ResponseEntity<PagedModel<StoryModel>> showATopicsStories(@PathVariable long topicId,
                                                                     @RequestParam(defaultValue = "0") int page,
-                                                                    @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                    @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                    @RequestParam(required = false) String cursor) {
         log.info("New 'show a topic's stories' Request");
+
+        if (cursor != null) {
+            StoryWindow storyWindow = service.scrollStories
+                    (new StoryFilter(null, null, null, null, null, topicId), StoryCursor.Order.NEWEST, cursor, size);
+            return new ResponseEntity<>(assembler.createCursorModelForShowATopicsStories
+                    (storyWindow, topicId, cursor, size), HttpStatus.OK);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<Story> storyPage = service.findStoriesByTopicID(topicId, pageable);
+        Page<StoryView> storyPage = service.findStoriesByTopicID(topicId, pageable);
 
         PagedModel<StoryModel> storyPagedModel = assembler.createPagedModelForShowATopicsStories
                 (storyPage, topicId);
@@ -1,8 +1,11 @@
 package gr.aegean.icsd.newspaperapp.controller;
 
 import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicView;
 import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModel;
 import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicSuggestionModel;
+import gr.aegean.icsd.newspaperapp.model.search.PrefixIndex;
 import gr.aegean.icsd.newspaperapp.model.service.TopicService;
 import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
 import org.slf4j.Logger;
@@ -10,6 +13,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.List;
 
 /**
  * Controller that handles requests related to the 'Topic' resource. <br>
@@ -63,7 +69,7 @@ public class TopicController {
         log.info("New 'create topic' Request");
 
         Topic savedTopic = service.createTopic(newTopic.getName(), newTopic.getParentTopicID());
-        TopicModel savedTopicModel = assembler.toModel(savedTopic);
+        TopicModel savedTopicModel = assembler.toModel(TopicView.of(savedTopic));
 
         URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
                 .path("/{id}")
@@ -104,7 +110,7 @@ public class TopicController {
     public ResponseEntity<TopicModel> showTopic(@PathVariable long id) {
 
         log.info("New 'show topic' Request");
-        Topic requestedTopic = service.showTopic(id);
+        TopicView requestedTopic = service.showTopic(id);
 
         TopicModel topicModel = assembler.toModel(requestedTopic);
 
@@ -116,16 +122,23 @@ public class TopicController {
     /**
      * Display all topics saved in the database
      *
+     * @param page Requested page
+     * @param size Size of the requested page
+     * @param total Whether to count the total number of Topics, false to only tell whether more Topics follow
+     *
      * @return a PagedModel containing all the TopicModels of the topics
      * as well as links to navigate the PagedModel
      */
     @GetMapping
     public ResponseEntity<PagedModel<TopicModel>> showAllTopics(@RequestParam(defaultValue = "0") int page,
-                                                                @RequestParam(defaultValue = defaultPageSize) int size) {
+                                                                @RequestParam(defaultValue = defaultPageSize) int size,
+                                                                @RequestParam(defaultValue = "true") Boolean total) {
 
         log.info("New 'show all topics' Request");
         Pageable pageable = PageRequest.of(page, size);
-        Page<Topic> topicsPage = service.showAllTopics(pageable);
+        Slice<TopicView> topicsPage = Boolean.FALSE.equals(total)
+                ? service.sliceAllTopics(pageable)
+                : service.showAllTopics(pageable);
 
         PagedModel<TopicModel> pagedTopicModel = assembler.createPagedModel(topicsPage);
 
@@ -138,19 +151,23 @@ public class TopicController {
      * Display all topics matching the provided name.
      *
      * @param name The specified Topic name
+     * @param fuzzy Whether misspelled names should match as well, ranking Topics by similarity
      * @return a PagedModel containing all the TopicModels of the topics
      * as well as links to navigate the PagedModel
      */
     @GetMapping(params = "name")
     public ResponseEntity<PagedModel<TopicModel>> showAllTopicsByName(@RequestParam String name,
+                                                                @RequestParam(defaultValue = "false") boolean fuzzy,
                                                                 @RequestParam(defaultValue = "0") int page,
                                                                 @RequestParam(defaultValue = defaultPageSize) int size) {
 
         log.info("New 'show all topics matching name' Request");
         Pageable pageable = PageRequest.of(page, size);
-        Page<Topic> topicsPage = service.searchTopicByName(name, pageable);
+        Page<TopicView> topicsPage = fuzzy
+                ? service.searchTopicBySimilarName(name, pageable)
+                : service.searchTopicByName(name, pageable);
 
-        PagedModel<TopicModel> pagedTopicModel = assembler.createPagedModelForSearchByName(topicsPage, name);
+        PagedModel<TopicModel> pagedTopicModel = assembler.createPagedModelForSearchByName(topicsPage, name, fuzzy);
 
 
         return new ResponseEntity<>(pagedTopicModel, HttpStatus.OK);
@@ -158,6 +175,29 @@ public class TopicController {
 
 
 
+    /**
+     * Suggest approved Topics while their name is being typed. <br>
+     * A Topic is suggested if its name, or a later word of it, starts with the provided prefix
+     *
+     * @param prefix The Topic name typed so far
+     * @param limit Maximum number of suggestions
+     * @return a CollectionModel containing the suggested Topics, with a link to each Topic
+     */
+    @GetMapping(path = "/suggestions")
+    public ResponseEntity<CollectionModel<TopicSuggestionModel>> suggestTopics(@RequestParam String prefix,
+                                                                @RequestParam(defaultValue = defaultPageSize) int limit) {
+
+        log.info("New 'suggest topics' Request");
+        List<PrefixIndex.Suggestion> suggestions = service.suggestTopics(prefix, limit);
+
+        CollectionModel<TopicSuggestionModel> suggestionModels = assembler.createSuggestionsModel(suggestions, prefix, limit);
+
+
+        return new ResponseEntity<>(suggestionModels, HttpStatus.OK);
+    }
+
+
+
     /**
      * Update the state of a Topic to {@link TopicState#APPROVED APPROVED} <br>
      * Since Topics can only exist in two states ( SUBMITTED and APPROVED ),
@@ -18,23 +18,32 @@ import java.util.Optional;
  * @see #Comment(Story, String, User)
  */
 @Entity
-@Table(name = "comment")
+@Table(name = "comment", indexes = {
+        @Index(name = "comment_story_date_id", columnList = "story_id, creationDate, id"),
+        @Index(name = "comment_author_story_date_id", columnList = "author_id, story_id, creationDate, id"),
+        @Index(name = "comment_state_id", columnList = "state, id")
+})
 public class Comment {
 
     /**
-     * Primary Key of the Comment Entity
+     * Primary Key of the Comment Entity <br>
+     *
+     * Assigned from a pooled sequence, in blocks of 50 identifiers per node,
+     * so that bursts of Comments are inserted in batches
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_sequence")
+    @SequenceGenerator(name = "comment_sequence", sequenceName = "comment_sequence", allocationSize = 50)
     private Long id;
 
     /**
      * Date the Comment was created, assigned by the server
      * before persisting the entity in the database. <br>
-     * Date will be in the format E, dd/MMMM/yyyy, HH:mm:ss
+     * Date will be in the format E, dd/MMMM/yyyy, HH:mm:ss <br>
+     * Stored with its time, so that Comments are ordered by the instant they were created
      * @see #generateCreationDate()
      */
-    @Temporal(TemporalType.DATE)
+    @Temporal(TemporalType.TIMESTAMP)
     @Column(updatable = false, nullable = false)
     private Date creationDate;
 
@@ -67,7 +76,7 @@ public class Comment {
      * Story that the Comment belongs to <br>
      * Many Comments belong to One Story
      */
-    @ManyToOne(cascade = CascadeType.REFRESH, targetEntity = Story.class)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.REFRESH, targetEntity = Story.class)
     @JoinColumn(name = "story_id", nullable = false, updatable = false)
     private Story storyID;
 
@@ -76,7 +85,7 @@ public class Comment {
      * Many Comments can have the same Author <br>
      * Author may be null
      */
-    @ManyToOne(cascade = CascadeType.REFRESH, targetEntity = User.class)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.REFRESH, targetEntity = User.class)
     @JoinColumn(name = "author_id", updatable = false)
     private User authorID;
 
@@ -222,11 +231,12 @@ public class Comment {
      * Create a Hash of an instantiated Comment
      *
      * @return A hash of the fields {@link #id}, {@link #authorID},
-     * {@link #creationDate}, {@link #state}
+     * {@link #creationDate}, {@link #state}. The author is hashed by
+     * its username, so that a lazy author is not loaded
      */
     @Override
     public int hashCode() {
-        return Objects.hash(id, authorID, creationDate, state);
+        return Objects.hash(id, authorID == null ? null : authorID.getUsername(), creationDate, state);
     }
 
     /**
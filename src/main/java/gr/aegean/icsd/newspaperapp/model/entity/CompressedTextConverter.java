@@ -0,0 +1,62 @@
+package gr.aegean.icsd.newspaperapp.model.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores a text GZIP compressed <br>
+ *
+ * Values that do not start with the GZIP header are read as uncompressed UTF-8 text,
+ * so that text copied into the column by SQL is still readable, and is compressed the next time it is written
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+
+        if (text == null) { return null; }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("The text could not be compressed", e);
+        }
+
+        return compressed.toByteArray();
+
+    }
+
+
+    @Override
+    public String convertToEntityAttribute(byte[] column) {
+
+        if (column == null) { return null; }
+
+        if (column.length < 2 || (column[0] & 0xFF | (column[1] & 0xFF) << 8) != GZIPInputStream.GZIP_MAGIC) {
+            return new String(column, StandardCharsets.UTF_8);
+        }
+
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(column))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("The text could not be decompressed", e);
+        }
+
+    }
+
+
+}
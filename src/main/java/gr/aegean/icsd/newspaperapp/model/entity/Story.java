@@ -1,5 +1,6 @@
 package gr.aegean.icsd.newspaperapp.model.entity;
 
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -21,14 +22,27 @@ import java.util.Set;
  * @see #Story(String, User, String, Topic) 
  */
 @Entity
-@Table(name = "story")
+@Table(name = "story", indexes = {
+        @Index(name = "story_state_id", columnList = "state, id DESC"),
+        @Index(name = "story_author_state_id", columnList = "authorID, state, id DESC"),
+        @Index(name = "story_date_state", columnList = "creationDate, state"),
+        @Index(name = "story_last_modified_id", columnList = "lastModified, id")
+})
 public class Story {
 
     /**
-     * Primary Key of the Story Entity
+     * Primary Key of the Story Entity <br>
+     *
+     * Assigned from a pooled sequence, every node reserves a block of 50 identifiers at once,
+     * so that the identifier is known before the insert and inserts can be batched. <br>
+     *
+     * Lists ordered "most recent first" are ordered by descending ID. IDs grow with creation on a single node,
+     * but with several nodes a Story created on one node can get a lower ID than an older Story created on
+     * another, until the first node uses up its block. Such Stories are listed out of creation order
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "story_sequence")
+    @SequenceGenerator(name = "story_sequence", sequenceName = "story_sequence", allocationSize = 50)
     private Long id;
 
     /**
@@ -43,13 +57,26 @@ public class Story {
     @Column(updatable = false, nullable = false)
     private Date creationDate;
 
+    /**
+     * Instant the Story was last created or changed, along with its content or Topics <br>
+     *
+     * The in-process indexes of every instance poll for the Stories modified since they last looked,
+     * by the index on ( lastModified, id ), so that they pick up the changes made by other instances
+     *
+     * @see #touch()
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastModified;
+
     /**
      * State of the Story, valid states are declared in
-     * {@link StoryState}
+     * {@link StoryState}, stored as their code. <br>
+     *
+     * Stories are listed by the index on ( state, id ), which follows the Story workflow
      *
      * @see StoryState
      */
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = StoryStateConverter.class)
     @NotNull
     private StoryState state;
 
@@ -78,22 +105,12 @@ public class Story {
     private final int minimumRejectionReasonLength = 5;
 
     /**
-     * Sets the maximum allowed length of the Story's content
+     * Sets the maximum length of the Story's excerpt
      *
-     * @see #content
+     * @see #excerpt
      */
     @Transient
-    private final int maximumContentLength = 500;
-
-    /**
-     * Sets the minimum allowed length of the Story's content <br>
-     *
-     * Should be scaled upwards when deploying to production
-     *
-     * @see #content
-     */
-    @Transient
-    private final int minimumContentLength = 5;
+    private final int maximumExcerptLength = 300;
 
     /**
      * The name of the Story <br>
@@ -115,13 +132,35 @@ public class Story {
     private String rejectionReason;
 
     /**
-     * The content of the Story <br>
+     * The content of the Story, stored in a table of its own <br>
+     *
+     * The body is only read when the content is accessed, listings show the {@link #excerpt} instead. <br>
      *
-     * Content cannot be null, empty, or exceed {@link #maximumContentLength}
+     * Every Story is created with a body. The column is nullable so that the schema update can add it to
+     * the Stories of databases created by earlier versions, whose contents are then moved into bodies
+     * on startup, see {@link gr.aegean.icsd.newspaperapp.model.search.SearchColumnBackfill}
+     *
+     * @see StoryBody
      */
-    @Size(min = minimumContentLength,max = maximumContentLength)
-    @NotBlank
-    private String content;
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "bodyID", unique = true)
+    private StoryBody body;
+
+    /**
+     * Beginning of the Story's content, shown by listings instead of the whole content <br>
+     *
+     * Generated whenever the content is set, and cannot exceed {@link #maximumExcerptLength}
+     */
+    @Column(length = maximumExcerptLength)
+    private String excerpt;
+
+    /**
+     * The name of the Story, normalized by the {@link TextAnalyzer} <br>
+     *
+     * Name searches match against this column, so that the database
+     * does not need to normalize every row at query time
+     */
+    private String normalizedName;
 
     /**
      * Comments associated with the Story. <br>
@@ -137,9 +176,11 @@ public class Story {
      * Author of the Story. <br>
      *
      * Many Stories can have the same Author <br>
-     * Only one Author per Story is allowed
+     * Only one Author per Story is allowed <br>
+     *
+     * A Journalist's own Stories are listed by the index on ( author, state, id )
      */
-    @ManyToOne(cascade = CascadeType.REFRESH, targetEntity = User.class)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.REFRESH, targetEntity = User.class)
     @JoinColumn(name = "authorID", nullable = false, updatable = false)
     private User authorID;
 
@@ -148,8 +189,15 @@ public class Story {
      *
      * A Story can belong in many Topics at once <br>
      * Many Topics can be associated with the same Story <br>
+     *
+     * The primary key of the join table starts with the Story, a Topic's Stories
+     * are found by the index on ( Topic, Story )
      */
     @ManyToMany(cascade = CascadeType.REFRESH, targetEntity = Topic.class)
+    @JoinTable(name = "story_topics_list",
+            joinColumns = @JoinColumn(name = "stories_list_id"),
+            inverseJoinColumns = @JoinColumn(name = "topics_list_id"),
+            indexes = @Index(name = "story_topic_topic_story", columnList = "topics_list_id, stories_list_id"))
     private final Set<Topic> topicsList = new HashSet<>();
 
     /**
@@ -166,7 +214,7 @@ public class Story {
     public Story(String storyName, User storyAuthor, String storyContent) {
         this.name = storyName;
         this.authorID = storyAuthor;
-        this.content = storyContent;
+        setContent(storyContent);
         this.state = StoryState.CREATED;
     }
 
@@ -190,7 +238,7 @@ public class Story {
         if (storyTopics != null && !storyTopics.isEmpty()) {
             this.name = storyName;
             this.authorID = storyAuthor;
-            this.content = storyContent;
+            setContent(storyContent);
             topicsList.addAll(storyTopics);
             this.state = StoryState.CREATED;
         }
@@ -221,7 +269,7 @@ public class Story {
         if (storyTopic != null) {
             this.name = storyName;
             this.authorID = storyAuthor;
-            this.content = storyContent;
+            setContent(storyContent);
             topicsList.add(storyTopic);
             this.state = StoryState.CREATED;
         }
@@ -241,12 +289,77 @@ public class Story {
     }
 
     /**
-     * Generates the {@link #creationDate creationDate} of the Story <br>
-     * before the Story is persisted in the database.
+     * Generates the {@link #creationDate creationDate} and the normalized name
+     * of the Story before the Story is persisted in the database.
      */
     @PrePersist
     private void generateCreationDate() {
         this.creationDate = Date.from(LocalDateTime.now().toInstant(ZoneOffset.UTC));
+        touch();
+        updateNormalizedName();
+    }
+
+    /**
+     * Stamps the Story as modified now <br>
+     *
+     * Called by every change of the Story, so that the stamp is known before the change is flushed
+     * and is captured by the indexes along with the change itself
+     */
+    private void touch() {
+        this.lastModified = new Date();
+    }
+
+    /**
+     * Recomputes the {@link #normalizedName normalizedName} of the Story before every update. <br>
+     *
+     * The body normalizes its content itself, so that updating a Story does not read its content
+     */
+    @PreUpdate
+    private void updateNormalizedName() {
+        this.normalizedName = TextAnalyzer.normalizeText(this.name);
+    }
+
+    /**
+     * Recomputes the {@link #normalizedName normalizedName}, the {@link #excerpt excerpt}
+     * and the normalized content of the Story from its name and content <br>
+     *
+     * Called when backfilling Stories persisted without them. A Story left without a body has no content to normalize
+     */
+    public void updateSearchColumns() {
+        updateNormalizedName();
+        updateExcerpt();
+
+        if (this.body != null) {
+            this.body.updateSearchColumns();
+        }
+    }
+
+    /**
+     * Generates the {@link #excerpt excerpt} from the content of the Story <br>
+     *
+     * Whitespace is collapsed, and a content longer than {@link #maximumExcerptLength}
+     * is cut at the last word that fits, followed by an ellipsis
+     */
+    private void updateExcerpt() {
+
+        String content = getContent();
+
+        if (content == null) {
+            this.excerpt = null;
+            return;
+        }
+
+        String text = content.strip().replaceAll("\\s+", " ");
+
+        if (text.length() <= maximumExcerptLength) {
+            this.excerpt = text;
+            return;
+        }
+
+        int cut = text.lastIndexOf(' ', maximumExcerptLength - 3);
+
+        this.excerpt = text.substring(0, cut > 0 ? cut : maximumExcerptLength - 3) + "...";
+
     }
 
     // GETTERS
@@ -271,6 +384,16 @@ public class Story {
         return this.creationDate;
     }
 
+    /**
+     * Get the instant the Story was last modified <br>
+     * Can be null for Stories persisted before the stamp was introduced
+     *
+     * @return {@link Story#lastModified} of the Story
+     */
+    public Date getLastModified() {
+        return this.lastModified;
+    }
+
     /**
      * Get the state of the Story <br>
      * Valid states are defined in {@link StoryState}
@@ -294,11 +417,23 @@ public class Story {
     /**
      * Get the content of the Story <br>
      *
-     * @return {@link Story#content} of the Story
-     * @see #maximumContentLength
+     * Reads the body of the Story, if it has not been read yet
+     *
+     * @return Content of the Story, null if the Story has no content
+     * @see StoryBody
      */
     public String getContent() {
-        return this.content;
+        return this.body == null ? null : this.body.getContent();
+    }
+
+    /**
+     * Get the excerpt of the Story <br>
+     *
+     * @return {@link Story#excerpt} of the Story
+     * @see #maximumExcerptLength
+     */
+    public String getExcerpt() {
+        return this.excerpt;
     }
 
     /**
@@ -349,17 +484,28 @@ public class Story {
      */
     public void setName(String newName) {
         this.name = newName;
+        touch();
     }
 
     /**
-     * Updates the Story's content <br><br>
+     * Updates the Story's content, and its excerpt <br><br>
      *
-     * New content cannot be empty, null or be greater than {@link #maximumContentLength}
+     * New content cannot be empty, null or be greater than the maximum length of the {@link StoryBody}
      *
      * @param newContent New content of the Story
      */
     public void setContent(String newContent) {
-        this.content = newContent;
+
+        if (this.body == null) {
+            this.body = new StoryBody(newContent);
+        }
+        else {
+            this.body.setContent(newContent);
+        }
+
+        updateExcerpt();
+        touch();
+
     }
 
     /**
@@ -371,8 +517,9 @@ public class Story {
      * @throws IllegalArgumentException If new rejectionReason does not conform to the constraints mentioned
      */
     public void setRejectionReason(String newReason) {
-        if (newReason != null && !newReason.isBlank() && newReason.length() <= maximumContentLength) {
+        if (newReason != null && !newReason.isBlank() && newReason.length() <= maximumRejectionReasonLength) {
             this.rejectionReason = newReason;
+            touch();
         }
         else {
             throw new IllegalArgumentException("The rejection reason is not valid");
@@ -388,6 +535,7 @@ public class Story {
      */
     public void setState(StoryState newState) {
         this.state = newState;
+        touch();
     }
 
     // UTILITY
@@ -398,6 +546,7 @@ public class Story {
      */
     public void removeRejectionReason() {
         this.rejectionReason = null;
+        touch();
     }
 
     /**
@@ -409,6 +558,7 @@ public class Story {
     public void addTopic(Topic newTopic) {
         if (newTopic != null) {
             topicsList.add(newTopic);
+            touch();
         }
         else {
             throw new IllegalArgumentException("New Topic cannot be null");
@@ -426,7 +576,7 @@ public class Story {
      * @param topic Topic to be removed
      */
     public void removeTopic(Topic topic) {
-        this.topicsList.remove(topic);
+        if (this.topicsList.remove(topic)) { touch(); }
     }
 
     /**
@@ -440,6 +590,7 @@ public class Story {
         if (newTopics != null) {
             this.topicsList.clear();
             this.topicsList.addAll(newTopics);
+            touch();
         }
         else {
             throw new IllegalArgumentException("Updated Topics List cannot be null");
@@ -451,11 +602,12 @@ public class Story {
      * Create a Hash of an instantiated Topic
      *
      * @return A hash of the fields {@link #id}, {@link #authorID},
-     * {@link #creationDate}, {@link #state}
+     * {@link #creationDate}, {@link #state}. The author is hashed by
+     * its username, so that a lazy author is not loaded
      */
     @Override
     public int hashCode() {
-        return Objects.hash(id, authorID, creationDate, state);
+        return Objects.hash(id, authorID == null ? null : authorID.getUsername(), creationDate, state);
     }
 
     /**
@@ -472,7 +624,8 @@ public class Story {
 
         if (obj instanceof Story newStory) {
             return Objects.equals(this.id, newStory.getId())
-                    && Objects.equals(this.authorID, newStory.getAuthor())
+                    && Objects.equals(this.authorID == null ? null : this.authorID.getUsername(),
+                                      newStory.getAuthor() == null ? null : newStory.getAuthor().getUsername())
                     && Objects.equals(this.creationDate, newStory.getCreationDate())
                     && Objects.equals(this.state, newStory.getState());
         }
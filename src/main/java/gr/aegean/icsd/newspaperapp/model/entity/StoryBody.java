@@ -0,0 +1,119 @@
+package gr.aegean.icsd.newspaperapp.model.entity;
+
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
+
+/**
+ * Entity holding the content of a Story, in a table of its own <br>
+ *
+ * Stories reference their body lazily, so that reading a Story does not read its content.
+ * Bodies of Stories read together are loaded by a single query, see {@link #batchSize}
+ *
+ * @see Story#getContent()
+ */
+@Entity
+@Table(name = "story_body")
+@BatchSize(size = StoryBody.batchSize)
+public class StoryBody {
+
+    /**
+     * Number of Story bodies loaded by a single query, once the first of them is accessed
+     */
+    public static final int batchSize = 100;
+
+    /**
+     * Primary Key of the StoryBody Entity <br>
+     *
+     * Assigned from a pooled sequence, so that a body is inserted in the same batch as its Story
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "story_body_sequence")
+    @SequenceGenerator(name = "story_body_sequence", sequenceName = "story_body_sequence", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Sets the maximum allowed length of the Story's content
+     *
+     * @see #content
+     */
+    @Transient
+    private final int maximumContentLength = 100000;
+
+    /**
+     * Sets the minimum allowed length of the Story's content <br>
+     *
+     * Should be scaled upwards when deploying to production
+     *
+     * @see #content
+     */
+    @Transient
+    private final int minimumContentLength = 5;
+
+    /**
+     * The content of the Story, stored compressed by the {@link CompressedTextConverter} <br>
+     *
+     * Content cannot be null, empty, or exceed {@link #maximumContentLength}.
+     * UTF-8 takes up to four bytes per character, hence the length of the column
+     */
+    @Size(min = minimumContentLength, max = maximumContentLength)
+    @NotBlank
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(nullable = false, length = 4 * maximumContentLength)
+    private String content;
+
+    /**
+     * The content of the Story, normalized by the {@link TextAnalyzer} <br>
+     *
+     * Normalization may expand some characters, hence the extra length
+     */
+    @Column(length = 2 * maximumContentLength)
+    private String normalizedContent;
+
+    /**
+     * StoryBody constructor, used by the Story that the content belongs to
+     *
+     * @param content Content of the Story
+     */
+    StoryBody(String content) {
+        this.content = content;
+    }
+
+    public StoryBody() {}
+
+    /**
+     * Recomputes the {@link #normalizedContent normalizedContent} from the content <br>
+     *
+     * Called before the body is persisted or updated, and when backfilling bodies persisted without it
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateSearchColumns() {
+        this.normalizedContent = TextAnalyzer.normalizeText(this.content);
+    }
+
+    // GETTERS
+
+    /**
+     * Get the content of the Story <br>
+     *
+     * @return {@link #content} of the Story
+     */
+    public String getContent() {
+        return this.content;
+    }
+
+    // SETTERS
+
+    /**
+     * Updates the content of the Story <br>
+     *
+     * @param newContent New content of the Story
+     */
+    public void setContent(String newContent) {
+        this.content = newContent;
+    }
+
+}
@@ -0,0 +1,26 @@
+package gr.aegean.icsd.newspaperapp.model.entity;
+
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link StoryState} as its one byte code, see {@link StoryState#getCode()}
+ */
+@Converter
+public class StoryStateConverter implements AttributeConverter<StoryState, Byte> {
+
+
+    @Override
+    public Byte convertToDatabaseColumn(StoryState state) {
+        return state == null ? null : state.getCode();
+    }
+
+
+    @Override
+    public StoryState convertToEntityAttribute(Byte code) {
+        return code == null ? null : StoryState.fromCode(code);
+    }
+
+
+}
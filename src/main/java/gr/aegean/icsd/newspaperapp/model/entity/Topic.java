@@ -1,10 +1,12 @@
 package gr.aegean.icsd.newspaperapp.model.entity;
 
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
 import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -20,14 +22,31 @@ import java.util.Set;
  * @see #Topic(String, User, Topic)
  */
 @Entity
-@Table(name = "topic")
+@Table(name = "topic", indexes = {
+        @Index(name = "topic_state_id", columnList = "state, id"),
+        @Index(name = "topic_author_state_id", columnList = "authorID, state, id"),
+        @Index(name = "topic_last_modified_id", columnList = "lastModified, id")
+})
 public class Topic {
 
     /**
-     * Primary key of the Topic entity
+     * Number of Topics whose Stories, or children Topics, are loaded by a single query,
+     * once the first of them is accessed. Larger than the default page size, so that a page of
+     * Topics loads each association with one query
+     */
+    public static final int associationBatchSize = 50;
+
+    /**
+     * Primary key of the Topic entity <br>
+     *
+     * Assigned from a pooled sequence, in blocks of 50 identifiers per node. <br>
+     *
+     * "Most recent first" lists order Topics by descending ID, which follows creation order only within a node,
+     * see {@link Story#getId()}
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topic_sequence")
+    @SequenceGenerator(name = "topic_sequence", sequenceName = "topic_sequence", allocationSize = 50)
     private Long id;
 
     /**
@@ -41,13 +60,24 @@ public class Topic {
     @Column(updatable = false, nullable = false)
     private Date creationDate;
 
+    /**
+     * Instant the Topic was last created, renamed or changed state <br>
+     *
+     * The Topic index of every instance polls for the Topics modified since it last looked,
+     * by the index on ( lastModified, id ), see {@link Story#getLastModified()}
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastModified;
+
     /**
      * State of the Topic, valid states are declared in
-     * {@link TopicState}
+     * {@link TopicState}, stored as their code. <br>
+     *
+     * Topics are listed by the index on ( state, id ), which follows the Topic workflow
      *
      * @see TopicState
      */
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TopicStateConverter.class)
     @NotNull
     private TopicState state;
 
@@ -69,13 +99,23 @@ public class Topic {
     @Column(unique = true)
     private String name;
 
+    /**
+     * The name of the Topic, normalized by the {@link TextAnalyzer} <br>
+     *
+     * Name searches match against this column, so that the database
+     * does not need to normalize every row at query time
+     */
+    private String normalizedName;
+
     /**
      * Author of the Topic <br>
      *
      * Many Topics can have the same Author <br>
-     * Only one Author per Topic is allowed
+     * Only one Author per Topic is allowed <br>
+     *
+     * A Journalist's own Topics are listed by the index on ( author, state, id )
      */
-    @ManyToOne(cascade = CascadeType.REFRESH, targetEntity = User.class)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.REFRESH, targetEntity = User.class)
     @JoinColumn(name = "authorID", nullable = false, updatable = false)
     private User authorID;
 
@@ -83,16 +123,22 @@ public class Topic {
      * Stories associated with the Topic <br>
      *
      * Many Topics can be associated with the same Story <br>
-     * Many Stories can be associated with the same Topic
+     * Many Stories can be associated with the same Topic <br>
+     *
+     * Loaded for a whole page of Topics at once, see {@link #associationBatchSize}
      */
+    @BatchSize(size = associationBatchSize)
     @ManyToMany(mappedBy = "topicsList", cascade = CascadeType.REFRESH, targetEntity = Story.class)
     private final Set<Story> storiesList = new HashSet<>();
 
     /**
      * List of Children Topics <br>
      *
-     * Each Topic can be a parent to other Topics
+     * Each Topic can be a parent to other Topics <br>
+     *
+     * Loaded for a whole page of Topics at once, see {@link #associationBatchSize}
      */
+    @BatchSize(size = associationBatchSize)
     @OneToMany(mappedBy = "parentTopicID", targetEntity = Topic.class,
             cascade = {CascadeType.REFRESH})
     private final Set<Topic> topicsList = new HashSet<>();
@@ -102,7 +148,7 @@ public class Topic {
      *
      * Each Topic can be associated with a single parent Topic
      */
-    @ManyToOne(cascade = CascadeType.REFRESH, targetEntity = Topic.class)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.REFRESH, targetEntity = Topic.class)
     @JoinColumn(name = "parentID")
     private Topic parentTopicID;
 
@@ -144,12 +190,24 @@ public class Topic {
     public Topic() {}
 
     /**
-     * Generates the {@link #creationDate creationDate} of the Topic <br>
-     * before the Topic is persisted in the database.
+     * Generates the {@link #creationDate creationDate} and the normalized name
+     * of the Topic before the Topic is persisted in the database.
      */
     @PrePersist
     private void generateCreationDate() {
         this.creationDate = Date.from(LocalDateTime.now().toInstant(ZoneOffset.UTC));
+        this.lastModified = new Date();
+        updateSearchColumns();
+    }
+
+    /**
+     * Recomputes the {@link #normalizedName normalizedName} of the Topic from its name <br>
+     *
+     * Called before every update of the Topic, and when backfilling Topics persisted without it
+     */
+    @PreUpdate
+    public void updateSearchColumns() {
+        this.normalizedName = TextAnalyzer.normalizeText(this.name);
     }
 
     /**
@@ -189,6 +247,14 @@ public class Topic {
      */
     public Date getCreationDate() { return this.creationDate; }
 
+    /**
+     * Get the instant the Topic was last modified <br>
+     * Can be null for Topics persisted before the stamp was introduced
+     *
+     * @return {@link Topic#lastModified} of the Topic
+     */
+    public Date getLastModified() { return this.lastModified; }
+
     /**
      * Get the state of the Topic <br>
      * Valid states are defined in {@link TopicState}
@@ -247,6 +313,7 @@ public class Topic {
      */
     public void setName(String newName) {
         this.name = newName;
+        this.lastModified = new Date();
     }
 
     /**
@@ -258,6 +325,7 @@ public class Topic {
      */
     public void setState(TopicState newState) {
         this.state = newState;
+        this.lastModified = new Date();
     }
 
     // UTILITY
@@ -347,11 +415,12 @@ public class Topic {
      * Create a Hash of an instantiated Topic
      *
      * @return A hash of the fields {@link #id}, {@link #authorID},
-     * {@link #creationDate}, {@link #state}
+     * {@link #creationDate}, {@link #state}. The author is hashed by
+     * its username, so that a lazy author is not loaded
      */
     @Override
     public int hashCode() {
-        return Objects.hash(id, authorID, creationDate, state);
+        return Objects.hash(id, authorID == null ? null : authorID.getUsername(), creationDate, state);
     }
 
     /**
@@ -368,7 +437,8 @@ public class Topic {
 
         if (obj instanceof Topic newTopic) {
             return Objects.equals(this.id, newTopic.getId())
-                    && Objects.equals(this.authorID, newTopic.getAuthor())
+                    && Objects.equals(this.authorID == null ? null : this.authorID.getUsername(),
+                                      newTopic.getAuthor() == null ? null : newTopic.getAuthor().getUsername())
                     && Objects.equals(this.creationDate, newTopic.getCreationDate())
                     && Objects.equals(this.state, newTopic.getState());
         }
@@ -0,0 +1,26 @@
+package gr.aegean.icsd.newspaperapp.model.entity;
+
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link TopicState} as its one byte code, see {@link TopicState#getCode()}
+ */
+@Converter
+public class TopicStateConverter implements AttributeConverter<TopicState, Byte> {
+
+
+    @Override
+    public Byte convertToDatabaseColumn(TopicState state) {
+        return state == null ? null : state.getCode();
+    }
+
+
+    @Override
+    public TopicState convertToEntityAttribute(Byte code) {
+        return code == null ? null : TopicState.fromCode(code);
+    }
+
+
+}
@@ -0,0 +1,112 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Position in the Comments of a Story, for keyset pagination. <br>
+ *
+ * Comments are listed most recent first, by creation date and then by ID, so that Comments created
+ * at the same instant still have a fixed position. IDs are assigned in blocks per node, so among Comments
+ * created at the same instant the ID only fixes a position, not which of them came first. A cursor points at a Comment by both, and the page
+ * after or before it is read by seeking the (story, creation date, ID) index past the Comment.
+ * Clients receive cursors as opaque strings.
+ *
+ * @param creationDate Creation date of the Comment
+ * @param id ID of the Comment
+ * @param backward Whether the page before the Comment is requested, instead of the page after it
+ */
+public record CommentCursor(Date creationDate, long id, boolean backward) {
+
+
+    /**
+     * Sort of the Comments of a Story, most recent first
+     */
+    public static final Sort newestFirst = Sort.by(Sort.Direction.DESC, "creationDate", "id");
+
+    /**
+     * Comparator of the Comments of a Story, agrees with {@link #newestFirst}
+     */
+    public static final Comparator<Comment> newestCommentFirst =
+            Comparator.comparing(Comment::getCreationDate).thenComparing(Comment::getId).reversed();
+
+
+
+    /**
+     * Create a cursor to the page after a Comment
+     *
+     * @param comment Last Comment of the current page
+     *
+     * @return The cursor
+     */
+    public static CommentCursor after(Comment comment) {
+        return new CommentCursor(comment.getCreationDate(), comment.getId(), false);
+    }
+
+
+
+    /**
+     * Create a cursor to the page before a Comment
+     *
+     * @param comment First Comment of the current page
+     *
+     * @return The cursor
+     */
+    public static CommentCursor before(Comment comment) {
+        return new CommentCursor(comment.getCreationDate(), comment.getId(), true);
+    }
+
+
+
+    /**
+     * Encode the cursor as an opaque string
+     *
+     * @return The encoded cursor
+     */
+    public String encode() {
+
+        String position = (backward ? "b" : "f") + ":" + creationDate.getTime() + ":" + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+
+    }
+
+
+
+    /**
+     * Decode a cursor received from a client
+     *
+     * @param cursor Encoded cursor, empty for the first page
+     *
+     * @return The cursor, null for the first page
+     *
+     * @throws IllegalArgumentException If the cursor is damaged
+     */
+    public static CommentCursor decode(String cursor) {
+
+        if (cursor == null || cursor.isBlank()) { return null; }
+
+        try {
+
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+
+            if (position.length != 3) {
+                throw new IllegalArgumentException("Cursor does not belong to this list");
+            }
+
+            return new CommentCursor(new Date(Long.parseLong(position[1])), Long.parseLong(position[2]),
+                    position[0].equals("b"));
+        }
+        catch (IllegalArgumentException invalidCursor) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, invalidCursor);
+        }
+
+    }
+
+
+}
@@ -4,32 +4,82 @@ import gr.aegean.icsd.newspaperapp.model.entity.Comment;
 import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, JpaSpecificationExecutor<Comment> {
+
+    // The find...Own queries return a Journalist's own Comments outside the provided states,
+    // and are merged with the Comments in those states by JournalistPages
+
+    // Listings select a CommentView of each Comment instead of the entity,
+    // the Story ID and the author's username are read from the foreign keys, without joining their tables
+    String commentView = "SELECT new gr.aegean.icsd.newspaperapp.model.repository.CommentView" +
+            "(comment.id, comment.creationDate, comment.state, comment.content, " +
+            "comment.storyID.id, comment.authorID.username) FROM Comment comment ";
 
 
     // -- Find Comments By Story ID -- //
-    @Query("SELECT comments FROM Story story " +
-            "JOIN story.commentsList comments " +
-            "WHERE story.id = :id " +
-            "AND comments.state IN :state " +
-            "ORDER BY comments.creationDate DESC")
-    Page<Comment> findByStoryID(@Param("id") Long id, @Param("state") Set<CommentState> state, Pageable pageable);
-
-
-    @Query("SELECT comments FROM Story story " +
-            "JOIN story.commentsList comments " +
-            "WHERE story.id = :id " +
-            "AND (comments.state IN :state OR comments.authorID.username = :author) " +
-            "ORDER BY comments.creationDate DESC")
-    Page<Comment> findByStoryIDForJournalist(@Param("id") Long id, @Param("state") Set<CommentState> state,
+    @Query(commentView +
+            "WHERE comment.storyID.id = :id " +
+            "AND comment.state IN :state " +
+            "ORDER BY comment.creationDate DESC, comment.id DESC")
+    Page<CommentView> findByStoryID(@Param("id") Long id, @Param("state") Set<CommentState> state, Pageable pageable);
+
+
+    @Query(commentView +
+            "WHERE comment.storyID.id = :id " +
+            "AND comment.authorID.username = :author AND comment.state NOT IN :state " +
+            "ORDER BY comment.creationDate DESC, comment.id DESC")
+    Page<CommentView> findOwnByStoryID(@Param("id") Long id, @Param("state") Set<CommentState> state,
+                                       @Param("author") String author, Pageable pageable);
+
+
+    // -- Find Comments By Story ID without counting them -- //
+    @Query(commentView +
+            "WHERE comment.storyID.id = :id " +
+            "AND comment.state IN :state " +
+            "ORDER BY comment.creationDate DESC, comment.id DESC")
+    Slice<CommentView> findSliceByStoryID(@Param("id") Long id, @Param("state") Set<CommentState> state,
+                                          Pageable pageable);
+
+
+    @Query(commentView +
+            "WHERE comment.storyID.id = :id " +
+            "AND comment.authorID.username = :author AND comment.state NOT IN :state " +
+            "ORDER BY comment.creationDate DESC, comment.id DESC")
+    Slice<CommentView> findOwnSliceByStoryID(@Param("id") Long id, @Param("state") Set<CommentState> state,
                                              @Param("author") String author, Pageable pageable);
 
+
+    // -- Count Comments, as ( story ID, state, author, count ) rows -- //
+    @Query("SELECT comment.storyID.id, comment.state, author.username, COUNT(comment) FROM Comment comment " +
+            "LEFT JOIN comment.authorID author " +
+            "GROUP BY comment.storyID.id, comment.state, author.username")
+    List<Object[]> countByStoryStateAndAuthor();
+
+
+    // -- Find Comments By Content -- //
+    // The LIKE wildcards of the searched text are escaped, so that they only match themselves
+    @Query(commentView +
+            "WHERE LOWER(comment.content) LIKE LOWER(CONCAT('%', :#{escape(#content)}, '%')) ESCAPE :#{escapeCharacter()} AND comment.state IN :state")
+    Page<CommentView> findByContentContainingIgnoreCaseAndStateIn(@Param("content") String content,
+                                                                  @Param("state") Set<CommentState> state,
+                                                                  Pageable pageable);
+
+
+    @Query(commentView +
+            "WHERE LOWER(comment.content) LIKE LOWER(CONCAT('%', :#{escape(#content)}, '%')) ESCAPE :#{escapeCharacter()} " +
+            "AND comment.authorID.username = :author AND comment.state NOT IN :state")
+    Page<CommentView> findOwnByContent(@Param("content") String content, @Param("state") Set<CommentState> state,
+                                       @Param("author") String author, Pageable pageable);
+
 }
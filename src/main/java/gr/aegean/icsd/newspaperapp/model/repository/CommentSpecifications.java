@@ -0,0 +1,92 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Builds the keyset queries of the Comments of a Story. <br>
+ *
+ * Every query starts with the Story, so that the (story, creation date, ID) index of the Comments
+ * answers both the match and the order. As with {@link JournalistPages}, a Journalist's Comments are read
+ * as two branches: the Comments in the allowed states, and the Journalist's own Comments outside of them.
+ */
+public final class CommentSpecifications {
+
+
+    private CommentSpecifications() {}
+
+
+
+    /**
+     * Create the Specification of the Comments of a Story that are in the provided states
+     *
+     * @param storyID ID of the Story
+     * @param states Provided states
+     *
+     * @return The Specification
+     */
+    public static Specification<Comment> ofStory(long storyID, Set<CommentState> states) {
+
+        return (root, query, builder) -> builder.and(
+                builder.equal(root.get("storyID").get("id"), storyID),
+                root.get("state").in(states));
+
+    }
+
+
+
+    /**
+     * Create the Specification of an author's own Comments of a Story that are not in the provided states
+     *
+     * @param storyID ID of the Story
+     * @param states Provided states
+     * @param author Username of the author
+     *
+     * @return The Specification
+     */
+    public static Specification<Comment> ownOfStory(long storyID, Set<CommentState> states, String author) {
+
+        return (root, query, builder) -> builder.and(
+                builder.equal(root.get("storyID").get("id"), storyID),
+                builder.equal(root.get("authorID").get("username"), author),
+                builder.not(root.get("state").in(states)));
+
+    }
+
+
+
+    /**
+     * Create the Specification of the Comments past a cursor, in the cursor's direction
+     *
+     * @param cursor Provided cursor
+     *
+     * @return The Specification
+     */
+    public static Specification<Comment> beyond(CommentCursor cursor) {
+
+        return (root, query, builder) -> {
+
+            Path<Date> creationDate = root.get("creationDate");
+            Path<Long> id = root.get("id");
+
+            Predicate pastDate = cursor.backward()
+                    ? builder.greaterThan(creationDate, cursor.creationDate())
+                    : builder.lessThan(creationDate, cursor.creationDate());
+
+            Predicate pastID = cursor.backward()
+                    ? builder.greaterThan(id, cursor.id())
+                    : builder.lessThan(id, cursor.id());
+
+            return builder.or(pastDate, builder.and(builder.equal(creationDate, cursor.creationDate()), pastID));
+        };
+
+    }
+
+
+}
@@ -0,0 +1,37 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+
+import java.util.Date;
+
+/**
+ * Read-only view of a Comment, selected by the listings instead of Comment entities,
+ * see {@link CommentRepository#commentView}
+ *
+ * @param id ID of the Comment
+ * @param creationDate Date the Comment was created
+ * @param state State of the Comment
+ * @param content Content of the Comment
+ * @param storyID ID of the Story the Comment belongs to
+ * @param authorID Username of the Comment's author, null if it was written by a Visitor
+ */
+public record CommentView(Long id, Date creationDate, CommentState state, String content, Long storyID,
+                          String authorID) {
+
+
+    /**
+     * Create the view of a Comment entity that was already read
+     *
+     * @param comment Provided Comment
+     *
+     * @return View of the Comment
+     */
+    public static CommentView of(Comment comment) {
+        return new CommentView(comment.getId(), comment.getCreationDate(), comment.getState(), comment.getContent(),
+                comment.getStory().getId(), comment.getAuthor().map(User::getUsername).orElse(null));
+    }
+
+
+}
@@ -0,0 +1,14 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import java.util.List;
+
+/**
+ * A page of Comments read with a {@link CommentCursor}. <br>
+ *
+ * Like a {@link StoryWindow}, it only knows whether there are Comments after and before it
+ *
+ * @param comments Comments of the window, most recent first
+ * @param next Cursor to the following window, null if this is the last window
+ * @param previous Cursor to the preceding window, null if this is the first window
+ */
+public record CommentWindow(List<CommentView> comments, CommentCursor next, CommentCursor previous) {}
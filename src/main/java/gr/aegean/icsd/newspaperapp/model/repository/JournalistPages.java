@@ -0,0 +1,220 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import org.springframework.data.domain.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pages through the entities visible to a Journalist. <br>
+ *
+ * A Journalist sees the entities in the allowed states, along with their own entities in any state.
+ * A single query filtering by ( author = :author OR state IN :state ) cannot be answered from one index,
+ * so the database scans the whole table instead. The entities are read by two queries instead, each
+ * answered by its own index: the entities in the allowed states, and the Journalist's own entities
+ * outside of them. <br>
+ *
+ * No entity is returned by both queries. The Journalist's own entities are few, so they are read up to the end
+ * of the requested page. Each of them may precede the page, so the entities in the allowed states are read
+ * from the page's offset minus the number of own entities read, and both are merged in sort order.
+ * The total is the sum of both totals. Both queries must be sorted the same way. <br>
+ *
+ * Slices are merged the same way, without the totals.
+ */
+public final class JournalistPages {
+
+
+    private JournalistPages() {}
+
+
+
+    /**
+     * Merge a page out of the entities in the allowed states and the Journalist's own entities
+     *
+     * @param allowedEntities Query of the entities in the allowed states
+     * @param ownEntities Query of the Journalist's own entities that are not in the allowed states
+     * @param sort Order applied to both queries, after any order of the queries themselves
+     * @param order Complete order of both queries, the merged page follows it
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of the entities visible to the Journalist
+     */
+    public static <T> Page<T> merge(Function<Pageable, Page<T>> allowedEntities,
+                                    Function<Pageable, Page<T>> ownEntities,
+                                    Sort sort, Comparator<T> order, Pageable pageable) {
+
+        Page<T> own = ownEntities.apply(firstRows(sort, pageable));
+
+        Pageable allowedRows = allowedRows(sort, pageable, own.getNumberOfElements());
+        Page<T> allowed = allowedEntities.apply(allowedRows);
+
+        // Past the last entity in the allowed states, only own entities follow it
+        long allowedBefore = allowed.hasContent()
+                ? allowedRows.getOffset()
+                : Math.min(allowedRows.getOffset(), allowed.getTotalElements());
+
+        List<T> merged = mergeRows(allowed.getContent(), own.getContent(), order);
+
+        return new PageImpl<>(pageRows(merged, allowedBefore, pageable), pageable,
+                allowed.getTotalElements() + own.getTotalElements());
+
+    }
+
+
+
+    /**
+     * Merge a slice out of the entities in the allowed states and the Journalist's own entities,
+     * without counting either of them
+     *
+     * @param allowedEntities Query of the entities in the allowed states
+     * @param ownEntities Query of the Journalist's own entities that are not in the allowed states
+     * @param sort Order applied to both queries, after any order of the queries themselves
+     * @param order Complete order of both queries, the merged slice follows it
+     * @param pageable Details of the requested Slice
+     *
+     * @return Slice of the entities visible to the Journalist
+     */
+    public static <T> Slice<T> mergeSlice(Function<Pageable, Slice<T>> allowedEntities,
+                                          Function<Pageable, Slice<T>> ownEntities,
+                                          Sort sort, Comparator<T> order, Pageable pageable) {
+
+        Slice<T> own = ownEntities.apply(firstRows(sort, pageable));
+
+        Pageable allowedRows = allowedRows(sort, pageable, own.getNumberOfElements());
+        Slice<T> allowed = allowedEntities.apply(allowedRows);
+
+        // A slice is not counted, so when the allowed entities end before the skipped rows
+        // their number is only known by reading them from the start
+        if (!allowed.hasContent() && allowedRows.getOffset() > 0) {
+            allowedRows = firstRows(sort, pageable);
+            allowed = allowedEntities.apply(allowedRows);
+        }
+
+        long allowedBefore = allowed.hasContent() ? allowedRows.getOffset() : 0;
+
+        List<T> merged = mergeRows(allowed.getContent(), own.getContent(), order);
+        List<T> slice = pageRows(merged, allowedBefore, pageable);
+
+        // Either query going on past its rows means the merged list goes on past the slice,
+        // both queries read up to the end of the slice
+        boolean hasNext = merged.size() > pageable.getOffset() - allowedBefore + slice.size()
+                || allowed.hasNext() || own.hasNext();
+
+        return new SliceImpl<>(slice, pageable, hasNext);
+
+    }
+
+
+
+    /**
+     * The own entities contribute at most every row up to the end of the requested page
+     */
+    private static Pageable firstRows(Sort sort, Pageable pageable) {
+
+        int window = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+
+        return PageRequest.of(0, window, sort);
+
+    }
+
+
+
+    /**
+     * The entities in the allowed states that precede the page are skipped by the database,
+     * except for as many as the own entities read, any of which may precede the page instead
+     */
+    private static Pageable allowedRows(Sort sort, Pageable pageable, int ownRows) {
+
+        long skipped = Math.max(0, pageable.getOffset() - ownRows);
+        int window = (int) Math.min(pageable.getOffset() + pageable.getPageSize() - skipped, Integer.MAX_VALUE);
+
+        return new OffsetPageable(skipped, window, sort);
+
+    }
+
+
+
+    /**
+     * Cut the requested page out of merged rows
+     *
+     * @param merged Rows of both queries, merged in sort order
+     * @param allowedBefore Number of entities in the allowed states that precede the merged rows
+     * @param pageable Details of the requested page
+     *
+     * @return Rows of the requested page
+     */
+    private static <T> List<T> pageRows(List<T> merged, long allowedBefore, Pageable pageable) {
+
+        // Every merged row from the first one in the allowed states on is preceded by exactly allowedBefore
+        // rows that were not read, the own rows before it precede the requested page whenever any were skipped
+        int pageStart = (int) Math.min(pageable.getOffset() - allowedBefore, merged.size());
+        int pageEnd = Math.min(pageStart + pageable.getPageSize(), merged.size());
+
+        return merged.subList(pageStart, pageEnd);
+
+    }
+
+
+
+    private static <T> List<T> mergeRows(List<T> allowedRows, List<T> ownRows, Comparator<T> order) {
+
+        List<T> merged = new ArrayList<>(allowedRows.size() + ownRows.size());
+
+        int nextAllowed = 0;
+        int nextOwn = 0;
+
+        while (nextAllowed < allowedRows.size() || nextOwn < ownRows.size()) {
+
+            if (nextOwn >= ownRows.size() || (nextAllowed < allowedRows.size()
+                    && order.compare(allowedRows.get(nextAllowed), ownRows.get(nextOwn)) <= 0)) {
+                merged.add(allowedRows.get(nextAllowed++));
+            }
+            else {
+                merged.add(ownRows.get(nextOwn++));
+            }
+        }
+
+        return merged;
+
+    }
+
+
+
+
+    /**
+     * Rows from any offset, which a {@link PageRequest} cannot express unless the offset is a multiple of the size
+     */
+    private record OffsetPageable(long offset, int size, Sort sort) implements Pageable {
+
+        @Override
+        public int getPageNumber() { return (int) (offset / size); }
+
+        @Override
+        public int getPageSize() { return size; }
+
+        @Override
+        public long getOffset() { return offset; }
+
+        @Override
+        public Sort getSort() { return sort; }
+
+        @Override
+        public Pageable next() { return new OffsetPageable(offset + size, size, sort); }
+
+        @Override
+        public Pageable previousOrFirst() { return new OffsetPageable(Math.max(0, offset - size), size, sort); }
+
+        @Override
+        public Pageable first() { return new OffsetPageable(0, size, sort); }
+
+        @Override
+        public Pageable withPage(int pageNumber) { return new OffsetPageable((long) pageNumber * size, size, sort); }
+
+        @Override
+        public boolean hasPrevious() { return offset > 0; }
+
+    }
+
+}
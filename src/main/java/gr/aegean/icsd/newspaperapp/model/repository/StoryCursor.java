@@ -0,0 +1,153 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in a list of Stories, for keyset pagination. <br>
+ *
+ * A cursor points at a Story by its sort key, so that the page after or before it is read by seeking
+ * the index past the Story, instead of skipping every Story before the page. Every page then costs
+ * the same, however deep it is. Clients receive cursors as opaque strings.
+ *
+ * @param order Order of the list
+ * @param state State of the Story, only part of the sort key in {@link Order#WORKFLOW} order
+ * @param id ID of the Story
+ * @param backward Whether the page before the Story is requested, instead of the page after it
+ */
+public record StoryCursor(Order order, StoryState state, long id, boolean backward) {
+
+
+    /**
+     * Orders a list of Stories can be paged through with a cursor
+     */
+    public enum Order {
+
+        /**
+         * By state as the Story workflow goes, then most recent first by descending ID
+         *
+         * @see Story#getId()
+         */
+        WORKFLOW(Sort.by(Sort.Order.asc("state"), Sort.Order.desc("id")),
+                Comparator.comparing(Story::getState).thenComparing(Story::getId, Comparator.reverseOrder())),
+
+        /**
+         * Most recent first, by descending ID rather than by creation date. Stories created on different
+         * nodes may be listed out of creation order, see {@link Story#getId()}. The creation date filters
+         * of a list still hold exactly
+         */
+        NEWEST(Sort.by(Sort.Order.desc("id")),
+                Comparator.comparing(Story::getId, Comparator.reverseOrder()));
+
+
+        private final Sort sort;
+
+        private final Comparator<Story> comparator;
+
+
+        Order(Sort sort, Comparator<Story> comparator) {
+            this.sort = sort;
+            this.comparator = comparator;
+        }
+
+
+        /**
+         * @return Sort of the order, ending with the ID so that every Story has a unique position
+         */
+        public Sort sort() {
+            return sort;
+        }
+
+
+        /**
+         * @return Comparator of the order, agrees with {@link #sort()}
+         */
+        public Comparator<Story> comparator() {
+            return comparator;
+        }
+
+    }
+
+
+
+    /**
+     * Create a cursor to the page after a Story
+     *
+     * @param order Order of the list
+     * @param story Last Story of the current page
+     *
+     * @return The cursor
+     */
+    public static StoryCursor after(Order order, Story story) {
+        return new StoryCursor(order, story.getState(), story.getId(), false);
+    }
+
+
+
+    /**
+     * Create a cursor to the page before a Story
+     *
+     * @param order Order of the list
+     * @param story First Story of the current page
+     *
+     * @return The cursor
+     */
+    public static StoryCursor before(Order order, Story story) {
+        return new StoryCursor(order, story.getState(), story.getId(), true);
+    }
+
+
+
+    /**
+     * Encode the cursor as an opaque string
+     *
+     * @return The encoded cursor
+     */
+    public String encode() {
+
+        String position = order.name() + ":" + (backward ? "b" : "f") + ":" + state.getCode() + ":" + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+
+    }
+
+
+
+    /**
+     * Decode a cursor received from a client
+     *
+     * @param cursor Encoded cursor, empty for the first page
+     * @param order Order of the list the cursor must belong to
+     *
+     * @return The cursor, null for the first page
+     *
+     * @throws IllegalArgumentException If the cursor is damaged or belongs to a list of another order
+     */
+    public static StoryCursor decode(String cursor, Order order) {
+
+        if (cursor == null || cursor.isBlank()) { return null; }
+
+        try {
+
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+
+            if (position.length != 4 || !position[0].equals(order.name())) {
+                throw new IllegalArgumentException("Cursor does not belong to this list");
+            }
+
+            return new StoryCursor(order, StoryState.fromCode(Byte.parseByte(position[2])),
+                    Long.parseLong(position[3]), position[1].equals("b"));
+        }
+        catch (IllegalArgumentException invalidCursor) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, invalidCursor);
+        }
+
+    }
+
+
+}
@@ -0,0 +1,22 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Aggregate queries over Stories, implemented in {@link StoryFacetRepositoryImpl}
+ */
+public interface StoryFacetRepository {
+
+
+    /**
+     * Count the Stories matching a Specification per state, per Topic and per creation month
+     *
+     * @param specification Specification of the matching Stories
+     *
+     * @return The counts
+     */
+    StoryFacets countFacets(Specification<Story> specification);
+
+
+}
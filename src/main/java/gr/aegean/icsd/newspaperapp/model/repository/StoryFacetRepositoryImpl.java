@@ -0,0 +1,103 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.*;
+
+/**
+ * Computes the facets of Stories with grouped aggregate queries, instead of loading the matching Stories. <br>
+ *
+ * The state and the creation month of a Story are single valued, so both are counted by one query grouped
+ * by state and month. A Story may have many Topics, so Topics are counted by a second query over the join.
+ */
+public class StoryFacetRepositoryImpl implements StoryFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+
+    @Override
+    public StoryFacets countFacets(Specification<Story> specification) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        Map<StoryState, Long> states = new EnumMap<>(StoryState.class);
+        Map<String, Long> months = new TreeMap<>();
+
+        for (Tuple row : countByStateAndMonth(builder, specification)) {
+
+            long count = row.get(3, Long.class);
+            String month = String.format("%04d-%02d", row.get(1, Integer.class), row.get(2, Integer.class));
+
+            states.merge(row.get(0, StoryState.class), count, Long::sum);
+            months.merge(month, count, Long::sum);
+        }
+
+        List<StoryFacets.TopicCount> topics = countByTopic(builder, specification).stream()
+                .map(row -> new StoryFacets.TopicCount(row.get(0, Long.class), row.get(1, String.class), row.get(2, Long.class)))
+                .toList();
+
+        return new StoryFacets(states, topics, months);
+
+    }
+
+
+
+    private List<Tuple> countByStateAndMonth(CriteriaBuilder builder, Specification<Story> specification) {
+
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Story> story = query.from(Story.class);
+
+        Expression<Integer> year = builder.function("year", Integer.class, story.get("creationDate"));
+        Expression<Integer> month = builder.function("month", Integer.class, story.get("creationDate"));
+
+        query.multiselect(story.get("state"), year, month, builder.countDistinct(story))
+                .groupBy(story.get("state"), year, month);
+
+        restrict(query, story, builder, specification);
+
+        return entityManager.createQuery(query).getResultList();
+
+    }
+
+
+
+    private List<Tuple> countByTopic(CriteriaBuilder builder, Specification<Story> specification) {
+
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Story> story = query.from(Story.class);
+        Join<Story, Topic> topic = story.join("topicsList");
+
+        Expression<Long> count = builder.countDistinct(story);
+
+        query.multiselect(topic.get("id"), topic.get("name"), count)
+                .groupBy(topic.get("id"), topic.get("name"))
+                .orderBy(builder.desc(count), builder.asc(topic.get("id")));
+
+        restrict(query, story, builder, specification);
+
+        return entityManager.createQuery(query).getResultList();
+
+    }
+
+
+
+    private void restrict(CriteriaQuery<Tuple> query, Root<Story> story, CriteriaBuilder builder,
+                          Specification<Story> specification) {
+
+        Predicate predicate = specification.toPredicate(story, query, builder);
+
+        if (predicate != null) { query.where(predicate); }
+
+    }
+
+
+}
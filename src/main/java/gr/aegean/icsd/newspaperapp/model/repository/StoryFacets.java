@@ -0,0 +1,28 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of Stories matching a search, broken down per state, per Topic and per creation month
+ *
+ * @param states Number of matching Stories in each state
+ * @param topics Number of matching Stories associated with each Topic, largest first
+ * @param months Number of matching Stories created in each month, keyed as yyyy-MM, in chronological order
+ */
+public record StoryFacets(Map<StoryState, Long> states, List<TopicCount> topics, Map<String, Long> months) {
+
+
+    /**
+     * Number of matching Stories associated with a Topic
+     *
+     * @param id ID of the Topic
+     * @param name Name of the Topic
+     * @param count Number of matching Stories
+     */
+    public record TopicCount(long id, String name, long count) {}
+
+
+}
@@ -0,0 +1,52 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+import java.util.Date;
+
+/**
+ * Criteria of a Story filter, every criterion is optional and a null criterion is ignored. <br>
+ *
+ * A Story matches the filter if it matches every provided criterion
+ *
+ * @param name Text the Story's name must contain
+ * @param content Text the Story's content must contain
+ * @param minDate Earliest creation date of the Story, inclusive
+ * @param maxDate Latest creation date of the Story, inclusive
+ * @param state State of the Story
+ * @param topicID ID of a Topic the Story must be associated with
+ */
+public record StoryFilter(String name, String content, Date minDate, Date maxDate, StoryState state, Long topicID) {
+
+
+    /**
+     * Check whether no criterion has been provided
+     *
+     * @return True if every Story matches the filter
+     */
+    public boolean isEmpty() {
+        return (name == null || name.isBlank()) && (content == null || content.isBlank())
+                && minDate == null && maxDate == null && state == null && topicID == null;
+    }
+
+
+    /**
+     * Estimate the fraction of the Stories left by the indexed criteria, before the name and content are matched. <br>
+     *
+     * A Topic holds a small share of the Stories, and a date range about half of them.
+     * The state is not counted, most Stories share the same few states
+     *
+     * @return Estimated fraction of the Stories, 1 for every Story
+     */
+    public double selectivity() {
+
+        double selectivity = 1;
+
+        if (topicID != null) { selectivity *= 0.1; }
+        if (minDate != null || maxDate != null) { selectivity *= 0.5; }
+
+        return selectivity;
+    }
+
+
+}
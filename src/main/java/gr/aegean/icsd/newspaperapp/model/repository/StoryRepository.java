@@ -4,132 +4,170 @@ import gr.aegean.icsd.newspaperapp.model.entity.Story;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface StoryRepository extends JpaRepository<Story, Long> {
+public interface StoryRepository extends JpaRepository<Story, Long>, JpaSpecificationExecutor<Story>,
+        StoryFacetRepository {
 
+    // The find...Own queries return a Journalist's own Stories outside the provided states,
+    // and are merged with the Stories in those states by JournalistPages
 
-    // -- Find Stories By Name -- //
-    Page<Story> findByNameContainingIgnoreCaseAndStateIn(String name,
-                                                         Set<StoryState> state,
-                                                         Pageable pageable);
+    // Listings select a StoryView of each Story instead of the entity, with the excerpt instead of the content,
+    // the author's username is read from the foreign key, without joining the user table
+    String storyView = "SELECT new gr.aegean.icsd.newspaperapp.model.repository.StoryView" +
+            "(s.id, s.creationDate, s.state, s.name, s.rejectionReason, s.excerpt, s.authorID.username) FROM Story s ";
 
-    @Query("SELECT s FROM Story s " +
-            "WHERE s.name LIKE CONCAT('%', :name, '%') " +
-            "AND (s.authorID.username = :author OR s.state IN :state)")
-    Page<Story> findByNameForJournalist(@Param("name") String name,
-                                       @Param("state") Set<StoryState> state,
-                                       @Param("author") String authorID,
-                                       Pageable pageable);
 
+    // -- Find Stories By ID, only those in the listed states that are visible under the provided rule -- //
+    @Query(storyView + "WHERE s.id IN :ids AND s.state IN :listed " +
+            "AND (s.state IN :state OR s.authorID.username = :author)")
+    List<StoryView> findVisibleViewsByIdIn(@Param("ids") Collection<Long> ids,
+                                           @Param("listed") Set<StoryState> listedStates,
+                                           @Param("state") Set<StoryState> state,
+                                           @Param("author") String author);
 
-    // -- Find Stories By Content -- //
-    Page<Story> findByContentContainingIgnoreCaseAndStateIn(String content,
-                                                            Set<StoryState> state,
-                                                            Pageable pageable);
 
-    @Query("SELECT s FROM Story s " +
-            "WHERE s.content LIKE CONCAT('%', :content, '%') " +
-            "AND (s.authorID.username = :author OR s.state IN :state)")
-    Page<Story> findByContentForJournalist(@Param("content") String content,
-                                          @Param("state") Set<StoryState> state,
-                                          @Param("author") String authorID,
-                                          Pageable pageable);
+    // -- Find a visible Story By ID, along with its whole content, null for a Story left without a body -- //
+    @Query("SELECT new gr.aegean.icsd.newspaperapp.model.repository.StoryView" +
+            "(s.id, s.creationDate, s.state, s.name, s.rejectionReason, s.excerpt, body.content, s.authorID.username) " +
+            "FROM Story s LEFT JOIN s.body body " +
+            "WHERE s.id = :id AND (s.state IN :state OR s.authorID.username = :author)")
+    Optional<StoryView> findVisibleByID(@Param("id") Long id,
+                                        @Param("state") Set<StoryState> state,
+                                        @Param("author") String author);
 
 
-    // -- Find All Stories -- //
-    @Query("SELECT s FROM Story s " +
-            "WHERE s.state IN :state " +
-            "ORDER BY CASE s.state " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.CREATED THEN 1 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.SUBMITTED THEN 2 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.APPROVED THEN 3 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.PUBLISHED THEN 4 " +
-            "END")
-    Page<Story> findAllStories(@Param("state") Set<StoryState> state,
-                               Pageable pageable);
+    // -- Find the whole content of Stories By ID, as ( Story ID, content ) pairs -- //
+    @Query("SELECT s.id, body.content FROM Story s LEFT JOIN s.body body WHERE s.id IN :ids")
+    List<Object[]> findContentsByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT s FROM Story s " +
-            "WHERE s.authorID.username = :author OR s.state IN :state " +
-            "ORDER BY CASE s.state " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.CREATED THEN 1 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.SUBMITTED THEN 2 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.APPROVED THEN 3 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.StoryState.PUBLISHED THEN 4 " +
-            "END")
-    Page<Story> findAllStoriesForJournalist(@Param("state") Set<StoryState> state,
-                                            @Param("author") String authorID,
-                                            Pageable pageable);
 
+    // -- Find the greatest Story ID, null when there are no Stories -- //
+    @Query("SELECT MAX(s.id) FROM Story s")
+    Long findMaxID();
 
 
-    // -- Find Stories By Name And Content-- //
+    // -- Find the Stories modified after a position, in the order of ( modification stamp, ID ) -- //
     @Query("SELECT s FROM Story s " +
-            "WHERE s.name LIKE CONCAT('%', :name, '%') " +
-            "AND s.content LIKE CONCAT('%', :content, '%')" +
-            "AND s.state IN :state")
-    Page<Story> findByNameAndContent(@Param("name") String name,
-                                      @Param("state") Set<StoryState> state,
-                                      @Param("content") String content,
+            "WHERE s.lastModified >= :stamp AND (s.lastModified > :stamp OR s.id > :id) " +
+            "ORDER BY s.lastModified, s.id")
+    List<Story> findModifiedAfter(@Param("stamp") Date stamp, @Param("id") Long id, Pageable pageable);
+
+
+    // -- Find the latest modification stamp of any Story, null when there are no Stories -- //
+    @Query("SELECT MAX(s.lastModified) FROM Story s")
+    Date findLastModified();
+
+
+    // Searches by name and content are answered by the StoryIndex, or by StorySpecifications until it is ready,
+    // so that both match the start of words
+
+
+    // -- Find All Stories, in the order of the Story workflow -- //
+    @Query(storyView +
+            "WHERE s.state IN :state " +
+            "ORDER BY s.state, s.id DESC")
+    Page<StoryView> findAllStories(@Param("state") Set<StoryState> state,
+                                   Pageable pageable);
+
+    @Query(storyView +
+            "WHERE s.authorID.username = :author AND s.state NOT IN :state " +
+            "ORDER BY s.state, s.id DESC")
+    Page<StoryView> findAllOwnStories(@Param("state") Set<StoryState> state,
+                                      @Param("author") String authorID,
                                       Pageable pageable);
 
-    @Query("SELECT s FROM Story s " +
-            "WHERE s.name LIKE CONCAT('%', :name, '%') " +
-            "AND s.content LIKE CONCAT('%', :content, '%') " +
-            "AND (s.authorID.username = :author OR s.state IN :state)")
-    Page<Story> findByNameAndContentForJournalist(@Param("name") String name,
-                                                 @Param("state") Set<StoryState> state,
-                                                 @Param("author") String authorID,
-                                                 @Param("content") String content,
-                                                 Pageable pageable);
 
 
     // -- Find Stories By Creation Date-- //
-    Page<Story> findByCreationDateBetweenAndStateIn
-    (Date firstDate, Date secondDate, Set<StoryState> state, Pageable pageable);
+    @Query(storyView +
+            "WHERE s.creationDate BETWEEN :firstDate AND :secondDate AND s.state IN :state")
+    Page<StoryView> findByCreationDateBetweenAndStateIn(@Param("firstDate") Date firstDate,
+                                                        @Param("secondDate") Date secondDate,
+                                                        @Param("state") Set<StoryState> state,
+                                                        Pageable pageable);
+
+    @Query(storyView +
+            "WHERE s.creationDate BETWEEN  :firstDate AND :secondDate " +
+            "AND s.authorID.username = :author AND s.state NOT IN :state")
+    Page<StoryView> findOwnByDateRange(@Param("firstDate") Date firstDate,
+                                       @Param("secondDate") Date secondDate,
+                                       @Param("state") Set<StoryState> state,
+                                       @Param("author") String authorID,
+                                       Pageable pageable);
 
-    @Query("SELECT s FROM Story s " +
+
+    // -- Find Stories By Creation Date without counting every match -- //
+    @Query(storyView +
+            "WHERE s.creationDate BETWEEN :firstDate AND :secondDate AND s.state IN :state")
+    Slice<StoryView> findSliceByCreationDateBetweenAndStateIn(@Param("firstDate") Date firstDate,
+                                                              @Param("secondDate") Date secondDate,
+                                                              @Param("state") Set<StoryState> state,
+                                                              Pageable pageable);
+
+    @Query(storyView +
             "WHERE s.creationDate BETWEEN  :firstDate AND :secondDate " +
-            "AND (s.authorID.username = :author OR s.state IN :state)")
-    Page<Story> findByDateRangeForJournalist(@Param("firstDate") Date firstDate,
-                                            @Param("secondDate") Date secondDate,
-                                            @Param("state") Set<StoryState> state,
-                                            @Param("author") String authorID,
-                                            Pageable pageable);
+            "AND s.authorID.username = :author AND s.state NOT IN :state")
+    Slice<StoryView> findOwnSliceByDateRange(@Param("firstDate") Date firstDate,
+                                             @Param("secondDate") Date secondDate,
+                                             @Param("state") Set<StoryState> state,
+                                             @Param("author") String authorID,
+                                             Pageable pageable);
 
 
     // -- Find Stories By State -- //
-    Page<Story> findByState(StoryState state, Pageable pageable);
+    @Query(storyView +
+            "WHERE s.state = :state")
+    Page<StoryView> findByState(@Param("state") StoryState state, Pageable pageable);
 
-    @Query("SELECT s FROM Story s " +
+    @Query(storyView +
             "WHERE s.authorID.username = :author AND s.state IN :state")
-    Page<Story> findByStateForJournalist(@Param("state") StoryState state,
-                                         @Param("author") String authorID,
-                                         Pageable pageable);
+    Page<StoryView> findByStateForJournalist(@Param("state") StoryState state,
+                                             @Param("author") String authorID,
+                                             Pageable pageable);
+
+
+    // -- Find Stories without normalized search columns, or without an excerpt -- //
+    // A Story left without a body keeps a null excerpt, it is only found when its name is not normalized
+    @Query("SELECT s FROM Story s LEFT JOIN s.body body WHERE s.normalizedName IS NULL " +
+            "OR (body IS NOT NULL AND (s.excerpt IS NULL OR body.normalizedContent IS NULL))")
+    Page<Story> findWithoutSearchColumns(Pageable pageable);
 
 
     // -- Find Stories By Topic ID -- //
-    @Query("SELECT s FROM Topic t " +
-            "JOIN t.storiesList s " +
+    @Query(storyView +
+            "JOIN s.topicsList t " +
             "WHERE t.id = :id " +
             "AND s.state IN :state")
-    Page<Story> findByTopicID(@Param("id") Long id,
-                              @Param("state") Set<StoryState> state,
-                              Pageable pageable);
+    Page<StoryView> findByTopicID(@Param("id") Long id,
+                                  @Param("state") Set<StoryState> state,
+                                  Pageable pageable);
 
-    @Query("SELECT s FROM Topic t " +
-            "JOIN t.storiesList s " +
+    @Query(storyView +
+            "JOIN s.topicsList t " +
             "WHERE t.id = :id " +
-            "AND (s.state IN :state OR s.authorID.username = :author)")
-    Page<Story> findByTopicIDForJournalist(@Param("id") Long id,
-                                           @Param("state") Set<StoryState> state,
-                                           @Param("author") String author,
-                                           Pageable pageable);
+            "AND s.authorID.username = :author AND s.state NOT IN :state")
+    Page<StoryView> findOwnByTopicID(@Param("id") Long id,
+                                     @Param("state") Set<StoryState> state,
+                                     @Param("author") String author,
+                                     Pageable pageable);
+
+
+    // -- Find the Topic IDs of every Story, as ( Story ID, Topic ID ) pairs -- //
+    @Query("SELECT s.id, t.id FROM Story s " +
+            "JOIN s.topicsList t " +
+            "ORDER BY s.id, t.id")
+    List<Object[]> findStoryTopicIDs(Pageable pageable);
 }
@@ -0,0 +1,206 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.search.StoryVisibility;
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the single query of a {@link StoryFilter}. <br>
+ *
+ * Predicates are added from the most to the least selective, so that the database can
+ * narrow the Stories down through the indexed columns before evaluating the rest:
+ * the Topic association and the state are equality matches, the creation date is a range,
+ * and the name and content are word prefix matches that no database index can answer. <br>
+ *
+ * The name and content match the way the {@link gr.aegean.icsd.newspaperapp.model.search.StoryIndex} matches them,
+ * every term of the text must match the start of a word, so that searches answer the same whether the index
+ * is ready or not. <br>
+ *
+ * The visibility rule of the User is applied once, after every criterion. <br>
+ *
+ * For keyset pagination, the visibility rule of a Journalist is split into two branches,
+ * see {@link JournalistPages}, and each branch can seek past a {@link StoryCursor}.
+ */
+public final class StorySpecifications {
+
+
+    private StorySpecifications() {}
+
+
+
+    /**
+     * Create the Specification of the Stories that match a filter and are visible to a User
+     *
+     * @param filter Provided filter
+     * @param visibility Visibility rule of the User
+     *
+     * @return The Specification
+     */
+    public static Specification<Story> matching(StoryFilter filter, StoryVisibility visibility) {
+
+        return (root, query, builder) -> {
+
+            List<Predicate> predicates = criteria(filter, root, builder);
+
+            predicates.add(visibleTo(builder, root, visibility));
+
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+
+    }
+
+
+
+    /**
+     * Create the Specifications of the Stories that match a filter and are visible to a User,
+     * one per index-friendly branch of the User's visibility rule. <br>
+     *
+     * The first branch holds the Stories in the allowed states. For Journalists, the second branch holds
+     * their own Stories outside the allowed states, so that no Story belongs to both branches
+     *
+     * @param filter Provided filter
+     * @param visibility Visibility rule of the User
+     *
+     * @return The Specification of every branch
+     */
+    public static List<Specification<Story>> matchingBranches(StoryFilter filter, StoryVisibility visibility) {
+
+        Specification<Story> allowedStories = (root, query, builder) -> {
+
+            List<Predicate> predicates = criteria(filter, root, builder);
+
+            predicates.add(root.get("state").in(visibility.states()));
+
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+
+        if (visibility.author() == null) { return List.of(allowedStories); }
+
+        Specification<Story> ownStories = (root, query, builder) -> {
+
+            List<Predicate> predicates = criteria(filter, root, builder);
+
+            predicates.add(builder.equal(root.get("authorID").get("username"), visibility.author()));
+            predicates.add(builder.not(root.get("state").in(visibility.states())));
+
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+
+        return List.of(allowedStories, ownStories);
+
+    }
+
+
+
+    /**
+     * Create the Specification of the Stories past a cursor, in the cursor's direction
+     *
+     * @param cursor Provided cursor
+     *
+     * @return The Specification
+     */
+    public static Specification<Story> beyond(StoryCursor cursor) {
+
+        return (root, query, builder) -> {
+
+            Path<Long> id = root.get("id");
+            Predicate pastID = cursor.backward()
+                    ? builder.greaterThan(id, cursor.id())
+                    : builder.lessThan(id, cursor.id());
+
+            if (cursor.order() == StoryCursor.Order.NEWEST) { return pastID; }
+
+            Path<StoryState> state = root.get("state");
+            Predicate pastState = cursor.backward()
+                    ? builder.lessThan(state, cursor.state())
+                    : builder.greaterThan(state, cursor.state());
+
+            return builder.or(pastState, builder.and(builder.equal(state, cursor.state()), pastID));
+        };
+
+    }
+
+
+
+    /**
+     * Create the predicates of every criterion of a filter
+     */
+    private static List<Predicate> criteria(StoryFilter filter, Root<Story> root, CriteriaBuilder builder) {
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (filter.topicID() != null) {
+            predicates.add(builder.equal(root.join("topicsList").get("id"), filter.topicID()));
+        }
+
+        if (filter.state() != null) {
+            predicates.add(builder.equal(root.get("state"), filter.state()));
+        }
+
+        if (filter.minDate() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(root.get("creationDate"), filter.minDate()));
+        }
+
+        if (filter.maxDate() != null) {
+            predicates.add(builder.lessThanOrEqualTo(root.get("creationDate"), filter.maxDate()));
+        }
+
+        if (filter.name() != null && !filter.name().isBlank()) {
+            predicates.add(startsWords(builder, root.get("normalizedName"), filter.name()));
+        }
+
+        if (filter.content() != null && !filter.content().isBlank()) {
+            predicates.add(startsWords(builder, root.get("body").get("normalizedContent"), filter.content()));
+        }
+
+        return predicates;
+
+    }
+
+
+
+    /**
+     * Create the predicate of a normalized column holding a word that starts with every term of a text. <br>
+     *
+     * Normalized columns separate their terms with single spaces, so a term starts a word when it follows a space
+     * in the column prefixed by a space. Terms only hold letters and digits, they carry no LIKE wildcards.
+     * A text without any term matches nothing, as in the index
+     */
+    private static Predicate startsWords(CriteriaBuilder builder, Path<String> column, String text) {
+
+        List<String> terms = TextAnalyzer.terms(text);
+
+        if (terms.isEmpty()) { return builder.disjunction(); }
+
+        Expression<String> words = builder.concat(" ", column);
+
+        return builder.and(terms.stream()
+                .map(term -> builder.like(words, "% " + term + "%"))
+                .toArray(Predicate[]::new));
+
+    }
+
+
+
+    private static Predicate visibleTo(CriteriaBuilder builder, Root<Story> root, StoryVisibility visibility) {
+
+        Predicate allowedState = root.get("state").in(visibility.states());
+
+        if (visibility.author() == null) { return allowedState; }
+
+        return builder.or(allowedState, builder.equal(root.get("authorID").get("username"), visibility.author()));
+
+    }
+
+
+}
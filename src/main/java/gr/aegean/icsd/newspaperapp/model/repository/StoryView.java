@@ -0,0 +1,64 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+import java.util.Date;
+
+/**
+ * Read-only view of a Story, holding only the columns its representation exposes. <br>
+ *
+ * Listings select views instead of Story entities, see {@link StoryRepository#storyView}, so that
+ * neither the normalized search columns nor the author are read, and nothing enters the persistence context.
+ * Listings carry the excerpt of each Story, only a single Story is shown with its whole content
+ *
+ * @param id ID of the Story
+ * @param creationDate Date the Story was created
+ * @param state State of the Story
+ * @param name Name of the Story
+ * @param rejectionReason Reason the Story was last rejected, null if it never was
+ * @param excerpt Beginning of the Story's content
+ * @param content Whole content of the Story, null if it was not read
+ * @param authorID Username of the Story's author
+ */
+public record StoryView(Long id, Date creationDate, StoryState state, String name, String rejectionReason,
+                        String excerpt, String content, String authorID) {
+
+
+    /**
+     * View of a Story selected by a listing, without its content
+     */
+    public StoryView(Long id, Date creationDate, StoryState state, String name, String rejectionReason,
+                     String excerpt, String authorID) {
+        this(id, creationDate, state, name, rejectionReason, excerpt, null, authorID);
+    }
+
+
+
+    /**
+     * Create the view of a Story entity that was already read, without reading its content
+     *
+     * @param story Provided Story
+     *
+     * @return View of the Story
+     */
+    public static StoryView of(Story story) {
+        return new StoryView(story.getId(), story.getCreationDate(), story.getState(), story.getName(),
+                story.getRejectionReason(), story.getExcerpt(), story.getAuthor().getUsername());
+    }
+
+
+
+    /**
+     * Attach the whole content of the Story to the view
+     *
+     * @param content Content of the Story
+     *
+     * @return View of the Story, along with its content
+     */
+    public StoryView withContent(String content) {
+        return new StoryView(id, creationDate, state, name, rejectionReason, excerpt, content, authorID);
+    }
+
+
+}
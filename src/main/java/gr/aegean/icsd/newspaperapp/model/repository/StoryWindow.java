@@ -0,0 +1,15 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import java.util.List;
+
+/**
+ * A page of Stories read with a {@link StoryCursor}. <br>
+ *
+ * Unlike a Page, a window does not count the Stories of the whole list,
+ * it only knows whether there are Stories after and before it
+ *
+ * @param stories Stories of the window, in the order of the list
+ * @param next Cursor to the following window, null if this is the last window
+ * @param previous Cursor to the preceding window, null if this is the first window
+ */
+public record StoryWindow(List<StoryView> stories, StoryCursor next, StoryCursor previous) {}
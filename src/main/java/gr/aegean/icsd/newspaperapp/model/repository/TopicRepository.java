@@ -4,63 +4,143 @@ import gr.aegean.icsd.newspaperapp.model.entity.Topic;
 import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.Optional;
+import java.util.List;
 import java.util.Set;
 
 @Repository
 public interface TopicRepository extends JpaRepository<Topic, Long> {
 
+    // The find...Own queries return a Journalist's own Topics outside the provided states,
+    // and are merged with the Topics in those states by JournalistPages
 
-    Optional<Topic> findByIdAndStateIn(Long topicID, Set<TopicState> state);
+    // Listings select a TopicView of each Topic instead of the entity, without its associations,
+    // the author's username and the parent's ID are read from the foreign keys, without joining their tables
+    String topicView = "SELECT new gr.aegean.icsd.newspaperapp.model.repository.TopicView" +
+            "(topic.id, topic.creationDate, topic.state, topic.name, " +
+            "topic.authorID.username, topic.parentTopicID.id) FROM Topic topic ";
 
-    @Query("SELECT topic FROM Topic topic " +
+
+    @Query(topicView +
+            "WHERE topic.id = :id AND topic.state IN :state")
+    Optional<TopicView> findByIdAndStateIn(@Param("id") Long topicID, @Param("state") Set<TopicState> state);
+
+    @Query(topicView +
             "WHERE topic.id = :id " +
             "AND (topic.authorID.username = :author OR topic.state IN :state)")
-    Optional<Topic> findTopicByIDForJournalist(@Param("id") Long id,
+    Optional<TopicView> findTopicByIDForJournalist(@Param("id") Long id,
                                                @Param("state") Set<TopicState> state,
                                                @Param("author") String authorID);
 
 
 
-    // -- Find All Topics -- //
-    @Query("SELECT topic FROM Topic topic " +
+    // -- Find All Topics, APPROVED Topics first -- //
+    @Query(topicView +
             "WHERE topic.state IN :state " +
-            "ORDER BY CASE topic.state " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.TopicState.SUBMITTED THEN 1 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.TopicState.APPROVED THEN 2 " +
-            "END DESC")
-    Page<Topic> findAllTopics(@Param("state") Set<TopicState> state,
-                              Pageable pageable);
+            "ORDER BY topic.state DESC, topic.id DESC")
+    Page<TopicView> findAllTopics(@Param("state") Set<TopicState> state,
+                                  Pageable pageable);
 
-    @Query("SELECT topic FROM Topic topic " +
-            "WHERE topic.authorID.username = :author OR topic.state IN :state " +
-            "ORDER BY CASE topic.state " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.TopicState.SUBMITTED THEN 1 " +
-            "WHEN gr.aegean.icsd.newspaperapp.util.enums.TopicState.APPROVED THEN 2 " +
-            "END DESC ")
-    Page<Topic> findAllTopicsForJournalist(@Param("state") Set<TopicState> state,
+    @Query(topicView +
+            "WHERE topic.authorID.username = :author AND topic.state NOT IN :state " +
+            "ORDER BY topic.state DESC, topic.id DESC")
+    Page<TopicView> findAllOwnTopics(@Param("state") Set<TopicState> state,
+                                     @Param("author") String authorID,
+                                     Pageable pageable);
+
+
+    // -- Find All Topics without counting them, APPROVED Topics first -- //
+    @Query(topicView +
+            "WHERE topic.state IN :state " +
+            "ORDER BY topic.state DESC, topic.id DESC")
+    Slice<TopicView> findAllTopicsSlice(@Param("state") Set<TopicState> state,
+                                        Pageable pageable);
+
+    @Query(topicView +
+            "WHERE topic.authorID.username = :author AND topic.state NOT IN :state " +
+            "ORDER BY topic.state DESC, topic.id DESC")
+    Slice<TopicView> findAllOwnTopicsSlice(@Param("state") Set<TopicState> state,
                                            @Param("author") String authorID,
                                            Pageable pageable);
 
 
 
-    // -- Find Topic By Name -- //
-    Page<Topic> findByNameContainingIgnoreCaseAndStateIn(String name,
-                                                         Set<TopicState> state,
-                                                         Pageable pageable);
+    // -- Find Topic By Name, the name must be normalized by the TextAnalyzer -- //
+    // The LIKE wildcards of the searched text are escaped, so that they only match themselves
+    @Query(topicView +
+            "WHERE topic.normalizedName LIKE CONCAT('%', :#{escape(#name)}, '%') ESCAPE :#{escapeCharacter()} AND topic.state IN :state")
+    Page<TopicView> findByNormalizedNameContainingAndStateIn(@Param("name") String name,
+                                                             @Param("state") Set<TopicState> state,
+                                                             Pageable pageable);
+
+    // -- Find Topics By Name without counting every match, the name must be normalized by the TextAnalyzer -- //
+    // Derived Containing queries escape the LIKE wildcards of the name themselves
+    List<Topic> findByNormalizedNameContainingAndState(String name, TopicState state, Pageable pageable);
+
+    @Query(topicView +
+            "WHERE topic.normalizedName LIKE CONCAT('%', :#{escape(#name)}, '%') ESCAPE :#{escapeCharacter()} " +
+            "AND topic.authorID.username = :author AND topic.state NOT IN :state")
+    Page<TopicView> findOwnTopicsByName(@Param("name") String name,
+                                        @Param("state") Set<TopicState> state,
+                                        @Param("author") String authorID,
+                                        Pageable pageable);
+
+
+
+    // -- Find Topics By ID, only those visible under the provided rule -- //
+    @Query(topicView + "WHERE topic.id IN :ids AND (topic.state IN :state OR topic.authorID.username = :author)")
+    List<TopicView> findVisibleViewsByIdIn(@Param("ids") Collection<Long> ids,
+                                           @Param("state") Set<TopicState> state,
+                                           @Param("author") String author);
+
+    List<Topic> findByIdInAndState(Collection<Long> ids, TopicState state);
 
+
+
+    // -- Find the associations of Topics, as ( Topic ID, Story ID ) and ( parent ID, child ID ) pairs -- //
+    @Query("SELECT topic.id, story.id FROM Topic topic " +
+            "JOIN topic.storiesList story " +
+            "WHERE topic.id IN :ids " +
+            "ORDER BY topic.id, story.id")
+    List<Object[]> findStoryIDs(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT topic.parentTopicID.id, topic.id FROM Topic topic " +
+            "WHERE topic.parentTopicID.id IN :ids " +
+            "ORDER BY topic.parentTopicID.id, topic.id")
+    List<Object[]> findChildTopicIDs(@Param("ids") Collection<Long> ids);
+
+
+
+    // -- Find the Topics modified after a position, in the order of ( modification stamp, ID ) -- //
     @Query("SELECT topic FROM Topic topic " +
-            "WHERE topic.name LIKE CONCAT('%', :name, '%') " +
-            "AND (topic.authorID.username = :author OR topic.state IN :state)")
-    Page<Topic> findTopicsByNameForJournalist(@Param("name") String name,
-                                             @Param("state") Set<TopicState> state,
-                                             @Param("author") String authorID,
-                                             Pageable pageable);
+            "WHERE topic.lastModified >= :stamp AND (topic.lastModified > :stamp OR topic.id > :id) " +
+            "ORDER BY topic.lastModified, topic.id")
+    List<Topic> findModifiedAfter(@Param("stamp") Date stamp, @Param("id") Long id, Pageable pageable);
+
+    // -- Find the latest modification stamp of any Topic, null when there are no Topics -- //
+    @Query("SELECT MAX(topic.lastModified) FROM Topic topic")
+    Date findLastModified();
+
+
+
+    // -- Find Topics without a normalized name -- //
+    Page<Topic> findByNormalizedNameIsNull(Pageable pageable);
+
+
+
+    // -- Count Topics, as ( state, author, count ) rows -- //
+    @Query("SELECT topic.state, author.username, COUNT(topic) FROM Topic topic " +
+            "LEFT JOIN topic.authorID author " +
+            "GROUP BY topic.state, author.username")
+    List<Object[]> countByStateAndAuthor();
 
 
 }
@@ -0,0 +1,71 @@
+package gr.aegean.icsd.newspaperapp.model.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Read-only view of a Topic, holding only the columns its representation exposes. <br>
+ *
+ * Listings select views instead of Topic entities, see {@link TopicRepository#topicView}, and then read
+ * the IDs of their Stories and children Topics for the whole page at once, instead of loading the entities
+ *
+ * @param id ID of the Topic
+ * @param creationDate Date the Topic was created
+ * @param state State of the Topic
+ * @param name Name of the Topic
+ * @param authorID Username of the Topic's author
+ * @param parentTopicID ID of the parent Topic, null if the Topic has no parent
+ * @param storyIDs IDs of the Stories associated with the Topic, in ascending order
+ * @param childTopicIDs IDs of the children Topics, in ascending order
+ */
+public record TopicView(Long id, Date creationDate, TopicState state, String name, String authorID,
+                        Long parentTopicID, List<Long> storyIDs, List<Long> childTopicIDs) {
+
+
+    /**
+     * View of a Topic selected by a query, without its associations
+     */
+    public TopicView(Long id, Date creationDate, TopicState state, String name, String authorID, Long parentTopicID) {
+        this(id, creationDate, state, name, authorID, parentTopicID, List.of(), List.of());
+    }
+
+
+
+    /**
+     * Create the view of a Topic entity that was already read, along with its associations
+     *
+     * @param topic Provided Topic
+     *
+     * @return View of the Topic
+     */
+    public static TopicView of(Topic topic) {
+
+        Long parentTopicID = topic.getParentTopic() == null ? null : topic.getParentTopic().getId();
+
+        return new TopicView(topic.getId(), topic.getCreationDate(), topic.getState(), topic.getName(),
+                topic.getAuthor().getUsername(), parentTopicID,
+                topic.getStories().stream().map(Story::getId).sorted().toList(),
+                topic.getChildrenTopics().stream().map(Topic::getId).sorted().toList());
+
+    }
+
+
+
+    /**
+     * Attach the associations of the Topic to the view
+     *
+     * @param storyIDs IDs of the Stories associated with the Topic
+     * @param childTopicIDs IDs of the children Topics
+     *
+     * @return View of the Topic along with its associations
+     */
+    public TopicView withAssociations(List<Long> storyIDs, List<Long> childTopicIDs) {
+        return new TopicView(id, creationDate, state, name, authorID, parentTopicID, storyIDs, childTopicIDs);
+    }
+
+
+}
@@ -0,0 +1,59 @@
+package gr.aegean.icsd.newspaperapp.model.representation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.PagedModel;
+
+/**
+ * Page metadata of a Slice, a page whose total was not counted. <br>
+ *
+ * Only the size and number of the page are sent to the client, the totals are left out of the
+ * representation. Whether more elements follow is told by the 'next' link of the model
+ */
+@JsonIgnoreProperties({"totalElements", "totalPages"})
+public class SliceMetadata extends PagedModel.PageMetadata {
+
+
+    /**
+     * @param size Size of the Slice
+     * @param number Number of the Slice
+     */
+    public SliceMetadata(long size, long number) {
+        super(size, number, 0, 0);
+    }
+
+
+
+    /**
+     * Create the metadata of a Slice, with the totals if the Slice is a counted Page
+     *
+     * @param slice Provided Slice
+     *
+     * @return The metadata
+     */
+    public static PagedModel.PageMetadata of(Slice<?> slice) {
+
+        if (slice instanceof Page<?> page) {
+            return new PagedModel.PageMetadata(page.getSize(), page.getNumber(), page.getTotalElements());
+        }
+
+        return new SliceMetadata(slice.getSize(), slice.getNumber());
+
+    }
+
+
+
+    /**
+     * Value of the 'total' request parameter that keeps the links of a model in the same mode as its Slice
+     *
+     * @param slice Provided Slice
+     *
+     * @return False for a Slice, null to leave the parameter out for a counted Page
+     */
+    public static Boolean totalParameter(Slice<?> slice) {
+        return slice instanceof Page<?> ? null : false;
+    }
+
+
+}
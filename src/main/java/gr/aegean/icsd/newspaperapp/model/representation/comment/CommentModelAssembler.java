@@ -1,10 +1,11 @@
 package gr.aegean.icsd.newspaperapp.model.representation.comment;
 
 import gr.aegean.icsd.newspaperapp.controller.CommentController;
-import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentView;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentWindow;
+import gr.aegean.icsd.newspaperapp.model.representation.SliceMetadata;
 import gr.aegean.icsd.newspaperapp.security.UserUtils;
-import org.springframework.beans.BeanUtils;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.lang.NonNull;
@@ -17,10 +18,10 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 /**
  * Support class used to create Representation
- * Models of the Comment Entity
+ * Models of the Comment Entity, from read-only {@link CommentView}s
  */
 @Component
-public class CommentModelAssembler extends RepresentationModelAssemblerSupport<Comment, CommentModel> {
+public class CommentModelAssembler extends RepresentationModelAssemblerSupport<CommentView, CommentModel> {
 
 
     /**
@@ -36,37 +37,38 @@ public class CommentModelAssembler extends RepresentationModelAssemblerSupport<C
      * Creates a single Representation Model from the provided
      * Comment Entity
      *
-     * @param entity Provided Comment Entity
+     * @param entity Provided view of a Comment
      *
      * @return Representation Model with links attached
      */
     @Override
     @NonNull
-    public CommentModel toModel(@NonNull Comment entity) {
+    public CommentModel toModel(@NonNull CommentView entity) {
 
         CommentModel newModel = new CommentModel();
 
-        BeanUtils.copyProperties(entity, newModel);
+        newModel.setId(entity.id());
+        newModel.setCreationDate(entity.creationDate());
+        newModel.setState(entity.state());
+        newModel.setContent(entity.content());
+        newModel.setAuthorID(entity.authorID());
 
-        boolean commentHasAuthor = entity.getAuthor().isPresent();
-        if (commentHasAuthor) { newModel.setAuthorID(entity.getAuthor().get().getUsername()); }
-
-        Long parentStoryID = entity.getStory().getId();
+        Long parentStoryID = entity.storyID();
         newModel.setStoryID(parentStoryID.intValue());
 
         newModel.add(linkTo(methodOn(CommentController.class)
-                .showAllCommentsForAStory(parentStoryID, 0, 10)).withSelfRel());
+                .showAllCommentsForAStory(parentStoryID, 0, 10, null, null)).withSelfRel());
 
         if (UserUtils.isCurator()) {
 
             newModel.add(linkTo(methodOn(CommentController.class)
-                    .updateComment(entity.getId(), new CommentModel())).withRel("Update Comment"));
+                    .updateComment(entity.id(), new CommentModel())).withRel("Update Comment"));
 
             newModel.add(linkTo(methodOn(CommentController.class)
-                    .approveComment(entity.getId())).withRel("Approve Comment"));
+                    .approveComment(entity.id())).withRel("Approve Comment"));
 
             newModel.add(linkTo(methodOn(CommentController.class)
-                    .rejectComment(entity.getId())).withRel("Reject Comment"));
+                    .rejectComment(entity.id())).withRel("Reject Comment"));
 
         }
 
@@ -76,29 +78,67 @@ public class CommentModelAssembler extends RepresentationModelAssemblerSupport<C
 
 
     /**
-     * Create a PagedModel of Comment Representation Models extracted from a Comment Page
+     * Create a PagedModel of Comment Representation Models extracted from a Comment Page or Slice
      *
-     * @param commentPage Provided Comment Page
+     * @param commentPage Provided Comment Page, or Slice without totals
      * @param parentStoryID ID used to create link to the
-     *                      {@link CommentController#showAllCommentsForAStory(long, int, int)} method
+     *                      {@link CommentController#showAllCommentsForAStory(long, int, int, String, Boolean)} method
      *
      * @return PagedModel of CommentModels with associated links
      */
-    public PagedModel<CommentModel> createPagedModel(Page<Comment> commentPage, long parentStoryID) {
+    public PagedModel<CommentModel> createPagedModel(Slice<CommentView> commentPage, long parentStoryID) {
 
         PagedModel<CommentModel> pagedModel = createPagedModelFromPage(commentPage);
+        Boolean total = SliceMetadata.totalParameter(commentPage);
 
         pagedModel.add(linkTo(methodOn(CommentController.class).showAllCommentsForAStory(parentStoryID,
-                commentPage.getNumber(), commentPage.getSize())).withSelfRel());
+                commentPage.getNumber(), commentPage.getSize(), null, total)).withSelfRel());
 
         if (commentPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(CommentController.class).showAllCommentsForAStory(parentStoryID,
-                    commentPage.getNumber() + 1, commentPage.getSize())).withRel("next"));
+                    commentPage.getNumber() + 1, commentPage.getSize(), null, total)).withRel("next"));
         }
 
         if (commentPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(CommentController.class).showAllCommentsForAStory(parentStoryID,
-                    commentPage.getNumber() - 1, commentPage.getSize())).withRel("previous"));
+                    commentPage.getNumber() - 1, commentPage.getSize(), null, total)).withRel("previous"));
+        }
+
+        return pagedModel;
+    }
+
+
+    /**
+     * Create a PagedModel of Comment Representation Models extracted from a Comment Window. <br>
+     *
+     * The model has no page metadata, it links to the adjacent windows by their cursors
+     *
+     * @param commentWindow Provided Comment Window
+     * @param parentStoryID ID used to create link to the
+     *                      {@link CommentController#showAllCommentsForAStory(long, int, int, String, Boolean)} method
+     * @param cursor Cursor of the provided window
+     * @param size Size of the provided window
+     *
+     * @return PagedModel of CommentModels with associated links
+     */
+    public PagedModel<CommentModel> createCursorModel(CommentWindow commentWindow, long parentStoryID,
+                                                      String cursor, int size) {
+
+        List<CommentModel> commentModels = commentWindow.comments().stream().map(this::toModel).toList();
+
+        PagedModel<CommentModel> pagedModel = PagedModel.of(commentModels, (PagedModel.PageMetadata) null);
+
+        pagedModel.add(linkTo(methodOn(CommentController.class).showAllCommentsForAStory(parentStoryID,
+                0, size, cursor, null)).withSelfRel());
+
+        if (commentWindow.next() != null) {
+            pagedModel.add(linkTo(methodOn(CommentController.class).showAllCommentsForAStory(parentStoryID,
+                    0, size, commentWindow.next().encode(), null)).withRel("next"));
+        }
+
+        if (commentWindow.previous() != null) {
+            pagedModel.add(linkTo(methodOn(CommentController.class).showAllCommentsForAStory(parentStoryID,
+                    0, size, commentWindow.previous().encode(), null)).withRel("previous"));
         }
 
         return pagedModel;
@@ -106,20 +146,18 @@ public class CommentModelAssembler extends RepresentationModelAssemblerSupport<C
 
 
     /**
-     * Utility method that creates a PagedModel from an input Page
+     * Utility method that creates a PagedModel from an input Page, or from a Slice without totals
      *
-     * @param commentPage Input Page
+     * @param commentPage Input Page or Slice
      *
      * @return PagedModel
      */
-    private PagedModel<CommentModel> createPagedModelFromPage ( Page<Comment> commentPage ) {
+    private PagedModel<CommentModel> createPagedModelFromPage ( Slice<CommentView> commentPage ) {
 
         // Convert Comments inside the page to CommentModels
         List<CommentModel> commentModels = commentPage.getContent().stream().map(this::toModel).toList();
 
-        PagedModel.PageMetadata pageMetadata = new PagedModel.PageMetadata(commentPage.getSize(), commentPage.getNumber(), commentPage.getTotalElements());
-
-        return PagedModel.of(commentModels, pageMetadata);
+        return PagedModel.of(commentModels, SliceMetadata.of(commentPage));
     }
 
 
@@ -0,0 +1,60 @@
+package gr.aegean.icsd.newspaperapp.model.representation.search;
+
+import gr.aegean.icsd.newspaperapp.model.representation.comment.CommentModel;
+import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModel;
+import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModel;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+/**
+ * Representation Model of a search across every searchable entity, <br>
+ * with one section of results per entity, each in ranking order
+ */
+public class SearchModel extends RepresentationModel<SearchModel> {
+
+
+    private String query;
+
+    private List<StoryModel> stories;
+
+    private List<TopicModel> topics;
+
+    private List<CommentModel> comments;
+
+
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public List<StoryModel> getStories() {
+        return stories;
+    }
+
+    public void setStories(List<StoryModel> stories) {
+        this.stories = stories;
+    }
+
+    public List<TopicModel> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(List<TopicModel> topics) {
+        this.topics = topics;
+    }
+
+    public List<CommentModel> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<CommentModel> comments) {
+        this.comments = comments;
+    }
+
+
+}
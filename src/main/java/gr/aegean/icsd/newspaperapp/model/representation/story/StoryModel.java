@@ -1,11 +1,13 @@
 package gr.aegean.icsd.newspaperapp.model.representation.story;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
 import org.springframework.hateoas.RepresentationModel;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Representation Model of the Story Entity
@@ -23,6 +25,10 @@ public class StoryModel extends RepresentationModel<StoryModel> {
 
     private String rejectionReason;
 
+    private String excerpt;
+
+    // The whole content, only present when a single Story is shown
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
 
     private List<Integer> commentsList;
@@ -32,6 +38,10 @@ public class StoryModel extends RepresentationModel<StoryModel> {
     @JsonProperty("topicsList")
     private List<Integer> topicsList;
 
+    // Snippets of the matching fields, only present in search results that requested them
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> highlights;
+
 
 
     public Long getId() {
@@ -74,6 +84,14 @@ public class StoryModel extends RepresentationModel<StoryModel> {
         this.rejectionReason = rejectionReason;
     }
 
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
     public String getContent() {
         return content;
     }
@@ -105,4 +123,12 @@ public class StoryModel extends RepresentationModel<StoryModel> {
     public void setTopicsList(List<Integer> topicsList) {
         this.topicsList = topicsList;
     }
+
+    public Map<String, String> getHighlights() {
+        return highlights;
+    }
+
+    public void setHighlights(Map<String, String> highlights) {
+        this.highlights = highlights;
+    }
 }
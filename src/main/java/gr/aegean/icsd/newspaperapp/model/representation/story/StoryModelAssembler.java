@@ -1,11 +1,14 @@
 package gr.aegean.icsd.newspaperapp.model.representation.story;
 
 import gr.aegean.icsd.newspaperapp.controller.StoryController;
-import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFilter;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryWindow;
+import gr.aegean.icsd.newspaperapp.model.representation.SliceMetadata;
 import gr.aegean.icsd.newspaperapp.security.UserUtils;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
-import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.lang.NonNull;
@@ -13,16 +16,18 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 /**
  * Support class used to create Representation
- * Models of the Story Entity
+ * Models of the Story Entity, from read-only {@link StoryView}s
  */
 @Component
-public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<Story, StoryModel> {
+public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<StoryView, StoryModel> {
 
 
     /**
@@ -36,39 +41,44 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
     @Override
     @NonNull
-    public StoryModel toModel(@NonNull Story entity) {
+    public StoryModel toModel(@NonNull StoryView entity) {
 
         StoryModel newModel = new StoryModel();
 
-        BeanUtils.copyProperties(entity, newModel);
-
-        newModel.setAuthorID(entity.getAuthor().getUsername());
+        newModel.setId(entity.id());
+        newModel.setCreationDate(entity.creationDate());
+        newModel.setState(entity.state());
+        newModel.setName(entity.name());
+        newModel.setRejectionReason(entity.rejectionReason());
+        newModel.setExcerpt(entity.excerpt());
+        newModel.setContent(entity.content());
+        newModel.setAuthorID(entity.authorID());
 
         newModel.add(linkTo(methodOn(StoryController.class)
-                .showAllStoriesByName
-                        (entity.getName(), 0, 10))
+                .showStory
+                        (entity.id()))
                 .withSelfRel());
 
         newModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStories
-                        (0, 10))
+                        (0, 10, null))
                 .withRel("Show all Stories"));
 
         if (UserUtils.isCurator()) {
 
             newModel.add(linkTo(methodOn(StoryController.class)
                     .approveStory
-                            (entity.getId(), StoryState.APPROVED))
+                            (entity.id(), StoryState.APPROVED))
                     .withRel("Approve Story"));
 
             newModel.add(linkTo(methodOn(StoryController.class)
                     .rejectStory
-                            (entity.getId(), StoryState.CREATED, ""))
+                            (entity.id(), StoryState.CREATED, ""))
                     .withRel("Reject Story"));
 
             newModel.add(linkTo(methodOn(StoryController.class)
                     .publishStory
-                            (entity.getId(), StoryState.PUBLISHED))
+                            (entity.id(), StoryState.PUBLISHED))
                     .withRel("Publish Story"));
 
         }
@@ -76,7 +86,7 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
             newModel.add(linkTo(methodOn(StoryController.class)
                     .updateStory
-                            (entity.getId(), new StoryModel()))
+                            (entity.id(), new StoryModel()))
                     .withRel("Update Story"));
 
             newModel.add(linkTo(methodOn(StoryController.class)
@@ -98,26 +108,26 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
      * 
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowAllStories(Page<Story> storyPage) {
+    public PagedModel<StoryModel> createPagedModelForShowAllStories(Page<StoryView> storyPage) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStories
-                        (storyPage.getNumber(), storyPage.getSize()))
+                        (storyPage.getNumber(), storyPage.getSize(), null))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStories
-                            (storyPage.getNumber() + 1, storyPage.getSize()))
+                            (storyPage.getNumber() + 1, storyPage.getSize(), null))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStories
-                            (storyPage.getNumber() - 1, storyPage.getSize()))
+                            (storyPage.getNumber() - 1, storyPage.getSize(), null))
                     .withRel("previous"));
         }
 
@@ -126,33 +136,37 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
     
     /**
-     * Create a PagedModel of StoryModels from a Page of Stories, with relevant links to navigate it
+     * Create a PagedModel of StoryModels from a Page or Slice of Stories, with relevant links to navigate it
      *
-     * @param storyPage Provided Page
-     * @param name Name used to create a link to {@link StoryController#showAllStoriesByName(String, int, int)} )}
+     * @param storyPage Provided Page, or Slice without totals
+     * @param name Name used to create a link to {@link StoryController#showAllStoriesByName(String, boolean, boolean, int, int, Boolean)} )}
+     * @param fuzzy Whether the Stories were searched by similar name
+     * @param highlight Whether highlighted snippets were requested
      *
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByName(Page<Story> storyPage, String name) {
+    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByName(Slice<StoryView> storyPage, String name,
+                                                                          boolean fuzzy, boolean highlight) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
+        Boolean total = SliceMetadata.totalParameter(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStoriesByName
-                        (name, storyPage.getNumber(), storyPage.getSize()))
+                        (name, fuzzy, highlight, storyPage.getNumber(), storyPage.getSize(), total))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByName
-                            (name, storyPage.getNumber() + 1, storyPage.getSize()))
+                            (name, fuzzy, highlight, storyPage.getNumber() + 1, storyPage.getSize(), total))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByName
-                            (name, storyPage.getNumber() - 1, storyPage.getSize()))
+                            (name, fuzzy, highlight, storyPage.getNumber() - 1, storyPage.getSize(), total))
                     .withRel("previous"));
         }
 
@@ -161,33 +175,36 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
 
     /**
-     * Create a PagedModel of StoryModels from a Page of Stories, with relevant links to navigate it
+     * Create a PagedModel of StoryModels from a Page or Slice of Stories, with relevant links to navigate it
      *
-     * @param storyPage Provided Page
-     * @param content Content used to create a link to {@link StoryController#showAllStoriesByContent(String, int, int)}
+     * @param storyPage Provided Page, or Slice without totals
+     * @param content Content used to create a link to {@link StoryController#showAllStoriesByContent(String, boolean, int, int, Boolean)}
+     * @param highlight Whether highlighted snippets were requested
      *
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByContent(Page<Story> storyPage, String content) {
+    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByContent(Slice<StoryView> storyPage, String content,
+                                                                             boolean highlight) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
+        Boolean total = SliceMetadata.totalParameter(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStoriesByContent
-                        (content, storyPage.getNumber(), storyPage.getSize()))
+                        (content, highlight, storyPage.getNumber(), storyPage.getSize(), total))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByContent
-                            (content, storyPage.getNumber() + 1, storyPage.getSize()))
+                            (content, highlight, storyPage.getNumber() + 1, storyPage.getSize(), total))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByContent
-                            (content, storyPage.getNumber() - 1, storyPage.getSize()))
+                            (content, highlight, storyPage.getNumber() - 1, storyPage.getSize(), total))
                     .withRel("previous"));
         }
 
@@ -196,34 +213,37 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
     
     /**
-     * Create a PagedModel of StoryModels from a Page of Stories, with relevant links to navigate it
+     * Create a PagedModel of StoryModels from a Page or Slice of Stories, with relevant links to navigate it
      *
-     * @param storyPage Provided Page
-     * @param name Name used to create a link to {@link StoryController#showAllStoriesByNameAndContent(String, String, int, int)} )}
-     * @param content Content used to create a link to {@link StoryController#showAllStoriesByNameAndContent(String, String, int, int)}
+     * @param storyPage Provided Page, or Slice without totals
+     * @param name Name used to create a link to {@link StoryController#showAllStoriesByNameAndContent(String, String, boolean, int, int, Boolean)} )}
+     * @param content Content used to create a link to {@link StoryController#showAllStoriesByNameAndContent(String, String, boolean, int, int, Boolean)}
+     * @param highlight Whether highlighted snippets were requested
      *
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByNameAndContent(Page<Story> storyPage, String name, String content) {
+    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByNameAndContent(Slice<StoryView> storyPage, String name,
+                                                                                    String content, boolean highlight) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
+        Boolean total = SliceMetadata.totalParameter(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStoriesByNameAndContent
-                        (name, content, storyPage.getNumber(), storyPage.getSize()))
+                        (name, content, highlight, storyPage.getNumber(), storyPage.getSize(), total))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByNameAndContent
-                            (name, content, storyPage.getNumber() + 1, storyPage.getSize()))
+                            (name, content, highlight, storyPage.getNumber() + 1, storyPage.getSize(), total))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByNameAndContent
-                            (name, content, storyPage.getNumber() - 1, storyPage.getSize()))
+                            (name, content, highlight, storyPage.getNumber() - 1, storyPage.getSize(), total))
                     .withRel("previous"));
         }
 
@@ -232,34 +252,35 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
 
     /**
-     * Create a PagedModel of StoryModels from a Page of Stories, with relevant links to navigate it
+     * Create a PagedModel of StoryModels from a Page or Slice of Stories, with relevant links to navigate it
      *
-     * @param storyPage Provided Page
-     * @param minDate Date used to create a link to {@link StoryController#showAllStoriesByDate(Date, Date, int, int)}
-     * @param maxDate Date used to create a link to {@link StoryController#showAllStoriesByDate(Date, Date, int, int)}
+     * @param storyPage Provided Page, or Slice without totals
+     * @param minDate Date used to create a link to {@link StoryController#showAllStoriesByDate(Date, Date, int, int, String, Boolean)}
+     * @param maxDate Date used to create a link to {@link StoryController#showAllStoriesByDate(Date, Date, int, int, String, Boolean)}
      *
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByDate(Page<Story> storyPage, Date minDate, Date maxDate) {
+    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByDate(Slice<StoryView> storyPage, Date minDate, Date maxDate) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
+        Boolean total = SliceMetadata.totalParameter(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStoriesByDate
-                        (minDate, maxDate, storyPage.getNumber(), storyPage.getSize()))
+                        (minDate, maxDate, storyPage.getNumber(), storyPage.getSize(), null, total))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByDate
-                            (minDate, maxDate, storyPage.getNumber() + 1, storyPage.getSize()))
+                            (minDate, maxDate, storyPage.getNumber() + 1, storyPage.getSize(), null, total))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByDate
-                            (minDate, maxDate, storyPage.getNumber() - 1, storyPage.getSize()))
+                            (minDate, maxDate, storyPage.getNumber() - 1, storyPage.getSize(), null, total))
                     .withRel("previous"));
         }
 
@@ -268,34 +289,72 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
     }
 
 
+    /**
+     * Create a PagedModel of StoryModels from a Page or Slice of Stories, with relevant links to navigate it
+     *
+     * @param storyPage Provided Page, or Slice without totals
+     * @param filter Filter used to create a link to {@link StoryController#filterStories}
+     * @param facets Whether the linked pages include facets
+     *
+     * @return PagedModel of StoryModels with links to navigate it
+     */
+    public PagedModel<StoryModel> createPagedModelForFilterStories(Slice<StoryView> storyPage, StoryFilter filter,
+                                                                  boolean facets) {
+
+        PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
+        Boolean total = SliceMetadata.totalParameter(storyPage);
+
+        pagedModel.add(linkTo(methodOn(StoryController.class)
+                .filterStories(filter.name(), filter.content(), filter.minDate(), filter.maxDate(),
+                        filter.state(), filter.topicID(), facets, storyPage.getNumber(), storyPage.getSize(), null, total))
+                .withSelfRel());
+
+        if (storyPage.hasNext()) {
+            pagedModel.add(linkTo(methodOn(StoryController.class)
+                    .filterStories(filter.name(), filter.content(), filter.minDate(), filter.maxDate(),
+                            filter.state(), filter.topicID(), facets, storyPage.getNumber() + 1, storyPage.getSize(), null, total))
+                    .withRel("next"));
+        }
+
+        if (storyPage.hasPrevious()) {
+            pagedModel.add(linkTo(methodOn(StoryController.class)
+                    .filterStories(filter.name(), filter.content(), filter.minDate(), filter.maxDate(),
+                            filter.state(), filter.topicID(), facets, storyPage.getNumber() - 1, storyPage.getSize(), null, total))
+                    .withRel("previous"));
+        }
+
+        return pagedModel;
+    }
+
+
     /**
      * Create a PagedModel of StoryModels from a Page of Stories, with relevant links to navigate it
      *
      * @param storyPage Provided Page
-     * @param state State used to create a link to {@link StoryController#showAllStoriesByState(StoryState, int, int)}
+     * @param state State used to create a link to {@link StoryController#showAllStoriesByState(StoryState, int, int, String)}
      *
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByState(Page<Story> storyPage, StoryState state) {
+    public PagedModel<StoryModel> createPagedModelForShowAllStoriesByState(Page<StoryView> storyPage, StoryState state) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showAllStoriesByState
-                        (state, storyPage.getNumber(), storyPage.getSize()))
+                        (state, storyPage.getNumber(), storyPage.getSize(), null))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByState
-                            (state, storyPage.getNumber() + 1, storyPage.getSize()))
+                            (state, storyPage.getNumber() + 1, storyPage.getSize(), null))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showAllStoriesByState
-                            (state, storyPage.getNumber() - 1, storyPage.getSize()))
+                            (state, storyPage.getNumber() - 1, storyPage.getSize(), null))
                     .withRel("previous"));
         }
 
@@ -307,30 +366,30 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
      * Create a PagedModel of StoryModels from a Page of Stories, with relevant links to navigate it
      *
      * @param storyPage Provided Page
-     * @param topicId ID used to create a link to {@link StoryController#showATopicsStories(long, int, int)}
+     * @param topicId ID used to create a link to {@link StoryController#showATopicsStories(long, int, int, String)}
      *
      * @return PagedModel of StoryModels with links to navigate it
      */
-    public PagedModel<StoryModel> createPagedModelForShowATopicsStories(Page<Story> storyPage, long topicId) {
+    public PagedModel<StoryModel> createPagedModelForShowATopicsStories(Page<StoryView> storyPage, long topicId) {
 
         PagedModel<StoryModel> pagedModel = createPagedModelFromPage(storyPage);
 
         pagedModel.add(linkTo(methodOn(StoryController.class)
                 .showATopicsStories
-                        (topicId, storyPage.getNumber(), storyPage.getSize()))
+                        (topicId, storyPage.getNumber(), storyPage.getSize(), null))
                 .withSelfRel());
 
         if (storyPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showATopicsStories
-                            (topicId, storyPage.getNumber() + 1, storyPage.getSize()))
+                            (topicId, storyPage.getNumber() + 1, storyPage.getSize(), null))
                     .withRel("next"));
         }
 
         if (storyPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(StoryController.class)
                     .showATopicsStories
-                            (topicId, storyPage.getNumber() - 1, storyPage.getSize()))
+                            (topicId, storyPage.getNumber() - 1, storyPage.getSize(), null))
                     .withRel("previous"));
         }
 
@@ -339,22 +398,150 @@ public class StoryModelAssembler  extends RepresentationModelAssemblerSupport<St
 
 
     /**
-     * Utility method that creates a PagedModel from an input Page
+     * Create a PagedModel of StoryModels from a window of Stories, with cursor links to navigate it
+     *
+     * @param window Provided window
+     * @param cursor Cursor the window was requested with
+     * @param size Size of the requested window
+     *
+     * @return PagedModel of StoryModels with links to navigate it
+     */
+    public PagedModel<StoryModel> createCursorModelForShowAllStories(StoryWindow window, String cursor, int size) {
+        return createCursorModelFromWindow(window, cursor, position -> methodOn(StoryController.class)
+                .showAllStories(0, size, position));
+    }
+
+
+    /**
+     * Create a PagedModel of StoryModels from a window of Stories, with cursor links to navigate it
+     *
+     * @param window Provided window
+     * @param minDate Date used to create a link to {@link StoryController#showAllStoriesByDate(Date, Date, int, int, String, Boolean)}
+     * @param maxDate Date used to create a link to {@link StoryController#showAllStoriesByDate(Date, Date, int, int, String, Boolean)}
+     * @param cursor Cursor the window was requested with
+     * @param size Size of the requested window
+     *
+     * @return PagedModel of StoryModels with links to navigate it
+     */
+    public PagedModel<StoryModel> createCursorModelForShowAllStoriesByDate(StoryWindow window, Date minDate,
+                                                                           Date maxDate, String cursor, int size) {
+        return createCursorModelFromWindow(window, cursor, position -> methodOn(StoryController.class)
+                .showAllStoriesByDate(minDate, maxDate, 0, size, position, null));
+    }
+
+
+    /**
+     * Create a PagedModel of StoryModels from a window of Stories, with cursor links to navigate it
+     *
+     * @param window Provided window
+     * @param state State used to create a link to {@link StoryController#showAllStoriesByState(StoryState, int, int, String)}
+     * @param cursor Cursor the window was requested with
+     * @param size Size of the requested window
+     *
+     * @return PagedModel of StoryModels with links to navigate it
+     */
+    public PagedModel<StoryModel> createCursorModelForShowAllStoriesByState(StoryWindow window, StoryState state,
+                                                                            String cursor, int size) {
+        return createCursorModelFromWindow(window, cursor, position -> methodOn(StoryController.class)
+                .showAllStoriesByState(state, 0, size, position));
+    }
+
+
+    /**
+     * Create a PagedModel of StoryModels from a window of Stories, with cursor links to navigate it
+     *
+     * @param window Provided window
+     * @param filter Filter used to create a link to {@link StoryController#filterStories}
+     * @param facets Whether the linked windows include facets
+     * @param cursor Cursor the window was requested with
+     * @param size Size of the requested window
+     *
+     * @return PagedModel of StoryModels with links to navigate it
+     */
+    public PagedModel<StoryModel> createCursorModelForFilterStories(StoryWindow window, StoryFilter filter,
+                                                                    boolean facets, String cursor, int size) {
+        return createCursorModelFromWindow(window, cursor, position -> methodOn(StoryController.class)
+                .filterStories(filter.name(), filter.content(), filter.minDate(), filter.maxDate(),
+                        filter.state(), filter.topicID(), facets, 0, size, position, null));
+    }
+
+
+    /**
+     * Create a PagedModel of StoryModels from a window of Stories, with cursor links to navigate it
+     *
+     * @param window Provided window
+     * @param topicId ID used to create a link to {@link StoryController#showATopicsStories(long, int, int, String)}
+     * @param cursor Cursor the window was requested with
+     * @param size Size of the requested window
+     *
+     * @return PagedModel of StoryModels with links to navigate it
+     */
+    public PagedModel<StoryModel> createCursorModelForShowATopicsStories(StoryWindow window, long topicId,
+                                                                         String cursor, int size) {
+        return createCursorModelFromWindow(window, cursor, position -> methodOn(StoryController.class)
+                .showATopicsStories(topicId, 0, size, position));
+    }
+
+
+    /**
+     * Attach highlighted snippets to the StoryModels of a PagedModel
+     *
+     * @param pagedModel Provided PagedModel
+     * @param highlights ID of every Story mapped to its snippets, Stories without snippets are left unchanged
+     */
+    public void addHighlights(PagedModel<StoryModel> pagedModel, Map<Long, Map<String, String>> highlights) {
+
+        for (StoryModel model : pagedModel.getContent()) {
+            model.setHighlights(highlights.get(model.getId()));
+        }
+
+    }
+
+
+    /**
+     * Utility method that creates a PagedModel without page metadata from an input window,
+     * with self, next and previous links carrying the respective cursors
+     *
+     * @param window Input window
+     * @param cursor Cursor the window was requested with
+     * @param endpoint Invokes the endpoint the window was requested from with a cursor, inside methodOn
+     *
+     * @return PagedModel
+     */
+    private PagedModel<StoryModel> createCursorModelFromWindow(StoryWindow window, String cursor,
+                                                               Function<String, Object> endpoint) {
+
+        List<StoryModel> storyModels = window.stories().stream().map(this::toModel).toList();
+
+        PagedModel<StoryModel> pagedModel = PagedModel.of(storyModels, (PagedModel.PageMetadata) null);
+
+        pagedModel.add(linkTo(endpoint.apply(cursor)).withSelfRel());
+
+        if (window.next() != null) {
+            pagedModel.add(linkTo(endpoint.apply(window.next().encode())).withRel("next"));
+        }
+
+        if (window.previous() != null) {
+            pagedModel.add(linkTo(endpoint.apply(window.previous().encode())).withRel("previous"));
+        }
+
+        return pagedModel;
+    }
+
+
+    /**
+     * Utility method that creates a PagedModel from an input Page, or from a Slice without totals
      *
-     * @param storyPage Input Page
+     * @param storyPage Input Page or Slice
      *
      * @return PagedModel
      */
-    private PagedModel<StoryModel> createPagedModelFromPage (Page<Story> storyPage ) {
+    private PagedModel<StoryModel> createPagedModelFromPage (Slice<StoryView> storyPage ) {
 
         // Convert Comments inside the page to CommentModels
         List<StoryModel> commentModels = storyPage.getContent().stream().map(this::toModel).toList();
 
-        PagedModel.PageMetadata pageMetadata = new PagedModel
-                .PageMetadata
-                    (storyPage.getSize(), storyPage.getNumber(), storyPage.getTotalElements());
-
-        return PagedModel.of(commentModels, pageMetadata);
+        return PagedModel.of(commentModels, SliceMetadata.of(storyPage));
     }
 
 
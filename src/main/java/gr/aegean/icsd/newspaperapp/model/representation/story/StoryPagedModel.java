@@ -0,0 +1,37 @@
+package gr.aegean.icsd.newspaperapp.model.representation.story;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFacets;
+import org.springframework.hateoas.PagedModel;
+
+/**
+ * Page of Story Representation Models that also carries
+ * the facet counts of every Story matching the request
+ */
+public class StoryPagedModel extends PagedModel<StoryModel> {
+
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final StoryFacets facets;
+
+
+
+    /**
+     * Copy a page of Story Representation Models, along with its links, and attach facets to it
+     *
+     * @param page Provided page
+     * @param facets Facet counts of the matching Stories
+     */
+    public StoryPagedModel(PagedModel<StoryModel> page, StoryFacets facets) {
+        super(page.getContent(), page.getMetadata(), page.getLinks());
+        this.facets = facets;
+    }
+
+
+
+    public StoryFacets getFacets() {
+        return facets;
+    }
+
+
+}
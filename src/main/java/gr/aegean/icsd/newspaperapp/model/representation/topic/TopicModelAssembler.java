@@ -1,11 +1,13 @@
 package gr.aegean.icsd.newspaperapp.model.representation.topic;
 
 import gr.aegean.icsd.newspaperapp.controller.TopicController;
-import gr.aegean.icsd.newspaperapp.model.entity.Story;
-import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicView;
+import gr.aegean.icsd.newspaperapp.model.representation.SliceMetadata;
+import gr.aegean.icsd.newspaperapp.model.search.PrefixIndex;
 import gr.aegean.icsd.newspaperapp.security.UserUtils;
-import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.lang.NonNull;
@@ -19,10 +21,10 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 /**
  * Support class used to create Representation
- * Models of the Topic Entity
+ * Models of the Topic Entity, from read-only {@link TopicView}s
  */
 @Component
-public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<Topic, TopicModel> {
+public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<TopicView, TopicModel> {
 
 
     /**
@@ -38,66 +40,57 @@ public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<To
      * Creates a single Representation Model from the provided
      * Topic Entity
      *
-     * @param entity Provided Topic Entity
+     * @param entity Provided view of a Topic
      *
      * @return Representation Model with links attached
      */
     @Override
     @NonNull
-    public TopicModel toModel(@NonNull Topic entity) {
+    public TopicModel toModel(@NonNull TopicView entity) {
 
         TopicModel newModel = new TopicModel();
 
-        BeanUtils.copyProperties(entity, newModel);
+        newModel.setId(entity.id());
+        newModel.setCreationDate(entity.creationDate());
+        newModel.setState(entity.state());
+        newModel.setName(entity.name());
+        newModel.setAuthorID(entity.authorID());
 
-        newModel.setAuthorID(entity.getAuthor().getUsername());
+        newModel.setStoriesList(entity.storyIDs().stream().map(Long::intValue).toList());
+        newModel.setTopicsList(entity.childTopicIDs().stream().map(Long::intValue).toList());
 
-        List<Integer> associatedStoriesList = new ArrayList<>();
-
-        for (Story associatedStory : entity.getStories()) {
-            associatedStoriesList.add(associatedStory.getId().intValue());
-        }
-        newModel.setStoriesList(associatedStoriesList);
-
-        List<Integer> childrenTopicsList = new ArrayList<>();
-
-        for (Topic childTopic : entity.getChildrenTopics()) {
-            childrenTopicsList.add(childTopic.getId().intValue());
-        }
-        newModel.setTopicsList(childrenTopicsList);
-
-        if (entity.getParentTopic() != null) {
-            newModel.setParentTopicID(entity.getParentTopic().getId().intValue());
+        if (entity.parentTopicID() != null) {
+            newModel.setParentTopicID(entity.parentTopicID().intValue());
         }
         else {
             newModel.setParentTopicID(null);
         }
 
         newModel.add(linkTo(methodOn(TopicController.class)
-                .showTopic(entity.getId())).withSelfRel());
+                .showTopic(entity.id())).withSelfRel());
 
         newModel.add(linkTo(methodOn(TopicController.class)
-                .showAllTopicsByName(entity.getName(), 0, 10))
+                .showAllTopicsByName(entity.name(), false, 0, 10))
                 .withRel("Topics with similar names"));
 
         newModel.add(linkTo(methodOn(TopicController.class)
-                .showAllTopics(0, 10))
+                .showAllTopics(0, 10, null))
                 .withRel("All Topics"));
 
         if (UserUtils.isCurator()) {
 
             newModel.add(linkTo(methodOn(TopicController.class)
-                    .approveTopic(entity.getId())).withRel("Approve Topic"));
+                    .approveTopic(entity.id())).withRel("Approve Topic"));
 
             newModel.add(linkTo(methodOn(TopicController.class)
-                    .rejectTopic(entity.getId())).withRel("Reject Topic"));
+                    .rejectTopic(entity.id())).withRel("Reject Topic"));
 
         }
 
         if(UserUtils.isCurator() || UserUtils.isJournalist()) {
 
             newModel.add(linkTo(methodOn(TopicController.class)
-                    .updateTopic(entity.getId(), new TopicModel()))
+                    .updateTopic(entity.id(), new TopicModel()))
                     .withRel("Update Topic"));
 
             newModel.add(linkTo(methodOn(TopicController.class)
@@ -110,19 +103,27 @@ public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<To
     }
 
 
-    public PagedModel<TopicModel> createPagedModel(Page<Topic> topicPage) {
+    /**
+     * Create a PagedModel of TopicModels from a Page or Slice of Topics, with relevant links to navigate it
+     *
+     * @param topicPage Provided Page, or Slice without totals
+     *
+     * @return PagedModel of TopicModels with links to navigate it
+     */
+    public PagedModel<TopicModel> createPagedModel(Slice<TopicView> topicPage) {
 
         PagedModel<TopicModel> pagedModel = createPagedModelFromPage(topicPage);
+        Boolean total = SliceMetadata.totalParameter(topicPage);
 
         pagedModel.add(linkTo(methodOn(TopicController.class)
                 .showAllTopics
-                        (topicPage.getNumber(), topicPage.getSize()))
+                        (topicPage.getNumber(), topicPage.getSize(), total))
                 .withSelfRel());
 
         if (topicPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(TopicController.class)
                     .showAllTopics
-                            (topicPage.getNumber() + 1, topicPage.getSize()))
+                            (topicPage.getNumber() + 1, topicPage.getSize(), total))
                     .withRel("next"));
         }
 
@@ -130,7 +131,7 @@ public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<To
         if (topicPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(TopicController.class)
                     .showAllTopics
-                            (topicPage.getNumber() - 1, topicPage.getSize()))
+                            (topicPage.getNumber() - 1, topicPage.getSize(), total))
                     .withRel("previous"));
         }
 
@@ -138,19 +139,19 @@ public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<To
     }
 
 
-    public PagedModel<TopicModel> createPagedModelForSearchByName(Page<Topic> topicPage, String name) {
+    public PagedModel<TopicModel> createPagedModelForSearchByName(Page<TopicView> topicPage, String name, boolean fuzzy) {
 
         PagedModel<TopicModel> pagedModel = createPagedModelFromPage(topicPage);
 
         pagedModel.add(linkTo(methodOn(TopicController.class)
                 .showAllTopicsByName
-                        (name, topicPage.getNumber(), topicPage.getSize()))
+                        (name, fuzzy, topicPage.getNumber(), topicPage.getSize()))
                 .withSelfRel());
 
         if (topicPage.hasNext()) {
             pagedModel.add(linkTo(methodOn(TopicController.class)
                     .showAllTopicsByName
-                            (name, topicPage.getNumber() + 1, topicPage.getSize()))
+                            (name, fuzzy, topicPage.getNumber() + 1, topicPage.getSize()))
                     .withRel("next"));
         }
 
@@ -158,7 +159,7 @@ public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<To
         if (topicPage.hasPrevious()) {
             pagedModel.add(linkTo(methodOn(TopicController.class)
                     .showAllTopicsByName
-                            (name, topicPage.getNumber() - 1, topicPage.getSize()))
+                            (name, fuzzy, topicPage.getNumber() - 1, topicPage.getSize()))
                     .withRel("previous"));
         }
 
@@ -167,20 +168,49 @@ public class TopicModelAssembler  extends RepresentationModelAssemblerSupport<To
 
 
     /**
-     * Utility method that creates a PagedModel from an input Page
+     * Creates a CollectionModel of suggested Topics, linking every suggestion to its Topic
      *
-     * @param topicPage Input Page
+     * @param suggestions Suggested Topics
+     * @param prefix The Topic name the suggestions were made for
+     * @param limit Maximum number of suggestions requested
+     *
+     * @return CollectionModel of the suggestions
+     */
+    public CollectionModel<TopicSuggestionModel> createSuggestionsModel(List<PrefixIndex.Suggestion> suggestions,
+                                                                        String prefix, int limit) {
+
+        List<TopicSuggestionModel> suggestionModels = new ArrayList<>();
+
+        for (PrefixIndex.Suggestion suggestion : suggestions) {
+
+            TopicSuggestionModel suggestionModel = new TopicSuggestionModel();
+            suggestionModel.setId(suggestion.id());
+            suggestionModel.setName(suggestion.text());
+
+            suggestionModel.add(linkTo(methodOn(TopicController.class)
+                    .showTopic(suggestion.id())).withRel("Topic"));
+
+            suggestionModels.add(suggestionModel);
+        }
+
+        return CollectionModel.of(suggestionModels, linkTo(methodOn(TopicController.class)
+                .suggestTopics(prefix, limit)).withSelfRel());
+    }
+
+
+    /**
+     * Utility method that creates a PagedModel from an input Page, or from a Slice without totals
+     *
+     * @param topicPage Input Page or Slice
      *
      * @return PagedModel
      */
-    private PagedModel<TopicModel> createPagedModelFromPage ( Page<Topic> topicPage ) {
+    private PagedModel<TopicModel> createPagedModelFromPage ( Slice<TopicView> topicPage ) {
 
         // Convert Topics inside the page to TopicModels
         List<TopicModel> topicModels = topicPage.getContent().stream().map(this::toModel).toList();
 
-        PagedModel.PageMetadata pageMetadata = new PagedModel.PageMetadata(topicPage.getSize(), topicPage.getNumber(), topicPage.getTotalElements());
-
-        return PagedModel.of(topicModels, pageMetadata);
+        return PagedModel.of(topicModels, SliceMetadata.of(topicPage));
     }
 
 
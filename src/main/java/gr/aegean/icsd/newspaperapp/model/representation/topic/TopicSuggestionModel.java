@@ -0,0 +1,35 @@
+package gr.aegean.icsd.newspaperapp.model.representation.topic;
+
+import org.springframework.hateoas.RepresentationModel;
+
+/**
+ * Representation Model of a Topic suggested
+ * while its name is being typed
+ */
+public class TopicSuggestionModel extends RepresentationModel<TopicSuggestionModel> {
+
+
+    private Long id;
+
+    private String name;
+
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+
+}
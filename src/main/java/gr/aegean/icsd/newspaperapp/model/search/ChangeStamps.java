@@ -0,0 +1,161 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tracks the modification stamps of the rows applied on an in-process index, so that the index
+ * can poll the database for the changes committed by other instances of the application. <br>
+ *
+ * Every poll reads the rows modified after the newest stamp applied, minus an overlap. The overlap covers
+ * the clock skew between instances, and the transactions that commit after a row modified later than them
+ * has been polled. Rows read again within the overlap are recognised by their stamp and skipped, and a row
+ * is never replaced by an older version of itself. <br>
+ *
+ * Deletions leave no row behind, they are only noticed once the index is rebuilt.
+ */
+final class ChangeStamps {
+
+    /** Milliseconds a poll reaches back before the newest stamp applied */
+    private final long overlap;
+
+    // Newest stamp applied, in milliseconds
+    private long watermark = 0;
+
+    // Stamp of every row applied since the last poll, or within its overlap
+    private final Map<Long, Long> applied = new HashMap<>();
+
+
+    ChangeStamps(long overlap) {
+        this.overlap = overlap;
+    }
+
+
+
+    /**
+     * Forget the applied rows, once the index has been built or opened
+     *
+     * @param built Newest stamp the index is known to hold, null if there are no rows
+     */
+    synchronized void reset(Date built) {
+
+        watermark = built == null ? 0 : built.getTime();
+        applied.clear();
+
+    }
+
+
+
+    /**
+     * Get the newest stamp applied
+     *
+     * @return Newest stamp applied, or the stamp the index was last reset to
+     */
+    synchronized Date watermark() {
+        return new Date(watermark);
+    }
+
+
+
+    /**
+     * Check whether a polled row holds a version newer than the one applied
+     *
+     * @param id ID of the row
+     * @param stamp Modification stamp of the row
+     *
+     * @return True if the row should be applied
+     */
+    synchronized boolean isNewer(long id, Date stamp) {
+
+        Long previous = applied.get(id);
+
+        return previous == null || stamp == null || stamp.getTime() > previous;
+
+    }
+
+
+
+    /**
+     * Apply the change of a row, unless a newer version of the row has already been applied. <br>
+     *
+     * Changes are applied one at a time, so that a poll and a local change of the same row cannot interleave
+     *
+     * @param id ID of the row
+     * @param stamp Modification stamp of the row, null for rows persisted before stamps were introduced
+     * @param polled True if the row was read by a poll, which skips the version already applied as well
+     * @param change Applies the row on the index
+     *
+     * @return True if the change was applied
+     */
+    synchronized boolean apply(long id, Date stamp, boolean polled, Runnable change) {
+
+        if (stamp == null) {
+            change.run();
+            return true;
+        }
+
+        long time = stamp.getTime();
+        Long previous = applied.get(id);
+
+        if (previous != null && (previous > time || (polled && previous == time))) { return false; }
+
+        change.run();
+
+        applied.put(id, time);
+        watermark = Math.max(watermark, time);
+
+        return true;
+
+    }
+
+
+
+    /**
+     * Read the rows modified since the newest stamp applied, minus the overlap,
+     * in batches ordered by stamp and then by ID
+     *
+     * @param modifiedAfter Finds a batch of the rows modified after a stamp, or at the stamp with a greater ID
+     * @param stamp Modification stamp of a row
+     * @param id ID of a row
+     * @param batches Receives every batch
+     * @param <T> Type of the rows
+     */
+    <T> void poll(BiFunction<Date, Long, List<T>> modifiedAfter, Function<T, Date> stamp, Function<T, Long> id,
+                  Consumer<List<T>> batches) {
+
+        Date position = since();
+        long positionID = Long.MIN_VALUE;
+        List<T> batch;
+
+        while (!(batch = modifiedAfter.apply(position, positionID)).isEmpty()) {
+
+            batches.accept(batch);
+
+            T last = batch.get(batch.size() - 1);
+            position = stamp.apply(last);
+            positionID = id.apply(last);
+        }
+
+    }
+
+
+
+    /**
+     * Stamp a poll starts from, the rows applied before it are forgotten
+     */
+    private synchronized Date since() {
+
+        long since = watermark - overlap;
+        applied.values().removeIf(time -> time < since);
+
+        return new Date(since);
+
+    }
+
+
+}
@@ -0,0 +1,19 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Thrown when a file of the search index cannot be trusted,
+ * because it is truncated, fails its checksum or was written in an older format
+ */
+public class CorruptIndexException extends IOException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public CorruptIndexException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,115 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch, estimates how many times each term has been added in a fixed amount of memory,
+ * however many distinct terms arrive. <br>
+ *
+ * Every term increments one counter in each row of the sketch, chosen by a different hash per row.
+ * Other terms may share a counter, so a counter can only overestimate, and the estimate of a term
+ * is the smallest of its counters. <br>
+ *
+ * Counters are atomic, so terms are added without any locking.
+ */
+public class CountMinSketch {
+
+    private final int width;
+
+    private final int depth;
+
+    // Row after row, depth rows of width counters each
+    private final AtomicLongArray counters;
+
+
+
+    /**
+     * @param width Number of counters per row, larger widths lower the overestimation
+     * @param depth Number of rows, more rows lower the chance of a large overestimation
+     */
+    public CountMinSketch(int width, int depth) {
+
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Width and depth of the sketch must be positive");
+        }
+
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+
+    }
+
+
+
+    /**
+     * Count one more occurrence of a term
+     *
+     * @param term Provided term
+     *
+     * @return Estimated number of occurrences of the term, including this one
+     */
+    public long add(String term) {
+
+        long firstHash = mix(term.hashCode());
+        long secondHash = mix(firstHash) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(counter(row, firstHash, secondHash)));
+        }
+
+        return estimate;
+
+    }
+
+
+
+    /**
+     * Estimate the number of occurrences of a term
+     *
+     * @param term Provided term
+     *
+     * @return Estimated number of occurrences, never lower than the actual number
+     */
+    public long estimate(String term) {
+
+        long firstHash = mix(term.hashCode());
+        long secondHash = mix(firstHash) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(counter(row, firstHash, secondHash)));
+        }
+
+        return estimate;
+
+    }
+
+
+
+    /**
+     * Position of a term's counter in a row, the row's hash is derived from two base hashes
+     */
+    private int counter(int row, long firstHash, long secondHash) {
+        return row * width + (int) Long.remainderUnsigned(firstHash + row * secondHash, width);
+    }
+
+
+
+    /**
+     * Spread the bits of a hash, so that similar terms do not fall on neighbouring counters
+     */
+    private static long mix(long hash) {
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+
+    }
+
+
+}
@@ -0,0 +1,147 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the most frequent terms of a stream in fixed memory. <br>
+ *
+ * Every term is counted by a {@link CountMinSketch}, and the terms with the highest estimates are kept
+ * along with their estimate. The estimate of a kept term is raised by compare-and-set, without locking.
+ * Only a term whose estimate exceeds the smallest kept estimate takes the lock, to enter in place of
+ * the smallest one, which is rare for a term outside of the most frequent ones.
+ */
+public class HeavyHitters {
+
+
+    /**
+     * A frequent term
+     *
+     * @param term The term
+     * @param estimate Estimated number of occurrences of the term
+     */
+    public record Estimate(String term, long estimate) {}
+
+
+    private final CountMinSketch sketch;
+
+    private final int capacity;
+
+    private final LongAdder total = new LongAdder();
+
+    // Estimate of every kept term, holds at most capacity terms. Terms enter and leave while holding the lock
+    private final Map<String, AtomicLong> members = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    // Smallest estimate a term needs to enter once capacity terms are kept
+    private volatile long threshold = 0;
+
+
+
+    /**
+     * @param width Number of counters per row of the sketch
+     * @param depth Number of rows of the sketch
+     * @param capacity Number of most frequent terms kept
+     */
+    public HeavyHitters(int width, int depth, int capacity) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.capacity = capacity;
+    }
+
+
+
+    /**
+     * Count one more occurrence of a term
+     *
+     * @param term Provided term
+     */
+    public void add(String term) {
+
+        total.increment();
+
+        long estimate = sketch.add(term);
+
+        if (capacity <= 0) { return; }
+
+        AtomicLong member = members.get(term);
+
+        if (member != null) {
+            member.accumulateAndGet(estimate, Math::max);
+            return;
+        }
+
+        if (estimate <= threshold) { return; }
+
+        synchronized (lock) {
+
+            member = members.get(term);
+
+            if (member != null) {
+                member.accumulateAndGet(estimate, Math::max);
+                return;
+            }
+
+            if (members.size() >= capacity) {
+
+                Map.Entry<String, AtomicLong> smallest = smallest();
+
+                // The estimates of the kept terms may have grown since the threshold was set
+                if (estimate <= smallest.getValue().get()) {
+                    threshold = smallest.getValue().get();
+                    return;
+                }
+
+                members.remove(smallest.getKey());
+            }
+
+            members.put(term, new AtomicLong(estimate));
+
+            threshold = members.size() < capacity ? 0 : smallest().getValue().get();
+        }
+
+    }
+
+
+
+    /**
+     * Get the most frequent terms
+     *
+     * @return Most frequent terms, most frequent first
+     */
+    public List<Estimate> top() {
+
+        List<Estimate> top = new ArrayList<>(members.size());
+
+        members.forEach((term, estimate) -> top.add(new Estimate(term, estimate.get())));
+
+        top.sort(Comparator.comparingLong(Estimate::estimate).reversed().thenComparing(Estimate::term));
+
+        return top;
+
+    }
+
+
+
+    /**
+     * Count every occurrence of every term
+     *
+     * @return Number of terms added
+     */
+    public long total() {
+        return total.sum();
+    }
+
+
+
+    /**
+     * Find the kept term with the smallest estimate, must hold the lock
+     */
+    private Map.Entry<String, AtomicLong> smallest() {
+        return Collections.min(members.entrySet(), Comparator.comparingLong(entry -> entry.getValue().get()));
+    }
+
+
+}
@@ -0,0 +1,138 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds short snippets of a text, with the matches of a search marked in them. <br>
+ *
+ * Matches are given as character offsets, as stored in the search index, so the text is never searched again.
+ * The markup characters of a snippet are HTML escaped and every match is wrapped in {@value #matchStart} and {@value #matchEnd}.
+ */
+public final class Highlighter {
+
+    private static final String matchStart = "<em>";
+
+    private static final String matchEnd = "</em>";
+
+    private static final String omission = "…";
+
+    /** Maximum number of characters of the text included in a snippet */
+    private static final int snippetLength = 160;
+
+    /** Fraction of the snippet placed before the first match */
+    private static final int leadingContextDivisor = 4;
+
+
+    private Highlighter() {}
+
+
+    /**
+     * Build a snippet of the provided text around its first match
+     *
+     * @param text Provided text
+     * @param offsets Start and end offset of every match, in any order
+     *
+     * @return The snippet, null if none of the offsets lies within the text
+     */
+    public static String snippet(String text, List<int[]> offsets) {
+
+        if (text == null) { return null; }
+
+        List<int[]> matches = merge(text, offsets);
+
+        if (matches.isEmpty()) { return null; }
+
+        int windowStart = 0;
+        int windowEnd = text.length();
+
+        if (text.length() > snippetLength) {
+
+            windowStart = Math.max(0, matches.get(0)[0] - snippetLength / leadingContextDivisor);
+            windowEnd = Math.min(text.length(), windowStart + snippetLength);
+
+            // Do not cut words in half
+            while (windowStart > 0 && !Character.isWhitespace(text.charAt(windowStart - 1))
+                    && windowStart < matches.get(0)[0]) {
+                windowStart++;
+            }
+
+            while (windowEnd < text.length() && windowEnd > matches.get(0)[1]
+                    && !Character.isWhitespace(text.charAt(windowEnd))) {
+                windowEnd--;
+            }
+        }
+
+        StringBuilder snippet = new StringBuilder();
+        int position = windowStart;
+
+        if (windowStart > 0) { snippet.append(omission); }
+
+        for (int[] match : matches) {
+
+            if (match[0] < windowStart || match[1] > windowEnd) { continue; }
+
+            snippet.append(escape(text.substring(position, match[0])))
+                    .append(matchStart)
+                    .append(escape(text.substring(match[0], match[1])))
+                    .append(matchEnd);
+
+            position = match[1];
+        }
+
+        snippet.append(escape(text.substring(position, windowEnd)));
+
+        if (windowEnd < text.length()) { snippet.append(omission); }
+
+        return snippet.toString();
+
+    }
+
+
+
+    /**
+     * Escape the markup characters of a text. <br>
+     *
+     * Snippets are sent as UTF-8, so Greek and other non-ASCII letters are kept as they are
+     * instead of being turned into character references
+     */
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text, StandardCharsets.UTF_8.name());
+    }
+
+
+
+    /**
+     * Sort the matches and merge the overlapping ones, dropping those outside the text
+     */
+    private static List<int[]> merge(String text, List<int[]> offsets) {
+
+        List<int[]> sorted = offsets.stream()
+                .filter(match -> match[0] >= 0 && match[0] < match[1] && match[1] <= text.length())
+                .sorted(Comparator.comparingInt(match -> match[0]))
+                .toList();
+
+        List<int[]> merged = new ArrayList<>();
+
+        for (int[] match : sorted) {
+
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+
+            if (last != null && match[0] <= last[1]) {
+                last[1] = Math.max(last[1], match[1]);
+            }
+            else {
+                merged.add(new int[] {match[0], match[1]});
+            }
+        }
+
+        return merged;
+
+    }
+
+
+}
@@ -0,0 +1,442 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.*;
+
+/**
+ * Compressed set of entity IDs, laid out like a roaring bitmap. <br>
+ *
+ * IDs are grouped by their high bits into containers of 65536 consecutive IDs. A container holding few IDs stores
+ * them as a sorted array of their low 16 bits, and a container holding many stores a bitmap of 1024 words instead,
+ * so that neither sparse nor dense ranges of IDs waste memory. Intersections and unions work container by
+ * container, and only on the containers both sets have in common where possible. <br>
+ *
+ * Not safe for concurrent use, callers must guard every bitmap they share.
+ */
+public final class IdBitmap {
+
+    /** Containers holding more IDs than this switch from an array to a bitmap */
+    private static final int arrayContainerLimit = 4096;
+
+    private static final int bitmapWords = 1024;
+
+    // Containers keyed by the high bits of their IDs
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+
+
+
+    /**
+     * Add an ID to the set
+     *
+     * @param id Provided ID, must not be negative
+     */
+    public void add(long id) {
+        containers.computeIfAbsent(id >>> 16, key -> new Container()).add((char) id);
+    }
+
+
+
+    /**
+     * Remove an ID from the set. <br>
+     * IDs that are not in the set are safely ignored
+     *
+     * @param id Provided ID
+     */
+    public void remove(long id) {
+
+        Container container = containers.get(id >>> 16);
+
+        if (container == null) { return; }
+
+        container.remove((char) id);
+
+        if (container.cardinality == 0) { containers.remove(id >>> 16); }
+
+    }
+
+
+
+    /**
+     * Check whether an ID is in the set
+     *
+     * @param id Provided ID
+     *
+     * @return True if the ID is in the set
+     */
+    public boolean contains(long id) {
+
+        Container container = containers.get(id >>> 16);
+
+        return container != null && container.contains((char) id);
+
+    }
+
+
+
+    /**
+     * Count the IDs in the set
+     *
+     * @return Number of IDs
+     */
+    public long cardinality() {
+
+        long cardinality = 0;
+
+        for (Container container : containers.values()) {
+            cardinality += container.cardinality;
+        }
+
+        return cardinality;
+
+    }
+
+
+
+    /**
+     * Create the intersection of this set and another
+     *
+     * @param other Provided set
+     *
+     * @return A new set with the IDs found in both sets
+     */
+    public IdBitmap and(IdBitmap other) {
+
+        IdBitmap intersection = new IdBitmap();
+
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+
+            Container otherContainer = other.containers.get(entry.getKey());
+
+            if (otherContainer == null) { continue; }
+
+            Container container = entry.getValue().and(otherContainer);
+
+            if (container.cardinality > 0) { intersection.containers.put(entry.getKey(), container); }
+        }
+
+        return intersection;
+
+    }
+
+
+
+    /**
+     * Create the union of this set and another
+     *
+     * @param other Provided set
+     *
+     * @return A new set with the IDs found in either set
+     */
+    public IdBitmap or(IdBitmap other) {
+
+        IdBitmap union = copy();
+
+        for (Map.Entry<Long, Container> entry : other.containers.entrySet()) {
+            union.containers.merge(entry.getKey(), entry.getValue().copy(), Container::or);
+        }
+
+        return union;
+
+    }
+
+
+
+    /**
+     * Create a copy of this set
+     *
+     * @return A new set with the same IDs
+     */
+    public IdBitmap copy() {
+
+        IdBitmap copy = new IdBitmap();
+
+        containers.forEach((key, container) -> copy.containers.put(key, container.copy()));
+
+        return copy;
+
+    }
+
+
+
+    /**
+     * List a page of the IDs in the set, highest ID first. <br>
+     *
+     * Whole containers before the page are skipped by their cardinality, without visiting their IDs
+     *
+     * @param offset Number of IDs before the page
+     * @param size Maximum number of IDs in the page
+     *
+     * @return IDs of the page
+     */
+    public List<Long> pageDescending(long offset, int size) {
+
+        List<Long> page = new ArrayList<>(Math.min(size, 1024));
+        long skipped = offset;
+
+        for (Map.Entry<Long, Container> entry : containers.descendingMap().entrySet()) {
+
+            if (page.size() >= size) { break; }
+
+            Container container = entry.getValue();
+
+            if (skipped >= container.cardinality) {
+                skipped -= container.cardinality;
+                continue;
+            }
+
+            skipped = container.collectDescending(entry.getKey() << 16, skipped, size, page);
+        }
+
+        return page;
+
+    }
+
+
+
+    /**
+     * IDs sharing the same high bits, as a sorted array of their low bits or as a bitmap
+     */
+    private static final class Container {
+
+        // Sorted low bits while the container is an array, null while it is a bitmap
+        private char[] values = new char[4];
+
+        // Null while the container is an array
+        private long[] words;
+
+        private int cardinality;
+
+
+        void add(char low) {
+
+            if (words != null) {
+                if ((words[low >>> 6] & (1L << low)) == 0) {
+                    words[low >>> 6] |= 1L << low;
+                    cardinality++;
+                }
+                return;
+            }
+
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+
+            if (position >= 0) { return; }
+
+            position = -position - 1;
+
+            if (cardinality == values.length) { values = Arrays.copyOf(values, values.length * 2); }
+
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = low;
+            cardinality++;
+
+            if (cardinality > arrayContainerLimit) { toBitmap(); }
+
+        }
+
+
+        void remove(char low) {
+
+            if (words != null) {
+                if ((words[low >>> 6] & (1L << low)) != 0) {
+                    words[low >>> 6] &= ~(1L << low);
+                    cardinality--;
+                }
+                if (cardinality <= arrayContainerLimit / 2) { toArray(); }
+                return;
+            }
+
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+
+            if (position < 0) { return; }
+
+            System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+            cardinality--;
+
+        }
+
+
+        boolean contains(char low) {
+
+            if (words != null) { return (words[low >>> 6] & (1L << low)) != 0; }
+
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+
+        }
+
+
+        Container and(Container other) {
+
+            Container intersection = new Container();
+
+            if (words != null && other.words != null) {
+
+                intersection.values = null;
+                intersection.words = new long[bitmapWords];
+
+                for (int word = 0; word < bitmapWords; word++) {
+                    intersection.words[word] = words[word] & other.words[word];
+                    intersection.cardinality += Long.bitCount(intersection.words[word]);
+                }
+
+                if (intersection.cardinality <= arrayContainerLimit) { intersection.toArray(); }
+
+                return intersection;
+            }
+
+            // Walk the array side, which holds at most arrayContainerLimit values
+            Container array = words == null ? this : other;
+            Container lookup = array == this ? other : this;
+
+            intersection.values = new char[Math.max(4, array.cardinality)];
+
+            for (int position = 0; position < array.cardinality; position++) {
+                if (lookup.contains(array.values[position])) {
+                    intersection.values[intersection.cardinality++] = array.values[position];
+                }
+            }
+
+            return intersection;
+
+        }
+
+
+        Container or(Container other) {
+
+            if (words == null && other.words == null && cardinality + other.cardinality <= arrayContainerLimit) {
+
+                Container union = new Container();
+                union.values = new char[Math.max(4, cardinality + other.cardinality)];
+
+                int left = 0;
+                int right = 0;
+
+                while (left < cardinality || right < other.cardinality) {
+
+                    char next;
+
+                    if (right >= other.cardinality || (left < cardinality && values[left] < other.values[right])) {
+                        next = values[left++];
+                    }
+                    else if (left >= cardinality || other.values[right] < values[left]) {
+                        next = other.values[right++];
+                    }
+                    else {
+                        next = values[left++];
+                        right++;
+                    }
+
+                    union.values[union.cardinality++] = next;
+                }
+
+                return union;
+            }
+
+            Container union = copy();
+            union.toBitmap();
+
+            if (other.words != null) {
+                union.cardinality = 0;
+                for (int word = 0; word < bitmapWords; word++) {
+                    union.words[word] |= other.words[word];
+                    union.cardinality += Long.bitCount(union.words[word]);
+                }
+            }
+            else {
+                for (int position = 0; position < other.cardinality; position++) {
+                    union.add(other.values[position]);
+                }
+            }
+
+            return union;
+
+        }
+
+
+        Container copy() {
+
+            Container copy = new Container();
+            copy.values = values == null ? null : values.clone();
+            copy.words = words == null ? null : words.clone();
+            copy.cardinality = cardinality;
+
+            return copy;
+
+        }
+
+
+        /**
+         * Add the IDs of the container to a page, highest first, after skipping some of them
+         *
+         * @return Number of IDs still to be skipped
+         */
+        long collectDescending(long base, long skipped, int size, List<Long> page) {
+
+            if (words == null) {
+
+                for (int position = cardinality - 1; position >= 0 && page.size() < size; position--) {
+                    if (skipped > 0) { skipped--; continue; }
+                    page.add(base | values[position]);
+                }
+
+                return skipped;
+            }
+
+            for (int word = bitmapWords - 1; word >= 0 && page.size() < size; word--) {
+
+                long bits = words[word];
+
+                while (bits != 0 && page.size() < size) {
+
+                    int bit = 63 - Long.numberOfLeadingZeros(bits);
+                    bits &= ~(1L << bit);
+
+                    if (skipped > 0) { skipped--; continue; }
+                    page.add(base | ((long) word << 6) | bit);
+                }
+            }
+
+            return skipped;
+
+        }
+
+
+        private void toBitmap() {
+
+            if (words != null) { return; }
+
+            words = new long[bitmapWords];
+
+            for (int position = 0; position < cardinality; position++) {
+                words[values[position] >>> 6] |= 1L << values[position];
+            }
+
+            values = null;
+
+        }
+
+
+        private void toArray() {
+
+            if (words == null) { return; }
+
+            values = new char[Math.max(4, cardinality)];
+            int position = 0;
+
+            for (int word = 0; word < bitmapWords; word++) {
+
+                long bits = words[word];
+
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    values[position++] = (char) ((word << 6) | bit);
+                }
+            }
+
+            words = null;
+
+        }
+
+    }
+
+
+}
@@ -0,0 +1,172 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Lists the files that make up the persisted Story search index. <br>
+ *
+ * The manifest is the single point of truth of the index directory, segment and log files
+ * that it does not reference are leftovers of an interrupted flush or compaction.
+ * It is replaced atomically, so the index on disk always moves from one consistent state to the next.
+ *
+ * @param analyzerVersion Version of the {@link TextAnalyzer} the index was built with
+ * @param segments File names of the {@link MappedSegment segments}, oldest first
+ * @param logs File names of the {@link WriteAheadLog logs} holding the updates that follow the segments, oldest first.
+ *             Only the last one is appended to, the others hold the updates of a segment that is being flushed
+ * @param generation Last generation number used to name a file
+ * @param watermark Latest modification stamp of the Stories that the segments and logs are known to hold,
+ *                  in milliseconds. When the index is opened, the Stories modified since are indexed again
+ */
+public record IndexManifest(int analyzerVersion, List<String> segments, List<String> logs, long generation,
+                            long watermark) {
+
+    private static final String fileName = "manifest.properties";
+
+    private static final int formatVersion = 3;
+
+
+    public IndexManifest {
+        segments = List.copyOf(segments);
+        logs = List.copyOf(logs);
+    }
+
+
+
+    /**
+     * Get the log that updates are appended to
+     *
+     * @return File name of the newest log
+     */
+    public String activeLog() {
+        return logs.get(logs.size() - 1);
+    }
+
+
+
+    /**
+     * Read the manifest of an index directory
+     *
+     * @param directory Index directory
+     *
+     * @return The manifest, empty if the directory holds no index
+     *
+     * @throws CorruptIndexException If the manifest cannot be parsed or was written in a different format
+     */
+    public static Optional<IndexManifest> read(Path directory) throws IOException {
+
+        Path path = directory.resolve(fileName);
+
+        if (!Files.exists(path)) { return Optional.empty(); }
+
+        Properties properties = new Properties();
+
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        }
+
+        try {
+
+            if (Integer.parseInt(properties.getProperty("format")) != formatVersion) {
+                throw new CorruptIndexException("Manifest " + path + " was written in a different format");
+            }
+
+            String segments = properties.getProperty("segments");
+            String logs = properties.getProperty("logs");
+
+            return Optional.of(new IndexManifest(
+                    Integer.parseInt(properties.getProperty("analyzer")),
+                    segments.isEmpty() ? List.of() : List.of(segments.split(",")),
+                    List.of(logs.split(",")),
+                    Long.parseLong(properties.getProperty("generation")),
+                    Long.parseLong(properties.getProperty("watermark"))));
+
+        }
+        catch (NumberFormatException | NullPointerException invalidManifest) {
+            throw new CorruptIndexException("Manifest " + path + " is invalid");
+        }
+
+    }
+
+
+
+    /**
+     * Delete the manifest of an index directory, so that the index is rebuilt on the next start
+     *
+     * @param directory Index directory
+     */
+    public static void delete(Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(fileName));
+    }
+
+
+
+    /**
+     * Atomically replace the manifest of an index directory with this one
+     *
+     * @param directory Index directory
+     */
+    public void write(Path directory) throws IOException {
+
+        Properties properties = new Properties();
+        properties.setProperty("format", String.valueOf(formatVersion));
+        properties.setProperty("analyzer", String.valueOf(analyzerVersion));
+        properties.setProperty("segments", String.join(",", segments));
+        properties.setProperty("logs", String.join(",", logs));
+        properties.setProperty("generation", String.valueOf(generation));
+        properties.setProperty("watermark", String.valueOf(watermark));
+
+        Path temporary = directory.resolve(fileName + ".tmp");
+
+        try (OutputStream output = Files.newOutputStream(temporary)) {
+            properties.store(output, "Story search index");
+        }
+
+        Files.move(temporary, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+
+
+    /**
+     * Delete every segment and log file of the directory that this manifest does not reference. <br>
+     * Files that cannot be deleted, for example because they are still mapped, are left for a later call
+     *
+     * @param directory Index directory
+     *
+     * @return Names of the files that could not be deleted
+     */
+    public List<String> deleteUnreferenced(Path directory) throws IOException {
+
+        List<String> remaining = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+
+            for (Path file : files.toList()) {
+
+                String name = file.getFileName().toString();
+
+                boolean indexFile = name.endsWith(".idx") || name.endsWith(".log") || name.endsWith(".tmp");
+
+                if (!indexFile || segments.contains(name) || logs.contains(name)) { continue; }
+
+                try {
+                    Files.deleteIfExists(file);
+                }
+                catch (IOException stillInUse) {
+                    remaining.add(name);
+                }
+            }
+
+        }
+
+        return remaining;
+
+    }
+
+
+}
@@ -0,0 +1,102 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * A part of the Story search index. <br>
+ *
+ * The index is made of immutable {@link MappedSegment segments} stored on disk,
+ * followed by a mutable {@link InvertedIndex} holding the most recent updates.
+ * When a Story appears in more than one segment, the newest segment holds its current version.
+ */
+public interface IndexSegment {
+
+
+    /**
+     * Receives the postings of a term
+     */
+    @FunctionalInterface
+    interface PostingConsumer {
+
+        /**
+         * @param id ID of the Story containing the term
+         * @param offsets Start and end character offset of every occurrence, interleaved
+         */
+        void accept(long id, int[] offsets);
+    }
+
+
+    /**
+     * Get the number of Stories in the segment
+     *
+     * @return Number of Stories
+     */
+    int size();
+
+    /**
+     * Check whether the segment holds a version of the specified Story
+     *
+     * @param id ID of the Story
+     * @return True if the Story is in the segment
+     */
+    boolean contains(long id);
+
+    /**
+     * Get the indexed attributes of a Story
+     *
+     * @param id ID of the Story
+     * @return The Story's attributes, empty if the Story is not in the segment
+     */
+    Optional<IndexedStory> document(long id);
+
+    /**
+     * Visit every Story in the segment
+     *
+     * @param consumer Receives the attributes of every Story
+     */
+    void forEachDocument(Consumer<IndexedStory> consumer);
+
+    /**
+     * Visit every term of a field, in ascending order
+     *
+     * @param field Provided field
+     * @param consumer Receives every term
+     */
+    void forEachTerm(SearchField field, Consumer<String> consumer);
+
+    /**
+     * Visit the postings of a term, or of every term starting with a prefix
+     *
+     * @param field Field to search in
+     * @param term Normalized term, or prefix of the term
+     * @param prefix True to match every term starting with the provided term
+     * @param consumer Receives every posting
+     */
+    void forEachPosting(SearchField field, String term, boolean prefix, PostingConsumer consumer);
+
+
+    /**
+     * Find the Stories containing a term that starts with the provided prefix
+     *
+     * @param field Field to search in
+     * @param prefix Normalized prefix of the term
+     *
+     * @return ID of every matching Story mapped to the number of matching occurrences
+     */
+    default Map<Long, Integer> match(SearchField field, String prefix) {
+
+        Map<Long, Integer> matches = new HashMap<>();
+
+        forEachPosting(field, prefix, true, (id, offsets) -> matches.merge(id, offsets.length / 2, Integer::sum));
+
+        return matches;
+
+    }
+
+
+}
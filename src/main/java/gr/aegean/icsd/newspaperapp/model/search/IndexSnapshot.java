@@ -0,0 +1,261 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+
+import java.util.*;
+
+/**
+ * Immutable view of the segments that make up the Story search index at some point in time. <br>
+ *
+ * Segments are ordered from oldest to newest, and a Story's current version is the one held
+ * by the newest segment that contains it. Every older version of the Story is ignored.
+ *
+ * @param segments Segments of the index, oldest first
+ */
+public record IndexSnapshot(List<IndexSegment> segments) {
+
+
+    public IndexSnapshot {
+        segments = List.copyOf(segments);
+    }
+
+
+
+    /**
+     * Find the Stories containing a term that starts with the provided prefix
+     *
+     * @param field Field to search in
+     * @param prefix Normalized prefix of the term
+     *
+     * @return ID of every matching Story mapped to the number of matching occurrences
+     */
+    public Map<Long, Integer> match(SearchField field, String prefix) {
+
+        Map<Long, Integer> matches = new HashMap<>();
+
+        forEachPosting(field, prefix, (id, offsets) -> matches.merge(id, offsets.length / 2, Integer::sum));
+
+        return matches;
+
+    }
+
+
+
+    /**
+     * Visit the postings of the current versions of Stories, for every term starting with a prefix
+     *
+     * @param field Field to search in
+     * @param prefix Normalized prefix of the term
+     * @param consumer Receives every posting
+     */
+    public void forEachPosting(SearchField field, String prefix, IndexSegment.PostingConsumer consumer) {
+
+        for (int i = 0; i < segments.size(); i++) {
+            int segment = i;
+            segments.get(segment).forEachPosting(field, prefix, true, (id, offsets) -> {
+                if (isLive(segments, segment, id)) { consumer.accept(id, offsets); }
+            });
+        }
+
+    }
+
+
+
+    /**
+     * Collect the terms of every Story in a field
+     *
+     * @param field Provided field
+     *
+     * @return ID of every Story mapped to the terms of its current version
+     */
+    public Map<Long, List<String>> documentTerms(SearchField field) {
+
+        Map<Long, List<String>> terms = new HashMap<>();
+
+        for (int i = 0; i < segments.size(); i++) {
+
+            int segment = i;
+            List<String> segmentTerms = new ArrayList<>();
+            segments.get(segment).forEachTerm(field, segmentTerms::add);
+
+            for (String term : segmentTerms) {
+                segments.get(segment).forEachPosting(field, term, false, (id, offsets) -> {
+                    if (isLive(segments, segment, id)) { terms.computeIfAbsent(id, key -> new ArrayList<>()).add(term); }
+                });
+            }
+        }
+
+        return terms;
+
+    }
+
+
+
+    /**
+     * Collect the postings of the current versions of the provided Stories, in every field. <br>
+     *
+     * Every term of every segment is visited, so this is only meant for background work
+     *
+     * @param ids IDs of the Stories
+     *
+     * @return ID of every Story found mapped to its postings, as returned by {@link InvertedIndex#analyze(Map)}
+     */
+    public Map<Long, Map<SearchField, Map<String, int[]>>> postings(Set<Long> ids) {
+
+        Map<Long, Map<SearchField, Map<String, int[]>>> postings = new HashMap<>();
+
+        for (SearchField field : SearchField.values()) {
+            for (int i = 0; i < segments.size(); i++) {
+
+                int segment = i;
+                List<String> segmentTerms = new ArrayList<>();
+                segments.get(segment).forEachTerm(field, segmentTerms::add);
+
+                for (String term : segmentTerms) {
+                    segments.get(segment).forEachPosting(field, term, false, (id, offsets) -> {
+                        if (ids.contains(id) && isLive(segments, segment, id)) {
+                            postings.computeIfAbsent(id, key -> new EnumMap<>(SearchField.class))
+                                    .computeIfAbsent(field, key -> new HashMap<>())
+                                    .put(term, offsets);
+                        }
+                    });
+                }
+            }
+        }
+
+        return postings;
+
+    }
+
+
+
+    /**
+     * Get the current version of a Story's indexed attributes
+     *
+     * @param id ID of the Story
+     *
+     * @return The Story's attributes, empty if the Story is not indexed
+     */
+    public Optional<IndexedStory> document(long id) {
+
+        for (int segment = segments.size() - 1; segment >= 0; segment--) {
+
+            Optional<IndexedStory> story = segments.get(segment).document(id);
+
+            if (story.isPresent()) { return story; }
+        }
+
+        return Optional.empty();
+
+    }
+
+
+
+    /**
+     * Count the distinct Stories in the index
+     *
+     * @return Number of indexed Stories
+     */
+    public int size() {
+
+        int[] size = {0};
+
+        for (int i = 0; i < segments.size(); i++) {
+            int segment = i;
+            segments.get(segment).forEachDocument(story -> {
+                if (isLive(segments, segment, story.id())) { size[0]++; }
+            });
+        }
+
+        return size[0];
+
+    }
+
+
+
+    /**
+     * Find the greatest ID among the indexed Stories
+     *
+     * @return Greatest indexed Story ID, null if the index is empty
+     */
+    public Long maxId() {
+
+        Long[] maxId = {null};
+
+        for (IndexSegment segment : segments) {
+            segment.forEachDocument(story -> {
+                if (maxId[0] == null || story.id() > maxId[0]) { maxId[0] = story.id(); }
+            });
+        }
+
+        return maxId[0];
+
+    }
+
+
+
+    /**
+     * Create a snapshot with a new segment appended as the newest one
+     *
+     * @param segment Provided segment
+     *
+     * @return The new snapshot
+     */
+    public IndexSnapshot with(IndexSegment segment) {
+
+        List<IndexSegment> newSegments = new ArrayList<>(segments);
+        newSegments.add(segment);
+
+        return new IndexSnapshot(newSegments);
+
+    }
+
+
+
+    /**
+     * Create a snapshot where consecutive segments are replaced by a single segment holding their contents
+     *
+     * @param replaced Segments that are replaced, must be consecutive and in order
+     * @param replacement Segment that takes their place
+     *
+     * @return The new snapshot
+     */
+    public IndexSnapshot replace(List<? extends IndexSegment> replaced, IndexSegment replacement) {
+
+        int start = segments.indexOf(replaced.get(0));
+
+        if (start < 0 || !segments.subList(start, start + replaced.size()).equals(replaced)) {
+            throw new IllegalArgumentException("Replaced segments are not part of the snapshot");
+        }
+
+        List<IndexSegment> newSegments = new ArrayList<>(segments.subList(0, start));
+        newSegments.add(replacement);
+        newSegments.addAll(segments.subList(start + replaced.size(), segments.size()));
+
+        return new IndexSnapshot(newSegments);
+
+    }
+
+
+
+    /**
+     * A version of a Story is live if no newer segment holds a version of the same Story
+     *
+     * @param segments Segments, oldest first
+     * @param segment Index of the segment holding the version
+     * @param id ID of the Story
+     *
+     * @return True if the version is the Story's current one
+     */
+    static boolean isLive(List<? extends IndexSegment> segments, int segment, long id) {
+
+        for (int newer = segment + 1; newer < segments.size(); newer++) {
+            if (segments.get(newer).contains(id)) { return false; }
+        }
+
+        return true;
+
+    }
+
+
+}
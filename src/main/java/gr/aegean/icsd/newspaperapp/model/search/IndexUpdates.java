@@ -0,0 +1,111 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Applies the updates of an in-process index once the transaction that caused them commits. <br>
+ *
+ * While the index is being built, updates are queued instead, and are replayed
+ * on the newly built index before it is marked as ready.
+ */
+final class IndexUpdates {
+
+    private final Queue<Runnable> pendingUpdates = new ArrayDeque<>();
+
+    private volatile boolean ready = false;
+
+
+
+    /**
+     * Check whether the index has been built and can answer searches
+     *
+     * @return True if the index can be used
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+
+
+    /**
+     * Mark the index as being built, updates are queued from now on
+     */
+    void suspend() {
+        synchronized (pendingUpdates) { ready = false; }
+    }
+
+
+
+    /**
+     * Make a newly built index the current one, replay the queued updates on it and mark it as ready
+     *
+     * @param publish Replaces the current index with the newly built one
+     */
+    void resume(Runnable publish) {
+
+        synchronized (pendingUpdates) {
+
+            publish.run();
+
+            Runnable update;
+            while ((update = pendingUpdates.poll()) != null) {
+                update.run();
+            }
+
+            ready = true;
+        }
+
+    }
+
+
+
+    /**
+     * Run an index update once the current transaction commits, or immediately
+     * if there is no transaction
+     *
+     * @param update Index update
+     */
+    void afterCommit(Runnable update) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+
+        }
+        else {
+            apply(update);
+        }
+
+    }
+
+
+
+    /**
+     * Run an index update whose changes have been committed, or queue it while the index is being built
+     *
+     * @param update Index update
+     */
+    void apply(Runnable update) {
+
+        synchronized (pendingUpdates) {
+            if (!ready) {
+                pendingUpdates.add(update);
+                return;
+            }
+        }
+
+        update.run();
+
+    }
+
+
+}
@@ -0,0 +1,29 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+/**
+ * The attributes of a Story that the search index keeps next to its postings,
+ * so that visibility can be decided without querying the database
+ *
+ * @param id ID of the Story
+ * @param state State of the Story
+ * @param author Username of the Story's Author
+ */
+public record IndexedStory(long id, StoryState state, String author) {
+
+
+    /**
+     * Capture the indexed attributes of a Story
+     *
+     * @param story Provided Story, must have been persisted
+     *
+     * @return IndexedStory holding the Story's current attributes
+     */
+    public static IndexedStory of(Story story) {
+        return new IndexedStory(story.getId(), story.getState(), story.getAuthor().getUsername());
+    }
+
+
+}
@@ -0,0 +1,31 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+
+/**
+ * The attributes of a Topic that the Topic index keeps next to its name,
+ * so that visibility can be decided without querying the database
+ *
+ * @param id ID of the Topic
+ * @param state State of the Topic
+ * @param author Username of the Topic's Author
+ * @param normalizedName Name of the Topic, normalized by the {@link TextAnalyzer}
+ */
+public record IndexedTopic(long id, TopicState state, String author, String normalizedName) {
+
+
+    /**
+     * Capture the indexed attributes of a Topic
+     *
+     * @param topic Provided Topic, must have been persisted
+     *
+     * @return IndexedTopic holding the Topic's current attributes
+     */
+    public static IndexedTopic of(Topic topic) {
+        return new IndexedTopic(topic.getId(), topic.getState(), topic.getAuthor().getUsername(),
+                TextAnalyzer.normalizeText(topic.getName()));
+    }
+
+
+}
@@ -0,0 +1,349 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index of Stories <br>
+ *
+ * For every {@link SearchField} a sorted dictionary maps each term to its postings,
+ * the Stories containing the term along with the character offsets of every occurrence. <br>
+ *
+ * Holds the most recent updates of the index, until they are written to disk as a {@link MappedSegment}.
+ * A Story whose attributes changed without its text, such as on a state transition, is held as an attribute
+ * update only, and its postings stay in the older segment that holds them. <br>
+ *
+ * Safe for concurrent use, lookups only contend with writers, and text is analyzed before the write lock is taken.
+ */
+public class InvertedIndex implements IndexSegment {
+
+    private final Map<SearchField, NavigableMap<String, Map<Long, int[]>>> postings = new EnumMap<>(SearchField.class);
+
+    private final Map<Long, IndexedStory> documents = new HashMap<>();
+
+    // Terms of every indexed Story, required to remove its postings on update
+    private final Map<Long, Map<SearchField, Set<String>>> documentTerms = new HashMap<>();
+
+    // Attributes of Stories whose postings are held by an older segment
+    private final Map<Long, IndexedStory> attributeUpdates = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    public InvertedIndex() {
+
+        for (SearchField field : SearchField.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+
+    }
+
+
+
+    /**
+     * Index a Story, replacing any previously indexed version of it
+     *
+     * @param story Attributes of the Story
+     * @param text Text of every indexed field of the Story
+     */
+    public void put(IndexedStory story, Map<SearchField, String> text) {
+        putPostings(story, analyze(text));
+    }
+
+
+
+    /**
+     * Index a Story whose text has already been analyzed, replacing any previously indexed version of it
+     *
+     * @param story Attributes of the Story
+     * @param fieldPostings Postings of every indexed field of the Story, as returned by {@link #analyze(Map)}
+     */
+    public void putPostings(IndexedStory story, Map<SearchField, Map<String, int[]>> fieldPostings) {
+
+        lock.writeLock().lock();
+
+        try {
+
+            removeDocument(story.id());
+
+            Map<SearchField, Set<String>> terms = new EnumMap<>(SearchField.class);
+
+            for (Map.Entry<SearchField, Map<String, int[]>> field : fieldPostings.entrySet()) {
+
+                for (Map.Entry<String, int[]> term : field.getValue().entrySet()) {
+                    postings.get(field.getKey())
+                            .computeIfAbsent(term.getKey(), key -> new HashMap<>())
+                            .put(story.id(), term.getValue());
+                }
+
+                terms.put(field.getKey(), Set.copyOf(field.getValue().keySet()));
+            }
+
+            documents.put(story.id(), story);
+            documentTerms.put(story.id(), terms);
+
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Change the attributes of a Story whose text did not change. <br>
+     *
+     * If the Story is not held by this index, its attributes are held as an update of the older
+     * segment that holds its postings, see {@link #attributeUpdates()}
+     *
+     * @param story New attributes of the Story
+     */
+    public void updateAttributes(IndexedStory story) {
+
+        lock.writeLock().lock();
+
+        try {
+            if (documents.containsKey(story.id())) { documents.put(story.id(), story); }
+            else { attributeUpdates.put(story.id(), story); }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Get the attributes held for Stories whose postings are held by an older segment. <br>
+     *
+     * They must be combined with those postings, with {@link #putPostings(IndexedStory, Map)},
+     * before the index is written to disk
+     *
+     * @return ID of every such Story mapped to its current attributes
+     */
+    public Map<Long, IndexedStory> attributeUpdates() {
+
+        lock.readLock().lock();
+
+        try {
+            return Map.copyOf(attributeUpdates);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Analyze the text of a Story into the postings of every field
+     *
+     * @param text Text of every indexed field of the Story
+     *
+     * @return Every field mapped to its terms, each mapped to the start and end offsets of its occurrences
+     */
+    public static Map<SearchField, Map<String, int[]>> analyze(Map<SearchField, String> text) {
+
+        Map<SearchField, Map<String, int[]>> fieldPostings = new EnumMap<>(SearchField.class);
+
+        for (Map.Entry<SearchField, String> field : text.entrySet()) {
+
+            Map<String, List<TextAnalyzer.Token>> occurrences = new HashMap<>();
+
+            for (TextAnalyzer.Token token : TextAnalyzer.tokenize(field.getValue())) {
+                occurrences.computeIfAbsent(token.term(), term -> new ArrayList<>()).add(token);
+            }
+
+            Map<String, int[]> termOffsets = new HashMap<>();
+
+            for (Map.Entry<String, List<TextAnalyzer.Token>> term : occurrences.entrySet()) {
+
+                int[] offsets = new int[term.getValue().size() * 2];
+
+                for (int i = 0; i < term.getValue().size(); i++) {
+                    offsets[2 * i] = term.getValue().get(i).start();
+                    offsets[2 * i + 1] = term.getValue().get(i).end();
+                }
+
+                termOffsets.put(term.getKey(), offsets);
+            }
+
+            fieldPostings.put(field.getKey(), termOffsets);
+        }
+
+        return fieldPostings;
+
+    }
+
+
+
+    /**
+     * Remove a Story from the index. <br>
+     * Stories that are not indexed are safely ignored
+     *
+     * @param id ID of the Story
+     */
+    public void remove(long id) {
+
+        lock.writeLock().lock();
+
+        try {
+            removeDocument(id);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+
+
+    @Override
+    public void forEachPosting(SearchField field, String term, boolean prefix, PostingConsumer consumer) {
+
+        lock.readLock().lock();
+
+        try {
+
+            NavigableMap<String, Map<Long, int[]>> dictionary = postings.get(field);
+
+            Collection<Map<Long, int[]>> matchingPostings = prefix
+                    ? dictionary.subMap(term, true, term + Character.MAX_VALUE, true).values()
+                    : Optional.ofNullable(dictionary.get(term)).map(List::of).orElse(List.of());
+
+            for (Map<Long, int[]> termPostings : matchingPostings) {
+                termPostings.forEach(consumer::accept);
+            }
+
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    @Override
+    public void forEachTerm(SearchField field, Consumer<String> consumer) {
+
+        List<String> terms;
+
+        lock.readLock().lock();
+
+        try {
+            terms = new ArrayList<>(postings.get(field).keySet());
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+        terms.forEach(consumer);
+
+    }
+
+
+
+    @Override
+    public void forEachDocument(Consumer<IndexedStory> consumer) {
+
+        List<IndexedStory> stories;
+
+        lock.readLock().lock();
+
+        try {
+            stories = new ArrayList<>(documents.values());
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+        stories.forEach(consumer);
+
+    }
+
+
+
+    @Override
+    public boolean contains(long id) {
+
+        lock.readLock().lock();
+
+        try {
+            return documents.containsKey(id);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    @Override
+    public Optional<IndexedStory> document(long id) {
+
+        lock.readLock().lock();
+
+        try {
+            return Optional.ofNullable(documents.getOrDefault(id, attributeUpdates.get(id)));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    @Override
+    public int size() {
+
+        lock.readLock().lock();
+
+        try {
+            return documents.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    private void removeDocument(long id) {
+
+        attributeUpdates.remove(id);
+
+        Map<SearchField, Set<String>> terms = documentTerms.remove(id);
+
+        if (terms == null) { return; }
+
+        for (Map.Entry<SearchField, Set<String>> field : terms.entrySet()) {
+
+            NavigableMap<String, Map<Long, int[]>> dictionary = postings.get(field.getKey());
+
+            for (String term : field.getValue()) {
+
+                Map<Long, int[]> termPostings = dictionary.get(term);
+                termPostings.remove(id);
+
+                if (termPostings.isEmpty()) { dictionary.remove(term); }
+            }
+
+        }
+
+        documents.remove(id);
+
+    }
+
+
+}
@@ -0,0 +1,364 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.repository.CommentRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory totals of the unfiltered Topic and Comment listings <br>
+ *
+ * Counts the Topics per state and author, and the Comments of every Story per state and author, so that
+ * the total of a listing page is summed from the counters instead of counted by the database on every request.
+ * Stories need no counters, their listings are counted by the {@link StoryFilterIndex}. <br>
+ *
+ * The services report every created, transitioned and deleted Topic or Comment, and the counters change once
+ * the transaction commits. The counters are recounted from the database periodically, so that they cannot
+ * drift for long. Until they have been counted, {@link #isReady()} returns false and callers should let
+ * the database count instead. <br>
+ *
+ * Every change is stamped by a logical clock before and after its transaction commits, and every recount
+ * before and after it reads the database. A change that committed before the recount started is already
+ * counted, and one that committed after it ended is not. A change whose commit overlaps the recount may or
+ * may not have been counted, so the database counts the totals again until a recount that no change overlaps.
+ */
+@Component
+public class ListingTotals {
+
+    private final TopicRepository topicRepository;
+
+    private final CommentRepository commentRepository;
+
+    private static final Logger log = LoggerFactory.getLogger("ListingTotals");
+
+
+    /**
+     * Counter key of a Topic or a Comment, the author is null for Comments of Visitors
+     */
+    private record Key<S>(S state, String author) {}
+
+
+    /**
+     * Counters of the whole listing, every access must hold the lock
+     */
+    private static final class Counters {
+
+        private final Map<Key<TopicState>, Long> topics = new HashMap<>();
+
+        private final Map<Long, Map<Key<CommentState>, Long>> comments = new HashMap<>();
+
+
+        void addTopics(Key<TopicState> key, long count) {
+            add(topics, key, count);
+        }
+
+
+        void addComments(long storyID, Key<CommentState> key, long count) {
+
+            Map<Key<CommentState>, Long> storyComments = comments.computeIfAbsent(storyID, id -> new HashMap<>());
+
+            add(storyComments, key, count);
+
+            if (storyComments.isEmpty()) { comments.remove(storyID); }
+
+        }
+
+
+        private static <K> void add(Map<K, Long> counters, K key, long count) {
+
+            long total = counters.getOrDefault(key, 0L) + count;
+
+            if (total == 0) { counters.remove(key); }
+            else { counters.put(key, total); }
+
+        }
+
+    }
+
+
+    /** Number of times a recount is repeated in a row while changes overlap it */
+    private static final int maxRecounts = 3;
+
+    private final IndexUpdates updates = new IndexUpdates();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // Guarded by the lock
+    private Counters counters = new Counters();
+
+    // Guarded by the lock, clock readings before and after the current counters were counted
+    private long countStarted;
+    private long countEnded;
+
+    // Set once a change may or may not have been counted, until the next recount
+    private volatile boolean uncertain = false;
+
+
+    public ListingTotals(TopicRepository topicRepository, CommentRepository commentRepository) {
+        this.topicRepository = topicRepository;
+        this.commentRepository = commentRepository;
+    }
+
+
+
+    /**
+     * Check whether the counters have been counted and can answer totals
+     *
+     * @return True if the counters can be used
+     */
+    public boolean isReady() {
+        return updates.isReady() && !uncertain;
+    }
+
+
+
+    /**
+     * Count the Topics and Comments currently persisted in the database. <br>
+     *
+     * Runs once the application is ready, and then periodically to correct any drift of the counters.
+     * Changes committed after the database was counted are applied on the new counters afterwards,
+     * the database is counted again if a change committed while it was being counted
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${listing.totals.reconciliation-interval}",
+            fixedDelayString = "${listing.totals.reconciliation-interval}")
+    public synchronized void reconcile() {
+
+        for (int recount = 1; recount <= maxRecounts; recount++) {
+
+            recount();
+
+            if (!uncertain) { return; }
+
+            log.info("Listing totals recount " + recount + " overlapped a change");
+        }
+
+        log.warn("Listing totals are counted by the database until the next reconciliation");
+
+    }
+
+
+
+    /**
+     * Count the Topics and Comments currently persisted in the database, and replace the counters
+     */
+    private void recount() {
+
+        updates.suspend();
+
+        long started = clock.incrementAndGet();
+
+        Counters newCounters = new Counters();
+
+        for (Object[] row : topicRepository.countByStateAndAuthor()) {
+            newCounters.addTopics(new Key<>((TopicState) row[0], (String) row[1]), (Long) row[2]);
+        }
+
+        for (Object[] row : commentRepository.countByStoryStateAndAuthor()) {
+            newCounters.addComments((Long) row[0], new Key<>((CommentState) row[1], (String) row[2]), (Long) row[3]);
+        }
+
+        long ended = clock.incrementAndGet();
+
+        updates.resume(() -> {
+            lock.writeLock().lock();
+            try {
+                counters = newCounters;
+                countStarted = started;
+                countEnded = ended;
+                uncertain = false;
+            }
+            finally { lock.writeLock().unlock(); }
+        });
+
+        log.info("Listing totals counted, " + newCounters.topics.size() + " Topic counters and "
+                + newCounters.comments.size() + " Stories with Comments");
+
+    }
+
+
+
+    /**
+     * Count a Topic that was created, changed state or was deleted, once the current transaction commits
+     *
+     * @param previousState State of the Topic before the change, null if it was created
+     * @param newState State of the Topic after the change, null if it was deleted
+     * @param author Username of the Topic's author
+     */
+    public void topicChanged(TopicState previousState, TopicState newState, String author) {
+
+        if (Objects.equals(previousState, newState)) { return; }
+
+        afterCommit(changedCounters -> {
+            if (previousState != null) { changedCounters.addTopics(new Key<>(previousState, author), -1); }
+            if (newState != null) { changedCounters.addTopics(new Key<>(newState, author), 1); }
+        });
+
+    }
+
+
+
+    /**
+     * Count a Comment that was created, changed state or was deleted, once the current transaction commits
+     *
+     * @param storyID ID of the Story the Comment belongs to
+     * @param previousState State of the Comment before the change, null if it was created
+     * @param newState State of the Comment after the change, null if it was deleted
+     * @param author Username of the Comment's author, null if it was written by a Visitor
+     */
+    public void commentChanged(long storyID, CommentState previousState, CommentState newState, String author) {
+
+        if (Objects.equals(previousState, newState)) { return; }
+
+        afterCommit(changedCounters -> {
+            if (previousState != null) { changedCounters.addComments(storyID, new Key<>(previousState, author), -1); }
+            if (newState != null) { changedCounters.addComments(storyID, new Key<>(newState, author), 1); }
+        });
+
+    }
+
+
+
+    /**
+     * Change the counters once the current transaction commits, or immediately if there is no transaction. <br>
+     *
+     * The clock is read while the transaction is still open, and again once it has committed
+     *
+     * @param change Change of the counters
+     */
+    private void afterCommit(Consumer<Counters> change) {
+
+        long prepared = clock.incrementAndGet();
+
+        Runnable committed = () -> {
+            long committedAt = clock.incrementAndGet();
+            updates.apply(() -> apply(change, prepared, committedAt));
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed.run();
+                }
+            });
+
+        }
+        else {
+            committed.run();
+        }
+
+    }
+
+
+
+    /**
+     * Apply a committed change on the counters, unless it has already been counted
+     *
+     * @param change Change of the counters
+     * @param prepared Clock reading before the change committed
+     * @param committed Clock reading after the change committed
+     */
+    private void apply(Consumer<Counters> change, long prepared, long committed) {
+
+        lock.writeLock().lock();
+
+        try {
+            if (committed < countStarted) { return; }
+
+            if (prepared > countEnded) { change.accept(counters); }
+            else { uncertain = true; }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Total of the Topics visible under a visibility rule
+     *
+     * @param visibility Visibility rule of the current User
+     *
+     * @return Number of visible Topics
+     */
+    public long countTopics(TopicVisibility visibility) {
+
+        lock.readLock().lock();
+
+        try {
+            return sum(counters.topics, visibility.states(), visibility.author());
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Total of the Comments of a Story that are in the allowed states, or belong to the provided author
+     *
+     * @param storyID ID of the Story
+     * @param states Allowed Comment states
+     * @param author Username whose own Comments are always counted, null for Visitors and Curators
+     *
+     * @return Number of visible Comments of the Story
+     */
+    public long countComments(long storyID, Set<CommentState> states, String author) {
+
+        lock.readLock().lock();
+
+        try {
+            return sum(counters.comments.getOrDefault(storyID, Map.of()), states, author);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    private static <S> long sum(Map<Key<S>, Long> counters, Set<S> states, String author) {
+
+        long total = 0;
+
+        for (Map.Entry<Key<S>, Long> counter : counters.entrySet()) {
+
+            Key<S> key = counter.getKey();
+
+            if (states.contains(key.state()) || (author != null && author.equals(key.author()))) {
+                total += counter.getValue();
+            }
+        }
+
+        return total;
+
+    }
+
+
+}
@@ -0,0 +1,279 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable segment of the search index, stored in a file and accessed through a
+ * memory mapped buffer, so that lookups are served straight from the page cache. <br><br>
+ *
+ * The file consists of the following sections, all numbers are big endian: <br>
+ * Postings: for every term, for every Story containing it, sorted by ID:
+ * [long id] [int n] [n ints, start and end offsets of every occurrence] <br>
+ * Strings: every term and author: [short length] [UTF-8 bytes] <br>
+ * Documents: every Story sorted by ID: [long id] [byte state] [int author string offset] <br>
+ * Dictionary, for every {@link SearchField}: every term sorted:
+ * [int term string offset] [int postings offset] [int number of Stories] <br>
+ * Footer: [int documents offset] [int documents] [for every field: int dictionary offset, int terms]
+ * [int analyzer version] [int format version] [int magic] [long CRC32 of everything before it] <br><br>
+ *
+ * Files are limited to 2GB, the size of a single mapped buffer.
+ *
+ * @see SegmentWriter
+ */
+public final class MappedSegment implements IndexSegment {
+
+    static final int magic = 0x4E534958;
+
+    static final int formatVersion = 1;
+
+    static final int documentEntrySize = Long.BYTES + 1 + Integer.BYTES;
+
+    static final int dictionaryEntrySize = 3 * Integer.BYTES;
+
+    static final int footerSize = (2 + 2 * SearchField.values().length + 3) * Integer.BYTES + Long.BYTES;
+
+    private final Path path;
+
+    private final ByteBuffer buffer;
+
+    private final int documentsOffset;
+
+    private final int documentCount;
+
+    private final int[] dictionaryOffsets = new int[SearchField.values().length];
+
+    private final int[] termCounts = new int[SearchField.values().length];
+
+
+    private MappedSegment(Path path, ByteBuffer buffer) {
+
+        this.path = path;
+        this.buffer = buffer;
+
+        int footer = buffer.limit() - footerSize;
+
+        documentsOffset = buffer.getInt(footer);
+        documentCount = buffer.getInt(footer + Integer.BYTES);
+
+        for (int field = 0; field < dictionaryOffsets.length; field++) {
+            dictionaryOffsets[field] = buffer.getInt(footer + (2 + 2 * field) * Integer.BYTES);
+            termCounts[field] = buffer.getInt(footer + (3 + 2 * field) * Integer.BYTES);
+        }
+
+    }
+
+
+
+    /**
+     * Map a segment file into memory, after verifying its format and checksum
+     *
+     * @param path Path of the segment file
+     * @param analyzerVersion Version of the {@link TextAnalyzer} the segment must have been written with
+     *
+     * @return The opened segment
+     *
+     * @throws CorruptIndexException If the file is damaged or was written by a different version
+     */
+    public static MappedSegment open(Path path, int analyzerVersion) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+
+            if (size < footerSize || size > Integer.MAX_VALUE) {
+                throw new CorruptIndexException("Segment " + path + " has an invalid size: " + size);
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int checksumOffset = (int) size - Long.BYTES;
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, checksumOffset));
+
+            if (checksum.getValue() != buffer.getLong(checksumOffset)) {
+                throw new CorruptIndexException("Segment " + path + " failed its checksum");
+            }
+
+            int versions = checksumOffset - 3 * Integer.BYTES;
+
+            if (buffer.getInt(versions + 2 * Integer.BYTES) != magic
+                    || buffer.getInt(versions + Integer.BYTES) != formatVersion
+                    || buffer.getInt(versions) != analyzerVersion) {
+                throw new CorruptIndexException("Segment " + path + " was written in a different format");
+            }
+
+            return new MappedSegment(path, buffer);
+        }
+
+    }
+
+
+
+    /**
+     * Get the path of the segment's file
+     *
+     * @return Path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+
+
+    @Override
+    public int size() {
+        return documentCount;
+    }
+
+
+
+    @Override
+    public boolean contains(long id) {
+        return findDocument(id) >= 0;
+    }
+
+
+
+    @Override
+    public Optional<IndexedStory> document(long id) {
+
+        int entry = findDocument(id);
+
+        if (entry < 0) { return Optional.empty(); }
+
+        return Optional.of(readDocument(entry));
+
+    }
+
+
+
+    @Override
+    public void forEachDocument(Consumer<IndexedStory> consumer) {
+
+        for (int entry = 0; entry < documentCount; entry++) {
+            consumer.accept(readDocument(entry));
+        }
+
+    }
+
+
+
+    @Override
+    public void forEachTerm(SearchField field, Consumer<String> consumer) {
+
+        for (int entry = 0; entry < termCounts[field.ordinal()]; entry++) {
+            consumer.accept(readTerm(field, entry));
+        }
+
+    }
+
+
+
+    @Override
+    public void forEachPosting(SearchField field, String term, boolean prefix, PostingConsumer consumer) {
+
+        int termCount = termCounts[field.ordinal()];
+
+        // Binary search for the first term that is not lower than the provided one
+        int low = 0;
+        int high = termCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (readTerm(field, middle).compareTo(term) < 0) { low = middle + 1; }
+            else { high = middle; }
+        }
+
+        for (int entry = low; entry < termCount; entry++) {
+
+            String currentTerm = readTerm(field, entry);
+
+            if (prefix ? !currentTerm.startsWith(term) : !currentTerm.equals(term)) { break; }
+
+            int dictionaryEntry = dictionaryOffsets[field.ordinal()] + entry * dictionaryEntrySize;
+            int position = buffer.getInt(dictionaryEntry + Integer.BYTES);
+            int stories = buffer.getInt(dictionaryEntry + 2 * Integer.BYTES);
+
+            for (int story = 0; story < stories; story++) {
+
+                long id = buffer.getLong(position);
+                int[] offsets = new int[buffer.getInt(position + Long.BYTES)];
+                position += Long.BYTES + Integer.BYTES;
+
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = buffer.getInt(position);
+                    position += Integer.BYTES;
+                }
+
+                consumer.accept(id, offsets);
+            }
+
+        }
+
+    }
+
+
+
+    private int findDocument(long id) {
+
+        int low = 0;
+        int high = documentCount - 1;
+
+        while (low <= high) {
+
+            int middle = (low + high) >>> 1;
+            long middleID = buffer.getLong(documentsOffset + middle * documentEntrySize);
+
+            if (middleID < id) { low = middle + 1; }
+            else if (middleID > id) { high = middle - 1; }
+            else { return middle; }
+        }
+
+        return -1;
+
+    }
+
+
+
+    private IndexedStory readDocument(int entry) {
+
+        int position = documentsOffset + entry * documentEntrySize;
+
+        long id = buffer.getLong(position);
+        StoryState state = StoryState.values()[buffer.get(position + Long.BYTES)];
+        String author = readString(buffer.getInt(position + Long.BYTES + 1));
+
+        return new IndexedStory(id, state, author);
+
+    }
+
+
+
+    private String readTerm(SearchField field, int entry) {
+        return readString(buffer.getInt(dictionaryOffsets[field.ordinal()] + entry * dictionaryEntrySize));
+    }
+
+
+
+    private String readString(int offset) {
+
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+        buffer.get(offset + Short.BYTES, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+
+    }
+
+
+}
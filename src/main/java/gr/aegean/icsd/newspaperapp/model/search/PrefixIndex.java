@@ -0,0 +1,210 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.*;
+
+/**
+ * In-memory index of short texts, such as names, that completes a partially typed query. <br>
+ *
+ * Every text is stored under one key per word, made of the folded words from that word to the end of the text,
+ * so a query matches both the start of a text and the start of any later word in it. Keys are kept in a sorted array,
+ * and a lookup is a binary search for the first key that is not smaller than the query followed by a short scan. <br>
+ *
+ * The array is replaced as a whole on every change, so lookups never block. Changes are expected to be rare.
+ */
+public class PrefixIndex {
+
+
+    /**
+     * A text that completes a query
+     *
+     * @param id ID of the text's owner
+     * @param text The original text
+     */
+    public record Suggestion(long id, String text) {}
+
+
+    private record Key(String key, Suggestion suggestion) {}
+
+
+    private static final Comparator<Key> keyOrder = Comparator.comparing(Key::key)
+            .thenComparingLong(key -> key.suggestion().id());
+
+    private volatile Key[] keys = new Key[0];
+
+
+
+    /**
+     * Build an index of many texts at once, sorting the keys only once
+     *
+     * @param texts Texts mapped to the IDs of their owners
+     *
+     * @return The new index
+     */
+    public static PrefixIndex of(Map<Long, String> texts) {
+
+        List<Key> newKeys = new ArrayList<>();
+
+        for (Map.Entry<Long, String> text : texts.entrySet()) {
+
+            Suggestion suggestion = new Suggestion(text.getKey(), text.getValue());
+
+            for (String key : keys(text.getValue())) {
+                newKeys.add(new Key(key, suggestion));
+            }
+        }
+
+        PrefixIndex index = new PrefixIndex();
+        index.keys = sorted(newKeys);
+
+        return index;
+
+    }
+
+
+
+    /**
+     * Index a text, replacing any previously indexed text of the same owner
+     *
+     * @param id ID of the text's owner
+     * @param text Provided text
+     */
+    public synchronized void put(long id, String text) {
+
+        List<Key> newKeys = new ArrayList<>(withoutOwner(id));
+        Suggestion suggestion = new Suggestion(id, text);
+
+        for (String key : keys(text)) {
+            newKeys.add(new Key(key, suggestion));
+        }
+
+        keys = sorted(newKeys);
+
+    }
+
+
+
+    /**
+     * Remove the text of an owner from the index. <br>
+     * Owners that are not indexed are safely ignored
+     *
+     * @param id ID of the text's owner
+     */
+    public synchronized void remove(long id) {
+        keys = withoutOwner(id).toArray(Key[]::new);
+    }
+
+
+
+    /**
+     * Find the texts that complete a partially typed query
+     *
+     * @param query Provided query, its last word may be incomplete
+     * @param limit Maximum number of texts returned
+     *
+     * @return Distinct matching texts, in order of the matching key
+     */
+    public List<Suggestion> complete(String query, int limit) {
+
+        String prefix = String.join(" ", words(query));
+
+        if (prefix.isEmpty() || limit <= 0) { return List.of(); }
+
+        Key[] currentKeys = keys;
+        Map<Long, Suggestion> suggestions = new LinkedHashMap<>();
+
+        for (int position = firstKeyNotBefore(currentKeys, prefix);
+             position < currentKeys.length && suggestions.size() < limit
+                     && currentKeys[position].key().startsWith(prefix);
+             position++) {
+
+            Suggestion suggestion = currentKeys[position].suggestion();
+            suggestions.putIfAbsent(suggestion.id(), suggestion);
+        }
+
+        return List.copyOf(suggestions.values());
+
+    }
+
+
+
+    /**
+     * Build the keys of a text, one for every word, each starting at that word
+     *
+     * @param text Provided text
+     *
+     * @return Keys of the text
+     */
+    static List<String> keys(String text) {
+
+        List<String> words = words(text);
+        List<String> keys = new ArrayList<>();
+
+        for (int start = 0; start < words.size(); start++) {
+            keys.add(String.join(" ", words.subList(start, words.size())));
+        }
+
+        return keys;
+
+    }
+
+
+
+    private static List<String> words(String text) {
+
+        List<String> words = new ArrayList<>();
+
+        if (text == null) { return words; }
+
+        for (TextAnalyzer.Token token : TextAnalyzer.tokenize(text)) {
+            words.add(TextAnalyzer.fold(text.substring(token.start(), token.end())));
+        }
+
+        return words;
+
+    }
+
+
+
+    private static Key[] sorted(List<Key> unsortedKeys) {
+
+        Key[] sortedKeys = unsortedKeys.toArray(Key[]::new);
+        Arrays.sort(sortedKeys, keyOrder);
+
+        return sortedKeys;
+
+    }
+
+
+
+    private List<Key> withoutOwner(long id) {
+        return Arrays.stream(keys).filter(key -> key.suggestion().id() != id).toList();
+    }
+
+
+
+    /**
+     * Binary search for the position of the first key that sorts at or after the prefix
+     */
+    private static int firstKeyNotBefore(Key[] sortedKeys, String prefix) {
+
+        int low = 0;
+        int high = sortedKeys.length;
+
+        while (low < high) {
+
+            int middle = (low + high) >>> 1;
+
+            if (sortedKeys[middle].key().compareTo(prefix) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+
+    }
+
+
+}
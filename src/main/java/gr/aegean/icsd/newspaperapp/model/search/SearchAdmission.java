@@ -0,0 +1,138 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Admission control of the searches answered by the database instead of an index. <br>
+ *
+ * A substring search cannot use an index, the database reads every row left by the indexed criteria
+ * and holds a pooled connection meanwhile. The cost of such a search is estimated before it runs,
+ * in units of one scan of a table for a selective term on the first page: <br>
+ * - Short terms match most rows, so a one letter term costs three times a term of three letters or more <br>
+ * - Indexed criteria, such as a Topic or a date range, leave a fraction of the rows to be scanned <br>
+ * - Deep pages read and skip every match before them <br>
+ *
+ * Cheap searches run freely. Expensive searches share a separate, small budget of concurrent searches,
+ * and a search over the budget is rejected at once with 429 Too Many Requests, instead of waiting for
+ * a connection that the running searches hold. <br>
+ *
+ * Every query of a search is cancelled by the database once the search's transaction times out,
+ * and the search is answered with 503 Service Unavailable
+ */
+@Component
+public class SearchAdmission {
+
+    // Terms of this length or longer are considered selective
+    private static final int selectiveTermLength = 3;
+
+    // Rows skipped by the page that cost as much as a scan of the table
+    private static final double rowsPerScan = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger("SearchAdmission");
+
+    private final double expensiveCost;
+
+    private final Semaphore expensiveSearches;
+
+
+    /**
+     * @param expensiveCost Estimated cost from which a search is expensive
+     * @param expensiveConcurrency Maximum number of expensive searches running at once
+     */
+    public SearchAdmission(@Value("${search.admission.expensive-cost}") double expensiveCost,
+                           @Value("${search.admission.expensive-concurrency}") int expensiveConcurrency) {
+
+        this.expensiveCost = expensiveCost;
+        this.expensiveSearches = new Semaphore(expensiveConcurrency);
+
+    }
+
+
+
+    /**
+     * Estimate the cost of a substring search
+     *
+     * @param selectivity Fraction of the rows left by the indexed criteria of the search, 1 for the whole table
+     * @param offset Number of matches skipped before the requested page
+     * @param terms Substring terms of the search, null terms are ignored
+     *
+     * @return Estimated cost, 0 if there is no substring term and an index answers the search
+     */
+    public static double estimateCost(double selectivity, long offset, String... terms) {
+
+        int longestTerm = 0;
+
+        for (String term : terms) {
+            if (term != null && !term.isBlank()) { longestTerm = Math.max(longestTerm, term.strip().length()); }
+        }
+
+        if (longestTerm == 0) { return 0; }
+
+        // The most selective term decides how many rows match
+        double termWeight = (double) selectiveTermLength / Math.min(longestTerm, selectiveTermLength);
+        double depthWeight = 1 + offset / rowsPerScan;
+
+        return selectivity * termWeight * depthWeight;
+
+    }
+
+
+
+    /**
+     * Run a search if its estimated cost is within the budget
+     *
+     * @param cost Estimated cost of the search, see {@link #estimateCost(double, long, String...)}
+     * @param search Runs the search
+     *
+     * @return Result of the search
+     *
+     * @throws ResponseStatusException With 429 Too Many Requests if the search is expensive and the budget
+     * of expensive searches is exhausted, or with 503 Service Unavailable if the search timed out
+     */
+    public <T> T admit(double cost, Supplier<T> search) {
+
+        if (cost < expensiveCost) { return run(search); }
+
+        if (!expensiveSearches.tryAcquire()) {
+
+            log.warn("Expensive search with estimated cost " + cost + " rejected, the budget is exhausted");
+
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many expensive searches are running, narrow the search or try again later");
+        }
+
+        try {
+            return run(search);
+        }
+        finally {
+            expensiveSearches.release();
+        }
+
+    }
+
+
+
+    private static <T> T run(Supplier<T> search) {
+
+        try {
+            return search.get();
+        }
+        catch (QueryTimeoutException | TransactionTimedOutException timeout) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "The search took too long, narrow the search or try again later", timeout);
+        }
+
+    }
+
+
+}
@@ -0,0 +1,186 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.*;
+
+/**
+ * Fills in the normalized search columns of Stories and Topics, and the excerpts of Stories,
+ * that were persisted before those columns existed <br>
+ *
+ * Databases created before Story bodies existed keep the content in the story table. The schema update
+ * adds an empty body column to those Stories, their contents are moved into bodies first,
+ * and the legacy columns are dropped once every content has been moved. <br>
+ *
+ * New and updated entities compute their normalized columns themselves,
+ * so this only has work to do on the first start after an upgrade.
+ */
+@Component
+public class SearchColumnBackfill {
+
+    private final StoryRepository storyRepository;
+
+    private final TopicRepository topicRepository;
+
+    private final EntityManager entityManager;
+
+    private static final Logger log = LoggerFactory.getLogger("SearchColumnBackfill");
+
+    /** Number of entities updated per query */
+    private static final int batchSize = 500;
+
+    /** Columns of the story table that held the content before Story bodies existed */
+    private static final List<String> legacyColumns = List.of("content", "normalized_content");
+
+
+    public SearchColumnBackfill(StoryRepository storyRepository, TopicRepository topicRepository,
+                                EntityManager entityManager) {
+        this.storyRepository = storyRepository;
+        this.topicRepository = topicRepository;
+        this.entityManager = entityManager;
+    }
+
+
+
+    /**
+     * Move the contents left in the story table into bodies, then compute the normalized search columns
+     * of every Story and Topic that lacks them, and the missing excerpts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+
+        moveLegacyContents();
+
+        // Updated entities no longer match the queries, so the first page is always requested
+        Pageable batch = PageRequest.of(0, batchSize);
+        int stories = 0;
+        int topics = 0;
+
+        Page<Story> storyBatch;
+
+        while (!(storyBatch = storyRepository.findWithoutSearchColumns(batch)).isEmpty()) {
+            storyBatch.forEach(Story::updateSearchColumns);
+            storyRepository.flush();
+            stories += storyBatch.getNumberOfElements();
+        }
+
+        Page<Topic> topicBatch;
+
+        while (!(topicBatch = topicRepository.findByNormalizedNameIsNull(batch)).isEmpty()) {
+            topicBatch.forEach(Topic::updateSearchColumns);
+            topicRepository.flush();
+            topics += topicBatch.getNumberOfElements();
+        }
+
+        if (stories > 0 || topics > 0) {
+            log.info("Normalized search columns filled in for " + stories + " Stories and " + topics + " Topics");
+        }
+
+    }
+
+
+
+    /**
+     * Create the body of every Story whose content is still stored in the story table,
+     * then drop the legacy columns <br>
+     *
+     * Stories are changed through their entities, so that their modification stamps move
+     * and the indexes of every instance pick up the moved contents
+     */
+    private void moveLegacyContents() {
+
+        Set<String> present = presentLegacyColumns();
+
+        if (present.isEmpty()) { return; }
+
+        int moved = 0;
+
+        if (present.contains("content")) {
+
+            List<?> rows;
+
+            // Stories given a body no longer match the query, so the first rows are always requested
+            while (!(rows = entityManager.createNativeQuery("SELECT id, content FROM story " +
+                            "WHERE bodyID IS NULL AND content IS NOT NULL ORDER BY id")
+                    .setMaxResults(batchSize).getResultList()).isEmpty()) {
+
+                Map<Long, String> contents = new HashMap<>();
+
+                for (Object row : rows) {
+                    Object[] columns = (Object[]) row;
+                    contents.put(((Number) columns[0]).longValue(), (String) columns[1]);
+                }
+
+                storyRepository.findAllById(contents.keySet())
+                        .forEach(story -> story.setContent(contents.get(story.getId())));
+                storyRepository.flush();
+
+                moved += rows.size();
+            }
+        }
+
+        long remaining = ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM story WHERE bodyID IS NULL")
+                .getSingleResult()).longValue();
+
+        if (remaining > 0) {
+            log.warn(remaining + " Stories have neither a body nor a content, they are listed without one");
+        }
+
+        for (String column : present) {
+            entityManager.createNativeQuery("ALTER TABLE story DROP COLUMN " + column).executeUpdate();
+        }
+
+        log.info("Contents of " + moved + " Stories moved into bodies, dropped the legacy columns " + present);
+
+    }
+
+
+
+    /**
+     * Find the legacy content columns that the story table still has
+     */
+    private Set<String> presentLegacyColumns() {
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+
+            Set<String> present = new LinkedHashSet<>();
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            // Databases differ in the case they store names in, so every column of the schema is compared
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), "%", "%")) {
+
+                while (columns.next()) {
+
+                    String column = columns.getString("COLUMN_NAME").toLowerCase(Locale.ROOT);
+
+                    if (columns.getString("TABLE_NAME").equalsIgnoreCase("story") && legacyColumns.contains(column)) {
+                        present.add(column);
+                    }
+                }
+            }
+
+            return present;
+
+        });
+
+    }
+
+
+}
@@ -0,0 +1,115 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the complete, ranked list of IDs matching a search. <br>
+ *
+ * Searches are keyed by their normalized query and by the visibility rule of the User, so that every Visitor,
+ * and every Curator, shares the same entries while each Journalist gets their own. Pages are sliced from the
+ * cached list. Entries expire after a fixed time, and the least recently used entry is evicted once the cache
+ * is full. <br>
+ *
+ * The index that owns the cache invalidates it whenever its contents change. A search that was running while
+ * the cache was invalidated may have read the old contents, so its result is returned but not cached.
+ */
+public class SearchResultCache {
+
+
+    /**
+     * Key of a cached search
+     *
+     * @param filter Kind of search, such as the searched fields
+     * @param query Normalized query
+     * @param visibility Visibility rule of the User, must implement equals
+     */
+    public record Key(String filter, String query, Object visibility) {}
+
+
+    private record Entry(List<Long> ids, long expiresAt) {}
+
+
+    private final int maximumEntries;
+
+    private final long timeToLive;
+
+    private final Map<Key, Entry> entries;
+
+    // Incremented on every invalidation, guarded by this
+    private long generation = 0;
+
+
+
+    /**
+     * @param maximumEntries Maximum number of cached searches, 0 disables the cache
+     * @param timeToLive Time in milliseconds after which a cached search expires
+     */
+    public SearchResultCache(int maximumEntries, long timeToLive) {
+
+        this.maximumEntries = maximumEntries;
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SearchResultCache.this.maximumEntries;
+            }
+        };
+
+    }
+
+
+
+    /**
+     * Get the cached result of a search, or run the search and cache its result
+     *
+     * @param key Key of the search
+     * @param search Runs the search
+     *
+     * @return IDs of the matching entities, in ranking order
+     */
+    public List<Long> get(Key key, Supplier<List<Long>> search) {
+
+        if (maximumEntries <= 0) { return search.get(); }
+
+        long searchGeneration;
+
+        synchronized (this) {
+
+            Entry entry = entries.get(key);
+
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) { return entry.ids(); }
+
+            if (entry != null) { entries.remove(key); }
+
+            searchGeneration = generation;
+        }
+
+        List<Long> ids = List.copyOf(search.get());
+
+        synchronized (this) {
+            if (generation == searchGeneration) {
+                entries.put(key, new Entry(ids, System.nanoTime() + timeToLive));
+            }
+        }
+
+        return ids;
+
+    }
+
+
+
+    /**
+     * Remove every cached search
+     */
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+
+}
@@ -0,0 +1,73 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the terms that Users search for, separately for Story and Topic searches, <br>
+ * so that the most frequent ones can be reported. Terms are normalized by the {@link TextAnalyzer},
+ * so every form of a word is counted as the same term.
+ */
+@Component
+public class SearchTermStatistics {
+
+    private final HeavyHitters storyTerms;
+
+    private final HeavyHitters topicTerms;
+
+
+    public SearchTermStatistics(@Value("${search.analytics.sketch-width}") int sketchWidth,
+                                @Value("${search.analytics.sketch-depth}") int sketchDepth,
+                                @Value("${search.analytics.top-terms}") int topTerms) {
+
+        storyTerms = new HeavyHitters(sketchWidth, sketchDepth, topTerms);
+        topicTerms = new HeavyHitters(sketchWidth, sketchDepth, topTerms);
+
+    }
+
+
+
+    /**
+     * Count the terms of the queries of a Story search
+     *
+     * @param queries Provided queries, null queries are ignored
+     */
+    public void recordStorySearch(String... queries) {
+        record(storyTerms, queries);
+    }
+
+
+
+    /**
+     * Count the terms of the queries of a Topic search
+     *
+     * @param queries Provided queries, null queries are ignored
+     */
+    public void recordTopicSearch(String... queries) {
+        record(topicTerms, queries);
+    }
+
+
+
+    public HeavyHitters getStoryTerms() {
+        return storyTerms;
+    }
+
+
+
+    public HeavyHitters getTopicTerms() {
+        return topicTerms;
+    }
+
+
+
+    private void record(HeavyHitters terms, String... queries) {
+
+        for (String query : queries) {
+            TextAnalyzer.terms(query).forEach(terms::add);
+        }
+
+    }
+
+
+}
@@ -0,0 +1,193 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes {@link MappedSegment segment} files. <br>
+ *
+ * Several segments can be merged into a single one, in which case only the newest
+ * version of every Story is kept. Files are written under a temporary name, synced,
+ * and then atomically renamed, so a segment file is either complete or absent.
+ */
+public final class SegmentWriter {
+
+
+    private SegmentWriter() {}
+
+
+    /**
+     * Write the provided segments into a single segment file
+     *
+     * @param target Path of the new segment file
+     * @param sources Segments to write, ordered from oldest to newest
+     * @param analyzerVersion Version of the {@link TextAnalyzer} the sources were built with
+     *
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Path target, List<? extends IndexSegment> sources, int analyzerVersion)
+            throws IOException {
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            CRC32 checksum = new CRC32();
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), checksum));
+
+            // -- Postings -- //
+            Map<SearchField, List<String>> terms = new EnumMap<>(SearchField.class);
+            Map<SearchField, List<int[]>> termPostings = new EnumMap<>(SearchField.class);
+
+            for (SearchField field : SearchField.values()) {
+
+                TreeSet<String> fieldTerms = new TreeSet<>();
+                sources.forEach(source -> source.forEachTerm(field, fieldTerms::add));
+
+                terms.put(field, new ArrayList<>());
+                termPostings.put(field, new ArrayList<>());
+
+                for (String term : fieldTerms) {
+
+                    TreeMap<Long, int[]> livePostings = new TreeMap<>();
+
+                    for (int i = 0; i < sources.size(); i++) {
+                        int source = i;
+                        sources.get(source).forEachPosting(field, term, false, (id, offsets) -> {
+                            if (IndexSnapshot.isLive(sources, source, id)) { livePostings.put(id, offsets); }
+                        });
+                    }
+
+                    if (livePostings.isEmpty()) { continue; }
+
+                    terms.get(field).add(term);
+                    termPostings.get(field).add(new int[] {checkedSize(output), livePostings.size()});
+
+                    for (Map.Entry<Long, int[]> posting : livePostings.entrySet()) {
+                        output.writeLong(posting.getKey());
+                        output.writeInt(posting.getValue().length);
+                        for (int offset : posting.getValue()) { output.writeInt(offset); }
+                    }
+                }
+
+            }
+
+            // -- Documents, kept in memory until the strings are written -- //
+            TreeMap<Long, IndexedStory> documents = new TreeMap<>();
+
+            for (int i = 0; i < sources.size(); i++) {
+                int source = i;
+                sources.get(source).forEachDocument(story -> {
+                    if (IndexSnapshot.isLive(sources, source, story.id())) { documents.put(story.id(), story); }
+                });
+            }
+
+            // -- Strings -- //
+            Map<String, Integer> stringOffsets = new HashMap<>();
+
+            for (SearchField field : SearchField.values()) {
+                for (String term : terms.get(field)) { writeString(output, term, stringOffsets); }
+            }
+
+            for (IndexedStory story : documents.values()) {
+                writeString(output, story.author(), stringOffsets);
+            }
+
+            // -- Documents -- //
+            int documentsOffset = checkedSize(output);
+
+            for (IndexedStory story : documents.values()) {
+                output.writeLong(story.id());
+                output.writeByte(story.state().ordinal());
+                output.writeInt(stringOffsets.get(story.author()));
+            }
+
+            // -- Dictionaries -- //
+            int[] dictionaryOffsets = new int[SearchField.values().length];
+
+            for (SearchField field : SearchField.values()) {
+
+                dictionaryOffsets[field.ordinal()] = checkedSize(output);
+
+                for (int entry = 0; entry < terms.get(field).size(); entry++) {
+                    output.writeInt(stringOffsets.get(terms.get(field).get(entry)));
+                    output.writeInt(termPostings.get(field).get(entry)[0]);
+                    output.writeInt(termPostings.get(field).get(entry)[1]);
+                }
+            }
+
+            // -- Footer -- //
+            output.writeInt(documentsOffset);
+            output.writeInt(documents.size());
+
+            for (SearchField field : SearchField.values()) {
+                output.writeInt(dictionaryOffsets[field.ordinal()]);
+                output.writeInt(terms.get(field).size());
+            }
+
+            output.writeInt(analyzerVersion);
+            output.writeInt(MappedSegment.formatVersion);
+            output.writeInt(MappedSegment.magic);
+            output.flush();
+
+            // The checksum itself is not part of the checksummed data
+            long checksumValue = checksum.getValue();
+            output.writeLong(checksumValue);
+            output.flush();
+
+            channel.force(true);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+
+
+    private static void writeString(DataOutputStream output, String value, Map<String, Integer> offsets)
+            throws IOException {
+
+        if (offsets.containsKey(value)) { return; }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Indexed string exceeds the maximum length of a segment string");
+        }
+
+        offsets.put(value, checkedSize(output));
+        output.writeShort(bytes.length);
+        output.write(bytes);
+
+    }
+
+
+
+    private static int checkedSize(DataOutputStream output) throws IOException {
+
+        // DataOutputStream stops counting at Integer.MAX_VALUE
+        if (output.size() == Integer.MAX_VALUE) {
+            throw new IOException("Segment exceeds the maximum size of a mapped segment");
+        }
+
+        return output.size();
+
+    }
+
+
+}
@@ -0,0 +1,416 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory filter index of the Story entity <br>
+ *
+ * Keeps an {@link IdBitmap} of Story IDs per state, per Topic and per Author, so that listing Stories by state
+ * or by Topic, with the visibility rule of the User applied, is answered by intersecting and uniting bitmaps.
+ * The database is then only asked to load the Stories of the requested page. <br>
+ *
+ * The index is kept up to date by {@link #update(Story)} on every change of a Story's state or Topics,
+ * and by {@link #refresh()} with the changes committed by other instances of the application.
+ * Until it has been built, {@link #isReady()} returns false and callers should query the database instead.
+ */
+@Component
+public class StoryFilterIndex {
+
+    private final StoryRepository storyRepository;
+
+    private static final Logger log = LoggerFactory.getLogger("StoryFilterIndex");
+
+    /** Number of rows loaded per query while building the index */
+    private static final int rebuildBatchSize = 500;
+
+
+    /**
+     * The filtered attributes of a Story, kept to remove the Story from its previous bitmaps when it changes
+     */
+    private record Entry(StoryState state, String author, Set<Long> topicIDs) {}
+
+
+    /**
+     * Bitmaps of the whole index, every access must hold the index's lock
+     */
+    private static final class Bitmaps {
+
+        private final Map<StoryState, IdBitmap> states = new EnumMap<>(StoryState.class);
+
+        private final Map<Long, IdBitmap> topics = new HashMap<>();
+
+        private final Map<String, IdBitmap> authors = new HashMap<>();
+
+        private final Map<Long, Entry> stories = new HashMap<>();
+
+
+        void put(long id, Entry entry) {
+
+            Entry previous = stories.put(id, entry);
+
+            if (previous != null) {
+                remove(states, previous.state(), id);
+                remove(authors, previous.author(), id);
+                previous.topicIDs().forEach(topicID -> remove(topics, topicID, id));
+            }
+
+            states.computeIfAbsent(entry.state(), key -> new IdBitmap()).add(id);
+            authors.computeIfAbsent(entry.author(), key -> new IdBitmap()).add(id);
+            entry.topicIDs().forEach(topicID -> topics.computeIfAbsent(topicID, key -> new IdBitmap()).add(id));
+
+        }
+
+
+        IdBitmap state(StoryState state) {
+            return states.getOrDefault(state, new IdBitmap());
+        }
+
+
+        /**
+         * Every Story visible under a visibility rule
+         */
+        IdBitmap visible(StoryVisibility visibility) {
+
+            IdBitmap visible = new IdBitmap();
+
+            for (StoryState state : visibility.states()) {
+                visible = visible.or(state(state));
+            }
+
+            if (visibility.author() != null && authors.containsKey(visibility.author())) {
+                visible = visible.or(authors.get(visibility.author()));
+            }
+
+            return visible;
+
+        }
+
+
+        private static <K> void remove(Map<K, IdBitmap> bitmaps, K key, long id) {
+
+            IdBitmap bitmap = bitmaps.get(key);
+
+            if (bitmap == null) { return; }
+
+            bitmap.remove(id);
+
+            if (bitmap.cardinality() == 0) { bitmaps.remove(key); }
+
+        }
+
+    }
+
+
+    private final IndexUpdates updates = new IndexUpdates();
+
+    private final ChangeStamps stamps;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by the lock
+    private Bitmaps bitmaps = new Bitmaps();
+
+
+    public StoryFilterIndex(StoryRepository storyRepository,
+                            @Value("${search.index.refresh-overlap}") long refreshOverlap) {
+
+        this.storyRepository = storyRepository;
+        this.stamps = new ChangeStamps(refreshOverlap);
+
+    }
+
+
+
+    /**
+     * Check whether the index has been built and can answer queries
+     *
+     * @return True if the index can be used
+     */
+    public boolean isReady() {
+        return updates.isReady();
+    }
+
+
+
+    /**
+     * Build the index from the Stories currently persisted in the database. <br>
+     *
+     * Runs once the application is ready, and then periodically to correct any drift from the database.
+     * Every batch is read by the same read-only transaction, so that the index is built from a consistent view
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval}",
+            fixedDelayString = "${search.index.rebuild-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+
+        updates.suspend();
+
+        // Changes stamped after this are polled by the next refresh
+        Date built = storyRepository.findLastModified();
+
+        Map<Long, Set<Long>> topicIDs = new HashMap<>();
+        Pageable batch = PageRequest.of(0, rebuildBatchSize);
+        List<Object[]> storyTopics;
+
+        do {
+            storyTopics = storyRepository.findStoryTopicIDs(batch);
+            storyTopics.forEach(pair -> topicIDs.computeIfAbsent((Long) pair[0], key -> new HashSet<>())
+                    .add((Long) pair[1]));
+            batch = batch.next();
+        }
+        while (storyTopics.size() == rebuildBatchSize);
+
+        Bitmaps newBitmaps = new Bitmaps();
+        batch = PageRequest.of(0, rebuildBatchSize, Sort.by("id"));
+        Page<Story> stories;
+
+        do {
+            stories = storyRepository.findAll(batch);
+            stories.forEach(story -> newBitmaps.put(story.getId(), new Entry(story.getState(),
+                    story.getAuthor().getUsername(), topicIDs.getOrDefault(story.getId(), Set.of()))));
+            batch = batch.next();
+        }
+        while (stories.hasNext());
+
+        updates.resume(() -> {
+            lock.writeLock().lock();
+            try { bitmaps = newBitmaps; }
+            finally { lock.writeLock().unlock(); }
+
+            stamps.reset(built);
+        });
+
+        log.info("Story filter index built, " + newBitmaps.stories.size() + " Stories indexed");
+
+    }
+
+
+
+    /**
+     * Index a Story that was created, or whose state or Topics changed. <br>
+     *
+     * The Story's attributes are captured immediately, and applied once the current transaction commits
+     *
+     * @param story Provided Story, must have been persisted
+     */
+    public void update(Story story) {
+
+        long id = story.getId();
+        Date stamp = story.getLastModified();
+        Entry entry = entry(story);
+
+        updates.afterCommit(() -> stamps.apply(id, stamp, false, () -> put(id, entry)));
+
+    }
+
+
+
+    /**
+     * Index the Stories modified since the last refresh, along with the changes
+     * committed by other instances of the application. <br>
+     *
+     * Runs periodically once the index has been built
+     */
+    @Scheduled(initialDelayString = "${search.index.refresh-interval}",
+            fixedDelayString = "${search.index.refresh-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+
+        if (!isReady()) { return; }
+
+        Pageable batch = PageRequest.of(0, rebuildBatchSize);
+
+        stamps.poll((stamp, id) -> storyRepository.findModifiedAfter(stamp, id, batch),
+                Story::getLastModified, Story::getId, stories -> {
+
+            for (Story story : stories) {
+
+                // The Topics of a Story are only read if the Story has not been applied yet
+                if (!stamps.isNewer(story.getId(), story.getLastModified())) { continue; }
+
+                Entry entry = entry(story);
+                stamps.apply(story.getId(), story.getLastModified(), true, () -> put(story.getId(), entry));
+            }
+        });
+
+    }
+
+
+
+    /**
+     * Capture the filtered attributes of a Story
+     */
+    private static Entry entry(Story story) {
+
+        Set<Long> topicIDs = new HashSet<>();
+
+        for (Topic topic : story.getTopics()) {
+            topicIDs.add(topic.getId());
+        }
+
+        return new Entry(story.getState(), story.getAuthor().getUsername(), Set.copyOf(topicIDs));
+
+    }
+
+
+
+    private void put(long id, Entry entry) {
+
+        lock.writeLock().lock();
+        try { bitmaps.put(id, entry); }
+        finally { lock.writeLock().unlock(); }
+
+    }
+
+
+
+    /**
+     * List the IDs of every visible Story, ordered by state as the Story workflow goes and then by most recent first <br>
+     *
+     * The bitmaps are iterated by descending ID, which is the recency order of {@link Story#getId()}
+     *
+     * @param visibility Visibility rule of the current User
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Story IDs
+     */
+    public Page<Long> findAll(StoryVisibility visibility, Pageable pageable) {
+
+        lock.readLock().lock();
+
+        try {
+
+            List<IdBitmap> ranked = new ArrayList<>();
+
+            for (StoryState state : StoryState.values()) {
+                ranked.add(visibleInState(state, visibility));
+            }
+
+            return page(ranked, pageable);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * List the IDs of the Stories in the provided state, most recent first
+     *
+     * @param state Provided state
+     * @param visibility Visibility rule of the current User
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Story IDs
+     */
+    public Page<Long> findByState(StoryState state, StoryVisibility visibility, Pageable pageable) {
+
+        lock.readLock().lock();
+
+        try {
+            return page(List.of(visibleInState(state, visibility)), pageable);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * List the IDs of the visible Stories associated with a Topic, most recent first
+     *
+     * @param topicID ID of the Topic
+     * @param visibility Visibility rule of the current User
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Story IDs
+     */
+    public Page<Long> findByTopic(long topicID, StoryVisibility visibility, Pageable pageable) {
+
+        lock.readLock().lock();
+
+        try {
+
+            IdBitmap topic = bitmaps.topics.get(topicID);
+
+            if (topic == null) { return new PageImpl<>(List.of(), pageable, 0); }
+
+            return page(List.of(topic.and(bitmaps.visible(visibility))), pageable);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Stories in a state that are visible under a visibility rule, must hold the lock
+     */
+    private IdBitmap visibleInState(StoryState state, StoryVisibility visibility) {
+
+        IdBitmap inState = bitmaps.state(state);
+
+        if (visibility.states().contains(state)) { return inState; }
+
+        IdBitmap ownStories = visibility.author() != null ? bitmaps.authors.get(visibility.author()) : null;
+
+        return ownStories != null ? inState.and(ownStories) : new IdBitmap();
+
+    }
+
+
+
+    /**
+     * Slice a page out of consecutive groups of IDs, each listed most recent first
+     */
+    private static Page<Long> page(List<IdBitmap> groups, Pageable pageable) {
+
+        List<Long> ids = new ArrayList<>();
+        long skipped = pageable.getOffset();
+        long total = 0;
+
+        for (IdBitmap group : groups) {
+
+            long cardinality = group.cardinality();
+            total += cardinality;
+
+            if (ids.size() >= pageable.getPageSize()) { continue; }
+
+            if (skipped >= cardinality) {
+                skipped -= cardinality;
+                continue;
+            }
+
+            ids.addAll(group.pageDescending(skipped, pageable.getPageSize() - ids.size()));
+            skipped = 0;
+        }
+
+        return new PageImpl<>(ids, pageable, total);
+
+    }
+
+
+}
@@ -0,0 +1,947 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Full-text search index of the Story entity <br>
+ *
+ * Answers searches over the name and content of Stories with a list of matching Story IDs,
+ * so that the database is only asked to load the Stories of the requested page. <br>
+ *
+ * The index is kept up to date by {@link #update(Story)} whenever a Story is created or modified,
+ * and by {@link #refresh()} with the Stories created or modified by other instances of the application.
+ * Until it has been opened, {@link #isReady()} returns false and callers should query the database instead. <br><br>
+ *
+ * When an index directory is configured, the index is persisted as immutable {@link MappedSegment segments},
+ * followed by an in-memory segment holding the most recent updates, which are also appended to a
+ * {@link WriteAheadLog}. On startup the segments are mapped, the log is replayed, and the Stories modified since
+ * the watermark of the {@link IndexManifest} are indexed again, so the index is available without reading every
+ * Story from the database. The index is only rebuilt from the database when its files are missing, damaged,
+ * or do not account for every persisted Story. <br>
+ *
+ * In the background, the in-memory segment is written to disk once it grows past the flush threshold,
+ * and the segments on disk are merged into one once there are more than the maximum allowed.
+ */
+@Component
+public class StoryIndex {
+
+    private final StoryRepository storyRepository;
+
+    private static final Logger log = LoggerFactory.getLogger("StoryIndex");
+
+    /** Number of Stories loaded per query while building the index */
+    private static final int rebuildBatchSize = 500;
+
+    /** Weight of a match in a Story's name, compared to a match in its content */
+    private static final int nameMatchWeight = 3;
+
+    /** Minimum similarity of a Story's name to a query, for the Story to be a similar match */
+    private static final double minimumSimilarity = 0.5;
+
+    /** Directory of the persisted index, null to keep the index in memory only */
+    private final Path directory;
+
+    /** Number of Stories held in memory before they are written to a new segment */
+    private final int flushThreshold;
+
+    /** Number of segments on disk above which the segments are merged */
+    private final int maxSegments;
+
+    private volatile IndexSnapshot snapshot = new IndexSnapshot(List.of(new InvertedIndex()));
+
+    // Trigrams of every Story's name, for searches that tolerate misspellings
+    private volatile TrigramIndex nameTrigrams = new TrigramIndex();
+
+    private final IndexUpdates updates = new IndexUpdates();
+
+    private final ChangeStamps stamps;
+
+    // Results of recent searches, invalidated whenever a Story is indexed
+    private final SearchResultCache resultCache;
+
+    // Guards the fields below, along with every change of the snapshot
+    private final Object updateLock = new Object();
+
+    // Newest segment of the snapshot, receives every update
+    private InvertedIndex activeSegment = new InvertedIndex();
+
+    // Null while the index is not persisted
+    private WriteAheadLog writeAheadLog;
+
+    // Null while the index is not persisted
+    private IndexManifest manifest;
+
+
+    public StoryIndex(StoryRepository storyRepository,
+                      @Value("${search.index.directory}") String directory,
+                      @Value("${search.index.flush-threshold}") int flushThreshold,
+                      @Value("${search.index.max-segments}") int maxSegments,
+                      @Value("${search.cache.max-entries}") int cacheEntries,
+                      @Value("${search.cache.time-to-live}") long cacheTimeToLive,
+                      @Value("${search.index.refresh-overlap}") long refreshOverlap) {
+
+        this.storyRepository = storyRepository;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.flushThreshold = flushThreshold;
+        this.maxSegments = maxSegments;
+        this.resultCache = new SearchResultCache(cacheEntries, cacheTimeToLive);
+        this.stamps = new ChangeStamps(refreshOverlap);
+
+    }
+
+
+
+    /**
+     * Open the persisted index, or rebuild it from the database if it cannot be used
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void open() {
+
+        if (directory != null) {
+
+            try {
+                if (load()) { return; }
+            }
+            catch (IOException | RuntimeException failure) {
+                log.warn("Persisted Story index could not be opened: " + failure.getMessage());
+            }
+
+        }
+
+        rebuild();
+
+    }
+
+
+
+    /**
+     * Build the index from the Stories currently persisted in the database,
+     * replacing any persisted index. <br>
+     *
+     * Runs periodically to correct any drift from the database. Every batch is read
+     * by the same read-only transaction, so that the index is built from a consistent view
+     */
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval}",
+            fixedDelayString = "${search.index.rebuild-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+
+        updates.suspend();
+
+        // Changes stamped after this are polled by the next refresh
+        Date built = storyRepository.findLastModified();
+
+        InvertedIndex newIndex = new InvertedIndex();
+
+        Pageable batch = PageRequest.of(0, rebuildBatchSize, Sort.by("id"));
+        Page<Story> stories;
+
+        do {
+            stories = storyRepository.findAll(batch);
+
+            Map<Long, String> contents = contents(stories.getContent());
+
+            stories.forEach(story -> newIndex.put(IndexedStory.of(story),
+                    indexedText(story.getName(), contents.get(story.getId()))));
+            batch = batch.next();
+        }
+        while (stories.hasNext());
+
+        if (directory == null || !persist(newIndex, built)) {
+            publish(new IndexSnapshot(List.of(newIndex)), newIndex, null, null, built);
+        }
+
+        log.info("Story index built, " + newIndex.size() + " Stories indexed");
+
+    }
+
+
+
+    /**
+     * Write the Stories held in memory to a new segment, and merge the segments
+     * on disk when there are too many of them
+     */
+    @Scheduled(fixedDelayString = "${search.index.maintenance-interval}")
+    public synchronized void maintain() {
+
+        try {
+            flush();
+            compact();
+        }
+        catch (IOException | RuntimeException failure) {
+            log.error("Story index maintenance failed, the index will be rebuilt on the next start: "
+                    + failure.getMessage());
+            stopPersisting();
+        }
+
+    }
+
+
+
+    /**
+     * Close the write-ahead log
+     */
+    @PreDestroy
+    public void close() {
+
+        synchronized (updateLock) {
+
+            if (writeAheadLog == null) { return; }
+
+            try {
+                writeAheadLog.close();
+            }
+            catch (IOException failure) {
+                log.warn("Story index log could not be closed: " + failure.getMessage());
+            }
+
+            writeAheadLog = null;
+        }
+
+    }
+
+
+
+    /**
+     * Check whether the index has been built and can answer searches
+     *
+     * @return True if the index can be used
+     */
+    public boolean isReady() {
+        return updates.isReady();
+    }
+
+
+
+    /**
+     * Index the current version of a Story. <br>
+     *
+     * When called inside a transaction, the index is only updated
+     * after the transaction commits
+     *
+     * @param story Provided Story, must have been persisted
+     */
+    public void update(Story story) {
+
+        WriteAheadLog.Entry entry = new WriteAheadLog.Entry(IndexedStory.of(story),
+                indexedText(story.getName(), story.getContent()));
+        Date stamp = story.getLastModified();
+
+        updates.afterCommit(() -> stamps.apply(entry.story().id(), stamp, false, () -> apply(entry)));
+
+    }
+
+
+
+    /**
+     * Index the new attributes of a Story whose name and content did not change, such as on a state transition. <br>
+     *
+     * The Story's content is not read, and only its attributes are logged. When called inside
+     * a transaction, the index is only updated after the transaction commits
+     *
+     * @param story Provided Story, must have been persisted
+     */
+    public void updateState(Story story) {
+
+        WriteAheadLog.Entry entry = new WriteAheadLog.Entry(IndexedStory.of(story), null);
+        Date stamp = story.getLastModified();
+
+        updates.afterCommit(() -> stamps.apply(entry.story().id(), stamp, false, () -> apply(entry)));
+
+    }
+
+
+
+    /**
+     * Index the Stories modified since the last refresh, along with the changes
+     * committed by other instances of the application. <br>
+     *
+     * Runs periodically once the index has been opened. Only the Stories not applied yet have their content read
+     */
+    @Scheduled(initialDelayString = "${search.index.refresh-interval}",
+            fixedDelayString = "${search.index.refresh-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+
+        if (!isReady()) { return; }
+
+        applyModified(this::apply);
+
+    }
+
+
+
+    /**
+     * Poll for the Stories modified since the newest stamp applied, and apply those not applied yet
+     *
+     * @param index Applies a Story on the index
+     */
+    private void applyModified(Consumer<WriteAheadLog.Entry> index) {
+
+        Pageable batch = PageRequest.of(0, rebuildBatchSize);
+
+        stamps.poll((stamp, id) -> storyRepository.findModifiedAfter(stamp, id, batch),
+                Story::getLastModified, Story::getId, stories -> {
+
+            List<Story> changed = stories.stream()
+                    .filter(story -> stamps.isNewer(story.getId(), story.getLastModified()))
+                    .toList();
+
+            Map<Long, String> contents = contents(changed);
+
+            for (Story story : changed) {
+
+                WriteAheadLog.Entry entry = new WriteAheadLog.Entry(IndexedStory.of(story),
+                        indexedText(story.getName(), contents.get(story.getId())));
+
+                stamps.apply(story.getId(), story.getLastModified(), true, () -> index.accept(entry));
+            }
+        });
+
+    }
+
+
+
+    /**
+     * Search Stories whose name and/or content match the provided queries. <br>
+     *
+     * Every term of a query must match the start of a word in the respective field.
+     * Results are ranked by the number of matches, matches in the name weighing more,
+     * and then by most recent Story first. Results are cached per query and visibility rule
+     *
+     * @param name Query for the Story's name, null to ignore the name
+     * @param content Query for the Story's content, null to ignore the content
+     * @param visibility Visibility rule of the current User
+     *
+     * @return IDs of the visible matching Stories, in ranking order
+     */
+    public List<Long> search(String name, String content, StoryVisibility visibility) {
+
+        String filter = (name != null ? "name" : "") + (content != null ? "+content" : "");
+        String query = String.join(" ", TextAnalyzer.terms(name)) + " | " + String.join(" ", TextAnalyzer.terms(content));
+
+        return resultCache.get(new SearchResultCache.Key(filter, query, visibility),
+                () -> searchSnapshot(name, content, visibility));
+
+    }
+
+
+
+    /**
+     * Search Stories whose name is similar to the provided query, tolerating misspellings. <br>
+     *
+     * Candidates are the Stories sharing trigrams with the query, ranked by similarity
+     * and then by most recent Story first. Results are cached per query and visibility rule
+     *
+     * @param name Query for the Story's name
+     * @param visibility Visibility rule of the current User
+     *
+     * @return IDs of the visible similar Stories, in ranking order
+     */
+    public List<Long> searchSimilar(String name, StoryVisibility visibility) {
+
+        List<String> terms = TextAnalyzer.terms(name);
+
+        return resultCache.get(new SearchResultCache.Key("similar-name", String.join(" ", terms), visibility), () -> {
+
+            IndexSnapshot currentIndex = snapshot;
+
+            return nameTrigrams.search(terms, minimumSimilarity).stream()
+                    .map(TrigramIndex.Match::id)
+                    .filter(id -> currentIndex.document(id).filter(visibility).isPresent())
+                    .toList();
+        });
+
+    }
+
+
+
+    /**
+     * Run a search of {@link #search(String, String, StoryVisibility)} on the current snapshot of the index
+     */
+    private List<Long> searchSnapshot(String name, String content, StoryVisibility visibility) {
+
+        IndexSnapshot currentIndex = snapshot;
+        Map<Long, Integer> scores = null;
+
+        if (name != null) {
+            scores = matchAll(currentIndex, SearchField.NAME, TextAnalyzer.terms(name), nameMatchWeight, null);
+        }
+
+        if (content != null) {
+            scores = matchAll(currentIndex, SearchField.CONTENT, TextAnalyzer.terms(content), 1, scores);
+        }
+
+        if (scores == null) { return List.of(); }
+
+        return scores.entrySet().stream()
+                .filter(match -> currentIndex.document(match.getKey()).filter(visibility).isPresent())
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed()))
+                .map(Map.Entry::getKey)
+                .toList();
+
+    }
+
+
+
+    /**
+     * Find where the terms of a search occur in the provided Stories. <br>
+     *
+     * Only the postings of the query terms are visited, the Stories' text is not scanned again
+     *
+     * @param ids IDs of the Stories
+     * @param name Query for the Story's name, null to ignore the name
+     * @param content Query for the Story's content, null to ignore the content
+     *
+     * @return ID of every Story mapped to the start and end offsets of every occurrence per field
+     */
+    public Map<Long, Map<SearchField, List<int[]>>> matchOffsets(Collection<Long> ids, String name, String content) {
+
+        IndexSnapshot currentIndex = snapshot;
+        Set<Long> requestedIDs = new HashSet<>(ids);
+        Map<Long, Map<SearchField, List<int[]>>> offsets = new HashMap<>();
+
+        Map<SearchField, String> queries = new EnumMap<>(SearchField.class);
+        if (name != null) { queries.put(SearchField.NAME, name); }
+        if (content != null) { queries.put(SearchField.CONTENT, content); }
+
+        queries.forEach((field, query) -> {
+            for (String term : TextAnalyzer.terms(query)) {
+                currentIndex.forEachPosting(field, term, (id, occurrences) -> {
+
+                    if (!requestedIDs.contains(id)) { return; }
+
+                    List<int[]> fieldOffsets = offsets.computeIfAbsent(id, key -> new EnumMap<>(SearchField.class))
+                            .computeIfAbsent(field, key -> new ArrayList<>());
+
+                    for (int i = 0; i < occurrences.length; i += 2) {
+                        fieldOffsets.add(new int[] {occurrences[i], occurrences[i + 1]});
+                    }
+                });
+            }
+        });
+
+        return offsets;
+
+    }
+
+
+
+    /**
+     * Intersect the Stories matching every one of the provided terms
+     *
+     * @param currentIndex Index to search in
+     * @param field Field to search in
+     * @param terms Query terms
+     * @param weight Weight of every match
+     * @param previousScores Scores of a previous field, its Stories are intersected as well, may be null
+     *
+     * @return ID of every matching Story mapped to its score
+     */
+    private Map<Long, Integer> matchAll(IndexSnapshot currentIndex, SearchField field, List<String> terms,
+                                        int weight, Map<Long, Integer> previousScores) {
+
+        // A query consisting only of separators cannot match anything
+        if (terms.isEmpty()) { return new HashMap<>(); }
+
+        Map<Long, Integer> scores = previousScores;
+
+        for (String term : terms) {
+
+            Map<Long, Integer> matches = currentIndex.match(field, term);
+
+            if (scores == null) {
+                scores = new HashMap<>();
+                for (Map.Entry<Long, Integer> match : matches.entrySet()) {
+                    scores.put(match.getKey(), match.getValue() * weight);
+                }
+            }
+            else {
+                scores.keySet().retainAll(matches.keySet());
+                for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+                    score.setValue(score.getValue() + matches.get(score.getKey()) * weight);
+                }
+            }
+
+            if (scores.isEmpty()) { break; }
+        }
+
+        return scores;
+
+    }
+
+
+
+    /**
+     * Open the index persisted in the index directory
+     *
+     * @return True if the index was opened, false if it must be rebuilt
+     */
+    private boolean load() throws IOException {
+
+        Optional<IndexManifest> storedManifest = IndexManifest.read(directory);
+
+        if (storedManifest.isEmpty()) { return false; }
+
+        IndexManifest currentManifest = storedManifest.get();
+
+        if (currentManifest.analyzerVersion() != TextAnalyzer.version) {
+            log.info("Persisted Story index was built by a different analyzer");
+            return false;
+        }
+
+        List<IndexSegment> segments = new ArrayList<>();
+
+        for (String segment : currentManifest.segments()) {
+            segments.add(MappedSegment.open(directory.resolve(segment), TextAnalyzer.version));
+        }
+
+        // Every log but the active one holds the updates of a segment whose flush was interrupted
+        List<WriteAheadLog.Entry> entries = new ArrayList<>();
+        Path logPath = null;
+        long validLength = 0;
+
+        for (String logName : currentManifest.logs()) {
+
+            logPath = directory.resolve(logName);
+
+            if (!Files.exists(logPath)) {
+                throw new CorruptIndexException("Log " + logPath + " is missing");
+            }
+
+            validLength = WriteAheadLog.read(logPath, entries);
+        }
+
+        InvertedIndex recentUpdates = new InvertedIndex();
+        segments.add(recentUpdates);
+
+        for (WriteAheadLog.Entry entry : entries) {
+            if (entry.text() == null) { recentUpdates.updateAttributes(entry.story()); }
+            else { recentUpdates.put(entry.story(), entry.text()); }
+        }
+
+        // Updates committed but never logged, and the changes of other instances, are caught up from the watermark.
+        // They are not logged either, so that they are caught up again if the index is not flushed before it closes
+        stamps.reset(new Date(currentManifest.watermark()));
+        applyModified(entry -> recentUpdates.put(entry.story(), entry.text()));
+
+        IndexSnapshot loadedSnapshot = new IndexSnapshot(segments);
+        long persistedStories = storyRepository.count();
+
+        if (loadedSnapshot.size() != persistedStories) {
+            log.warn("Persisted Story index holds " + loadedSnapshot.size() + " of "
+                    + persistedStories + " Stories");
+            return false;
+        }
+
+        // Stories persisted without a stamp are not caught up, and Stories deleted and created
+        // while the index was not being updated leave the count unchanged
+        if (!Objects.equals(loadedSnapshot.maxId(), storyRepository.findMaxID())) {
+            log.warn("Persisted Story index misses the latest Stories");
+            return false;
+        }
+
+        publish(loadedSnapshot, recentUpdates, WriteAheadLog.open(logPath, validLength), currentManifest,
+                stamps.watermark());
+        currentManifest.deleteUnreferenced(directory);
+
+        log.info("Story index opened, " + persistedStories + " Stories indexed in "
+                + currentManifest.segments().size() + " segments");
+
+        return true;
+
+    }
+
+
+
+    /**
+     * Replace the persisted index with a single segment holding the provided index
+     *
+     * @param builtIndex Index built from the database
+     * @param built Latest modification stamp of the database before the index was built
+     *
+     * @return True if the index was persisted, false if it must be kept in memory only
+     */
+    private boolean persist(InvertedIndex builtIndex, Date built) {
+
+        WriteAheadLog newLog = null;
+
+        try {
+
+            Files.createDirectories(directory);
+            IndexManifest.delete(directory);
+
+            // Generations of a rebuilt index start from the current time,
+            // so that they never collide with the files of a discarded index
+            long generation = System.currentTimeMillis();
+
+            MappedSegment segment = writeSegment(List.of(builtIndex), generation + 1);
+            String logName = logFileName(generation + 2);
+            newLog = WriteAheadLog.open(directory.resolve(logName), 0);
+
+            IndexManifest newManifest = new IndexManifest(TextAnalyzer.version,
+                    List.of(segment.getPath().getFileName().toString()), List.of(logName), generation + 2,
+                    built == null ? 0 : built.getTime());
+            newManifest.write(directory);
+
+            InvertedIndex recentUpdates = new InvertedIndex();
+            publish(new IndexSnapshot(List.of(segment, recentUpdates)), recentUpdates, newLog, newManifest, built);
+            newManifest.deleteUnreferenced(directory);
+
+            return true;
+
+        }
+        catch (IOException failure) {
+
+            log.error("Story index could not be persisted, it is kept in memory only: " + failure.getMessage());
+
+            if (newLog != null) {
+                try { newLog.close(); }
+                catch (IOException ignored) {}
+            }
+
+            return false;
+        }
+
+    }
+
+
+
+    /**
+     * Make a newly opened or built index the current one, and replay
+     * the updates that were queued while it was being prepared. <br>
+     *
+     * Refreshes poll for the Stories modified after the provided stamp
+     */
+    private void publish(IndexSnapshot newSnapshot, InvertedIndex newActiveSegment,
+                         WriteAheadLog newLog, IndexManifest newManifest, Date built) {
+
+        TrigramIndex newNameTrigrams = new TrigramIndex();
+        newSnapshot.documentTerms(SearchField.NAME).forEach(newNameTrigrams::put);
+
+        updates.resume(() -> {
+
+            synchronized (updateLock) {
+
+                close();
+
+                snapshot = newSnapshot;
+                activeSegment = newActiveSegment;
+                writeAheadLog = newLog;
+                manifest = newManifest;
+                nameTrigrams = newNameTrigrams;
+            }
+
+            stamps.reset(built);
+            resultCache.invalidate();
+
+        });
+
+    }
+
+
+
+    /**
+     * Log an update and apply it to the active segment. <br>
+     *
+     * The text is analyzed before the update lock is taken, and the log is synced after it is released,
+     * so that concurrent updates are not held back by the disk, and searches only wait for the postings to be swapped in
+     *
+     * @param entry Provided update
+     */
+    private void apply(WriteAheadLog.Entry entry) {
+
+        Map<SearchField, Map<String, int[]>> postings = entry.text() == null ? null : InvertedIndex.analyze(entry.text());
+        List<String> nameTerms = entry.text() == null ? null : TextAnalyzer.terms(entry.text().get(SearchField.NAME));
+        WriteAheadLog currentLog;
+
+        synchronized (updateLock) {
+
+            currentLog = writeAheadLog;
+
+            if (currentLog != null) {
+
+                try {
+                    currentLog.write(entry);
+                }
+                catch (IOException failure) {
+                    logFailure(failure);
+                    currentLog = null;
+                }
+
+            }
+
+            if (postings == null) {
+                activeSegment.updateAttributes(entry.story());
+            }
+            else {
+                activeSegment.putPostings(entry.story(), postings);
+                nameTrigrams.put(entry.story().id(), nameTerms);
+            }
+        }
+
+        resultCache.invalidate();
+
+        if (currentLog == null) { return; }
+
+        try {
+            currentLog.sync();
+        }
+        catch (ClosedChannelException switchedLog) {
+            // The log was switched by a flush, the update is held by the segment being written
+        }
+        catch (IOException failure) {
+            logFailure(failure);
+        }
+
+    }
+
+
+
+    private void logFailure(IOException failure) {
+
+        log.error("Story index update could not be logged, the index will be rebuilt on the next start: "
+                + failure.getMessage());
+        stopPersisting();
+
+    }
+
+
+
+    /**
+     * Write the active segment to disk once it holds enough Stories
+     */
+    private void flush() throws IOException {
+
+        InvertedIndex frozenSegment;
+        long segmentGeneration;
+        String logName;
+
+        // Every update applied by now is logged, and is held by the frozen segment or the logs before it
+        long watermark = stamps.watermark().getTime();
+
+        synchronized (updateLock) {
+
+            if (manifest == null
+                    || activeSegment.size() + activeSegment.attributeUpdates().size() < flushThreshold) { return; }
+
+            segmentGeneration = manifest.generation() + 1;
+            logName = logFileName(manifest.generation() + 2);
+
+            // Updates from now on are logged in a new log. The manifest references both logs before
+            // the switch, so that the updates of the frozen segment are replayed if it is never written
+            WriteAheadLog newLog = WriteAheadLog.open(directory.resolve(logName), 0);
+
+            List<String> logs = new ArrayList<>(manifest.logs());
+            logs.add(logName);
+
+            IndexManifest switchedManifest = new IndexManifest(TextAnalyzer.version,
+                    manifest.segments(), logs, manifest.generation() + 2, watermark);
+
+            try {
+                switchedManifest.write(directory);
+            }
+            catch (IOException failure) {
+                newLog.close();
+                throw failure;
+            }
+
+            manifest = switchedManifest;
+            writeAheadLog.close();
+            writeAheadLog = newLog;
+
+            frozenSegment = activeSegment;
+            activeSegment = new InvertedIndex();
+            snapshot = snapshot.with(activeSegment);
+        }
+
+        resolveAttributeUpdates(frozenSegment);
+
+        MappedSegment segment = writeSegment(List.of(frozenSegment), segmentGeneration);
+        IndexManifest newManifest;
+
+        synchronized (updateLock) {
+
+            if (manifest == null) { return; }
+
+            List<String> segments = new ArrayList<>(manifest.segments());
+            segments.add(segment.getPath().getFileName().toString());
+
+            newManifest = new IndexManifest(TextAnalyzer.version, segments, List.of(logName), segmentGeneration + 1,
+                    watermark);
+            newManifest.write(directory);
+
+            manifest = newManifest;
+            snapshot = snapshot.replace(List.of(frozenSegment), segment);
+        }
+
+        newManifest.deleteUnreferenced(directory);
+
+    }
+
+
+
+    /**
+     * Combine the attribute updates of a frozen segment with the postings held by the older segments,
+     * so that the segment written to disk holds the whole of every Story it updates
+     *
+     * @param frozenSegment Segment that is about to be written, no longer receives updates
+     */
+    private void resolveAttributeUpdates(InvertedIndex frozenSegment) {
+
+        Map<Long, IndexedStory> attributeUpdates = frozenSegment.attributeUpdates();
+
+        if (attributeUpdates.isEmpty()) { return; }
+
+        List<IndexSegment> segments = snapshot.segments();
+        IndexSnapshot olderSegments = new IndexSnapshot(segments.subList(0, segments.indexOf(frozenSegment)));
+
+        Map<Long, Map<SearchField, Map<String, int[]>>> postings = olderSegments.postings(attributeUpdates.keySet());
+
+        // Readers see the same Stories before and after, only held by the frozen segment instead
+        attributeUpdates.forEach((id, story) -> frozenSegment.putPostings(story, postings.getOrDefault(id, Map.of())));
+
+    }
+
+
+
+    /**
+     * Merge the segments on disk into a single segment once there are too many of them
+     */
+    private void compact() throws IOException {
+
+        List<MappedSegment> mappedSegments = snapshot.segments().stream()
+                .filter(MappedSegment.class::isInstance)
+                .map(MappedSegment.class::cast)
+                .toList();
+
+        if (mappedSegments.size() <= maxSegments) { return; }
+
+        long segmentGeneration;
+
+        synchronized (updateLock) {
+
+            if (manifest == null) { return; }
+
+            segmentGeneration = manifest.generation() + 1;
+        }
+
+        MappedSegment mergedSegment = writeSegment(mappedSegments, segmentGeneration);
+        IndexManifest newManifest;
+
+        synchronized (updateLock) {
+
+            if (manifest == null) { return; }
+
+            newManifest = new IndexManifest(TextAnalyzer.version,
+                    List.of(mergedSegment.getPath().getFileName().toString()), manifest.logs(), segmentGeneration,
+                    manifest.watermark());
+            newManifest.write(directory);
+
+            manifest = newManifest;
+            snapshot = snapshot.replace(mappedSegments, mergedSegment);
+        }
+
+        List<String> remaining = newManifest.deleteUnreferenced(directory);
+
+        log.info("Story index compacted " + mappedSegments.size() + " segments into one"
+                + (remaining.isEmpty() ? "" : ", " + remaining.size() + " old files will be deleted later"));
+
+    }
+
+
+
+    /**
+     * Stop persisting the index and discard its manifest, so that it is rebuilt on the next start
+     */
+    private void stopPersisting() {
+
+        synchronized (updateLock) {
+
+            close();
+            manifest = null;
+
+            try {
+                IndexManifest.delete(directory);
+            }
+            catch (IOException failure) {
+                log.error("Story index manifest could not be deleted: " + failure.getMessage());
+            }
+        }
+
+    }
+
+
+
+    private MappedSegment writeSegment(List<? extends IndexSegment> sources, long generation) throws IOException {
+
+        Path path = directory.resolve("segment-" + generation + ".idx");
+        SegmentWriter.write(path, sources, TextAnalyzer.version);
+
+        return MappedSegment.open(path, TextAnalyzer.version);
+
+    }
+
+
+
+    /**
+     * Read the content of the provided Stories, by one query instead of one per Story
+     */
+    private Map<Long, String> contents(List<Story> stories) {
+
+        Map<Long, String> contents = new HashMap<>();
+
+        if (stories.isEmpty()) { return contents; }
+
+        for (Object[] row : storyRepository.findContentsByIdIn(stories.stream().map(Story::getId).toList())) {
+            contents.put((Long) row[0], (String) row[1]);
+        }
+
+        return contents;
+
+    }
+
+
+
+    private String logFileName(long generation) {
+        return "wal-" + generation + ".log";
+    }
+
+
+
+    private Map<SearchField, String> indexedText(String name, String content) {
+
+        Map<SearchField, String> text = new EnumMap<>(SearchField.class);
+        text.put(SearchField.NAME, name);
+        text.put(SearchField.CONTENT, content);
+
+        return text;
+
+    }
+
+
+}
@@ -0,0 +1,26 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Visibility rule of a User over Stories. <br>
+ *
+ * A Story is visible if its state is one of the allowed states,
+ * or if it belongs to the User ( Journalists only )
+ *
+ * @param states Allowed Story states
+ * @param author Username whose own Stories are always visible, null for Visitors and Curators
+ */
+public record StoryVisibility(Set<StoryState> states, String author) implements Predicate<IndexedStory> {
+
+
+    @Override
+    public boolean test(IndexedStory story) {
+        return states.contains(story.state()) || (author != null && author.equals(story.author()));
+    }
+
+
+}
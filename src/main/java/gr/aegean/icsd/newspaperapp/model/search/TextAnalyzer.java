@@ -0,0 +1,207 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into the terms that are stored in, and looked up from, the search indexes. <br>
+ *
+ * The same analysis is applied when indexing and when querying,
+ * so that both sides agree on what a term is. <br>
+ *
+ * Terms are lowercase and stripped of diacritics, so that tonos and diaeresis do not affect matching,
+ * final sigma is folded into sigma, and Greek words are reduced to their stem by removing common
+ * inflectional endings.
+ */
+public final class TextAnalyzer {
+
+    /**
+     * Version of the analysis, must change whenever the terms produced for the same text change,
+     * so that indexes built by an older version are rebuilt
+     */
+    public static final int version = 2;
+
+    /** Words longer than this are not indexed */
+    private static final int maximumTermLength = 255;
+
+    /** Endings are only removed if at least this many characters remain */
+    private static final int minimumStemLength = 3;
+
+    /** Inflectional endings of Greek nouns, adjectives and verbs, longest first */
+    private static final List<String> greekEndings = List.of(
+            "ουμε", "ουσα", "ουν", "ουσ", "εισ", "εων", "ετε",
+            "ων", "οσ", "ου", "οι", "ασ", "εσ", "ησ", "ισ", "υσ", "ον", "ην", "αν", "ει",
+            "α", "ε", "η", "ι", "ο", "υ", "ω");
+
+    private static final Pattern combiningMarks = Pattern.compile("\\p{M}+");
+
+
+    /**
+     * A single term extracted from a text, along with the
+     * character offsets of the original word inside that text
+     *
+     * @param term Normalized term
+     * @param start Offset of the first character of the word
+     * @param end Offset right after the last character of the word
+     */
+    public record Token(String term, int start, int end) {}
+
+
+    private TextAnalyzer() {}
+
+
+    /**
+     * Split the provided text into Tokens. <br>
+     *
+     * Words are maximal runs of letters, digits and combining marks, everything else is treated as a separator.
+     * Words longer than {@link #maximumTermLength} are skipped
+     *
+     * @param text Provided text, may be null
+     *
+     * @return Tokens of the text, in the order they appear
+     */
+    public static List<Token> tokenize(String text) {
+
+        List<Token> tokens = new ArrayList<>();
+
+        if (text == null) { return tokens; }
+
+        int position = 0;
+        int length = text.length();
+
+        while (position < length) {
+
+            while (position < length && !isWordCharacter(text.codePointAt(position))) {
+                position += Character.charCount(text.codePointAt(position));
+            }
+
+            int start = position;
+
+            while (position < length && isWordCharacter(text.codePointAt(position))) {
+                position += Character.charCount(text.codePointAt(position));
+            }
+
+            if (position > start && position - start <= maximumTermLength) {
+                tokens.add(new Token(normalize(text.substring(start, position)), start, position));
+            }
+
+        }
+
+        return tokens;
+
+    }
+
+
+    /**
+     * Extract the distinct terms of a search query
+     *
+     * @param query Provided query, may be null
+     *
+     * @return Distinct terms of the query, in the order they appear
+     */
+    public static List<String> terms(String query) {
+
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+
+        for (Token token : tokenize(query)) {
+            terms.add(token.term());
+        }
+
+        return new ArrayList<>(terms);
+
+    }
+
+
+    /**
+     * Normalize a text into the form stored in the normalized search columns of the database. <br>
+     *
+     * Every word is replaced by its term, and words are separated by a single space,
+     * so that a normalized query is found inside a normalized text with a plain LIKE
+     *
+     * @param text Provided text, may be null
+     *
+     * @return The normalized text, empty if the text is null
+     */
+    public static String normalizeText(String text) {
+
+        List<String> terms = new ArrayList<>();
+
+        for (Token token : tokenize(text)) {
+            terms.add(token.term());
+        }
+
+        return String.join(" ", terms);
+
+    }
+
+
+    /**
+     * Normalize a single word into an index term
+     *
+     * @param word Provided word
+     *
+     * @return The term the word is stored under
+     */
+    public static String normalize(String word) {
+
+        String term = fold(word);
+
+        return isGreek(term) ? stem(term) : term;
+
+    }
+
+
+    /**
+     * Fold a single word to lowercase without accents, keeping its ending. <br>
+     *
+     * Used where a partially typed word must still be a prefix of the full word,
+     * which stemming does not guarantee
+     *
+     * @param word Provided word
+     *
+     * @return The folded word
+     */
+    public static String fold(String word) {
+
+        String decomposed = Normalizer.normalize(word, Normalizer.Form.NFKD);
+
+        return combiningMarks.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace('ς', 'σ');
+
+    }
+
+
+    /**
+     * Remove the longest known Greek ending of a term, unless too short a stem would remain
+     */
+    private static String stem(String term) {
+
+        for (String ending : greekEndings) {
+            if (term.endsWith(ending) && term.length() - ending.length() >= minimumStemLength) {
+                return term.substring(0, term.length() - ending.length());
+            }
+        }
+
+        return term;
+
+    }
+
+
+    private static boolean isGreek(String term) {
+        return term.codePoints().anyMatch(character -> Character.UnicodeScript.of(character) == Character.UnicodeScript.GREEK);
+    }
+
+
+    private static boolean isWordCharacter(int character) {
+        return Character.isLetterOrDigit(character)
+                || Character.getType(character) == Character.NON_SPACING_MARK
+                || Character.getType(character) == Character.COMBINING_SPACING_MARK;
+    }
+
+
+}
@@ -0,0 +1,304 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process search index of the Topic entity <br>
+ *
+ * Answers searches over the names of Topics with a list of matching Topic IDs. Topics are few and
+ * their names short, so the index is kept in memory only and is built from the database once the
+ * application has started. It is kept up to date by {@link #update(Topic)} and {@link #remove(long)},
+ * and by {@link #refresh()} with the Topics created or changed by other instances of the application.
+ * Until it is built, {@link #isReady()} returns false and callers should query the database instead. <br>
+ *
+ * The names of approved Topics are also kept in a {@link PrefixIndex}, to suggest Topics while a name is being typed.
+ */
+@Component
+public class TopicIndex {
+
+    private final TopicRepository topicRepository;
+
+    private static final Logger log = LoggerFactory.getLogger("TopicIndex");
+
+    /** Number of Topics loaded per query while building the index */
+    private static final int rebuildBatchSize = 500;
+
+    /** Minimum similarity of a Topic's name to a query, for the Topic to be a similar match */
+    private static final double minimumSimilarity = 0.5;
+
+    private volatile TrigramIndex nameTrigrams = new TrigramIndex();
+
+    private volatile Map<Long, IndexedTopic> topics = new ConcurrentHashMap<>();
+
+    private volatile PrefixIndex approvedNames = new PrefixIndex();
+
+    private final IndexUpdates updates = new IndexUpdates();
+
+    private final ChangeStamps stamps;
+
+    // Results of recent searches, invalidated whenever a Topic changes
+    private final SearchResultCache resultCache;
+
+
+    public TopicIndex(TopicRepository topicRepository,
+                      @Value("${search.cache.max-entries}") int cacheEntries,
+                      @Value("${search.cache.time-to-live}") long cacheTimeToLive,
+                      @Value("${search.index.refresh-overlap}") long refreshOverlap) {
+
+        this.topicRepository = topicRepository;
+        this.resultCache = new SearchResultCache(cacheEntries, cacheTimeToLive);
+        this.stamps = new ChangeStamps(refreshOverlap);
+
+    }
+
+
+
+    /**
+     * Build the index from the Topics currently persisted in the database. <br>
+     *
+     * Runs once the application is ready, and then periodically to correct any drift from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval}",
+            fixedDelayString = "${search.index.rebuild-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+
+        updates.suspend();
+
+        // Changes stamped after this are polled by the next refresh
+        Date built = topicRepository.findLastModified();
+
+        TrigramIndex newNameTrigrams = new TrigramIndex();
+        Map<Long, IndexedTopic> newTopics = new ConcurrentHashMap<>();
+        Map<Long, String> newApprovedNames = new HashMap<>();
+
+        Pageable batch = PageRequest.of(0, rebuildBatchSize, Sort.by("id"));
+        Page<Topic> topicBatch;
+
+        do {
+            topicBatch = topicRepository.findAll(batch);
+
+            for (Topic topic : topicBatch) {
+                newNameTrigrams.put(topic.getId(), TextAnalyzer.terms(topic.getName()));
+                newTopics.put(topic.getId(), IndexedTopic.of(topic));
+
+                if (topic.getState() == TopicState.APPROVED) {
+                    newApprovedNames.put(topic.getId(), topic.getName());
+                }
+            }
+
+            batch = batch.next();
+        }
+        while (topicBatch.hasNext());
+
+        PrefixIndex newApprovedNamesIndex = PrefixIndex.of(newApprovedNames);
+
+        updates.resume(() -> {
+            nameTrigrams = newNameTrigrams;
+            topics = newTopics;
+            approvedNames = newApprovedNamesIndex;
+            resultCache.invalidate();
+
+            stamps.reset(built);
+        });
+
+        log.info("Topic index built, " + newTopics.size() + " Topics indexed");
+
+    }
+
+
+
+    /**
+     * Check whether the index has been built and can answer searches
+     *
+     * @return True if the index can be used
+     */
+    public boolean isReady() {
+        return updates.isReady();
+    }
+
+
+
+    /**
+     * Index the current version of a Topic. <br>
+     *
+     * When called inside a transaction, the index is only updated
+     * after the transaction commits
+     *
+     * @param topic Provided Topic, must have been persisted
+     */
+    public void update(Topic topic) {
+
+        IndexedTopic indexedTopic = IndexedTopic.of(topic);
+        List<String> terms = TextAnalyzer.terms(topic.getName());
+        String name = topic.getName();
+        Date stamp = topic.getLastModified();
+
+        updates.afterCommit(() -> stamps.apply(indexedTopic.id(), stamp, false, () -> put(indexedTopic, terms, name)));
+
+    }
+
+
+
+    /**
+     * Index the Topics modified since the last refresh, along with the changes
+     * committed by other instances of the application. <br>
+     *
+     * Runs periodically once the index has been built. Topics deleted by other instances
+     * are only removed by the next rebuild
+     */
+    @Scheduled(initialDelayString = "${search.index.refresh-interval}",
+            fixedDelayString = "${search.index.refresh-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+
+        if (!isReady()) { return; }
+
+        Pageable batch = PageRequest.of(0, rebuildBatchSize);
+
+        stamps.poll((stamp, id) -> topicRepository.findModifiedAfter(stamp, id, batch),
+                Topic::getLastModified, Topic::getId,
+                topics -> topics.forEach(topic -> {
+
+                    IndexedTopic indexedTopic = IndexedTopic.of(topic);
+                    List<String> terms = TextAnalyzer.terms(topic.getName());
+
+                    stamps.apply(topic.getId(), topic.getLastModified(), true,
+                            () -> put(indexedTopic, terms, topic.getName()));
+                }));
+
+    }
+
+
+
+    private void put(IndexedTopic indexedTopic, List<String> terms, String name) {
+
+        nameTrigrams.put(indexedTopic.id(), terms);
+        topics.put(indexedTopic.id(), indexedTopic);
+
+        if (indexedTopic.state() == TopicState.APPROVED) {
+            approvedNames.put(indexedTopic.id(), name);
+        }
+        else {
+            approvedNames.remove(indexedTopic.id());
+        }
+
+        resultCache.invalidate();
+
+    }
+
+
+
+    /**
+     * Remove a deleted Topic from the index. <br>
+     *
+     * When called inside a transaction, the index is only updated
+     * after the transaction commits
+     *
+     * @param id ID of the Topic
+     */
+    public void remove(long id) {
+
+        updates.afterCommit(() -> {
+            nameTrigrams.remove(id);
+            topics.remove(id);
+            approvedNames.remove(id);
+            resultCache.invalidate();
+        });
+
+    }
+
+
+
+    /**
+     * Search Topics whose name is similar to the provided query, tolerating misspellings. <br>
+     *
+     * Candidates are the Topics sharing trigrams with the query, ranked by similarity
+     * and then by most recent Topic first. Results are cached per query and visibility rule
+     *
+     * @param name Query for the Topic's name
+     * @param visibility Visibility rule of the current User
+     *
+     * @return IDs of the visible similar Topics, in ranking order
+     */
+    public List<Long> searchSimilar(String name, TopicVisibility visibility) {
+
+        List<String> terms = TextAnalyzer.terms(name);
+
+        return resultCache.get(new SearchResultCache.Key("similar-name", String.join(" ", terms), visibility), () -> {
+
+            Map<Long, IndexedTopic> currentTopics = topics;
+
+            return nameTrigrams.search(terms, minimumSimilarity).stream()
+                    .map(TrigramIndex.Match::id)
+                    .filter(id -> currentTopics.containsKey(id) && visibility.test(currentTopics.get(id)))
+                    .toList();
+        });
+
+    }
+
+
+
+    /**
+     * Search Topics whose normalized name contains the normalized query, as the database search does. <br>
+     *
+     * Topics are few, so every Topic is checked. Results are cached per query and visibility rule
+     *
+     * @param name Query for the Topic's name
+     * @param visibility Visibility rule of the current User
+     *
+     * @return IDs of the visible matching Topics, most recent Topic first
+     */
+    public List<Long> searchName(String name, TopicVisibility visibility) {
+
+        String normalizedName = TextAnalyzer.normalizeText(name);
+
+        if (normalizedName.isEmpty()) { return List.of(); }
+
+        return resultCache.get(new SearchResultCache.Key("name", normalizedName, visibility), () ->
+                topics.values().stream()
+                        .filter(topic -> topic.normalizedName().contains(normalizedName) && visibility.test(topic))
+                        .map(IndexedTopic::id)
+                        .sorted(Comparator.reverseOrder())
+                        .toList());
+
+    }
+
+
+
+    /**
+     * Suggest approved Topics whose name, or a later word of it, starts with a partially typed name
+     *
+     * @param prefix The name typed so far
+     * @param limit Maximum number of suggestions
+     *
+     * @return Suggested Topics, in alphabetical order of the matching part of their name
+     */
+    public List<PrefixIndex.Suggestion> suggest(String prefix, int limit) {
+        return approvedNames.complete(prefix, limit);
+    }
+
+
+}
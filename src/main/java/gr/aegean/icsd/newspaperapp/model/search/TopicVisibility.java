@@ -0,0 +1,26 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Visibility rule of a User over Topics. <br>
+ *
+ * A Topic is visible if its state is one of the allowed states,
+ * or if it belongs to the User ( Journalists only )
+ *
+ * @param states Allowed Topic states
+ * @param author Username whose own Topics are always visible, null for Visitors and Curators
+ */
+public record TopicVisibility(Set<TopicState> states, String author) implements Predicate<IndexedTopic> {
+
+
+    @Override
+    public boolean test(IndexedTopic topic) {
+        return states.contains(topic.state()) || (author != null && author.equals(topic.author()));
+    }
+
+
+}
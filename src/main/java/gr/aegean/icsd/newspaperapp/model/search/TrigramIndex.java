@@ -0,0 +1,190 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the character trigrams of short texts, such as names, used to find
+ * the texts that are similar to a possibly misspelled query. <br>
+ *
+ * Every term is padded with two spaces in front and one at the end, so that the start and the end of a term
+ * weigh more than its middle, and is split into every sequence of three characters. Only the texts that share
+ * at least one trigram with the query are considered, instead of comparing the query with every text. <br>
+ *
+ * Safe for concurrent use, lookups only contend with writers.
+ */
+public class TrigramIndex {
+
+
+    /**
+     * A text similar to a query
+     *
+     * @param id ID of the text's owner
+     * @param similarity Fraction of the query's trigrams that the text contains
+     * @param overlap Shared trigrams divided by the trigrams of either the query or the text,
+     *                separates the closest texts among those containing the whole query
+     */
+    public record Match(long id, double similarity, double overlap) {}
+
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    private final Map<Long, Set<String>> trigramsByID = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+
+    /**
+     * Index the terms of a text, replacing any previously indexed terms of the same owner
+     *
+     * @param id ID of the text's owner
+     * @param terms Normalized terms of the text
+     */
+    public void put(long id, Collection<String> terms) {
+
+        Set<String> trigrams = trigrams(terms);
+
+        lock.writeLock().lock();
+
+        try {
+
+            removeTrigrams(id);
+
+            for (String trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+            }
+
+            trigramsByID.put(id, trigrams);
+
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Remove the text of an owner from the index. <br>
+     * Owners that are not indexed are safely ignored
+     *
+     * @param id ID of the text's owner
+     */
+    public void remove(long id) {
+
+        lock.writeLock().lock();
+
+        try {
+            removeTrigrams(id);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+
+
+    /**
+     * Find the texts that are similar to a query
+     *
+     * @param terms Normalized terms of the query
+     * @param minimumSimilarity Minimum similarity of a match, between 0 and 1
+     *
+     * @return Similar texts, most similar first, and then by highest ID first
+     */
+    public List<Match> search(Collection<String> terms, double minimumSimilarity) {
+
+        Set<String> queryTrigrams = trigrams(terms);
+
+        if (queryTrigrams.isEmpty()) { return List.of(); }
+
+        Map<Long, Integer> sharedTrigrams = new HashMap<>();
+        List<Match> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+
+        try {
+
+            for (String trigram : queryTrigrams) {
+                for (long id : postings.getOrDefault(trigram, Set.of())) {
+                    sharedTrigrams.merge(id, 1, Integer::sum);
+                }
+            }
+
+            for (Map.Entry<Long, Integer> candidate : sharedTrigrams.entrySet()) {
+
+                int shared = candidate.getValue();
+                double similarity = (double) shared / queryTrigrams.size();
+
+                if (similarity < minimumSimilarity) { continue; }
+
+                int textTrigrams = trigramsByID.get(candidate.getKey()).size();
+                double overlap = (double) shared / (queryTrigrams.size() + textTrigrams - shared);
+
+                matches.add(new Match(candidate.getKey(), similarity, overlap));
+            }
+
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::similarity)
+                .thenComparingDouble(Match::overlap)
+                .thenComparingLong(Match::id)
+                .reversed());
+
+        return matches;
+
+    }
+
+
+
+    /**
+     * Split terms into their distinct trigrams
+     *
+     * @param terms Normalized terms
+     *
+     * @return Trigrams of the terms
+     */
+    static Set<String> trigrams(Collection<String> terms) {
+
+        Set<String> trigrams = new HashSet<>();
+
+        for (String term : terms) {
+
+            String padded = "  " + term + " ";
+
+            for (int start = 0; start + 3 <= padded.length(); start++) {
+                trigrams.add(padded.substring(start, start + 3));
+            }
+        }
+
+        return trigrams;
+
+    }
+
+
+
+    private void removeTrigrams(long id) {
+
+        Set<String> trigrams = trigramsByID.remove(id);
+
+        if (trigrams == null) { return; }
+
+        for (String trigram : trigrams) {
+
+            Set<Long> ids = postings.get(trigram);
+            ids.remove(id);
+
+            if (ids.isEmpty()) { postings.remove(trigram); }
+        }
+
+    }
+
+
+}
@@ -0,0 +1,243 @@
+package gr.aegean.icsd.newspaperapp.model.search;
+
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the Story updates that have not yet been written to a {@link MappedSegment}. <br>
+ *
+ * Every record is [int length] [payload] [long CRC32 of the payload]. Records are written while updates are
+ * applied and synced to disk right after, so an update can become visible before it is durable. Updates lost
+ * by a crash in between are indexed again from the watermark of the {@link IndexManifest}, and a torn record
+ * at the end of the log is discarded when the log is reopened. <br>
+ *
+ * A record without text holds an attribute update, such as a state transition, and is much smaller.
+ */
+public final class WriteAheadLog implements Closeable {
+
+
+    /**
+     * A single Story update
+     *
+     * @param story Attributes of the Story
+     * @param text Text of every indexed field of the Story, null if only the attributes of the Story changed
+     */
+    public record Entry(IndexedStory story, Map<SearchField, String> text) {}
+
+
+    private final FileChannel channel;
+
+
+    private WriteAheadLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+
+
+    /**
+     * Open a log for appending, creating it if it does not exist. <br>
+     * Any torn record at the end of the log is truncated
+     *
+     * @param path Path of the log file
+     * @param validLength Length of the log's valid records, as returned by {@link #read(Path, List)}
+     *
+     * @return The opened log
+     */
+    public static WriteAheadLog open(Path path, long validLength) throws IOException {
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        return new WriteAheadLog(channel);
+
+    }
+
+
+
+    /**
+     * Read every valid record of a log
+     *
+     * @param path Path of the log file
+     * @param entries Receives the entries of the log, in the order they were appended
+     *
+     * @return Length of the valid part of the log
+     */
+    public static long read(Path path, List<Entry> entries) throws IOException {
+
+        long validLength = 0;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile())))) {
+
+            while (true) {
+
+                byte[] payload;
+                long checksum;
+
+                try {
+                    int length = input.readInt();
+                    if (length < 0) { break; }
+                    payload = input.readNBytes(length);
+                    if (payload.length < length) { break; }
+                    checksum = input.readLong();
+                }
+                catch (EOFException endOfLog) {
+                    break;
+                }
+
+                CRC32 expected = new CRC32();
+                expected.update(payload);
+
+                if (expected.getValue() != checksum) { break; }
+
+                entries.add(decode(payload));
+                validLength += Integer.BYTES + payload.length + Long.BYTES;
+            }
+
+        }
+
+        return validLength;
+
+    }
+
+
+
+    /**
+     * Append an update to the log and sync it to disk
+     *
+     * @param entry Provided update
+     */
+    public void append(Entry entry) throws IOException {
+
+        write(entry);
+        sync();
+
+    }
+
+
+
+    /**
+     * Append an update to the log, without waiting for it to reach the disk
+     *
+     * @param entry Provided update
+     *
+     * @see #sync()
+     */
+    public synchronized void write(Entry entry) throws IOException {
+
+        byte[] payload = encode(entry);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + payload.length + Long.BYTES);
+        record.putInt(payload.length).put(payload).putLong(checksum.getValue()).flip();
+
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+
+    }
+
+
+
+    /**
+     * Sync every update written so far to disk. <br>
+     *
+     * Does not hold the log, so that updates are written while an earlier one is being synced
+     *
+     * @throws java.nio.channels.ClosedChannelException If the log has been closed in the meantime
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+
+
+    private static byte[] encode(Entry entry) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeLong(entry.story().id());
+        output.writeByte(entry.story().state().ordinal());
+        writeString(output, entry.story().author());
+
+        if (entry.text() == null) {
+            output.writeByte(-1);
+            return bytes.toByteArray();
+        }
+
+        output.writeByte(entry.text().size());
+
+        for (Map.Entry<SearchField, String> field : entry.text().entrySet()) {
+            output.writeByte(field.getKey().ordinal());
+            writeString(output, field.getValue());
+        }
+
+        return bytes.toByteArray();
+
+    }
+
+
+
+    private static Entry decode(byte[] payload) throws IOException {
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+
+        long id = input.readLong();
+        StoryState state = StoryState.values()[input.readByte()];
+        String author = readString(input);
+
+        int fields = input.readByte();
+
+        if (fields < 0) { return new Entry(new IndexedStory(id, state, author), null); }
+
+        Map<SearchField, String> text = new EnumMap<>(SearchField.class);
+
+        for (int i = 0; i < fields; i++) {
+            SearchField field = SearchField.values()[input.readByte()];
+            text.put(field, readString(input));
+        }
+
+        return new Entry(new IndexedStory(id, state, author), text);
+
+    }
+
+
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+
+    }
+
+
+
+    private static String readString(DataInputStream input) throws IOException {
+        return new String(input.readNBytes(input.readInt()), StandardCharsets.UTF_8);
+    }
+
+
+}
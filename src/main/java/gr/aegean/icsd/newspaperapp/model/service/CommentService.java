@@ -3,8 +3,15 @@ package gr.aegean.icsd.newspaperapp.model.service;
 import gr.aegean.icsd.newspaperapp.model.entity.Comment;
 import gr.aegean.icsd.newspaperapp.model.entity.Story;
 import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentCursor;
 import gr.aegean.icsd.newspaperapp.model.repository.CommentRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentSpecifications;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentView;
+import gr.aegean.icsd.newspaperapp.model.repository.CommentWindow;
+import gr.aegean.icsd.newspaperapp.model.repository.JournalistPages;
 import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.model.search.ListingTotals;
+import gr.aegean.icsd.newspaperapp.model.search.SearchAdmission;
 import gr.aegean.icsd.newspaperapp.security.UserUtils;
 import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
@@ -12,17 +19,21 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Class servicing controller requests about
@@ -35,6 +46,8 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final StoryRepository storyRepository;
+    private final ListingTotals listingTotals;
+    private final SearchAdmission searchAdmission;
 
     // Allowed Comment states per User, a User cannot access a
     // Comment whose state is not in this List.
@@ -43,10 +56,18 @@ public class CommentService {
     private final Set <CommentState> allowedJournalistStates;
     private final Set <CommentState> allowedVisitorStates;
 
+    // Order of the Journalist pages merged by JournalistPages, most recent Comment first
+    private static final Sort newestFirst = CommentCursor.newestFirst;
+    private static final Comparator<CommentView> newestCommentFirst =
+            Comparator.comparing(CommentView::creationDate).thenComparing(CommentView::id).reversed();
 
-    public CommentService(CommentRepository commentRepository, StoryRepository storyRepository) {
+
+    public CommentService(CommentRepository commentRepository, StoryRepository storyRepository,
+                          ListingTotals listingTotals, SearchAdmission searchAdmission) {
         this.commentRepository = commentRepository;
         this.storyRepository = storyRepository;
+        this.listingTotals = listingTotals;
+        this.searchAdmission = searchAdmission;
 
         allowedCuratorStates = new HashSet<>();
         allowedCuratorStates.add(CommentState.SUBMITTED);
@@ -87,6 +108,8 @@ public class CommentService {
         }
 
         commentRepository.save(newComment);
+        listingTotals.commentChanged(parentStory.get().getId(), null, newComment.getState(),
+                newComment.getAuthor().map(User::getUsername).orElse(null));
         return newComment;
 
     }
@@ -128,9 +151,12 @@ public class CommentService {
         if (requestedComment.isEmpty()) {throw new RuntimeException("Comment was not found");}
 
         Comment savedComment = requestedComment.get();
+        CommentState previousState = savedComment.getState();
         savedComment.setState(CommentState.APPROVED);
 
         commentRepository.save(savedComment);
+        listingTotals.commentChanged(savedComment.getStory().getId(), previousState, CommentState.APPROVED,
+                savedComment.getAuthor().map(User::getUsername).orElse(null));
     }
 
 
@@ -144,8 +170,13 @@ public class CommentService {
     @PreAuthorize("hasRole('ROLE_CURATOR')")
     public void rejectComment(@Positive long id) {
 
-        if (commentRepository.existsById(id)) {
+        Optional<Comment> requestedComment = commentRepository.findById(id);
+
+        if (requestedComment.isPresent()) {
+            Comment savedComment = requestedComment.get();
             commentRepository.deleteById(id);
+            listingTotals.commentChanged(savedComment.getStory().getId(), savedComment.getState(), null,
+                    savedComment.getAuthor().map(User::getUsername).orElse(null));
         }
         else {
             throw new RuntimeException("Requested comment was not found");
@@ -156,7 +187,10 @@ public class CommentService {
 
 
     /**
-     * Show all Comments associated with a Story
+     * Show all Comments associated with a Story. <br>
+     *
+     * Once the {@link ListingTotals} are ready, the page is read without counting, and its total is summed
+     * from the counters instead
      *
      * @param storyId  ID of the requested Story
      * @param pageable Details of the requested Page
@@ -164,21 +198,207 @@ public class CommentService {
      * @return A list of all Comments associated with that Story
      */
     @Transactional(readOnly = true)
-    public Page<Comment> showCommentsByStory(@Positive long storyId, @NotNull Pageable pageable) {
+    public Page<CommentView> showCommentsByStory(@Positive long storyId, @NotNull Pageable pageable) {
+
+        if (listingTotals.isReady()) {
+            Slice<CommentView> comments = sliceCommentsByStory(storyId, pageable);
+            return new PageImpl<>(comments.getContent(), pageable, countVisibleComments(storyId));
+        }
 
         if (UserUtils.isVisitor()) {
             return commentRepository.findByStoryID(storyId, allowedVisitorStates, pageable);
         }
         else if (UserUtils.isJournalist()) {
             String username = UserUtils.getUsername();
-            return commentRepository.findByStoryIDForJournalist(storyId, allowedJournalistStates, username, pageable);
+            return JournalistPages.merge(
+                    page -> commentRepository.findByStoryID(storyId, allowedJournalistStates, page),
+                    page -> commentRepository.findOwnByStoryID(storyId, allowedJournalistStates, username, page),
+                    newestFirst, newestCommentFirst, pageable);
         }
         else if (UserUtils.isCurator()) {
             return commentRepository.findByStoryID(storyId, allowedCuratorStates, pageable);
         }
 
-        throw new AccessDeniedException("User with role: " + UserUtils.getUsername()
-                + " is not supported by this operation");
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+
+    }
+
+
+
+    /**
+     * Show the Comments associated with a Story, without counting them. <br>
+     *
+     * The Slice only knows whether more Comments follow it, one more Comment than requested is read to find out
+     *
+     * @param storyId  ID of the requested Story
+     * @param pageable Details of the requested Slice
+     *
+     * @return A slice of the Comments associated with that Story
+     */
+    @Transactional(readOnly = true)
+    public Slice<CommentView> sliceCommentsByStory(@Positive long storyId, @NotNull Pageable pageable) {
+
+        if (UserUtils.isVisitor()) {
+            return commentRepository.findSliceByStoryID(storyId, allowedVisitorStates, pageable);
+        }
+        else if (UserUtils.isJournalist()) {
+            String username = UserUtils.getUsername();
+            return JournalistPages.mergeSlice(
+                    page -> commentRepository.findSliceByStoryID(storyId, allowedJournalistStates, page),
+                    page -> commentRepository.findOwnSliceByStoryID(storyId, allowedJournalistStates, username, page),
+                    newestFirst, newestCommentFirst, pageable);
+        }
+        else if (UserUtils.isCurator()) {
+            return commentRepository.findSliceByStoryID(storyId, allowedCuratorStates, pageable);
+        }
+
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+
+    }
+
+
+
+    /**
+     * Page through the Comments associated with a Story with a cursor, most recent first. <br>
+     *
+     * Each page seeks past the cursor through the (story, creation date, ID) index, so that every page
+     * costs the same as the first. Journalists' pages are read as two branches and merged
+     *
+     * @param storyId ID of the requested Story
+     * @param cursor Cursor received with the previous page, empty or null for the first page
+     * @param size Maximum number of Comments in the page
+     *
+     * @return Window of the Story's Comments, with the cursors of the adjacent windows
+     *
+     * @throws ResponseStatusException With 400 Bad Request if the cursor is damaged
+     */
+    @Transactional(readOnly = true)
+    public CommentWindow scrollCommentsByStory(@Positive long storyId, String cursor, @Positive int size) {
+
+        List<Specification<Comment>> branches;
+
+        if (UserUtils.isVisitor()) {
+            branches = List.of(CommentSpecifications.ofStory(storyId, allowedVisitorStates));
+        }
+        else if (UserUtils.isJournalist()) {
+            branches = List.of(CommentSpecifications.ofStory(storyId, allowedJournalistStates),
+                    CommentSpecifications.ownOfStory(storyId, allowedJournalistStates, UserUtils.getUsername()));
+        }
+        else if (UserUtils.isCurator()) {
+            branches = List.of(CommentSpecifications.ofStory(storyId, allowedCuratorStates));
+        }
+        else {
+            String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+            throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+        }
+
+        CommentCursor position;
+
+        try { position = CommentCursor.decode(cursor); }
+        catch (IllegalArgumentException invalidCursor) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, invalidCursor.getMessage(), invalidCursor);
+        }
+
+        boolean backward = position != null && position.backward();
+
+        Sort sort = backward ? newestFirst.reverse() : newestFirst;
+        Comparator<Comment> comparator = backward
+                ? CommentCursor.newestCommentFirst.reversed()
+                : CommentCursor.newestCommentFirst;
+
+        // One more Comment than requested, to know whether the list goes on
+        List<Comment> comments = new ArrayList<>();
+
+        for (Specification<Comment> branch : branches) {
+
+            Specification<Comment> seek = position == null ? branch : branch.and(CommentSpecifications.beyond(position));
+
+            comments.addAll(commentRepository.findBy(seek, query -> query.sortBy(sort).limit(size + 1).all()));
+        }
+
+        comments.sort(comparator);
+
+        boolean more = comments.size() > size;
+        List<Comment> window = new ArrayList<>(comments.subList(0, Math.min(size, comments.size())));
+
+        if (backward) { Collections.reverse(window); }
+
+        if (window.isEmpty()) { return new CommentWindow(List.of(), null, null); }
+
+        CommentCursor next = !backward && !more ? null : CommentCursor.after(window.get(window.size() - 1));
+        CommentCursor previous = position == null || (backward && !more)
+                ? null
+                : CommentCursor.before(window.get(0));
+
+        return new CommentWindow(window.stream().map(CommentView::of).toList(), next, previous);
+
+    }
+
+
+
+    /**
+     * Show all Comments whose content contains the provided text, ignoring case. <br>
+     *
+     * The content is searched by the database, the search is admitted by the {@link SearchAdmission}
+     *
+     * @param content  Provided text
+     * @param pageable Details of the requested Page
+     *
+     * @return A list of all Comments containing the text
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<CommentView> searchCommentsByContent(@NotBlank String content, @NotNull Pageable pageable) {
+
+        return searchAdmission.admit(SearchAdmission.estimateCost(1, pageable.getOffset(), content), () -> {
+
+            if (UserUtils.isVisitor()) {
+                return commentRepository.findByContentContainingIgnoreCaseAndStateIn
+                        (content, allowedVisitorStates, pageable);
+            }
+            else if (UserUtils.isJournalist()) {
+                String username = UserUtils.getUsername();
+                return JournalistPages.merge(
+                        page -> commentRepository.findByContentContainingIgnoreCaseAndStateIn
+                                (content, allowedJournalistStates, page),
+                        page -> commentRepository.findOwnByContent(content, allowedJournalistStates, username, page),
+                        newestFirst, newestCommentFirst, pageable);
+            }
+            else if (UserUtils.isCurator()) {
+                return commentRepository.findByContentContainingIgnoreCaseAndStateIn
+                        (content, allowedCuratorStates, pageable);
+            }
+
+            String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+            throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+        });
+
+    }
+
+
+
+    /**
+     * Sum the total of the Comments of a Story that are visible to the current User from the {@link ListingTotals}
+     *
+     * @param storyId ID of the Story
+     *
+     * @return Number of visible Comments
+     */
+    private long countVisibleComments(long storyId) {
+
+        if (UserUtils.isVisitor()) {
+            return listingTotals.countComments(storyId, allowedVisitorStates, null);
+        }
+        else if (UserUtils.isJournalist()) {
+            return listingTotals.countComments(storyId, allowedJournalistStates, UserUtils.getUsername());
+        }
+        else if (UserUtils.isCurator()) {
+            return listingTotals.countComments(storyId, allowedCuratorStates, null);
+        }
+
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
 
     }
 
@@ -0,0 +1,185 @@
+package gr.aegean.icsd.newspaperapp.model.service;
+
+import gr.aegean.icsd.newspaperapp.model.repository.CommentView;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicView;
+import gr.aegean.icsd.newspaperapp.model.search.SearchTermStatistics;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Class servicing searches across every
+ * searchable entity at once
+ */
+@Service
+@Validated
+public class SearchService {
+
+    private final StoryService storyService;
+    private final TopicService topicService;
+    private final CommentService commentService;
+
+    private final SearchTermStatistics searchTermStatistics;
+
+    private final ThreadPoolTaskExecutor searchExecutor;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    /** Maximum time in milliseconds a search waits for all of its branches */
+    private final long timeout;
+
+
+    /**
+     * Results of a unified search, one section per entity
+     *
+     * @param stories Stories whose name matches the query, followed by those whose content matches it
+     * @param topics Topics whose name matches the query
+     * @param comments Comments whose content contains the query
+     */
+    public record SearchResults<S, T, C>(List<S> stories, List<T> topics, List<C> comments) {}
+
+
+    public SearchService(StoryService storyService, TopicService topicService, CommentService commentService,
+                         SearchTermStatistics searchTermStatistics,
+                         @Qualifier("searchExecutor") ThreadPoolTaskExecutor searchExecutor,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${search.fan-out.timeout}") long timeout,
+                         @Value("${search.admission.query-timeout}") int queryTimeout) {
+
+        this.storyService = storyService;
+        this.topicService = topicService;
+        this.commentService = commentService;
+        this.searchTermStatistics = searchTermStatistics;
+        this.searchExecutor = searchExecutor;
+        this.timeout = timeout;
+
+        // Branches abandoned by the timeout of the search are not interrupted,
+        // the timeout of their transaction cancels their queries instead
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setTimeout(queryTimeout);
+
+    }
+
+
+
+    /**
+     * Search Stories, Topics and Comments matching the provided query. <br>
+     *
+     * Every entity is searched in parallel through its own service, with the security context of the
+     * current User, so each section only holds what the User may see. Stories are searched by name and
+     * by content separately, and merged with the name matches ranked first. The query is counted
+     * once in the Story search statistics, not once per Story search. <br>
+     *
+     * Each branch reads read-only views of its results, and converts them with the provided function
+     *
+     * @param query Provided query
+     * @param size Maximum number of results per section
+     * @param storyConverter Converts a matching Story
+     * @param topicConverter Converts a matching Topic
+     * @param commentConverter Converts a matching Comment
+     *
+     * @return Results of the search
+     *
+     * @throws ResponseStatusException With 503 Service Unavailable if the search did not complete in time
+     */
+    public <S, T, C> SearchResults<S, T, C> search(@NotBlank String query, @Positive int size,
+                                                   @NotNull Function<StoryView, S> storyConverter,
+                                                   @NotNull Function<TopicView, T> topicConverter,
+                                                   @NotNull Function<CommentView, C> commentConverter) {
+
+        Pageable pageable = PageRequest.of(0, size);
+
+        searchTermStatistics.recordStorySearch(query);
+
+        CompletableFuture<Map<Long, S>> storiesByName = fork(() ->
+                convertStories(storyService.searchStoriesByName(query, pageable), storyConverter));
+
+        CompletableFuture<Map<Long, S>> storiesByContent = fork(() ->
+                convertStories(storyService.searchStoriesByContent(query, pageable), storyConverter));
+
+        CompletableFuture<List<T>> topics = fork(() ->
+                topicService.searchTopicByName(query, pageable).map(topicConverter).getContent());
+
+        CompletableFuture<List<C>> comments = fork(() ->
+                commentService.searchCommentsByContent(query, pageable).map(commentConverter).getContent());
+
+        List<CompletableFuture<?>> branches = List.of(storiesByName, storiesByContent, topics, comments);
+
+        try {
+
+            CompletableFuture.allOf(branches.toArray(CompletableFuture[]::new))
+                    .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                    .join();
+
+        }
+        catch (CompletionException exception) {
+
+            // The branches still running are not cancelled, cancelling a CompletableFuture does not
+            // interrupt its thread. The timeout of their transaction stops their queries instead
+            if (exception.getCause() instanceof TimeoutException) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "The search took too long, narrow the search or try again later", exception.getCause());
+            }
+
+            if (exception.getCause() instanceof RuntimeException cause) { throw cause; }
+
+            throw exception;
+        }
+
+        // Rank Stories matching by name before those matching only by content
+        Map<Long, S> stories = new LinkedHashMap<>(storiesByName.join());
+        storiesByContent.join().forEach(stories::putIfAbsent);
+
+        return new SearchResults<>(stories.values().stream().limit(size).toList(), topics.join(), comments.join());
+
+    }
+
+
+
+    /**
+     * Run a branch of a search on the search executor, inside a read-only transaction
+     */
+    private <R> CompletableFuture<R> fork(Supplier<R> branch) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> branch.get()), searchExecutor);
+    }
+
+
+
+    private <S> Map<Long, S> convertStories(Page<StoryView> storyPage, Function<StoryView, S> storyConverter) {
+
+        Map<Long, S> stories = new LinkedHashMap<>();
+
+        for (StoryView story : storyPage) {
+            stories.put(story.id(), storyConverter.apply(story));
+        }
+
+        return stories;
+
+    }
+
+
+}
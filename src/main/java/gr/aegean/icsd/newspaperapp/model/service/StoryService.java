@@ -3,24 +3,42 @@ package gr.aegean.icsd.newspaperapp.model.service;
 import gr.aegean.icsd.newspaperapp.model.entity.Story;
 import gr.aegean.icsd.newspaperapp.model.entity.Topic;
 import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.JournalistPages;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryCursor;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFacets;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFilter;
 import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.StorySpecifications;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryWindow;
 import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import gr.aegean.icsd.newspaperapp.model.search.Highlighter;
+import gr.aegean.icsd.newspaperapp.model.search.SearchAdmission;
+import gr.aegean.icsd.newspaperapp.model.search.SearchTermStatistics;
+import gr.aegean.icsd.newspaperapp.model.search.StoryFilterIndex;
+import gr.aegean.icsd.newspaperapp.model.search.StoryIndex;
+import gr.aegean.icsd.newspaperapp.model.search.StoryVisibility;
 import gr.aegean.icsd.newspaperapp.security.UserUtils;
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
 import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
 import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Class servicing controller requests about
@@ -33,6 +51,10 @@ public class StoryService {
 
     private final StoryRepository storyRepository;
     private final TopicRepository topicRepository;
+    private final StoryIndex storyIndex;
+    private final StoryFilterIndex storyFilterIndex;
+    private final SearchTermStatistics searchTermStatistics;
+    private final SearchAdmission searchAdmission;
 
     // Allowed Story states per User, a User cannot access a
     // Story whose state is not in this List.
@@ -41,11 +63,22 @@ public class StoryService {
     private final Set <StoryState> allowedJournalistStates;
     private final Set <StoryState> allowedVisitorStates;
 
+    // Order of the Journalist pages merged by JournalistPages, most recent Story first.
+    // Recency is the descending ID, which follows creation order only within a node, see Story#getId
+    private static final Sort newestFirst = Sort.by(Sort.Direction.DESC, "id");
+    private static final Comparator<StoryView> newestStoryFirst = Comparator.comparing(StoryView::id).reversed();
 
-    public StoryService(StoryRepository storyRepository, TopicRepository topicRepository) {
+
+    public StoryService(StoryRepository storyRepository, TopicRepository topicRepository, StoryIndex storyIndex,
+                        StoryFilterIndex storyFilterIndex, SearchTermStatistics searchTermStatistics,
+                        SearchAdmission searchAdmission) {
 
         this.storyRepository = storyRepository;
         this.topicRepository = topicRepository;
+        this.storyIndex = storyIndex;
+        this.storyFilterIndex = storyFilterIndex;
+        this.searchTermStatistics = searchTermStatistics;
+        this.searchAdmission = searchAdmission;
 
         allowedCuratorStates = new HashSet<>();
         allowedCuratorStates.add(StoryState.SUBMITTED);
@@ -63,7 +96,9 @@ public class StoryService {
 
     /**
      * Takes as input a List of topic id's then, queries the database
-     * and transforms the input list into a list of Topic entities
+     * and transforms the input list into a list of Topic entities <br>
+     *
+     * Every Topic is read by a single query, Topics that do not exist or are not approved are ignored
      *
      * @param topicIDs Set of Topic id's
      *
@@ -71,21 +106,106 @@ public class StoryService {
      */
     private Set<Topic> createTopicsListFromIDs(List<Integer> topicIDs) {
 
-        Set<Topic> topicsList = new HashSet<>();
+        if (topicIDs.isEmpty()) { return new HashSet<>(); }
 
-        for (Integer id : topicIDs) {
+        Set<Long> requestedIDs = topicIDs.stream().map(Long::valueOf).collect(Collectors.toSet());
 
-            Optional<Topic> savedTopic = topicRepository.findById(Long.valueOf(id));
+        return new HashSet<>(topicRepository.findByIdInAndState(requestedIDs, TopicState.APPROVED));
 
-            if (savedTopic.isPresent() && savedTopic.get().getState().equals(TopicState.APPROVED)) {
+    }
 
-                topicsList.add(savedTopic.get());
 
-            }
 
+    /**
+     * Get the visibility rule of the current User over Stories
+     *
+     * @return Visibility rule of the current User
+     */
+    private StoryVisibility currentVisibility() {
+
+        if (UserUtils.isVisitor()) {
+            return new StoryVisibility(allowedVisitorStates, null);
+        }
+        else if (UserUtils.isJournalist()) {
+            return new StoryVisibility(allowedJournalistStates, UserUtils.getUsername());
+        }
+        else if (UserUtils.isCurator()) {
+            return new StoryVisibility(allowedCuratorStates, null);
         }
 
-        return topicsList;
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+
+    }
+
+
+
+    /**
+     * Search Stories through the {@link StoryIndex}, and load only
+     * the Stories of the requested page from the database
+     *
+     * @param name Provided name, null to ignore the name
+     * @param content Provided content, null to ignore the content
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Stories matching the provided name and content
+     */
+    private Page<StoryView> searchStoryIndex(String name, String content, Pageable pageable) {
+
+        StoryVisibility visibility = currentVisibility();
+
+        return loadPage(storyIndex.search(name, content, visibility), visibility, pageable);
+
+    }
+
+
+
+    /**
+     * Load the Stories of the requested page of a ranked list of Story IDs
+     *
+     * @param matchingIDs IDs of every matching Story, in ranking order
+     * @param visibility Visibility rule the IDs were matched with
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Stories in ranking order
+     */
+    private Page<StoryView> loadPage(List<Long> matchingIDs, StoryVisibility visibility, Pageable pageable) {
+
+        int pageStart = (int) Math.min(pageable.getOffset(), matchingIDs.size());
+        int pageEnd = Math.min(pageStart + pageable.getPageSize(), matchingIDs.size());
+
+        return loadPage(new PageImpl<>(matchingIDs.subList(pageStart, pageEnd), pageable, matchingIDs.size()),
+                visibility, EnumSet.allOf(StoryState.class));
+
+    }
+
+
+
+    /**
+     * Load the Stories of a page of Story IDs <br>
+     *
+     * The IDs come from an index, which may lag behind the database. Stories whose state or author
+     * no longer match the caller's rule are dropped from the page, instead of being shown
+     *
+     * @param pageIDs Page of Story IDs, in ranking order
+     * @param visibility Visibility rule the IDs were matched with
+     * @param listedStates States of the listed Stories
+     *
+     * @return Page of Stories in ranking order
+     */
+    private Page<StoryView> loadPage(Page<Long> pageIDs, StoryVisibility visibility, Set<StoryState> listedStates) {
+
+        Map<Long, StoryView> storiesByID = storyRepository.findVisibleViewsByIdIn
+                        (pageIDs.getContent(), listedStates, visibility.states(), visibility.author()).stream()
+                .collect(Collectors.toMap(StoryView::id, Function.identity()));
+
+        // Keep the ranking order of the index
+        List<StoryView> pageContent = pageIDs.stream()
+                .map(storiesByID::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new PageImpl<>(pageContent, pageIDs.getPageable(), pageIDs.getTotalElements());
 
     }
 
@@ -108,6 +228,8 @@ public class StoryService {
             Story newStory = new Story(storyName, new User(username), storyContent);
 
             storyRepository.save(newStory);
+            storyIndex.update(newStory);
+            storyFilterIndex.update(newStory);
             return newStory;
         }
         else {
@@ -116,6 +238,8 @@ public class StoryService {
             Story newStory = new Story(storyName, new User(username), storyContent, topicsList);
 
             storyRepository.save(newStory);
+            storyIndex.update(newStory);
+            storyFilterIndex.update(newStory);
             return newStory;
         }
 
@@ -160,81 +284,239 @@ public class StoryService {
         }
 
         storyRepository.save(updatedStory);
+        storyIndex.update(updatedStory);
+        storyFilterIndex.update(updatedStory);
+
+    }
+
+
+
+    /**
+     * Show a specific Story, along with its whole content. <br>
+     *
+     * Listings only carry the excerpt of each Story, this is the only
+     * operation that reads and decompresses the content
+     *
+     * @param storyID ID of the specified Story
+     *
+     * @return Requested Story, with its content
+     */
+    @Transactional(readOnly = true)
+    public StoryView showStory(@Positive long storyID) {
+
+        StoryVisibility visibility = currentVisibility();
+
+        return storyRepository.findVisibleByID(storyID, visibility.states(), visibility.author())
+                .orElseThrow(() -> new RuntimeException("Requested Story was not found"));
 
     }
 
 
     /**
-     * Search Stories matching the provided name
+     * Search Stories matching the provided name, and count its terms in the search statistics. <br>
+     *
+     * Until the {@link StoryIndex} is ready, the name is searched by the database,
+     * and the search is admitted by the {@link SearchAdmission}
      *
      * @param name Provided name
      *
      * @return List of Stories matching the provided name
      */
-    @Transactional(readOnly = true)
-    public Page<Story> findStoriesByName(@NotBlank String name, @NotNull Pageable pageable) {
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> findStoriesByName(@NotBlank String name, @NotNull Pageable pageable) {
 
-        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        searchTermStatistics.recordStorySearch(name);
 
-        if (UserUtils.isVisitor()) {
-            return storyRepository.findByNameContainingIgnoreCaseAndStateIn
-                    (name, allowedVisitorStates, pageable);
-        }
-        else if (UserUtils.isJournalist()) {
-            String username = UserUtils.getUsername();
-            return storyRepository.findByNameForJournalist
-                    (name, allowedJournalistStates, username, pageable);
+        return searchStoriesByName(name, pageable);
+
+    }
+
+
+
+    /**
+     * Search Stories matching the provided name, without counting its terms in the search statistics. <br>
+     *
+     * Used by searches that count the query themselves, once for every Story search they run
+     *
+     * @param name Provided name
+     *
+     * @return List of Stories matching the provided name
+     *
+     * @see #findStoriesByName(String, Pageable)
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> searchStoriesByName(@NotBlank String name, @NotNull Pageable pageable) {
+
+        if (storyIndex.isReady()) {
+            return searchStoryIndex(name, null, pageable);
         }
-        else if (UserUtils.isCurator()) {
-            return storyRepository.findByNameContainingIgnoreCaseAndStateIn
-                    (name, allowedCuratorStates, pageable);
+
+        return searchInDatabase(name, null, pageable);
+
+    }
+
+
+
+    /**
+     * Search Stories matching the provided name and/or content in the database, admitted by the {@link SearchAdmission}. <br>
+     *
+     * Every term must match the start of a word, as in the {@link StoryIndex}, see {@link StorySpecifications}.
+     * Matches are listed newest first. Called within the transaction of a public search method, whose query timeout applies
+     *
+     * @param name Provided name, null to search the content only
+     * @param content Provided content, null to search the name only
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Stories matching the provided name and content
+     */
+    private Page<StoryView> searchInDatabase(String name, String content, Pageable pageable) {
+
+        return filterStories(new StoryFilter(name, content, null, null, null, null),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), newestFirst));
+
+    }
+
+
+
+    /**
+     * Search Stories whose name is similar to the provided name, tolerating misspellings. <br>
+     *
+     * Until the {@link StoryIndex} is ready, Stories whose name matches the provided name are returned instead
+     *
+     * @param name Provided name
+     *
+     * @return List of Stories with a similar name, most similar first
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> findStoriesBySimilarName(@NotBlank String name, @NotNull Pageable pageable) {
+
+        searchTermStatistics.recordStorySearch(name);
+
+        if (!storyIndex.isReady()) {
+            return searchInDatabase(name, null, pageable);
         }
 
-        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+        StoryVisibility visibility = currentVisibility();
+
+        return loadPage(storyIndex.searchSimilar(name, visibility), visibility, pageable);
 
     }
 
 
 
     /**
-     * Search Stories matching the provided content
+     * Build highlighted snippets of the name and content of Stories returned by a search. <br>
      *
-     * @param content Provided content
+     * Snippets are built from the term positions stored in the {@link StoryIndex},
+     * no snippets are returned until the index is ready. The content of the Stories
+     * is only read if the content was searched
      *
-     * @return List of Stories matching the provided content
+     * @param stories Stories returned by the search
+     * @param name Name the Stories were searched by, null if the name was not searched
+     * @param content Content the Stories were searched by, null if the content was not searched
+     *
+     * @return ID of every Story with matches, mapped to a snippet per matching field ( "name", "content" )
      */
     @Transactional(readOnly = true)
-    public Page<Story> findStoriesByContent(@NotBlank String content, @NotNull Pageable pageable) {
+    public Map<Long, Map<String, String>> highlightStories(@NotNull List<StoryView> stories, String name,
+                                                          String content) {
 
-        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        if (!storyIndex.isReady() || stories.isEmpty()) { return Map.of(); }
 
-        if (UserUtils.isVisitor()) {
-            return storyRepository.findByContentContainingIgnoreCaseAndStateIn
-                    (content, allowedVisitorStates, pageable);
+        List<Long> storyIDs = stories.stream().map(StoryView::id).toList();
+
+        Map<Long, Map<SearchField, List<int[]>>> offsets = storyIndex.matchOffsets(storyIDs, name, content);
+
+        Map<Long, String> contents = new HashMap<>();
+
+        if (content != null) {
+            for (Object[] row : storyRepository.findContentsByIdIn(storyIDs)) {
+                contents.put((Long) row[0], (String) row[1]);
+            }
         }
-        else if (UserUtils.isJournalist()) {
-            String username = UserUtils.getUsername();
-            return storyRepository.findByContentForJournalist
-                    (content, allowedJournalistStates, username, pageable);
+
+        Map<Long, Map<String, String>> highlights = new HashMap<>();
+
+        for (StoryView story : stories) {
+
+            Map<SearchField, List<int[]>> storyOffsets = offsets.getOrDefault(story.id(), Map.of());
+            Map<String, String> snippets = new LinkedHashMap<>();
+
+            String nameSnippet = Highlighter.snippet(story.name(), storyOffsets.getOrDefault(SearchField.NAME, List.of()));
+            String contentSnippet = Highlighter.snippet
+                    (contents.get(story.id()), storyOffsets.getOrDefault(SearchField.CONTENT, List.of()));
+
+            if (nameSnippet != null) { snippets.put("name", nameSnippet); }
+            if (contentSnippet != null) { snippets.put("content", contentSnippet); }
+
+            if (!snippets.isEmpty()) { highlights.put(story.id(), snippets); }
         }
-        else if (UserUtils.isCurator()) {
-            return storyRepository.findByContentContainingIgnoreCaseAndStateIn
-                    (content, allowedCuratorStates, pageable);
+
+        return highlights;
+
+    }
+
+
+
+    /**
+     * Search Stories matching the provided content, and count its terms in the search statistics. <br>
+     *
+     * Until the {@link StoryIndex} is ready, the content is searched by the database,
+     * and the search is admitted by the {@link SearchAdmission}
+     *
+     * @param content Provided content
+     *
+     * @return List of Stories matching the provided content
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> findStoriesByContent(@NotBlank String content, @NotNull Pageable pageable) {
+
+        searchTermStatistics.recordStorySearch(content);
+
+        return searchStoriesByContent(content, pageable);
+
+    }
+
+
+
+    /**
+     * Search Stories matching the provided content, without counting its terms in the search statistics. <br>
+     *
+     * Used by searches that count the query themselves, once for every Story search they run
+     *
+     * @param content Provided content
+     *
+     * @return List of Stories matching the provided content
+     *
+     * @see #findStoriesByContent(String, Pageable)
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> searchStoriesByContent(@NotBlank String content, @NotNull Pageable pageable) {
+
+        if (storyIndex.isReady()) {
+            return searchStoryIndex(null, content, pageable);
         }
 
-        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+        return searchInDatabase(null, content, pageable);
 
     }
 
 
 
     /**
-     * Show all Stories currently persisted in the database
+     * Show all Stories currently persisted in the database. <br>
+     *
+     * Answered by the {@link StoryFilterIndex} once it is ready
      *
      * @return List of all Stories currently persisted in the database
      */
     @Transactional(readOnly = true)
-    public Page<Story> findAllStories(@NotNull Pageable pageable) {
+    public Page<StoryView> findAllStories(@NotNull Pageable pageable) {
+
+        if (storyFilterIndex.isReady()) {
+            StoryVisibility visibility = currentVisibility();
+            return loadPage(storyFilterIndex.findAll(visibility, pageable), visibility, EnumSet.allOf(StoryState.class));
+        }
 
         String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
 
@@ -243,7 +525,10 @@ public class StoryService {
         }
         else if (UserUtils.isJournalist()) {
             String username = UserUtils.getUsername();
-            return storyRepository.findAllStoriesForJournalist(allowedJournalistStates, username, pageable);
+            return JournalistPages.merge(
+                    page -> storyRepository.findAllStories(allowedJournalistStates, page),
+                    page -> storyRepository.findAllOwnStories(allowedJournalistStates, username, page),
+                    Sort.unsorted(), Comparator.comparing(StoryView::state).thenComparing(newestStoryFirst), pageable);
         }
         else if (UserUtils.isCurator()) {
             return storyRepository.findAllStories(allowedCuratorStates, pageable);
@@ -256,32 +541,27 @@ public class StoryService {
 
 
     /**
-     * Search Stories matching the provided name and content
+     * Search Stories matching the provided name and content. <br>
+     *
+     * Until the {@link StoryIndex} is ready, both are searched by the database,
+     * and the search is admitted by the {@link SearchAdmission}
      *
      * @param name Provided name
      * @param content Provided content
      *
      * @return List of Stories matching the provided name and content
      */
-    @Transactional(readOnly = true)
-    public Page<Story> findStoriesByContentAndName(@NotBlank String name, @NotBlank String content,
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> findStoriesByContentAndName(@NotBlank String name, @NotBlank String content,
                                                    @NotNull Pageable pageable) {
 
-        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        searchTermStatistics.recordStorySearch(name, content);
 
-        if (UserUtils.isVisitor()) {
-            return storyRepository.findByNameAndContent(name, allowedVisitorStates, content, pageable);
-        }
-        else if (UserUtils.isJournalist()) {
-            String username = UserUtils.getUsername();
-            return storyRepository.findByNameAndContentForJournalist
-                    (name, allowedJournalistStates, username, content, pageable);
-        }
-        else if (UserUtils.isCurator()) {
-            return storyRepository.findByNameAndContent(name, allowedCuratorStates, content, pageable);
+        if (storyIndex.isReady()) {
+            return searchStoryIndex(name, content, pageable);
         }
 
-        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+        return searchInDatabase(name, content, pageable);
 
     }
 
@@ -297,7 +577,7 @@ public class StoryService {
      */
 
     @Transactional(readOnly = true)
-    public Page<Story> findStoriesByDateRange(@NotNull Date minDate, @NotNull Date maxDate,
+    public Page<StoryView> findStoriesByDateRange(@NotNull Date minDate, @NotNull Date maxDate,
                                               @NotNull Pageable pageable) {
 
         String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
@@ -308,8 +588,11 @@ public class StoryService {
         }
         else if (UserUtils.isJournalist()) {
             String username = UserUtils.getUsername();
-            return storyRepository.findByDateRangeForJournalist
-                    (minDate, maxDate, allowedJournalistStates, username, pageable);
+            return JournalistPages.merge(
+                    page -> storyRepository.findByCreationDateBetweenAndStateIn
+                            (minDate, maxDate, allowedJournalistStates, page),
+                    page -> storyRepository.findOwnByDateRange(minDate, maxDate, allowedJournalistStates, username, page),
+                    newestFirst, newestStoryFirst, pageable);
         }
         else if (UserUtils.isCurator()) {
             return storyRepository.findByCreationDateBetweenAndStateIn
@@ -323,7 +606,48 @@ public class StoryService {
 
 
     /**
-     * Search Stories whose state matches the provided state
+     * Search Stories created within the specified date range, without counting every match. <br>
+     *
+     * The Slice only knows whether more Stories follow it, one more Story than requested is read to find out
+     *
+     * @param minDate the start of the date range (inclusive)
+     * @param maxDate the end of the date range (inclusive)
+     * @param pageable Details of the requested Slice
+     *
+     * @return a slice of the stories that were created within the specified date range
+     */
+    @Transactional(readOnly = true)
+    public Slice<StoryView> sliceStoriesByDateRange(@NotNull Date minDate, @NotNull Date maxDate,
+                                                @NotNull Pageable pageable) {
+
+        if (UserUtils.isVisitor()) {
+            return storyRepository.findSliceByCreationDateBetweenAndStateIn
+                    (minDate, maxDate, allowedVisitorStates, pageable);
+        }
+        else if (UserUtils.isJournalist()) {
+            String username = UserUtils.getUsername();
+            return JournalistPages.mergeSlice(
+                    page -> storyRepository.findSliceByCreationDateBetweenAndStateIn
+                            (minDate, maxDate, allowedJournalistStates, page),
+                    page -> storyRepository.findOwnSliceByDateRange(minDate, maxDate, allowedJournalistStates, username, page),
+                    newestFirst, newestStoryFirst, pageable);
+        }
+        else if (UserUtils.isCurator()) {
+            return storyRepository.findSliceByCreationDateBetweenAndStateIn
+                    (minDate, maxDate, allowedCuratorStates, pageable);
+        }
+
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+
+    }
+
+
+
+    /**
+     * Search Stories whose state matches the provided state. <br>
+     *
+     * Answered by the {@link StoryFilterIndex} once it is ready
      *
      * @param state Provided state
      *
@@ -331,15 +655,23 @@ public class StoryService {
      */
     @Transactional(readOnly = true)
     @PreAuthorize("hasAnyAuthority('ROLE_CURATOR', 'ROLE_JOURNALIST')")
-    public Page<Story> findStoriesByState(@NotNull StoryState state, @NotNull Pageable pageable) {
+    public Page<StoryView> findStoriesByState(@NotNull StoryState state, @NotNull Pageable pageable) {
 
         if (UserUtils.isJournalist()) {
+            if (storyFilterIndex.isReady()) {
+                StoryVisibility visibility = currentVisibility();
+                return loadPage(storyFilterIndex.findByState(state, visibility, pageable), visibility, Set.of(state));
+            }
             String username = UserUtils.getUsername();
             if (allowedJournalistStates.contains(state)) {return storyRepository.findByState(state, pageable);}
             else {return storyRepository.findByStateForJournalist(state, username, pageable);}
         }
-        else if (UserUtils.isCurator()) {
-            if (allowedCuratorStates.contains(state)) {return storyRepository.findByState(state, pageable);}
+        else if (UserUtils.isCurator() && allowedCuratorStates.contains(state)) {
+            if (storyFilterIndex.isReady()) {
+                StoryVisibility visibility = currentVisibility();
+                return loadPage(storyFilterIndex.findByState(state, visibility, pageable), visibility, Set.of(state));
+            }
+            return storyRepository.findByState(state, pageable);
         }
 
         return null;
@@ -348,14 +680,22 @@ public class StoryService {
 
 
     /**
-     * Search Stories associated with the specified Topic
+     * Search Stories associated with the specified Topic. <br>
+     *
+     * Answered by the {@link StoryFilterIndex} once it is ready
      *
      * @param topicID ID of the specified Topic
      *
      * @return List of Stories associated with the Topic
      */
     @Transactional(readOnly = true)
-    public Page<Story> findStoriesByTopicID(@Positive long topicID, @NotNull Pageable pageable) {
+    public Page<StoryView> findStoriesByTopicID(@Positive long topicID, @NotNull Pageable pageable) {
+
+        if (storyFilterIndex.isReady()) {
+            StoryVisibility visibility = currentVisibility();
+            return loadPage(storyFilterIndex.findByTopic(topicID, visibility, pageable),
+                    visibility, EnumSet.allOf(StoryState.class));
+        }
 
         String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
 
@@ -365,8 +705,10 @@ public class StoryService {
         }
         else if (UserUtils.isJournalist()) {
             String username = UserUtils.getUsername();
-            return storyRepository.findByTopicIDForJournalist
-                    (topicID, allowedJournalistStates, username, pageable);
+            return JournalistPages.merge(
+                    page -> storyRepository.findByTopicID(topicID, allowedJournalistStates, page),
+                    page -> storyRepository.findOwnByTopicID(topicID, allowedJournalistStates, username, page),
+                    newestFirst, newestStoryFirst, pageable);
         }
         else if (UserUtils.isCurator()) {
             return storyRepository.findByTopicID
@@ -379,6 +721,233 @@ public class StoryService {
 
 
 
+    /**
+     * Search Stories matching every criterion of the provided filter, in a single query. <br>
+     *
+     * Any combination of criteria can be provided, and the visibility rule
+     * of the current User is applied once, on top of all of them. <br>
+     *
+     * Filters by name or content are admitted by the {@link SearchAdmission}. Criteria queries read
+     * Story entities, they are converted to {@link StoryView}s before leaving the service
+     *
+     * @param filter Provided filter
+     *
+     * @return List of Stories matching the filter
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Page<StoryView> filterStories(@NotNull StoryFilter filter, @NotNull Pageable pageable) {
+
+        if (filter.minDate() != null && filter.maxDate() != null && filter.minDate().after(filter.maxDate())) {
+            throw new IllegalArgumentException("minDate must not be after maxDate");
+        }
+
+        Specification<Story> matchingStories = StorySpecifications.matching(filter, currentVisibility());
+
+        return searchAdmission.admit(filterCost(filter, pageable.getOffset()),
+                () -> storyRepository.findAll(matchingStories, pageable).map(StoryView::of));
+
+    }
+
+
+
+    /**
+     * Search Stories matching the provided name, content, or both, without counting every match. <br>
+     *
+     * Once the {@link StoryIndex} is ready every match is known anyway, and the Slice is cut from them.
+     * Until then the database reads one more Story than requested instead of counting every match,
+     * newest first, and the search is admitted by the {@link SearchAdmission}
+     *
+     * @param name Provided name, null to search the content only
+     * @param content Provided content, null to search the name only
+     * @param pageable Details of the requested Slice
+     *
+     * @return Slice of Stories matching the provided name and content
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Slice<StoryView> sliceStoriesBySearch(String name, String content, @NotNull Pageable pageable) {
+
+        if (name == null && content == null) {
+            throw new IllegalArgumentException("A name or a content must be provided");
+        }
+
+        searchTermStatistics.recordStorySearch(name, content);
+
+        if (storyIndex.isReady()) {
+            Page<StoryView> stories = searchStoryIndex(name, content, pageable);
+            return new SliceImpl<>(stories.getContent(), pageable, stories.hasNext());
+        }
+
+        return sliceFilteredStories(new StoryFilter(name, content, null, null, null, null),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), newestFirst));
+
+    }
+
+
+
+    /**
+     * Search Stories matching the provided filter, without counting every match. <br>
+     *
+     * Word prefix matches on the name and content cannot use a database index, so counting them costs as much as
+     * reading them. The Slice only knows whether more Stories follow it instead. <br>
+     *
+     * Filters by name or content are admitted by the {@link SearchAdmission}
+     *
+     * @param filter Provided filter
+     * @param pageable Details of the requested Slice
+     *
+     * @return Slice of Stories matching every provided criterion
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public Slice<StoryView> sliceFilteredStories(@NotNull StoryFilter filter, @NotNull Pageable pageable) {
+
+        if (filter.minDate() != null && filter.maxDate() != null && filter.minDate().after(filter.maxDate())) {
+            throw new IllegalArgumentException("minDate must not be after maxDate");
+        }
+
+        Specification<Story> matchingStories = StorySpecifications.matching(filter, currentVisibility());
+
+        Window<Story> stories = searchAdmission.admit(filterCost(filter, pageable.getOffset()),
+                () -> storyRepository.findBy(matchingStories,
+                        query -> query.sortBy(pageable.getSort()).limit(pageable.getPageSize())
+                                .scroll(ScrollPosition.offset(pageable.getOffset()))));
+
+        return new SliceImpl<>(stories.map(StoryView::of).getContent(), pageable, stories.hasNext());
+
+    }
+
+
+
+    /**
+     * Page through the Stories matching the provided filter with a cursor. <br>
+     *
+     * Each page seeks past the cursor through the index of the list's order, so that every page
+     * costs the same as the first. Journalists' pages are read as two branches, see
+     * {@link StorySpecifications#matchingBranches(StoryFilter, StoryVisibility)}, and merged. <br>
+     *
+     * Filters by name or content are admitted by the {@link SearchAdmission}
+     *
+     * @param filter Provided filter
+     * @param order Order of the list
+     * @param cursor Cursor received with the previous page, empty or null for the first page
+     * @param size Maximum number of Stories in the page
+     *
+     * @return Window of Stories matching the filter, with the cursors of the adjacent windows
+     *
+     * @throws ResponseStatusException With 400 Bad Request if the cursor is damaged or belongs to a list of another order
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public StoryWindow scrollStories(@NotNull StoryFilter filter, @NotNull StoryCursor.Order order,
+                                     String cursor, @Positive int size) {
+
+        if (filter.minDate() != null && filter.maxDate() != null && filter.minDate().after(filter.maxDate())) {
+            throw new IllegalArgumentException("minDate must not be after maxDate");
+        }
+
+        StoryCursor position;
+
+        try { position = StoryCursor.decode(cursor, order); }
+        catch (IllegalArgumentException invalidCursor) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, invalidCursor.getMessage(), invalidCursor);
+        }
+
+        boolean backward = position != null && position.backward();
+
+        Sort sort = backward ? order.sort().reverse() : order.sort();
+        Comparator<Story> comparator = backward ? order.comparator().reversed() : order.comparator();
+
+        List<Specification<Story>> branches = StorySpecifications.matchingBranches(filter, currentVisibility());
+
+        // One more Story than requested, to know whether the list goes on, seeking past the cursor skips no Story
+        List<Story> stories = searchAdmission.admit(filterCost(filter, 0), () -> {
+
+            List<Story> branchStories = new ArrayList<>();
+
+            for (Specification<Story> branch : branches) {
+
+                Specification<Story> seek = position == null
+                        ? branch
+                        : branch.and(StorySpecifications.beyond(position));
+
+                branchStories.addAll(storyRepository.findBy(seek, query -> query.sortBy(sort).limit(size + 1).all()));
+            }
+
+            return branchStories;
+        });
+
+        stories.sort(comparator);
+
+        boolean more = stories.size() > size;
+        List<Story> window = new ArrayList<>(stories.subList(0, Math.min(size, stories.size())));
+
+        if (backward) { Collections.reverse(window); }
+
+        if (window.isEmpty()) { return new StoryWindow(List.of(), null, null); }
+
+        StoryCursor next = !backward && !more ? null : StoryCursor.after(order, window.get(window.size() - 1));
+        StoryCursor previous = position == null || (backward && !more)
+                ? null
+                : StoryCursor.before(order, window.get(0));
+
+        return new StoryWindow(window.stream().map(StoryView::of).toList(), next, previous);
+
+    }
+
+
+
+    /**
+     * Page through the Stories whose state matches the provided state with a cursor, newest first. <br>
+     *
+     * Restricted to the same roles as {@link #findStoriesByState(StoryState, Pageable)}
+     *
+     * @param state Provided state
+     * @param cursor Cursor received with the previous page, empty or null for the first page
+     * @param size Maximum number of Stories in the page
+     *
+     * @return Window of Stories whose state matches the provided state, with the cursors of the adjacent windows
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    @PreAuthorize("hasAnyAuthority('ROLE_CURATOR', 'ROLE_JOURNALIST')")
+    public StoryWindow scrollStoriesByState(@NotNull StoryState state, String cursor, @Positive int size) {
+        return scrollStories(new StoryFilter(null, null, null, null, state, null), StoryCursor.Order.NEWEST, cursor, size);
+    }
+
+
+
+    /**
+     * Count the Stories matching the provided filter per state, per Topic and per creation month. <br>
+     *
+     * Only the Stories visible to the current User are counted.
+     * Filters by name or content are admitted by the {@link SearchAdmission}
+     *
+     * @param filter Provided filter
+     *
+     * @return The counts of the matching Stories
+     */
+    @Transactional(readOnly = true, timeoutString = "${search.admission.query-timeout}")
+    public StoryFacets countStoryFacets(@NotNull StoryFilter filter) {
+
+        Specification<Story> matchingStories = StorySpecifications.matching(filter, currentVisibility());
+
+        return searchAdmission.admit(filterCost(filter, 0), () -> storyRepository.countFacets(matchingStories));
+
+    }
+
+
+
+    /**
+     * Estimate the cost of a filter for the {@link SearchAdmission}
+     *
+     * @param filter Provided filter
+     * @param offset Number of Stories skipped before the requested page
+     *
+     * @return Estimated cost, 0 if the filter matches neither the name nor the content
+     */
+    private static double filterCost(StoryFilter filter, long offset) {
+        return SearchAdmission.estimateCost(filter.selectivity(), offset, filter.name(), filter.content());
+    }
+
+
+
     /**
      * Submit the specified Story, set it's state to {@link StoryState#SUBMITTED SUBMITTED}
      * IF AND ONLY IF it's state had been {@link StoryState#CREATED CREATED} <br>
@@ -399,6 +968,8 @@ public class StoryService {
 
             if (savedStory.getState().equals(StoryState.CREATED)) {
                 savedStory.setState(StoryState.SUBMITTED);
+                storyIndex.updateState(savedStory);
+                storyFilterIndex.update(savedStory);
             }
 
             else {
@@ -439,6 +1010,8 @@ public class StoryService {
                 savedStory.setRejectionReason(rejectionReason);
 
                 storyRepository.save(savedStory);
+                storyIndex.updateState(savedStory);
+                storyFilterIndex.update(savedStory);
 
             }
 
@@ -479,6 +1052,8 @@ public class StoryService {
                 savedStory.removeRejectionReason();
 
                 storyRepository.save(savedStory);
+                storyIndex.updateState(savedStory);
+                storyFilterIndex.update(savedStory);
 
             }
 
@@ -518,6 +1093,8 @@ public class StoryService {
                 savedStory.setState(StoryState.PUBLISHED);
 
                 storyRepository.save(savedStory);
+                storyIndex.updateState(savedStory);
+                storyFilterIndex.update(savedStory);
 
             }
 
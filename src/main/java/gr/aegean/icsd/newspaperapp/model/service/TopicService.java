@@ -2,14 +2,27 @@ package gr.aegean.icsd.newspaperapp.model.service;
 
 import gr.aegean.icsd.newspaperapp.model.entity.Topic;
 import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.JournalistPages;
 import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicView;
+import gr.aegean.icsd.newspaperapp.model.search.ListingTotals;
+import gr.aegean.icsd.newspaperapp.model.search.PrefixIndex;
+import gr.aegean.icsd.newspaperapp.model.search.SearchTermStatistics;
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
+import gr.aegean.icsd.newspaperapp.model.search.TopicIndex;
+import gr.aegean.icsd.newspaperapp.model.search.TopicVisibility;
 import gr.aegean.icsd.newspaperapp.security.UserUtils;
 import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,9 +30,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Class servicing controller requests about
@@ -32,6 +45,15 @@ public class TopicService {
 
     private final TopicRepository topicRepository;
 
+    private final TopicIndex topicIndex;
+
+    private final ListingTotals listingTotals;
+
+    private final SearchTermStatistics searchTermStatistics;
+
+    /** Upper bound on the number of Topic name suggestions returned at once */
+    private static final int maximumSuggestions = 20;
+
     // Allowed Topic states per User, a User cannot access a
     // Topic whose state is not in this List.
     // ( Except the Journalist, in case he owns the Topic )
@@ -39,10 +61,19 @@ public class TopicService {
     private final Set <TopicState> allowedJournalistStates;
     private final Set <TopicState> allowedVisitorStates;
 
+    // Order of the Journalist pages merged by JournalistPages, most recent Topic first.
+    // Recency is the descending ID, which follows creation order only within a node, see Topic#getId
+    private static final Sort newestFirst = Sort.by(Sort.Direction.DESC, "id");
+    private static final Comparator<TopicView> newestTopicFirst = Comparator.comparing(TopicView::id).reversed();
+
 
-    public TopicService(TopicRepository topicRepository) {
+    public TopicService(TopicRepository topicRepository, TopicIndex topicIndex, ListingTotals listingTotals,
+                        SearchTermStatistics searchTermStatistics) {
 
         this.topicRepository = topicRepository;
+        this.topicIndex = topicIndex;
+        this.listingTotals = listingTotals;
+        this.searchTermStatistics = searchTermStatistics;
 
         allowedCuratorStates = new HashSet<>();
         allowedCuratorStates.add(TopicState.SUBMITTED);
@@ -75,6 +106,8 @@ public class TopicService {
             Topic newTopic = new Topic(name, author);
 
             topicRepository.save(newTopic);
+            topicIndex.update(newTopic);
+            listingTotals.topicChanged(null, newTopic.getState(), authorID);
             return newTopic;
         }
         else {
@@ -88,6 +121,8 @@ public class TopicService {
                 Topic newTopic = new Topic(name, author, requestedParentTopic.get());
 
                 topicRepository.save(newTopic);
+                topicIndex.update(newTopic);
+                listingTotals.topicChanged(null, newTopic.getState(), authorID);
                 return newTopic;
             }
 
@@ -137,6 +172,7 @@ public class TopicService {
         }
 
         topicRepository.save(requestedTopic.get());
+        topicIndex.update(requestedTopic.get());
 
     }
 
@@ -164,6 +200,9 @@ public class TopicService {
         requestedTopic.get().setState(TopicState.APPROVED);
 
         topicRepository.save(requestedTopic.get());
+        topicIndex.update(requestedTopic.get());
+        listingTotals.topicChanged(TopicState.SUBMITTED, TopicState.APPROVED,
+                requestedTopic.get().getAuthor().getUsername());
 
     }
 
@@ -189,6 +228,8 @@ public class TopicService {
         }
 
         topicRepository.deleteById(id);
+        topicIndex.remove(id);
+        listingTotals.topicChanged(TopicState.SUBMITTED, null, requestedTopic.get().getAuthor().getUsername());
 
     }
 
@@ -202,22 +243,24 @@ public class TopicService {
      * @return Requested Topic entity
      */
     @Transactional(readOnly = true)
-    public Topic showTopic(@Positive long topicID) {
+    public TopicView showTopic(@Positive long topicID) {
 
         String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
 
         switch (userRole) {
             case "[ROLE_ANONYMOUS]" -> {
-                return topicRepository.findByIdAndStateIn(topicID, allowedVisitorStates)
-                        .orElseThrow(() -> new RuntimeException("Requested Topic was not found"));            }
+                return withAssociations(topicRepository.findByIdAndStateIn(topicID, allowedVisitorStates)
+                        .orElseThrow(() -> new RuntimeException("Requested Topic was not found")));
+            }
             case "[ROLE_JOURNALIST]" -> {
                 String username = SecurityContextHolder.getContext().getAuthentication().getName();
-                return topicRepository.findTopicByIDForJournalist(topicID, allowedJournalistStates, username)
-                        .orElseThrow(() -> new RuntimeException("Requested Topic was not found"));
+                return withAssociations(
+                        topicRepository.findTopicByIDForJournalist(topicID, allowedJournalistStates, username)
+                        .orElseThrow(() -> new RuntimeException("Requested Topic was not found")));
             }
             case "[ROLE_CURATOR]" -> {
-                return topicRepository.findByIdAndStateIn(topicID, allowedCuratorStates)
-                        .orElseThrow(() -> new RuntimeException("Requested Topic was not found"));
+                return withAssociations(topicRepository.findByIdAndStateIn(topicID, allowedCuratorStates)
+                        .orElseThrow(() -> new RuntimeException("Requested Topic was not found")));
             }
         }
 
@@ -228,26 +271,70 @@ public class TopicService {
 
 
     /**
-     * Show all Topics currently persisted in the database
+     * Show all Topics currently persisted in the database. <br>
+     *
+     * Once the {@link ListingTotals} are ready, the page is read without counting, and its total is summed
+     * from the counters instead
      *
      * @return A list of all Topics currently in the database
      */
     @Transactional(readOnly = true)
-    public Page<Topic> showAllTopics(@NotNull Pageable pageable) {
+    public Page<TopicView> showAllTopics(@NotNull Pageable pageable) {
+
+        if (listingTotals.isReady()) {
+            Slice<TopicView> topics = sliceAllTopics(pageable);
+            return new PageImpl<>(topics.getContent(), pageable, listingTotals.countTopics(currentVisibility()));
+        }
 
         String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
 
         if (UserUtils.isVisitor()) {
-            return topicRepository.findAllTopics(allowedVisitorStates, pageable);
+            return withAssociations(topicRepository.findAllTopics(allowedVisitorStates, pageable));
+        }
+        else if ( UserUtils.isJournalist()) {
+            String username = UserUtils.getUsername();
+            return withAssociations(JournalistPages.merge(
+                    page -> topicRepository.findAllTopics(allowedJournalistStates, page),
+                    page -> topicRepository.findAllOwnTopics(allowedJournalistStates, username, page),
+                    Sort.unsorted(), Comparator.comparing(TopicView::state).reversed().thenComparing(newestTopicFirst),
+                    pageable));
+        }
+        else if (UserUtils.isCurator()) {
+            return withAssociations(topicRepository.findAllTopics(allowedCuratorStates, pageable));
+        }
+
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+
+    }
+
+
+
+    /**
+     * Show all Topics currently persisted in the database, without counting them. <br>
+     *
+     * The Slice only knows whether more Topics follow it, one more Topic than requested is read to find out
+     *
+     * @return A slice of the Topics currently in the database
+     */
+    @Transactional(readOnly = true)
+    public Slice<TopicView> sliceAllTopics(@NotNull Pageable pageable) {
+
+        if (UserUtils.isVisitor()) {
+            return withAssociations(topicRepository.findAllTopicsSlice(allowedVisitorStates, pageable));
         }
         else if ( UserUtils.isJournalist()) {
             String username = UserUtils.getUsername();
-            return topicRepository.findAllTopicsForJournalist(allowedJournalistStates, username, pageable);
+            return withAssociations(JournalistPages.mergeSlice(
+                    page -> topicRepository.findAllTopicsSlice(allowedJournalistStates, page),
+                    page -> topicRepository.findAllOwnTopicsSlice(allowedJournalistStates, username, page),
+                    Sort.unsorted(), Comparator.comparing(TopicView::state).reversed().thenComparing(newestTopicFirst),
+                    pageable));
         }
         else if (UserUtils.isCurator()) {
-            return topicRepository.findAllTopics(allowedCuratorStates, pageable);
+            return withAssociations(topicRepository.findAllTopicsSlice(allowedCuratorStates, pageable));
         }
 
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
         throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
 
     }
@@ -255,26 +342,42 @@ public class TopicService {
 
 
     /**
-     * Show all Topics whose name matches the provided name
+     * Show all Topics whose name matches the provided name. <br>
+     *
+     * Answered by the {@link TopicIndex} once it is ready, and by the database until then
      *
      * @param name Provided name
      *
      * @return List of all Topics matching the provided name
      */
     @Transactional(readOnly = true)
-    public Page<Topic> searchTopicByName(@NotBlank String name, @NotNull Pageable pageable) {
+    public Page<TopicView> searchTopicByName(@NotBlank String name, @NotNull Pageable pageable) {
+
+        searchTermStatistics.recordTopicSearch(name);
+
+        if (topicIndex.isReady()) {
+            TopicVisibility visibility = currentVisibility();
+            return loadPage(topicIndex.searchName(name, visibility), visibility, pageable);
+        }
 
         String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        String normalizedName = TextAnalyzer.normalizeText(name);
 
         if (UserUtils.isVisitor()) {
-            return topicRepository.findByNameContainingIgnoreCaseAndStateIn(name, allowedVisitorStates, pageable);
+            return withAssociations(topicRepository.findByNormalizedNameContainingAndStateIn
+                    (normalizedName, allowedVisitorStates, pageable));
         }
         else if (UserUtils.isJournalist()) {
             String username = UserUtils.getUsername();
-            return topicRepository.findTopicsByNameForJournalist(name, allowedJournalistStates, username, pageable);
+            return withAssociations(JournalistPages.merge(
+                    page -> topicRepository.findByNormalizedNameContainingAndStateIn
+                            (normalizedName, allowedJournalistStates, page),
+                    page -> topicRepository.findOwnTopicsByName(normalizedName, allowedJournalistStates, username, page),
+                    newestFirst, newestTopicFirst, pageable));
         }
         else if (UserUtils.isCurator()) {
-            return topicRepository.findByNameContainingIgnoreCaseAndStateIn(name, allowedCuratorStates, pageable);
+            return withAssociations(topicRepository.findByNormalizedNameContainingAndStateIn
+                    (normalizedName, allowedCuratorStates, pageable));
         }
 
         throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
@@ -282,4 +385,182 @@ public class TopicService {
     }
 
 
+
+    /**
+     * Show all Topics whose name is similar to the provided name, tolerating misspellings. <br>
+     *
+     * Until the {@link TopicIndex} is ready, Topics whose name contains the provided name are returned instead
+     *
+     * @param name Provided name
+     *
+     * @return List of all Topics with a similar name, most similar first
+     */
+    @Transactional(readOnly = true)
+    public Page<TopicView> searchTopicBySimilarName(@NotBlank String name, @NotNull Pageable pageable) {
+
+        if (!topicIndex.isReady()) {
+            return searchTopicByName(name, pageable);
+        }
+
+        searchTermStatistics.recordTopicSearch(name);
+
+        TopicVisibility visibility = currentVisibility();
+
+        return loadPage(topicIndex.searchSimilar(name, visibility), visibility, pageable);
+
+    }
+
+
+
+    /**
+     * Load the Topics of the requested page of a ranked list of Topic IDs <br>
+     *
+     * The IDs come from the {@link TopicIndex}, which may lag behind the database.
+     * Topics whose state or author no longer match the caller's rule are dropped from the page
+     *
+     * @param matchingIDs IDs of every matching Topic, in ranking order
+     * @param visibility Visibility rule the IDs were matched with
+     * @param pageable Details of the requested Page
+     *
+     * @return Page of Topics in ranking order
+     */
+    private Page<TopicView> loadPage(List<Long> matchingIDs, TopicVisibility visibility, Pageable pageable) {
+
+        int pageStart = (int) Math.min(pageable.getOffset(), matchingIDs.size());
+        int pageEnd = Math.min(pageStart + pageable.getPageSize(), matchingIDs.size());
+        List<Long> pageIDs = matchingIDs.subList(pageStart, pageEnd);
+
+        Map<Long, TopicView> topicsByID = topicRepository.findVisibleViewsByIdIn
+                        (pageIDs, visibility.states(), visibility.author()).stream()
+                .collect(Collectors.toMap(TopicView::id, Function.identity()));
+
+        // Keep the ranking order of the index
+        List<TopicView> pageContent = pageIDs.stream()
+                .map(topicsByID::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return withAssociations(new PageImpl<>(pageContent, pageable, matchingIDs.size()));
+
+    }
+
+
+
+    /**
+     * Read the IDs of the Stories and children Topics of every Topic of a page, and attach them to the views. <br>
+     *
+     * Both associations are read for the whole page at once, by one query each, without loading
+     * the associated entities
+     *
+     * @param topics Views of the Topics of the page
+     *
+     * @return Views of the Topics along with their associations, in the same order
+     */
+    private List<TopicView> withAssociations(List<TopicView> topics) {
+
+        if (topics.isEmpty()) { return topics; }
+
+        List<Long> topicIDs = topics.stream().map(TopicView::id).toList();
+
+        Map<Long, List<Long>> storyIDs = groupPairs(topicRepository.findStoryIDs(topicIDs));
+        Map<Long, List<Long>> childTopicIDs = groupPairs(topicRepository.findChildTopicIDs(topicIDs));
+
+        return topics.stream()
+                .map(topic -> topic.withAssociations(storyIDs.getOrDefault(topic.id(), List.of()),
+                        childTopicIDs.getOrDefault(topic.id(), List.of())))
+                .toList();
+
+    }
+
+
+
+    private TopicView withAssociations(TopicView topic) {
+        return withAssociations(List.of(topic)).get(0);
+    }
+
+
+
+    private Page<TopicView> withAssociations(Page<TopicView> topics) {
+        return new PageImpl<>(withAssociations(topics.getContent()), topics.getPageable(), topics.getTotalElements());
+    }
+
+
+
+    private Slice<TopicView> withAssociations(Slice<TopicView> topics) {
+        return new SliceImpl<>(withAssociations(topics.getContent()), topics.getPageable(), topics.hasNext());
+    }
+
+
+
+    /**
+     * Group ( key, value ) ID pairs by their key, keeping the order of the values
+     */
+    private static Map<Long, List<Long>> groupPairs(List<Object[]> pairs) {
+
+        Map<Long, List<Long>> groups = new HashMap<>();
+
+        for (Object[] pair : pairs) {
+            groups.computeIfAbsent((Long) pair[0], key -> new ArrayList<>()).add((Long) pair[1]);
+        }
+
+        return groups;
+
+    }
+
+
+
+    /**
+     * Suggest approved Topics while their name is being typed. <br>
+     *
+     * A Topic is suggested if its name, or a later word of it, starts with the provided prefix.
+     * Suggestions are answered by the {@link TopicIndex}, until it is ready approved Topics whose
+     * name contains the prefix are returned instead
+     *
+     * @param prefix The name typed so far
+     * @param limit Maximum number of suggestions, at most {@value #maximumSuggestions}
+     *
+     * @return Suggested Topics
+     */
+    @Transactional(readOnly = true)
+    public List<PrefixIndex.Suggestion> suggestTopics(@NotBlank String prefix, @Positive int limit) {
+
+        int suggestionCount = Math.min(limit, maximumSuggestions);
+
+        if (topicIndex.isReady()) {
+            return topicIndex.suggest(prefix, suggestionCount);
+        }
+
+        return topicRepository.findByNormalizedNameContainingAndState
+                        (TextAnalyzer.normalizeText(prefix), TopicState.APPROVED, PageRequest.of(0, suggestionCount))
+                .stream()
+                .map(topic -> new PrefixIndex.Suggestion(topic.getId(), topic.getName()))
+                .toList();
+
+    }
+
+
+
+    /**
+     * Get the visibility rule of the current User over Topics
+     *
+     * @return Visibility rule of the current User
+     */
+    private TopicVisibility currentVisibility() {
+
+        if (UserUtils.isVisitor()) {
+            return new TopicVisibility(allowedVisitorStates, null);
+        }
+        else if (UserUtils.isJournalist()) {
+            return new TopicVisibility(allowedJournalistStates, UserUtils.getUsername());
+        }
+        else if (UserUtils.isCurator()) {
+            return new TopicVisibility(allowedCuratorStates, null);
+        }
+
+        String userRole = SecurityContextHolder.getContext().getAuthentication().getAuthorities().toString();
+        throw new AccessDeniedException("User with role: " + userRole + " is not supported by this operation");
+
+    }
+
+
 }
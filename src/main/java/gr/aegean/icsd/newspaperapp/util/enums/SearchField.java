@@ -0,0 +1,18 @@
+package gr.aegean.icsd.newspaperapp.util.enums;
+
+/**
+ * Story fields covered by the search index <br>
+ * {@link #NAME} <br>
+ * {@link #CONTENT} <br>
+ */
+public enum SearchField {
+    /**
+     * The name of the Story
+     */
+    NAME,
+
+    /**
+     * The content of the Story
+     */
+    CONTENT
+}
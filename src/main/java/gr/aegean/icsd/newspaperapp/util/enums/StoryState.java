@@ -5,27 +5,66 @@ package gr.aegean.icsd.newspaperapp.util.enums;
  * {@link #CREATED} <br>
  * {@link #SUBMITTED} <br>
  * {@link #APPROVED} <br>
- * {@link #PUBLISHED} <br>
+ * {@link #PUBLISHED} <br><br>
+ *
+ * Every state is stored as a small integer code, the codes follow
+ * the Story workflow so that Stories can be ordered by their state column
  */
 public enum StoryState {
     /**
      * Initial state when a story is created, <br>
      * a story may be modified in this state.
      */
-    CREATED,
+    CREATED(1),
 
     /**
      * Story is awaiting approval, may not be modified in this state <br>
      */
-    SUBMITTED,
+    SUBMITTED(2),
 
     /**
      * Story is awaiting to be published, may not be modified in this state <br>
      */
-    APPROVED,
+    APPROVED(3),
 
     /**
      * Story has been published and is accessible by all users <br>
      */
-    PUBLISHED
+    PUBLISHED(4);
+
+
+    private final byte code;
+
+
+    StoryState(int code) {
+        this.code = (byte) code;
+    }
+
+
+    /**
+     * Get the code the state is stored as
+     *
+     * @return Code of the state
+     */
+    public byte getCode() {
+        return code;
+    }
+
+
+    /**
+     * Get the state stored as the provided code
+     *
+     * @param code Provided code
+     *
+     * @return State with the provided code
+     */
+    public static StoryState fromCode(byte code) {
+
+        for (StoryState state : values()) {
+            if (state.code == code) { return state; }
+        }
+
+        throw new IllegalArgumentException("Unknown Story state code: " + code);
+
+    }
 }
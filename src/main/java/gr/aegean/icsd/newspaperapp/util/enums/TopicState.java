@@ -3,18 +3,57 @@ package gr.aegean.icsd.newspaperapp.util.enums;
 /**
  * Topic's possible states <br>
  * {@link #SUBMITTED} <br>
- * {@link #APPROVED} <br>
+ * {@link #APPROVED} <br><br>
+ *
+ * Every state is stored as a small integer code, the codes follow
+ * the Topic workflow so that Topics can be ordered by their state column
  */
 public enum TopicState  {
     /**
      * Initial state when a Topic is created. <br>
      * In this state, it is not published and can be modified
      */
-    SUBMITTED,
+    SUBMITTED(1),
 
     /**
      * An APPROVED Topic is published and accessible by all users. <br>
      * ONLY an APPROVED Topic can be associated with Stories
      */
-    APPROVED
+    APPROVED(2);
+
+
+    private final byte code;
+
+
+    TopicState(int code) {
+        this.code = (byte) code;
+    }
+
+
+    /**
+     * Get the code the state is stored as
+     *
+     * @return Code of the state
+     */
+    public byte getCode() {
+        return code;
+    }
+
+
+    /**
+     * Get the state stored as the provided code
+     *
+     * @param code Provided code
+     *
+     * @return State with the provided code
+     */
+    public static TopicState fromCode(byte code) {
+
+        for (TopicState state : values()) {
+            if (state.code == code) { return state; }
+        }
+
+        throw new IllegalArgumentException("Unknown Topic state code: " + code);
+
+    }
 }
@@ -167,11 +167,11 @@ public class CommentTest {
 
             assertAll(
                     () -> assertThrows(ConstraintViolationException.class, () ->
-                            entityManager.persist(testCommentConstructor1),
+                            entityManager.persistAndFlush(testCommentConstructor1),
                             "Constraint Violation Exception should be thrown when content is " + content),
 
                     () -> assertThrows(ConstraintViolationException.class, () ->
-                                    entityManager.persist(testCommentConstructor2),
+                                    entityManager.persistAndFlush(testCommentConstructor2),
                             "Constraint Violation Exception should be thrown when content is " + content)
             );
 
@@ -186,11 +186,11 @@ public class CommentTest {
 
             assertAll(
                     () -> assertThrows(org.hibernate.exception.ConstraintViolationException.class, () ->
-                                    entityManager.persist(testCommentConstructor1),
+                                    entityManager.persistAndFlush(testCommentConstructor1),
                             "Constraint Violation Exception should be thrown when Story is null"),
 
                     () -> assertThrows(org.hibernate.exception.ConstraintViolationException.class, () ->
-                                    entityManager.persist(testCommentConstructor2),
+                                    entityManager.persistAndFlush(testCommentConstructor2),
                             "Constraint Violation Exception should be thrown when Story is null")
             );
 
@@ -207,11 +207,11 @@ public class CommentTest {
 
             assertAll(
                     () -> assertThrows(IllegalStateException.class, () ->
-                                    entityManager.persist(testCommentConstructor1),
+                                    entityManager.persistAndFlush(testCommentConstructor1),
                             "Illegal State Exception should be thrown when Story does not exist"),
 
                     () -> assertThrows(IllegalStateException.class, () ->
-                                    entityManager.persist(testCommentConstructor2),
+                                    entityManager.persistAndFlush(testCommentConstructor2),
                             "Illegal State Exception should be thrown when Story does not exist")
             );
 
@@ -0,0 +1,95 @@
+package gr.aegean.icsd.newspaperapp.entity;
+
+import gr.aegean.icsd.newspaperapp.model.entity.CompressedTextConverter;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the compression of Story contents
+ */
+@DisplayName("Compressed Text Converter tests")
+@Tag("Entity")
+public class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+
+    @Nested
+    @DisplayName("Round trip tests")
+    @Tag("Converter")
+    class roundTripTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", "a", "Ελληνικά νέα της ημέρας", "emoji 📰 and\nlines\ttabs"})
+        @DisplayName("A text reads back as it was written")
+        public void roundTrip(String text) {
+            assertEquals(text, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text)));
+        }
+
+
+        @Test
+        @DisplayName("A repetitive text is stored compressed")
+        public void compressed() {
+
+            String text = "The council approved the budget. ".repeat(1000);
+
+            byte[] column = converter.convertToDatabaseColumn(text);
+
+            assertTrue(column.length < text.length() / 10, "The column should be much smaller than the text");
+            assertEquals(text, converter.convertToEntityAttribute(column));
+
+        }
+
+
+        @Test
+        @DisplayName("Null is stored and read as null")
+        public void nullText() {
+
+            assertNull(converter.convertToDatabaseColumn(null));
+            assertNull(converter.convertToEntityAttribute(null));
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Plain text tests")
+    @Tag("Converter")
+    class plainTextTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", "a", "Plain content copied by SQL", "Ελληνικά"})
+        @DisplayName("A column without the GZIP header is read as UTF-8 text")
+        public void plainText(String text) {
+            assertEquals(text, converter.convertToEntityAttribute(text.getBytes(StandardCharsets.UTF_8)));
+        }
+
+
+        @Test
+        @DisplayName("A column of a single byte is read as UTF-8 text")
+        public void singleByte() {
+            assertEquals("\u001F", converter.convertToEntityAttribute(new byte[]{0x1F}));
+        }
+
+
+        @Test
+        @DisplayName("A column that starts with the GZIP header but is not compressed is rejected")
+        public void damaged() {
+
+            byte[] column = {0x1F, (byte) 0x8B, 'n', 'o', 't'};
+
+            assertThrows(UncheckedIOException.class, () -> converter.convertToEntityAttribute(column));
+
+        }
+
+    }
+
+
+}
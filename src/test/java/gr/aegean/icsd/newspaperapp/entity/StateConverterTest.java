@@ -0,0 +1,121 @@
+package gr.aegean.icsd.newspaperapp.entity;
+
+import gr.aegean.icsd.newspaperapp.model.entity.StoryStateConverter;
+import gr.aegean.icsd.newspaperapp.model.entity.TopicStateConverter;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the storage of Story and Topic states as one byte codes
+ */
+@DisplayName("State Converter tests")
+@Tag("Entity")
+public class StateConverterTest {
+
+    private final StoryStateConverter storyConverter = new StoryStateConverter();
+
+    private final TopicStateConverter topicConverter = new TopicStateConverter();
+
+
+    @Nested
+    @DisplayName("Round trip tests")
+    @Tag("Converter")
+    class roundTripTests {
+
+        @ParameterizedTest
+        @EnumSource(StoryState.class)
+        @DisplayName("A Story state reads back from its code")
+        public void storyState(StoryState state) {
+
+            Byte code = storyConverter.convertToDatabaseColumn(state);
+
+            assertEquals(state.getCode(), code);
+            assertEquals(state, storyConverter.convertToEntityAttribute(code));
+
+        }
+
+
+        @ParameterizedTest
+        @EnumSource(TopicState.class)
+        @DisplayName("A Topic state reads back from its code")
+        public void topicState(TopicState state) {
+
+            Byte code = topicConverter.convertToDatabaseColumn(state);
+
+            assertEquals(state.getCode(), code);
+            assertEquals(state, topicConverter.convertToEntityAttribute(code));
+
+        }
+
+
+        @Test
+        @DisplayName("A missing state is stored as a missing code")
+        public void nullState() {
+
+            assertAll(
+                    () -> assertNull(storyConverter.convertToDatabaseColumn(null)),
+                    () -> assertNull(storyConverter.convertToEntityAttribute(null)),
+                    () -> assertNull(topicConverter.convertToDatabaseColumn(null)),
+                    () -> assertNull(topicConverter.convertToEntityAttribute(null))
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Codes are distinct and follow the workflow, so that the state column orders it")
+        public void workflowOrder() {
+
+            assertAll(
+                    () -> assertArrayEquals(new int[] {1, 2, 3, 4},
+                            Arrays.stream(StoryState.values()).mapToInt(StoryState::getCode).toArray()),
+                    () -> assertArrayEquals(new int[] {1, 2},
+                            Arrays.stream(TopicState.values()).mapToInt(TopicState::getCode).toArray())
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Unknown code tests")
+    @Tag("Converter")
+    class unknownCodeTests {
+
+        @ParameterizedTest
+        @ValueSource(bytes = {0, 5, -1, Byte.MAX_VALUE})
+        @DisplayName("An unknown Story state code is rejected")
+        public void storyState(byte code) {
+
+            IllegalArgumentException rejection = assertThrows(IllegalArgumentException.class,
+                    () -> storyConverter.convertToEntityAttribute(code));
+
+            assertTrue(rejection.getMessage().contains(String.valueOf(code)));
+
+        }
+
+
+        @ParameterizedTest
+        @ValueSource(bytes = {0, 3, 4, -1})
+        @DisplayName("An unknown Topic state code is rejected")
+        public void topicState(byte code) {
+
+            IllegalArgumentException rejection = assertThrows(IllegalArgumentException.class,
+                    () -> topicConverter.convertToEntityAttribute(code));
+
+            assertTrue(rejection.getMessage().contains(String.valueOf(code)));
+
+        }
+
+    }
+
+}
@@ -216,9 +216,9 @@ public class StoryTest {
             // Constraint Violation exception is thrown, except when the name is duplicate where
             // hibernate constraint violation exception is thrown
             assertAll(
-                    () -> assertThrows(RuntimeException.class, () -> entityManager.persist(testStoryConstructor1)),
-                    () -> assertThrows(RuntimeException.class, () -> entityManager.persist(testStoryConstructor2)),
-                    () -> assertThrows(RuntimeException.class, () -> entityManager.persist(testStoryConstructor3))
+                    () -> assertThrows(RuntimeException.class, () -> entityManager.persistAndFlush(testStoryConstructor1)),
+                    () -> assertThrows(RuntimeException.class, () -> entityManager.persistAndFlush(testStoryConstructor2)),
+                    () -> assertThrows(RuntimeException.class, () -> entityManager.persistAndFlush(testStoryConstructor3))
             );
 
 
@@ -236,7 +236,7 @@ public class StoryTest {
                     arguments("validName", null),
                     arguments("validName", ""),
                     arguments("validName", "   "),
-                    arguments("validName", generateString(550)),
+                    arguments("validName", generateString(100050)),
                     arguments("validName", generateString(2))
             );
         }
@@ -254,9 +254,9 @@ public class StoryTest {
             Story testStoryConstructor3 = new Story("validName", testAuthor, "validContent", topic);
 
             assertAll(
-                    () -> assertThrows(RuntimeException.class, () -> entityManager.persist(testStoryConstructor1)),
-                    () -> assertThrows(RuntimeException.class, () -> entityManager.persist(testStoryConstructor2)),
-                    () -> assertThrows(RuntimeException.class, () -> entityManager.persist(testStoryConstructor3))
+                    () -> assertThrows(RuntimeException.class, () -> entityManager.persistAndFlush(testStoryConstructor1)),
+                    () -> assertThrows(RuntimeException.class, () -> entityManager.persistAndFlush(testStoryConstructor2)),
+                    () -> assertThrows(RuntimeException.class, () -> entityManager.persistAndFlush(testStoryConstructor3))
             );
 
         }
@@ -397,7 +397,7 @@ public class StoryTest {
                     "",
                     "    ",
                     "Valid String",
-                    generateString(550),
+                    generateString(100050),
                     generateString(2)
             );
         }
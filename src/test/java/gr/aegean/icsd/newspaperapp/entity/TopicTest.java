@@ -170,7 +170,7 @@ public class TopicTest {
         public void nullParentTopic() {
 
             assertThrows(IllegalArgumentException.class, () ->
-                    entityManager.persist(new Topic("validName", mockAuthor, null)),
+                    entityManager.persistAndFlush(new Topic("validName", mockAuthor, null)),
                     "Constraint Violation Exception should be thrown" +
                     "when parent topic is null"
             );
@@ -201,12 +201,12 @@ public class TopicTest {
 
             assertAll(
                     () -> assertThrows(ConstraintViolationException.class, () ->
-                        entityManager.persist(new Topic(name, mockAuthor)),
+                        entityManager.persistAndFlush(new Topic(name, mockAuthor)),
                             "Constraint violation exception should be thrown" +
                             "when name is: " + name
                     ),
                     () -> assertThrows(ConstraintViolationException.class, () ->
-                        entityManager.persist(new Topic(name, mockAuthor, mockTopic)),
+                        entityManager.persistAndFlush(new Topic(name, mockAuthor, mockTopic)),
                             "Constraint violation exception should be thrown" +
                             "when name is: " + name
                     )
@@ -220,12 +220,12 @@ public class TopicTest {
 
             assertAll(
                     () -> assertThrows(org.hibernate.exception.ConstraintViolationException.class, () ->
-                            entityManager.persist(new Topic(mockTopic.getName(), mockAuthor)),
+                            entityManager.persistAndFlush(new Topic(mockTopic.getName(), mockAuthor)),
                             "Hibernate Constraint violation exception should be thrown" +
                             "when specified name is not unique"
                     ),
                     () -> assertThrows(org.hibernate.exception.ConstraintViolationException.class, () ->
-                            entityManager.persist(new Topic(mockTopic.getName(), mockAuthor, mockTopic)),
+                            entityManager.persistAndFlush(new Topic(mockTopic.getName(), mockAuthor, mockTopic)),
                             "Hibernate Constraint violation exception should be thrown" +
                             "when specified name is not unique"
                     )
@@ -239,12 +239,12 @@ public class TopicTest {
 
             assertAll(
                     () -> assertThrows(org.hibernate.exception.ConstraintViolationException.class, () ->
-                            entityManager.persist(new Topic("validName", null)),
+                            entityManager.persistAndFlush(new Topic("validName", null)),
                             "Hibernate Constraint violation exception should be thrown" +
                             "when specified name is not unique"
                     ),
                     () -> assertThrows(org.hibernate.exception.ConstraintViolationException.class, () ->
-                            entityManager.persist(new Topic("validName", null, mockTopic)),
+                            entityManager.persistAndFlush(new Topic("validName", null, mockTopic)),
                             "Hibernate Constraint violation exception should be thrown" +
                             "when specified name is not unique"
                     )
@@ -260,12 +260,12 @@ public class TopicTest {
 
             assertAll(
                     () -> assertThrows(IllegalStateException.class, () ->
-                            entityManager.persist(new Topic("validName", nonExistingAuthor)),
+                            entityManager.persistAndFlush(new Topic("validName", nonExistingAuthor)),
                             "Illegal State Exception should be thrown" +
                             "when specified author does not exist in the database"
                     ),
                     () -> assertThrows(IllegalStateException.class, () ->
-                            entityManager.persist(new Topic("validName", nonExistingAuthor, mockTopic)),
+                            entityManager.persistAndFlush(new Topic("validName", nonExistingAuthor, mockTopic)),
                             "Illegal State Exception should be thrown" +
                             "when specified author does not exist in the database"
                     )
@@ -0,0 +1,262 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.*;
+import gr.aegean.icsd.newspaperapp.model.service.CommentService;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test Class for the keyset pagination of the Comments of a Story <br>
+ *
+ * Groups of Comments share their creation date, so that pages are cut in the middle of a group
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Comment Cursor tests")
+@Tag("Repository")
+public class CommentCursorTest {
+
+    private static final String journalistName = "cursorJournalist";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CommentService service;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Story story;
+
+    private List<Comment> comments;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User(journalistName, "testPassword", UserType.JOURNALIST);
+        User otherJournalist = new User("otherCursorJournalist", "testPassword", UserType.JOURNALIST);
+        Topic topic = new Topic("cursorTopic", journalist);
+        story = new Story("cursorStory", otherJournalist, "testContent", Set.of(topic));
+
+        entityManager.persist(journalist);
+        entityManager.persist(otherJournalist);
+        entityManager.persist(topic);
+        entityManager.persist(story);
+
+        // Both Journalists have approved and submitted Comments
+        List<Long> commentIDs = new ArrayList<>();
+
+        for (int i = 0; i < 24; i++) {
+
+            Comment comment = new Comment(story, "testComment" + i, i % 2 == 0 ? journalist : otherJournalist);
+            if ((i / 2) % 2 == 0) { comment.setState(CommentState.APPROVED); }
+
+            entityManager.persist(comment);
+            commentIDs.add(comment.getId());
+        }
+
+        entityManager.flush();
+
+        // Every four consecutive Comments share their creation date
+        long instant = new Date().getTime();
+
+        for (int i = 0; i < commentIDs.size(); i++) {
+            entityManager.createQuery("UPDATE Comment c SET c.creationDate = :creationDate WHERE c.id = :id")
+                    .setParameter("creationDate", new Date(instant - (i / 4) * 1000L))
+                    .setParameter("id", commentIDs.get(i))
+                    .executeUpdate();
+        }
+
+        entityManager.clear();
+
+        comments = commentRepository.findAllById(commentIDs);
+
+        assertEquals(6, comments.stream().map(Comment::getCreationDate).distinct().count(),
+                "Every four Comments should share their creation date");
+
+    }
+
+
+    private List<Long> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getId).toList();
+    }
+
+
+    private CommentWindow scroll(CommentCursor cursor) {
+        return service.scrollCommentsByStory(story.getId(), cursor == null ? "" : cursor.encode(), 5);
+    }
+
+
+    @Nested
+    @DisplayName("Encoding tests")
+    @Tag("Cursor")
+    class encodingTests {
+
+        @Test
+        @DisplayName("A cursor decodes to the position it was encoded from")
+        public void roundTrip() {
+
+            CommentCursor after = new CommentCursor(new Date(1700000000123L), 42, false);
+            CommentCursor before = new CommentCursor(new Date(1700000000123L), 42, true);
+
+            assertEquals(after, CommentCursor.decode(after.encode()));
+            assertEquals(before, CommentCursor.decode(before.encode()));
+
+        }
+
+
+        @Test
+        @DisplayName("An empty cursor points at the first page")
+        public void emptyCursor() {
+
+            assertNull(CommentCursor.decode(null));
+            assertNull(CommentCursor.decode(" "));
+
+        }
+
+
+        @Test
+        @DisplayName("A damaged cursor is rejected")
+        public void damagedCursor() {
+
+            List<String> damaged = List.of("not a cursor!",
+                    encode("f:1700000000123"), encode("f:yesterday:42"), encode("f:1700000000123:forty"));
+
+            for (String cursor : damaged) {
+                assertThrows(IllegalArgumentException.class, () -> CommentCursor.decode(cursor),
+                        cursor + " should be rejected");
+            }
+
+        }
+
+
+        private String encode(String position) {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Seek tests")
+    @Tag("Cursor")
+    class seekTests {
+
+        @Test
+        @DisplayName("The Comments beyond a cursor are the ones after or before it in the order")
+        public void beyond() {
+
+            List<Comment> ordered = new ArrayList<>(comments);
+            ordered.sort(CommentCursor.newestCommentFirst);
+
+            for (int i = 0; i < ordered.size(); i++) {
+
+                Comment comment = ordered.get(i);
+
+                List<Comment> after = commentRepository.findAll(CommentSpecifications
+                        .ofStory(story.getId(), EnumSet.allOf(CommentState.class))
+                        .and(CommentSpecifications.beyond(CommentCursor.after(comment))), CommentCursor.newestFirst);
+                List<Comment> before = commentRepository.findAll(CommentSpecifications
+                        .ofStory(story.getId(), EnumSet.allOf(CommentState.class))
+                        .and(CommentSpecifications.beyond(CommentCursor.before(comment))), CommentCursor.newestFirst);
+
+                assertEquals(ids(ordered.subList(i + 1, ordered.size())), ids(after));
+                assertEquals(ids(ordered.subList(0, i)), ids(before));
+            }
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Journalist paging tests")
+    @Tag("Cursor")
+    class journalistPagingTests {
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("Paging forward and then backward lists every visible Comment once, in order")
+        public void forwardAndBackward() {
+
+            List<Long> visible = comments.stream()
+                    .filter(comment -> comment.getState() == CommentState.APPROVED
+                            || comment.getAuthor().orElseThrow().getUsername().equals(journalistName))
+                    .sorted(CommentCursor.newestCommentFirst)
+                    .map(Comment::getId)
+                    .toList();
+
+            List<List<Long>> forward = new ArrayList<>();
+            CommentWindow window = scroll(null);
+            assertNull(window.previous(), "The first page should have no previous page");
+
+            while (true) {
+
+                forward.add(window.comments().stream().map(CommentView::id).toList());
+
+                if (window.next() == null) { break; }
+
+                window = scroll(window.next());
+            }
+
+            assertEquals(visible, forward.stream().flatMap(List::stream).toList());
+
+            List<List<Long>> backward = new ArrayList<>();
+            backward.add(forward.get(forward.size() - 1));
+
+            while (window.previous() != null) {
+
+                window = scroll(window.previous());
+
+                backward.add(0, window.comments().stream().map(CommentView::id).toList());
+            }
+
+            assertEquals(forward, backward);
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Request tests")
+    @Tag("Cursor")
+    class requestTests {
+
+        @Test
+        @DisplayName("A damaged cursor is answered with 400 Bad Request")
+        public void damagedCursor() throws Exception {
+
+            mockMvc.perform(get("/api/v0/stories/" + story.getId() + "/comments?cursor=damaged").secure(true))
+                    .andExpect(status().isBadRequest());
+
+        }
+
+    }
+
+}
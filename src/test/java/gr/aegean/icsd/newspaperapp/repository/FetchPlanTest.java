@@ -0,0 +1,299 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.*;
+import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModelAssembler;
+import gr.aegean.icsd.newspaperapp.model.search.StoryFilterIndex;
+import gr.aegean.icsd.newspaperapp.model.search.StoryIndex;
+import gr.aegean.icsd.newspaperapp.model.search.TopicIndex;
+import gr.aegean.icsd.newspaperapp.model.service.StoryService;
+import gr.aegean.icsd.newspaperapp.model.service.TopicService;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test Class for the fetch plans of listings and of the conversion of entities into views <br>
+ *
+ * The tests are not transactional, so that every service closes its session the way it does for a request,
+ * and the statements of a request are counted by the {@link QueryPlanTest.CapturedStatements} inspector.
+ * Scheduled index refreshes and total recounts are pushed out of the way, so that only the request is counted
+ */
+@SpringBootTest(properties = {"search.index.directory=",
+        "search.index.refresh-interval=3600000", "listing.totals.reconciliation-interval=3600000",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "gr.aegean.icsd.newspaperapp.repository.QueryPlanTest$CapturedStatements"})
+@AutoConfigureMockMvc
+@DisplayName("Fetch Plan tests")
+@Tag("Repository")
+public class FetchPlanTest {
+
+    private static final int listed = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private StoryService storyService;
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private StoryModelAssembler storyAssembler;
+
+    @Autowired
+    private TopicModelAssembler topicAssembler;
+
+    @Autowired
+    private StoryIndex storyIndex;
+
+    @Autowired
+    private StoryFilterIndex storyFilterIndex;
+
+    @Autowired
+    private TopicIndex topicIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User journalist;
+
+    private Topic topic;
+
+    private final List<Story> stories = new ArrayList<>();
+
+    private final List<Topic> childTopics = new ArrayList<>();
+
+
+    @BeforeEach
+    public void initialize() {
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+
+            journalist = new User("fetchPlanJournalist", "testPassword", UserType.JOURNALIST);
+            topic = new Topic("fetchPlanTopic", journalist);
+            topic.setState(TopicState.APPROVED);
+
+            entityManager.persist(journalist);
+            entityManager.persist(topic);
+
+            // Every Story has a Comment, every child Topic has a Story of its own
+            for (int i = 0; i < listed; i++) {
+
+                Topic child = new Topic("fetchPlanChild" + i, journalist, topic);
+                child.setState(TopicState.APPROVED);
+
+                Story story = new Story("fetchPlanStory" + i, journalist, "fetchPlanContent " + i, Set.of(topic, child));
+                story.setState(StoryState.PUBLISHED);
+
+                Comment comment = new Comment(story, "fetchPlanComment " + i, journalist);
+                comment.setState(CommentState.APPROVED);
+
+                entityManager.persist(child);
+                entityManager.persist(story);
+                entityManager.persist(comment);
+
+                childTopics.add(child);
+                stories.add(story);
+            }
+
+            entityManager.flush();
+        });
+
+        storyIndex.refresh();
+        storyFilterIndex.refresh();
+        topicIndex.refresh();
+
+    }
+
+
+    @AfterEach
+    public void cleanUp() {
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+
+            storyRepository.deleteAllById(stories.stream().map(Story::getId).toList());
+            topicRepository.deleteAllById(childTopics.stream().map(Topic::getId).toList());
+            topicRepository.deleteById(topic.getId());
+            entityManager.remove(entityManager.find(User.class, journalist.getUsername()));
+        });
+
+        storyIndex.rebuild();
+        storyFilterIndex.rebuild();
+        topicIndex.rebuild();
+
+    }
+
+
+    /**
+     * Send a request, and count the statements it sent along with the elements of the page it got back
+     *
+     * @return ( statements, elements )
+     */
+    private int[] request(String path) throws Exception {
+
+        QueryPlanTest.CapturedStatements.statements.clear();
+
+        String response = mockMvc.perform(get(path).secure(true))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int statements = QueryPlanTest.CapturedStatements.statements.size();
+        List<Object> elements = JsonPath.read(response, "$._embedded.*[*]");
+
+        return new int[]{statements, elements.size()};
+
+    }
+
+
+    private void assertBounded(String path) throws Exception {
+
+        int[] few = request(path + "size=5");
+        int[] many = request(path + "size=" + listed);
+
+        assertAll(path,
+                () -> assertEquals(5, few[1]),
+                () -> assertEquals(listed, many[1]),
+                () -> assertEquals(few[0], many[0],
+                        "Listing " + listed + " elements should send as many statements as listing 5")
+        );
+
+    }
+
+
+    @Nested
+    @DisplayName("Listing tests")
+    @Tag("FetchPlan")
+    class listingTests {
+
+        @Test
+        @DisplayName("Listing Stories sends a bounded number of statements, whatever the size of the page")
+        public void stories() throws Exception {
+
+            assertBounded("/api/v0/topics/" + topic.getId() + "/stories?");
+            assertBounded("/api/v0/stories/filter?topicID=" + topic.getId() + "&");
+            assertBounded("/api/v0/stories?name=fetchPlanStory&");
+
+        }
+
+
+        // Visitors are not shown the approved Topics, the Topics are listed for a Curator
+        @Test
+        @WithMockUser(username = "fetchPlanCurator", authorities = "ROLE_CURATOR")
+        @DisplayName("Listing Topics sends a bounded number of statements, whatever the size of the page")
+        public void topics() throws Exception {
+            assertBounded("/api/v0/topics?");
+        }
+
+
+        @Test
+        @DisplayName("Listing Comments sends a bounded number of statements, whatever the size of the page")
+        public void comments() throws Exception {
+
+            int[] comments = request("/api/v0/stories/" + stories.get(0).getId() + "/comments");
+
+            assertEquals(1, comments[1]);
+            assertTrue(comments[0] <= 3, "A page of Comments should take at most 3 statements, took " + comments[0]);
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Detached view tests")
+    @Tag("FetchPlan")
+    class detachedTests {
+
+        @Test
+        @WithMockUser(username = "fetchPlanJournalist", authorities = "ROLE_JOURNALIST")
+        @DisplayName("Views returned by the services serialize after their session has closed")
+        public void serialize() {
+
+            StoryView story = storyService.showStory(stories.get(0).getId());
+            TopicView parent = topicService.showTopic(topic.getId());
+
+            assertAll(
+                    () -> assertEquals("fetchPlanContent 0", story.content()),
+                    () -> assertEquals(listed, parent.childTopicIDs().size()),
+                    () -> assertDoesNotThrow(() -> objectMapper.writeValueAsString(storyAssembler.toModel(story))),
+                    () -> assertDoesNotThrow(() -> objectMapper.writeValueAsString(topicAssembler.toModel(parent)))
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Converting a detached entity into its view does not load its lazy associations")
+        public void convert() {
+
+            // Sessions of their own, closed before the conversion, so that the Story is not loaded for the Comment
+            EntityManager session = entityManagerFactory.createEntityManager();
+            Story story = session.find(Story.class, stories.get(0).getId());
+            session.close();
+
+            session = entityManagerFactory.createEntityManager();
+            Comment comment = session.createQuery("SELECT c FROM Comment c WHERE c.storyID.id = :story", Comment.class)
+                    .setParameter("story", story.getId())
+                    .getSingleResult();
+            session.close();
+
+            StoryView storyView = StoryView.of(story);
+            CommentView commentView = CommentView.of(comment);
+
+            assertAll(
+                    () -> assertEquals(journalist.getUsername(), storyView.authorID()),
+                    () -> assertEquals(story.getId(), commentView.storyID()),
+                    () -> assertEquals(journalist.getUsername(), commentView.authorID()),
+                    () -> assertFalse(Hibernate.isInitialized(story.getAuthor()), "The author should not be loaded"),
+                    () -> assertFalse(Hibernate.isInitialized(comment.getStory()), "The Story should not be loaded")
+            );
+
+        }
+
+    }
+
+
+}
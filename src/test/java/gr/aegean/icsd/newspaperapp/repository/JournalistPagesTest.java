@@ -0,0 +1,113 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.repository.JournalistPages;
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.*;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the pages merged out of the entities in the allowed states and a Journalist's own entities
+ */
+@DisplayName("Journalist Pages tests")
+@Tag("Repository")
+public class JournalistPagesTest {
+
+    private static final Sort sort = Sort.by("id");
+
+    // Own entities precede, interleave with and follow the entities in the allowed states
+    private final List<Integer> allowed = IntStream.rangeClosed(0, 100).map(row -> row * 3).boxed().toList();
+    private final List<Integer> own = List.of(1, 2, 4, 250, 251, 400, 401);
+
+    private final List<Integer> visible = Stream.concat(allowed.stream(), own.stream()).sorted().toList();
+
+    private final List<Long> allowedOffsets = new ArrayList<>();
+
+
+    private Page<Integer> page(List<Integer> rows, Pageable pageable) {
+
+        List<Integer> content = rows.subList((int) Math.min(pageable.getOffset(), rows.size()),
+                (int) Math.min(pageable.getOffset() + pageable.getPageSize(), rows.size()));
+
+        return PageableExecutionUtils.getPage(content, pageable, rows::size);
+    }
+
+    private Slice<Integer> slice(List<Integer> rows, Pageable pageable) {
+
+        Page<Integer> page = page(rows, pageable);
+
+        return new SliceImpl<>(page.getContent(), pageable, pageable.getOffset() + page.getNumberOfElements() < rows.size());
+    }
+
+    private Page<Integer> allowedPage(Pageable pageable) {
+        allowedOffsets.add(pageable.getOffset());
+        return page(allowed, pageable);
+    }
+
+
+    @Test
+    @DisplayName("Every page holds the rows of the merged list, and the total of both lists")
+    public void pages() {
+
+        for (int size = 1; size <= 8; size++) {
+            for (int number = 0; number * size <= visible.size() + size; number++) {
+
+                Pageable pageable = PageRequest.of(number, size, sort);
+
+                Page<Integer> merged = JournalistPages.<Integer>merge(this::allowedPage, rows -> page(own, rows),
+                        sort, Comparator.naturalOrder(), pageable);
+
+                int pageStart = Math.min(number * size, visible.size());
+
+                assertEquals(visible.subList(pageStart, Math.min(pageStart + size, visible.size())),
+                        merged.getContent(), "Page " + number + " of size " + size);
+                assertEquals(visible.size(), merged.getTotalElements());
+            }
+        }
+
+    }
+
+
+    @Test
+    @DisplayName("Every slice holds the rows of the merged list, and whether more rows follow")
+    public void slices() {
+
+        for (int size = 1; size <= 8; size++) {
+            for (int number = 0; number * size <= visible.size() + size; number++) {
+
+                Pageable pageable = PageRequest.of(number, size, sort);
+
+                Slice<Integer> merged = JournalistPages.<Integer>mergeSlice(rows -> slice(allowed, rows),
+                        rows -> slice(own, rows), sort, Comparator.naturalOrder(), pageable);
+
+                int pageStart = Math.min(number * size, visible.size());
+
+                assertEquals(visible.subList(pageStart, Math.min(pageStart + size, visible.size())),
+                        merged.getContent(), "Slice " + number + " of size " + size);
+                assertEquals(pageStart + size < visible.size(), merged.hasNext(), "Slice " + number + " of size " + size);
+            }
+        }
+
+    }
+
+
+    @Test
+    @DisplayName("Rows before the page are skipped by the database, except for as many as the own rows")
+    public void skipsRows() {
+
+        JournalistPages.<Integer>merge(this::allowedPage, rows -> page(own, rows),
+                sort, Comparator.naturalOrder(), PageRequest.of(10, 5, sort));
+
+        assertEquals(List.of(50L - own.size()), allowedOffsets);
+
+    }
+
+
+}
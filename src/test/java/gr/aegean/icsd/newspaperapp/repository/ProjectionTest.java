@@ -0,0 +1,260 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.*;
+import gr.aegean.icsd.newspaperapp.model.service.TopicService;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the read-only views that the listings select instead of entities <br>
+ *
+ * The persistence context is cleared after the data is set up, so that every entity found in it was read by the test
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@Transactional
+@DisplayName("Projection tests")
+@Tag("Repository")
+public class ProjectionTest {
+
+    private static final String journalistName = "projectionJournalist";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TopicService topicService;
+
+    private Topic topic;
+
+    private Topic childTopic;
+
+    private Story story;
+
+    private Comment comment;
+
+    private Comment visitorComment;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User(journalistName, "testPassword", UserType.JOURNALIST);
+        topic = new Topic("projectionTopic", journalist);
+        childTopic = new Topic("projectionChildTopic", journalist, topic);
+
+        story = new Story("Projection Story", journalist, "  Projection\n\ncontent  ", Set.of(topic));
+        story.setState(StoryState.PUBLISHED);
+        story.setRejectionReason("projectionReason");
+
+        entityManager.persist(journalist);
+        entityManager.persist(topic);
+        entityManager.persist(childTopic);
+        entityManager.persist(story);
+
+        comment = new Comment(story, "projectionComment", journalist);
+        visitorComment = new Comment(story, "projectionVisitorComment");
+
+        entityManager.persist(comment);
+        entityManager.persist(visitorComment);
+
+        entityManager.flush();
+        entityManager.clear();
+
+    }
+
+
+    /**
+     * Number of entities held by the persistence context
+     */
+    private int managedEntities() {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+
+    @Nested
+    @DisplayName("Story view tests")
+    @Tag("Projection")
+    class storyViewTests {
+
+        @Test
+        @DisplayName("A listed Story carries its columns and excerpt, without its content and without managing the entity")
+        public void listed() {
+
+            List<StoryView> views = storyRepository.findVisibleViewsByIdIn(List.of(story.getId()),
+                    EnumSet.allOf(StoryState.class), Set.of(StoryState.PUBLISHED), null);
+
+            assertAll(
+                    () -> assertEquals(1, views.size()),
+                    () -> assertEquals(story.getId(), views.get(0).id()),
+                    () -> assertEquals("Projection Story", views.get(0).name()),
+                    () -> assertEquals(StoryState.PUBLISHED, views.get(0).state()),
+                    () -> assertEquals("projectionReason", views.get(0).rejectionReason()),
+                    () -> assertEquals("Projection content", views.get(0).excerpt()),
+                    () -> assertNull(views.get(0).content()),
+                    () -> assertEquals(journalistName, views.get(0).authorID()),
+                    () -> assertNotNull(views.get(0).creationDate()),
+                    () -> assertEquals(0, managedEntities())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A single Story is read along with its whole content")
+        public void single() {
+
+            StoryView view = storyRepository.findVisibleByID(story.getId(), Set.of(StoryState.PUBLISHED), null).orElseThrow();
+
+            assertAll(
+                    () -> assertEquals("  Projection\n\ncontent  ", view.content()),
+                    () -> assertEquals("Projection content", view.excerpt()),
+                    () -> assertEquals(0, managedEntities())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("The view of an entity that was already read matches the selected view")
+        public void ofEntity() {
+
+            StoryView selected = storyRepository.findVisibleViewsByIdIn(List.of(story.getId()),
+                    EnumSet.allOf(StoryState.class), Set.of(StoryState.PUBLISHED), null).get(0);
+
+            StoryView converted = StoryView.of(entityManager.find(Story.class, story.getId()));
+
+            assertEquals(selected, converted);
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Topic view tests")
+    @Tag("Projection")
+    class topicViewTests {
+
+        @Test
+        @DisplayName("A selected Topic carries its parent's ID, without its associations and without managing the entity")
+        public void selected() {
+
+            TopicView view = topicRepository.findTopicByIDForJournalist(childTopic.getId(),
+                    Set.of(TopicState.APPROVED), journalistName).orElseThrow();
+
+            assertAll(
+                    () -> assertEquals("projectionChildTopic", view.name()),
+                    () -> assertEquals(TopicState.SUBMITTED, view.state()),
+                    () -> assertEquals(journalistName, view.authorID()),
+                    () -> assertEquals(topic.getId(), view.parentTopicID()),
+                    () -> assertEquals(List.of(), view.storyIDs()),
+                    () -> assertEquals(List.of(), view.childTopicIDs()),
+                    () -> assertEquals(0, managedEntities())
+            );
+
+        }
+
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("A shown Topic carries the IDs of its Stories and children, read without managing any entity")
+        public void associations() {
+
+            TopicView view = topicService.showTopic(topic.getId());
+
+            assertAll(
+                    () -> assertNull(view.parentTopicID()),
+                    () -> assertEquals(List.of(story.getId()), view.storyIDs()),
+                    () -> assertEquals(List.of(childTopic.getId()), view.childTopicIDs()),
+                    () -> assertEquals(0, managedEntities())
+            );
+
+        }
+
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("The view of an entity that was already read matches the shown view")
+        public void ofEntity() {
+
+            TopicView shown = topicService.showTopic(topic.getId());
+
+            TopicView converted = TopicView.of(entityManager.find(Topic.class, topic.getId()));
+
+            assertEquals(shown, converted);
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Comment view tests")
+    @Tag("Projection")
+    class commentViewTests {
+
+        @Test
+        @DisplayName("Listed Comments carry their Story's ID and their author, none for a Visitor's Comment")
+        public void listed() {
+
+            List<CommentView> views = commentRepository.findByStoryID(story.getId(),
+                    EnumSet.allOf(CommentState.class), PageRequest.of(0, 10)).getContent();
+
+            assertAll(
+                    () -> assertEquals(List.of(visitorComment.getId(), comment.getId()), views.stream().map(CommentView::id).toList()),
+                    () -> assertEquals(List.of(story.getId(), story.getId()), views.stream().map(CommentView::storyID).toList()),
+                    () -> assertNull(views.get(0).authorID()),
+                    () -> assertEquals(journalistName, views.get(1).authorID()),
+                    () -> assertEquals("projectionVisitorComment", views.get(0).content()),
+                    () -> assertEquals(0, managedEntities())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("The view of an entity that was already read matches the listed view")
+        public void ofEntity() {
+
+            List<CommentView> views = commentRepository.findByStoryID(story.getId(),
+                    EnumSet.allOf(CommentState.class), PageRequest.of(0, 10)).getContent();
+
+            assertAll(
+                    () -> assertEquals(views.get(0), CommentView.of(entityManager.find(Comment.class, visitorComment.getId()))),
+                    () -> assertEquals(views.get(1), CommentView.of(entityManager.find(Comment.class, comment.getId())))
+            );
+
+        }
+
+    }
+
+}
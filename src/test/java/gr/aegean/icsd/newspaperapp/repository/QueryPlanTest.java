@@ -0,0 +1,254 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.repository.CommentRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.abort;
+
+/**
+ * Test Class for the query plans of the repositories <br>
+ *
+ * Every query method declared by a repository is called once, the SQL statements it sends are captured,
+ * and the plan of each statement is read with EXPLAIN from the database the tests run against.
+ * A method fails if the database reads a whole table, or a whole index, to answer any of its statements. <br>
+ *
+ * H2 and MySQL plans are understood, any other database skips the tests.
+ * Methods that read every row on purpose are listed in {@link #FULL_SCANS}
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "gr.aegean.icsd.newspaperapp.repository.QueryPlanTest$CapturedStatements")
+
+@DisplayName("Query Plan tests")
+@Tag("Repository")
+public class QueryPlanTest {
+
+    /**
+     * Query methods that read every row of a table on purpose, along with the reason
+     */
+    private static final Map<String, String> FULL_SCANS = Map.of(
+            "StoryRepository.findStoryTopicIDs", "Reads every Story and Topic pair to build the filter index",
+            "StoryRepository.findWithoutSearchColumns", "Finds the Stories to normalize once, on startup",
+            "StoryRepository.findMaxID", "Finds the greatest Story ID once, on startup, to validate the persisted index",
+            "StoryRepository.findLastModified", "Reads the latest stamp off the end of its index, once per rebuild",
+            "TopicRepository.findByNormalizedNameIsNull", "Finds the Topics to normalize once, on startup",
+            "TopicRepository.findLastModified", "Reads the latest stamp off the end of its index, once per rebuild",
+            "TopicRepository.countByStateAndAuthor", "Counts every Topic to reconcile the listing totals",
+            "CommentRepository.countByStoryStateAndAuthor", "Counts every Comment to reconcile the listing totals"
+    );
+
+    private static final List<Class<?>> REPOSITORIES =
+            List.of(StoryRepository.class, TopicRepository.class, CommentRepository.class);
+
+    // H2 names the index it reads, followed by the condition it seeks with, if any
+    private static final Pattern H2_TABLE_ACCESS = Pattern.compile("/\\* ([\\w.]+?)(\\.tableScan|: [^*]+)? \\*/");
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private DataSource dataSource;
+
+
+    /**
+     * Captures every SQL statement prepared by Hibernate
+     */
+    public static class CapturedStatements implements StatementInspector {
+
+        static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+    }
+
+
+    @TestFactory
+    @DisplayName("Repository queries seek an index instead of scanning a table")
+    public Stream<DynamicTest> queriesSeekAnIndex() throws SQLException {
+
+        String database;
+
+        try (Connection connection = dataSource.getConnection()) {
+            database = connection.getMetaData().getDatabaseProductName();
+        }
+
+        return REPOSITORIES.stream()
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .filter(method -> !method.isDefault() && !method.isSynthetic())
+                        .sorted(Comparator.comparing(Method::getName))
+                        .map(method -> DynamicTest.dynamicTest(repository.getSimpleName() + "." + method.getName(),
+                                () -> assertSeeksAnIndex(database, repository, method))));
+
+    }
+
+
+    private void assertSeeksAnIndex(String database, Class<?> repository, Method method) throws Exception {
+
+        String name = repository.getSimpleName() + "." + method.getName();
+
+        CapturedStatements.statements.clear();
+
+        try {
+            method.invoke(context.getBean(repository), arguments(method));
+        }
+        catch (InvocationTargetException failedQuery) {
+            fail(name + " could not be called", failedQuery.getCause());
+        }
+
+        List<String> statements = List.copyOf(CapturedStatements.statements);
+
+        assertFalse(statements.isEmpty(), name + " did not query the database");
+
+        if (FULL_SCANS.containsKey(name)) { return; }
+
+        for (String statement : statements) {
+
+            List<String> fullScans = fullScans(database, statement);
+
+            assertTrue(fullScans.isEmpty(), name + " reads the whole of " + fullScans + ": " + statement);
+        }
+
+    }
+
+
+    /**
+     * Read the plan of a statement and find the tables, or indexes, it reads in whole
+     */
+    private List<String> fullScans(String database, String statement) throws SQLException {
+
+        List<String> fullScans = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement)) {
+
+            bindParameters(explain);
+
+            try (ResultSet plan = explain.executeQuery()) {
+
+                switch (database) {
+
+                    case "H2" -> {
+                        plan.next();
+
+                        Matcher access = H2_TABLE_ACCESS.matcher(plan.getString(1));
+
+                        while (access.find()) {
+                            if (access.group(2) == null || access.group(2).equals(".tableScan")) {
+                                fullScans.add(access.group(1));
+                            }
+                        }
+                    }
+
+                    case "MySQL" -> {
+                        while (plan.next()) {
+                            if ("ALL".equals(plan.getString("type")) || "index".equals(plan.getString("type"))) {
+                                fullScans.add(plan.getString("table"));
+                            }
+                        }
+                    }
+
+                    default -> abort("Plans of " + database + " are not understood");
+                }
+            }
+        }
+
+        return fullScans;
+
+    }
+
+
+    /**
+     * Bind a value of the expected type to every parameter, so that the plan can be read
+     */
+    private static void bindParameters(PreparedStatement explain) throws SQLException {
+
+        ParameterMetaData parameters = explain.getParameterMetaData();
+
+        for (int parameter = 1; parameter <= parameters.getParameterCount(); parameter++) {
+
+            int type;
+
+            // Drivers that prepare statements on the client cannot tell the type, MySQL converts the text
+            try { type = parameters.getParameterType(parameter); }
+            catch (SQLException unknownType) { type = Types.VARCHAR; }
+
+            switch (type) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.NUMERIC, Types.DECIMAL ->
+                        explain.setLong(parameter, 1);
+                case Types.DATE -> explain.setDate(parameter, new java.sql.Date(System.currentTimeMillis()));
+                case Types.TIMESTAMP -> explain.setTimestamp(parameter, new Timestamp(System.currentTimeMillis()));
+                case Types.BOOLEAN -> explain.setBoolean(parameter, true);
+                default -> explain.setString(parameter, "1");
+            }
+        }
+
+    }
+
+
+    /**
+     * Create an argument of the expected type for every parameter of a query method
+     */
+    private static Object[] arguments(Method method) {
+
+        Type[] types = method.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+
+        for (int parameter = 0; parameter < types.length; parameter++) {
+            arguments[parameter] = argument(types[parameter]);
+        }
+
+        return arguments;
+
+    }
+
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object argument(Type type) {
+
+        if (type instanceof ParameterizedType collection
+                && Collection.class.isAssignableFrom((Class<?>) collection.getRawType())) {
+            return Set.of(argument(collection.getActualTypeArguments()[0]));
+        }
+
+        Class<?> parameterClass = (Class<?>) type;
+
+        if (parameterClass.isEnum()) { return parameterClass.getEnumConstants()[0]; }
+        if (parameterClass == Long.class || parameterClass == long.class) { return 1L; }
+        if (parameterClass == Integer.class || parameterClass == int.class) { return 1; }
+        if (parameterClass == String.class) { return "testJournalist"; }
+        if (parameterClass == java.util.Date.class) { return new java.util.Date(); }
+        // Not the first page, so that Pages are counted as well
+        if (parameterClass == Pageable.class) { return PageRequest.of(1, 10); }
+
+        throw new IllegalArgumentException("No argument can be created for " + type);
+
+    }
+
+
+}
@@ -0,0 +1,138 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.search.SearchTermStatistics;
+import gr.aegean.icsd.newspaperapp.model.search.StoryIndex;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test Class for the similar name search of Stories, requested with fuzzy = true <br>
+ *
+ * The Story index is mocked, it is not ready unless a test says otherwise, so that searches are answered by the database
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Similar Name Search tests")
+@Tag("Repository")
+public class SimilarNameSearchTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StoryIndex storyIndex;
+
+    @SpyBean
+    private SearchTermStatistics searchTermStatistics;
+
+    // Published Stories, oldest first
+    private final List<Story> stories = new ArrayList<>();
+
+    // A Story a visitor cannot see
+    private Story draft;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User("similarJournalist", "testPassword", UserType.JOURNALIST);
+        Topic topic = new Topic("similarTopic", journalist);
+
+        entityManager.persist(journalist);
+        entityManager.persist(topic);
+
+        for (String name : List.of("Similar Elections", "Similar Electoral Reform", "Similar Selection")) {
+
+            Story story = new Story(name, journalist, "similarContent", Set.of(topic));
+            story.setState(StoryState.PUBLISHED);
+
+            entityManager.persist(story);
+            stories.add(story);
+        }
+
+        draft = new Story("Similar Elections Draft", journalist, "similarContent", Set.of(topic));
+        entityManager.persist(draft);
+
+        entityManager.flush();
+
+    }
+
+
+    @Nested
+    @DisplayName("Index tests")
+    @Tag("Search")
+    class indexTests {
+
+        @Test
+        @DisplayName("Stories are listed in the similarity order of the index, without the Stories the User cannot see")
+        public void ranked() throws Exception {
+
+            when(storyIndex.isReady()).thenReturn(true);
+            when(storyIndex.searchSimilar(eq("simlar elcetions"), any())).thenReturn(List.of(
+                    draft.getId(), stories.get(0).getId(), stories.get(2).getId(), stories.get(1).getId()));
+
+            mockMvc.perform(get("/api/v0/stories?name=simlar elcetions&fuzzy=true").secure(true))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$._embedded.*[*].id", contains(stories.get(0).getId().intValue(),
+                            stories.get(2).getId().intValue(), stories.get(1).getId().intValue())))
+                    .andExpect(jsonPath("$._links.self.href", containsString("fuzzy=true")));
+
+            verify(storyIndex, never()).search(any(), any(), any());
+            verify(searchTermStatistics, times(1)).recordStorySearch("simlar elcetions");
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Database tests")
+    @Tag("Search")
+    class databaseTests {
+
+        @Test
+        @DisplayName("Until the index is ready, the Stories matching the name are listed, newest first")
+        public void notReady() throws Exception {
+
+            mockMvc.perform(get("/api/v0/stories?name=similar elect&fuzzy=true").secure(true))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$._embedded.*[*].id", contains(stories.get(1).getId().intValue(),
+                            stories.get(0).getId().intValue())));
+
+            verify(storyIndex, never()).searchSimilar(any(), any());
+            verify(searchTermStatistics, times(1)).recordStorySearch("similar elect");
+
+        }
+
+    }
+
+}
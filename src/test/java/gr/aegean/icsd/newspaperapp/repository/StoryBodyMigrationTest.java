@@ -0,0 +1,165 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.repository.UserRepository;
+import gr.aegean.icsd.newspaperapp.model.search.SearchColumnBackfill;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the move of Story contents, stored in the story table by earlier versions, into Story bodies <br>
+ *
+ * The legacy column is added to the schema by each test and dropped by the move, which commits,
+ * so the tests are not transactional and remove their rows themselves
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@DisplayName("Story Body Migration tests")
+@Tag("Repository")
+public class StoryBodyMigrationTest {
+
+    private static final long legacyStoryID = 900001;
+
+    private static final long emptyStoryID = 900002;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SearchColumnBackfill backfill;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User author;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        author = userRepository.save(new User("migrationJournalist", "testPassword", UserType.JOURNALIST));
+
+        jdbcTemplate.execute("ALTER TABLE story ADD COLUMN content VARCHAR(1000)");
+
+        insertLegacyStory(legacyStoryID, "legacyStory", "Content stored in the story table by an earlier version");
+        insertLegacyStory(emptyStoryID, "emptyLegacyStory", null);
+
+    }
+
+
+    @AfterEach
+    public void cleanUp() {
+
+        if (hasLegacyColumn()) { jdbcTemplate.execute("ALTER TABLE story DROP COLUMN content"); }
+
+        storyRepository.deleteAllById(Set.of(legacyStoryID, emptyStoryID));
+        userRepository.delete(author);
+
+    }
+
+
+    private void insertLegacyStory(long id, String name, String content) {
+        jdbcTemplate.update("INSERT INTO story (id, creation_date, state, name, authorID, content) VALUES (?, CURRENT_DATE, ?, ?, ?, ?)",
+                id, StoryState.PUBLISHED.getCode(), name, author.getUsername(), content);
+    }
+
+
+    private boolean hasLegacyColumn() {
+
+        try {
+            jdbcTemplate.queryForList("SELECT content FROM story");
+            return true;
+        }
+        catch (BadSqlGrammarException e) {
+            return false;
+        }
+
+    }
+
+
+    private <T> T read(Supplier<T> reader) {
+        return new TransactionTemplate(transactionManager).execute(status -> reader.get());
+    }
+
+
+    @Nested
+    @DisplayName("Startup tests")
+    @Tag("Migration")
+    class startupTests {
+
+        @Test
+        @DisplayName("The content of a legacy Story is moved into a body, and the legacy column is dropped")
+        public void moved() {
+
+            backfill.backfill();
+
+            Story story = read(() -> {
+                Story found = storyRepository.findById(legacyStoryID).orElseThrow();
+                found.getContent();
+                return found;
+            });
+
+            assertAll(
+                    () -> assertEquals("Content stored in the story table by an earlier version", story.getContent()),
+                    () -> assertEquals("Content stored in the story table by an earlier version", story.getExcerpt()),
+                    () -> assertNotNull(story.getLastModified()),
+                    () -> assertFalse(hasLegacyColumn(), "The legacy column should be dropped")
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A legacy Story without a content is left without a body, and can still be read")
+        public void withoutContent() {
+
+            backfill.backfill();
+
+            StoryView story = read(() -> storyRepository.findVisibleByID(emptyStoryID,
+                    Set.of(StoryState.PUBLISHED), null).orElseThrow());
+
+            assertAll(
+                    () -> assertEquals("emptyLegacyStory", story.name()),
+                    () -> assertNull(story.content()),
+                    () -> assertEquals(1, read(() -> storyRepository.findContentsByIdIn(Set.of(emptyStoryID))).size())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Nothing is moved once the legacy column is gone")
+        public void alreadyMoved() {
+
+            backfill.backfill();
+            backfill.backfill();
+
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM story_body b JOIN story s ON s.bodyID = b.id " +
+                    "WHERE s.id = ?", Long.class, legacyStoryID));
+
+        }
+
+    }
+
+
+}
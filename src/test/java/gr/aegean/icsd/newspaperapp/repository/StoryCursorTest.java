@@ -0,0 +1,261 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.*;
+import gr.aegean.icsd.newspaperapp.model.service.StoryService;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test Class for the keyset pagination of Stories <br>
+ *
+ * The Stories of the tests share a Topic, so that the lists are filtered by it and hold no other Story
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Story Cursor tests")
+@Tag("Repository")
+public class StoryCursorTest {
+
+    private static final String journalistName = "cursorJournalist";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StoryService service;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Topic topic;
+
+    private final List<Story> stories = new ArrayList<>();
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User(journalistName, "testPassword", UserType.JOURNALIST);
+        User otherJournalist = new User("otherCursorJournalist", "testPassword", UserType.JOURNALIST);
+        topic = new Topic("cursorTopic", journalist);
+
+        entityManager.persist(journalist);
+        entityManager.persist(otherJournalist);
+        entityManager.persist(topic);
+
+        // Both Journalists have Stories in every state, several Stories share each state
+        for (int i = 0; i < 24; i++) {
+
+            Story story = new Story("cursorStory" + i, i % 2 == 0 ? journalist : otherJournalist,
+                    "testContent", Set.of(topic));
+            story.setState(StoryState.values()[(i / 2) % StoryState.values().length]);
+
+            entityManager.persist(story);
+            stories.add(story);
+        }
+
+        entityManager.flush();
+
+    }
+
+
+    private Specification<Story> ofTopic() {
+        return (root, query, builder) -> builder.equal(root.join("topicsList").get("id"), topic.getId());
+    }
+
+
+    private List<Long> ids(List<Story> stories) {
+        return stories.stream().map(Story::getId).toList();
+    }
+
+
+    private StoryWindow scroll(StoryCursor.Order order, StoryCursor cursor) {
+        return service.scrollStories(new StoryFilter(null, null, null, null, null, topic.getId()), order,
+                cursor == null ? "" : cursor.encode(), 5);
+    }
+
+
+    @Nested
+    @DisplayName("Encoding tests")
+    @Tag("Cursor")
+    class encodingTests {
+
+        @ParameterizedTest
+        @EnumSource(StoryCursor.Order.class)
+        @DisplayName("A cursor decodes to the position it was encoded from")
+        public void roundTrip(StoryCursor.Order order) {
+
+            for (StoryState state : StoryState.values()) {
+
+                StoryCursor after = new StoryCursor(order, state, 42, false);
+                StoryCursor before = new StoryCursor(order, state, 42, true);
+
+                assertEquals(after, StoryCursor.decode(after.encode(), order));
+                assertEquals(before, StoryCursor.decode(before.encode(), order));
+            }
+
+        }
+
+
+        @Test
+        @DisplayName("An empty cursor points at the first page")
+        public void emptyCursor() {
+
+            assertNull(StoryCursor.decode(null, StoryCursor.Order.NEWEST));
+            assertNull(StoryCursor.decode(" ", StoryCursor.Order.NEWEST));
+
+        }
+
+
+        @Test
+        @DisplayName("A damaged cursor, or a cursor of another order, is rejected")
+        public void damagedCursor() {
+
+            String otherOrder = new StoryCursor(StoryCursor.Order.NEWEST, StoryState.PUBLISHED, 42, false).encode();
+
+            List<String> damaged = List.of("not a cursor!", otherOrder,
+                    encode("WORKFLOW:f:9:42"), encode("WORKFLOW:f:4:forty"), encode("WORKFLOW:f:4"));
+
+            for (String cursor : damaged) {
+                assertThrows(IllegalArgumentException.class, () -> StoryCursor.decode(cursor, StoryCursor.Order.WORKFLOW),
+                        cursor + " should be rejected");
+            }
+
+        }
+
+
+        private String encode(String position) {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Seek tests")
+    @Tag("Cursor")
+    class seekTests {
+
+        @ParameterizedTest
+        @EnumSource(StoryCursor.Order.class)
+        @DisplayName("The Stories beyond a cursor are the ones after or before it in the order")
+        public void beyond(StoryCursor.Order order) {
+
+            List<Story> ordered = new ArrayList<>(stories);
+            ordered.sort(order.comparator());
+
+            for (int i = 0; i < ordered.size(); i++) {
+
+                Story story = ordered.get(i);
+
+                List<Story> after = storyRepository.findAll
+                        (ofTopic().and(StorySpecifications.beyond(StoryCursor.after(order, story))), order.sort());
+                List<Story> before = storyRepository.findAll
+                        (ofTopic().and(StorySpecifications.beyond(StoryCursor.before(order, story))), order.sort());
+
+                assertEquals(ids(ordered.subList(i + 1, ordered.size())), ids(after));
+                assertEquals(ids(ordered.subList(0, i)), ids(before));
+            }
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Journalist paging tests")
+    @Tag("Cursor")
+    class journalistPagingTests {
+
+        @ParameterizedTest
+        @EnumSource(StoryCursor.Order.class)
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("Paging forward and then backward lists every visible Story once, in order")
+        public void forwardAndBackward(StoryCursor.Order order) {
+
+            List<Long> visible = stories.stream()
+                    .filter(story -> story.getState() == StoryState.PUBLISHED
+                            || story.getAuthor().getUsername().equals(journalistName))
+                    .sorted(order.comparator())
+                    .map(Story::getId)
+                    .toList();
+
+            List<List<Long>> forward = new ArrayList<>();
+            StoryWindow window = scroll(order, null);
+            assertNull(window.previous(), "The first page should have no previous page");
+
+            while (true) {
+
+                forward.add(window.stories().stream().map(StoryView::id).toList());
+
+                if (window.next() == null) { break; }
+
+                window = scroll(order, window.next());
+            }
+
+            assertEquals(visible, forward.stream().flatMap(List::stream).toList());
+
+            List<List<Long>> backward = new ArrayList<>();
+            backward.add(forward.get(forward.size() - 1));
+
+            while (window.previous() != null) {
+
+                window = scroll(order, window.previous());
+
+                backward.add(0, window.stories().stream().map(StoryView::id).toList());
+            }
+
+            assertEquals(forward, backward);
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Request tests")
+    @Tag("Cursor")
+    class requestTests {
+
+        @Test
+        @DisplayName("A damaged cursor, or a cursor of another order, is answered with 400 Bad Request")
+        public void damagedCursor() throws Exception {
+
+            String otherOrder = new StoryCursor(StoryCursor.Order.NEWEST, StoryState.PUBLISHED, 42, false).encode();
+
+            mockMvc.perform(get("/api/v0/stories?cursor=damaged").secure(true))
+                    .andExpect(status().isBadRequest());
+
+            mockMvc.perform(get("/api/v0/stories?cursor=" + otherOrder).secure(true))
+                    .andExpect(status().isBadRequest());
+
+        }
+
+    }
+
+}
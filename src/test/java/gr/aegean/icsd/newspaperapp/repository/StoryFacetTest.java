@@ -0,0 +1,196 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFacets;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryFilter;
+import gr.aegean.icsd.newspaperapp.model.service.StoryService;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test Class for the facet counts of filtered Stories <br>
+ *
+ * The Stories of the tests share a Topic, so that the filters are restricted to it and count no other Story
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Story Facet tests")
+@Tag("Repository")
+public class StoryFacetTest {
+
+    private static final String journalistName = "facetJournalist";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StoryService service;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Topic topic;
+
+    private Topic otherTopic;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User(journalistName, "testPassword", UserType.JOURNALIST);
+        User otherJournalist = new User("otherFacetJournalist", "testPassword", UserType.JOURNALIST);
+        topic = new Topic("facetTopic", journalist);
+        otherTopic = new Topic("otherFacetTopic", journalist);
+
+        entityManager.persist(journalist);
+        entityManager.persist(otherJournalist);
+        entityManager.persist(topic);
+        entityManager.persist(otherTopic);
+
+        // Two published Stories in January, the Journalist's submitted Story and another Journalist's draft in March
+        story("Facet Elections", journalist, Set.of(topic), StoryState.PUBLISHED, LocalDate.of(2023, 1, 15));
+        story("Facet Reform", journalist, Set.of(topic, otherTopic), StoryState.PUBLISHED, LocalDate.of(2023, 1, 16));
+        story("Facet Elections Results", journalist, Set.of(topic, otherTopic), StoryState.SUBMITTED, LocalDate.of(2023, 3, 15));
+        story("Facet Elections Draft", otherJournalist, Set.of(topic), StoryState.CREATED, LocalDate.of(2023, 3, 16));
+
+        entityManager.flush();
+        entityManager.clear();
+
+    }
+
+
+    private void story(String name, User author, Set<Topic> topics, StoryState state, LocalDate creationDate) {
+
+        Story story = new Story(name, author, "facetContent", topics);
+        story.setState(state);
+
+        entityManager.persist(story);
+        entityManager.flush();
+
+        entityManager.createQuery("UPDATE Story s SET s.creationDate = :creationDate WHERE s.id = :id")
+                .setParameter("creationDate", Date.from(creationDate.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()))
+                .setParameter("id", story.getId())
+                .executeUpdate();
+
+    }
+
+
+    private StoryFilter ofTopic(String name) {
+        return new StoryFilter(name, null, null, null, null, topic.getId());
+    }
+
+
+    @Nested
+    @DisplayName("Count tests")
+    @Tag("Facet")
+    class countTests {
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("Visible Stories are counted per state, per Topic, largest first, and per month")
+        public void counts() {
+
+            StoryFacets facets = service.countStoryFacets(ofTopic(null));
+
+            assertAll(
+                    () -> assertEquals(Map.of(StoryState.PUBLISHED, 2L, StoryState.SUBMITTED, 1L), facets.states()),
+                    () -> assertEquals(List.of(new StoryFacets.TopicCount(topic.getId(), "facetTopic", 3),
+                            new StoryFacets.TopicCount(otherTopic.getId(), "otherFacetTopic", 2)), facets.topics()),
+                    () -> assertEquals(List.of("2023-01", "2023-03"), List.copyOf(facets.months().keySet())),
+                    () -> assertEquals(Map.of("2023-01", 2L, "2023-03", 1L), facets.months())
+            );
+
+        }
+
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("Only the Stories matching every criterion are counted")
+        public void filtered() {
+
+            StoryFacets facets = service.countStoryFacets(ofTopic("elections"));
+
+            assertAll(
+                    () -> assertEquals(Map.of(StoryState.PUBLISHED, 1L, StoryState.SUBMITTED, 1L), facets.states()),
+                    () -> assertEquals(List.of(2L, 1L), facets.topics().stream().map(StoryFacets.TopicCount::count).toList()),
+                    () -> assertEquals(Map.of("2023-01", 1L, "2023-03", 1L), facets.months())
+            );
+
+        }
+
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("A filter matching no Story has empty facets")
+        public void empty() {
+
+            StoryFacets facets = service.countStoryFacets(ofTopic("economy"));
+
+            assertAll(
+                    () -> assertTrue(facets.states().isEmpty()),
+                    () -> assertTrue(facets.topics().isEmpty()),
+                    () -> assertTrue(facets.months().isEmpty())
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Request tests")
+    @Tag("Facet")
+    class requestTests {
+
+        @Test
+        @DisplayName("Facets are returned along with the page when requested, counting what a visitor can see")
+        public void requested() throws Exception {
+
+            mockMvc.perform(get("/api/v0/stories/filter?topicID=" + topic.getId() + "&facets=true").secure(true))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.page.totalElements").value(2))
+                    .andExpect(jsonPath("$.facets.states.PUBLISHED").value(2))
+                    .andExpect(jsonPath("$.facets.states.SUBMITTED").doesNotExist())
+                    .andExpect(jsonPath("$.facets.topics[0].id").value(topic.getId()))
+                    .andExpect(jsonPath("$.facets.topics[0].count").value(2))
+                    .andExpect(jsonPath("$.facets.months.2023-01").value(2));
+
+        }
+
+
+        @Test
+        @DisplayName("Facets are left out unless requested")
+        public void notRequested() throws Exception {
+
+            mockMvc.perform(get("/api/v0/stories/filter?topicID=" + topic.getId()).secure(true))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.facets").doesNotExist());
+
+        }
+
+    }
+
+}
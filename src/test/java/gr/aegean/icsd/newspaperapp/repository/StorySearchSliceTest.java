@@ -0,0 +1,167 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.search.StoryIndex;
+import gr.aegean.icsd.newspaperapp.model.service.StoryService;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test Class for the name and content searches of Stories that skip counting every match <br>
+ *
+ * The Story index is mocked, it is not ready unless a test says otherwise, so that searches are answered by the database
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Story Search Slice tests")
+@Tag("Repository")
+public class StorySearchSliceTest {
+
+    private static final String journalistName = "sliceJournalist";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StoryService service;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StoryIndex storyIndex;
+
+    // Newest first
+    private final List<Long> storyIDs = new ArrayList<>();
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User(journalistName, "testPassword", UserType.JOURNALIST);
+        Topic topic = new Topic("sliceTopic", journalist);
+
+        entityManager.persist(journalist);
+        entityManager.persist(topic);
+
+        for (int i = 0; i < 3; i++) {
+
+            Story story = new Story("sliceStory" + i, journalist, "sliceContent of story " + i, Set.of(topic));
+            story.setState(StoryState.PUBLISHED);
+
+            entityManager.persist(story);
+            storyIDs.add(0, story.getId());
+        }
+
+        entityManager.flush();
+
+    }
+
+
+    private List<Long> ids(Slice<StoryView> stories) {
+        return stories.getContent().stream().map(StoryView::id).toList();
+    }
+
+
+    @Nested
+    @DisplayName("Database tests")
+    @Tag("Search")
+    class databaseTests {
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("The database reads one Story more than requested, newest first, instead of counting them")
+        public void slices() {
+
+            Slice<StoryView> first = service.sliceStoriesBySearch("sliceStory", null, PageRequest.of(0, 2));
+            Slice<StoryView> second = service.sliceStoriesBySearch(null, "sliceContent", PageRequest.of(1, 2));
+
+            assertAll(
+                    () -> assertFalse(first instanceof Page<?>, "The total should not be counted"),
+                    () -> assertEquals(storyIDs.subList(0, 2), ids(first)),
+                    () -> assertTrue(first.hasNext()),
+                    () -> assertEquals(storyIDs.subList(2, 3), ids(second)),
+                    () -> assertFalse(second.hasNext())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A request without totals keeps them out of the metadata and of its links")
+        public void request() throws Exception {
+
+            for (String search : List.of("name=sliceStory", "content=sliceContent", "name=sliceStory&content=sliceContent")) {
+
+                mockMvc.perform(get("/api/v0/stories?" + search + "&size=2&total=false").secure(true))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.page.totalElements").doesNotExist())
+                        .andExpect(jsonPath("$._links.next.href", containsString("total=false")));
+            }
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Index tests")
+    @Tag("Search")
+    class indexTests {
+
+        @Test
+        @WithMockUser(username = journalistName, authorities = "ROLE_JOURNALIST")
+        @DisplayName("Once the index is ready, the Slice is cut from the ranked matches of the index")
+        public void index() {
+
+            // The index ranks the oldest Story first
+            List<Long> ranked = new ArrayList<>(storyIDs);
+            Collections.reverse(ranked);
+
+            when(storyIndex.isReady()).thenReturn(true);
+            when(storyIndex.search(any(), isNull(), any())).thenReturn(ranked);
+
+            Slice<StoryView> first = service.sliceStoriesBySearch("sliceStory", null, PageRequest.of(0, 2));
+
+            assertAll(
+                    () -> assertFalse(first instanceof Page<?>, "The total should not be returned"),
+                    () -> assertEquals(ranked.subList(0, 2), ids(first)),
+                    () -> assertTrue(first.hasNext())
+            );
+
+        }
+
+    }
+
+
+}
@@ -0,0 +1,190 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.service.StoryService;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the resolution of the Topics of a created or updated Story <br>
+ *
+ * Only APPROVED Topics may be attached to a Story, and they are read by a single query,
+ * counted by the {@link QueryPlanTest.CapturedStatements} inspector
+ */
+@SpringBootTest(properties = {"search.index.directory=",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "gr.aegean.icsd.newspaperapp.repository.QueryPlanTest$CapturedStatements"})
+@Transactional
+@WithMockUser(username = StoryTopicResolutionTest.journalistName, authorities = "ROLE_JOURNALIST")
+@DisplayName("Story Topic Resolution tests")
+@Tag("Repository")
+public class StoryTopicResolutionTest {
+
+    static final String journalistName = "resolutionJournalist";
+
+    // ID that no Topic has
+    private static final int missingID = Integer.MAX_VALUE;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StoryService service;
+
+    private final List<Topic> approved = new ArrayList<>();
+
+    private Topic submitted;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User(journalistName, "testPassword", UserType.JOURNALIST);
+        entityManager.persist(journalist);
+
+        for (int i = 0; i < 5; i++) {
+
+            Topic topic = new Topic("resolutionTopic" + i, journalist);
+            topic.setState(TopicState.APPROVED);
+
+            entityManager.persist(topic);
+            approved.add(topic);
+        }
+
+        submitted = new Topic("resolutionSubmittedTopic", journalist);
+        entityManager.persist(submitted);
+
+        entityManager.flush();
+        entityManager.clear();
+
+    }
+
+
+    private static List<Integer> ids(List<Topic> topics) {
+        return topics.stream().map(topic -> topic.getId().intValue()).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+
+    private Set<Long> topicsOf(Long storyID) {
+
+        entityManager.flush();
+        entityManager.clear();
+
+        return entityManager.find(Story.class, storyID).getTopics().stream().map(Topic::getId).collect(Collectors.toSet());
+
+    }
+
+
+    /**
+     * Number of statements reading the topic table, since the inspector was last cleared
+     */
+    private static long topicQueries() {
+
+        synchronized (QueryPlanTest.CapturedStatements.statements) {
+            return QueryPlanTest.CapturedStatements.statements.stream()
+                    .filter(sql -> sql.toLowerCase().contains("from topic "))
+                    .count();
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Creation tests")
+    @Tag("Topic")
+    class creationTests {
+
+        @Test
+        @DisplayName("Only the APPROVED Topics are attached, submitted and missing Topics are left out")
+        public void approvedOnly() {
+
+            List<Integer> requested = ids(approved.subList(0, 2));
+            requested.add(submitted.getId().intValue());
+            requested.add(missingID);
+
+            Story story = service.createStory("Resolution Story", "resolutionContent", requested);
+
+            assertEquals(Set.of(approved.get(0).getId(), approved.get(1).getId()), topicsOf(story.getId()));
+
+        }
+
+
+        @Test
+        @DisplayName("A Story whose requested Topics are all unavailable is not created")
+        public void noneApproved() {
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.createStory("Resolution Story", "resolutionContent",
+                            List.of(submitted.getId().intValue(), missingID)));
+
+        }
+
+
+        @Test
+        @DisplayName("The Topics are read by one query, however many are requested")
+        public void singleQuery() {
+
+            List<Integer> requested = ids(approved);
+            requested.add(approved.get(0).getId().intValue());
+
+            QueryPlanTest.CapturedStatements.statements.clear();
+
+            Story story = service.createStory("Resolution Story", "resolutionContent", requested);
+
+            assertAll(
+                    () -> assertEquals(1, topicQueries()),
+                    () -> assertEquals(5, topicsOf(story.getId()).size())
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Update tests")
+    @Tag("Topic")
+    class updateTests {
+
+        @Test
+        @DisplayName("The Topics are replaced by the APPROVED Topics requested, read by one query")
+        public void replaced() {
+
+            Story story = service.createStory("Resolution Story", "resolutionContent", ids(approved.subList(0, 1)));
+
+            List<Integer> requested = ids(approved.subList(2, 5));
+            requested.add(submitted.getId().intValue());
+            requested.add(missingID);
+
+            entityManager.flush();
+            entityManager.clear();
+            QueryPlanTest.CapturedStatements.statements.clear();
+
+            service.updateStory(story.getId(), null, null, requested);
+
+            assertAll(
+                    () -> assertEquals(1, topicQueries()),
+                    () -> assertEquals(Set.of(approved.get(2).getId(), approved.get(3).getId(), approved.get(4).getId()),
+                            topicsOf(story.getId()))
+            );
+
+        }
+
+    }
+
+}
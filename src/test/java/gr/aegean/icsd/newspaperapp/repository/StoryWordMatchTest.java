@@ -0,0 +1,192 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.*;
+import gr.aegean.icsd.newspaperapp.model.search.StoryIndex;
+import gr.aegean.icsd.newspaperapp.model.search.StoryVisibility;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the matching of Story searches, by the {@link StoryIndex} and by the database until it is ready <br>
+ *
+ * Both must find the same Stories, every term matching the start of a word.
+ * The tests are not transactional, so that the index is built from the committed Stories
+ */
+@SpringBootTest(properties = {"search.index.directory=", "search.index.refresh-interval=3600000"})
+@DisplayName("Story Word Match tests")
+@Tag("Repository")
+public class StoryWordMatchTest {
+
+    private static final StoryVisibility everyStory = new StoryVisibility(EnumSet.allOf(StoryState.class), null);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private StoryIndex storyIndex;
+
+    private User journalist;
+
+    private Topic topic;
+
+    // Stories by their number in the tests, starting from 1
+    private final List<Story> stories = new ArrayList<>();
+
+
+    @BeforeEach
+    public void initialize() {
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+
+            journalist = new User("wordMatchJournalist", "testPassword", UserType.JOURNALIST);
+            topic = new Topic("wordMatchTopic", journalist);
+
+            entityManager.persist(journalist);
+            entityManager.persist(topic);
+
+            stories.add(new Story("Local Elections", journalist, "The results of the local elections", Set.of(topic)));
+            stories.add(new Story("Electoral Reform", journalist, "A reform of the electoral law", Set.of(topic)));
+            stories.add(new Story("Selection of the Jury", journalist, "The selection of the jury", Set.of(topic)));
+            stories.add(new Story("Εκλογές στην Αθήνα", journalist, "Τα αποτελέσματα των εκλογών", Set.of(topic)));
+
+            stories.forEach(entityManager::persist);
+        });
+
+        storyIndex.rebuild();
+
+    }
+
+
+    @AfterEach
+    public void cleanUp() {
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+
+            storyRepository.deleteAllById(stories.stream().map(Story::getId).toList());
+            topicRepository.deleteById(topic.getId());
+            entityManager.remove(entityManager.find(User.class, journalist.getUsername()));
+        });
+
+        storyIndex.rebuild();
+
+    }
+
+
+    /**
+     * Numbers of the Stories of the test among the provided IDs
+     */
+    private Set<Integer> numbers(Collection<Long> ids) {
+
+        Set<Integer> numbers = new TreeSet<>();
+
+        for (int i = 0; i < stories.size(); i++) {
+            if (ids.contains(stories.get(i).getId())) { numbers.add(i + 1); }
+        }
+
+        return numbers;
+
+    }
+
+
+    private Set<Integer> parse(String expected) {
+
+        Set<Integer> numbers = new TreeSet<>();
+
+        for (String number : expected.split(" ")) {
+            if (!number.isBlank()) { numbers.add(Integer.parseInt(number)); }
+        }
+
+        return numbers;
+
+    }
+
+
+    private Set<Integer> searchDatabase(String name, String content) {
+
+        StoryFilter filter = new StoryFilter(name, content, null, null, null, null);
+
+        return new TransactionTemplate(transactionManager).execute(status -> numbers(storyRepository
+                .findAll(StorySpecifications.matching(filter, everyStory)).stream().map(Story::getId).toList()));
+
+    }
+
+
+    @Nested
+    @DisplayName("Name tests")
+    @Tag("Search")
+    class nameTests {
+
+        @ParameterizedTest(name = "{0} finds [{1}]")
+        @CsvSource(delimiter = ';', value = {
+                "elect; 1 2", "Elections local; 1", "loc elect; 1", "lection; ''", "jury selection; 3",
+                "ΕΚΛΟΓΗ; 4", "αθηνα εκλ; 4", "%; ''", "...; ''"})
+        @DisplayName("The index and the database find the Stories with a word starting with every term")
+        public void name(String query, String expected) {
+
+            assertAll(query,
+                    () -> assertEquals(parse(expected), numbers(storyIndex.search(query, null, everyStory)), "Index"),
+                    () -> assertEquals(parse(expected), searchDatabase(query, null), "Database")
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Content tests")
+    @Tag("Search")
+    class contentTests {
+
+        @ParameterizedTest(name = "{0} finds [{1}]")
+        @CsvSource(delimiter = ';', value = {
+                "result; 1", "sult; ''", "the jur; 3", "electoral law; 2", "εκλογων αποτελεσ; 4", "_; ''"})
+        @DisplayName("The index and the database find the Stories with a word starting with every term")
+        public void content(String query, String expected) {
+
+            assertAll(query,
+                    () -> assertEquals(parse(expected), numbers(storyIndex.search(null, query, everyStory)), "Index"),
+                    () -> assertEquals(parse(expected), searchDatabase(null, query), "Database")
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A name and content search needs both to match")
+        public void nameAndContent() {
+
+            assertAll(
+                    () -> assertEquals(Set.of(1), numbers(storyIndex.search("elect", "result", everyStory))),
+                    () -> assertEquals(Set.of(1), searchDatabase("elect", "result"))
+            );
+
+        }
+
+    }
+
+}
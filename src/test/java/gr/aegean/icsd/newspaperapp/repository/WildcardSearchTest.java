@@ -0,0 +1,141 @@
+package gr.aegean.icsd.newspaperapp.repository;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Comment;
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.*;
+import gr.aegean.icsd.newspaperapp.model.search.StoryVisibility;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the searches answered by LIKE queries, whose LIKE wildcards must only match themselves
+ */
+@SpringBootTest(properties = "search.index.directory=")
+@Transactional
+@DisplayName("Wildcard Search tests")
+@Tag("Repository")
+public class WildcardSearchTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private Story story;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        User journalist = new User("wildcardJournalist", "testPassword", UserType.JOURNALIST);
+        Topic topic = new Topic("wildcardTopic", journalist);
+        story = new Story("wildcardStory", journalist, "wildcardContent", Set.of(topic));
+
+        entityManager.persist(journalist);
+        entityManager.persist(topic);
+        entityManager.persist(story);
+
+        entityManager.persist(new Comment(story, "Prices fell by 50% overnight", journalist));
+        entityManager.persist(new Comment(story, "Prices fell by 500 overnight", journalist));
+        entityManager.persist(new Comment(story, "Read the file user_guide", journalist));
+        entityManager.persist(new Comment(story, "Read the file userXguide", journalist));
+
+        entityManager.flush();
+
+    }
+
+
+    private List<String> comments(String content) {
+        return commentRepository.findByContentContainingIgnoreCaseAndStateIn(content, EnumSet.allOf(CommentState.class),
+                Pageable.unpaged()).map(CommentView::content).toList();
+    }
+
+
+    private List<Long> stories(StoryFilter filter, StoryVisibility visibility) {
+        return storyRepository.findAll(StorySpecifications.matching(filter, visibility)).stream().map(Story::getId).toList();
+    }
+
+
+    @Nested
+    @DisplayName("Literal wildcard tests")
+    @Tag("Search")
+    class literalTests {
+
+        @Test
+        @DisplayName("A % only matches a literal %")
+        public void percent() {
+            assertEquals(List.of("Prices fell by 50% overnight"), comments("0% over"));
+        }
+
+
+        @Test
+        @DisplayName("An _ only matches a literal _")
+        public void underscore() {
+            assertEquals(List.of("Read the file user_guide"), comments("user_guide"));
+        }
+
+
+        @Test
+        @DisplayName("A search for a wildcard alone does not match every Story and Topic")
+        public void wildcardAlone() {
+
+            Set<StoryState> storyStates = EnumSet.allOf(StoryState.class);
+            Set<TopicState> topicStates = EnumSet.allOf(TopicState.class);
+
+            assertAll(
+                    () -> assertTrue(stories(new StoryFilter("%", null, null, null, null, null),
+                            new StoryVisibility(storyStates, null)).isEmpty()),
+                    () -> assertTrue(stories(new StoryFilter(null, "_", null, null, null, null),
+                            new StoryVisibility(storyStates, null)).isEmpty()),
+                    () -> assertTrue(stories(new StoryFilter("%", "%", null, null, null, null),
+                            new StoryVisibility(Set.of(), "wildcardJournalist")).isEmpty()),
+                    () -> assertTrue(topicRepository.findByNormalizedNameContainingAndStateIn("%", topicStates,
+                            Pageable.unpaged()).isEmpty()),
+                    () -> assertTrue(topicRepository.findOwnTopicsByName("_", Set.of(), "wildcardJournalist",
+                            Pageable.unpaged()).isEmpty()),
+                    () -> assertTrue(commentRepository.findOwnByContent("%", Set.of(), "wildcardJournalist",
+                            Pageable.unpaged()).isEmpty())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Escaped searches still match the text they contain")
+        public void plainText() {
+
+            assertAll(
+                    () -> assertEquals(List.of(story.getId()), stories(new StoryFilter("wildcardstory",
+                            null, null, null, null, null), new StoryVisibility(EnumSet.allOf(StoryState.class), null))),
+                    () -> assertEquals(4, comments("overnight").size() + comments("guide").size())
+            );
+
+        }
+
+    }
+
+
+}
@@ -0,0 +1,124 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.CountMinSketch;
+import gr.aegean.icsd.newspaperapp.model.search.HeavyHitters;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the sketch of term frequencies and the most frequent terms kept along with it
+ */
+@DisplayName("Heavy Hitters tests")
+@Tag("Search")
+public class HeavyHittersTest {
+
+    private static final int frequentTerms = 10;
+
+    /**
+     * The frequent term i occurs ( frequentTerms - i ) * 20 times, among 2000 terms that occur once,
+     * in a shuffled order
+     */
+    private static List<String> stream(long seed) {
+
+        List<String> stream = new ArrayList<>();
+
+        for (int i = 0; i < frequentTerms; i++) {
+            stream.addAll(Collections.nCopies((frequentTerms - i) * 20, "frequent" + i));
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            stream.add("rare" + i);
+        }
+
+        Collections.shuffle(stream, new Random(seed));
+
+        return stream;
+    }
+
+
+    @Test
+    @DisplayName("The sketch never underestimates a term")
+    public void sketchEstimates() {
+
+        CountMinSketch sketch = new CountMinSketch(256, 4);
+
+        stream(1).forEach(sketch::add);
+
+        assertAll(
+                () -> assertTrue(sketch.estimate("frequent0") >= 200),
+                () -> assertTrue(sketch.estimate("frequent9") >= 20),
+                () -> assertTrue(sketch.estimate("rare0") >= 1),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 4))
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("The most frequent terms are kept, most frequent first")
+    public void mostFrequent() {
+
+        HeavyHitters terms = new HeavyHitters(4096, 4, 5);
+
+        List<String> stream = stream(2);
+        stream.forEach(terms::add);
+
+        List<HeavyHitters.Estimate> top = terms.top();
+
+        assertAll(
+                () -> assertEquals(stream.size(), terms.total()),
+                () -> assertEquals(List.of("frequent0", "frequent1", "frequent2", "frequent3", "frequent4"),
+                        top.stream().map(HeavyHitters.Estimate::term).toList()),
+                () -> assertTrue(top.get(0).estimate() >= 200)
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("Terms counted by many threads at once are all counted")
+    public void concurrentAdds() throws Exception {
+
+        HeavyHitters terms = new HeavyHitters(4096, 4, 5);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        try {
+
+            List<Future<?>> counted = new ArrayList<>();
+
+            for (int thread = 0; thread < 8; thread++) {
+                List<String> stream = stream(thread);
+                counted.add(threads.submit(() -> stream.forEach(terms::add)));
+            }
+
+            for (Future<?> thread : counted) {
+                thread.get();
+            }
+
+        }
+        finally {
+            threads.shutdown();
+        }
+
+        List<HeavyHitters.Estimate> top = terms.top();
+
+        assertAll(
+                () -> assertEquals(8L * stream(0).size(), terms.total()),
+                () -> assertEquals(List.of("frequent0", "frequent1", "frequent2", "frequent3", "frequent4"),
+                        top.stream().map(HeavyHitters.Estimate::term).toList()),
+                () -> assertTrue(top.get(0).estimate() >= 8 * 200)
+        );
+
+    }
+
+
+}
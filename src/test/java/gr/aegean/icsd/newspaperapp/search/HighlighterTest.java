@@ -0,0 +1,136 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.Highlighter;
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the snippets of search results, with their matches marked
+ */
+@DisplayName("Highlighter tests")
+@Tag("Search")
+public class HighlighterTest {
+
+
+    /**
+     * Offsets of every word of a text whose term is one of the provided terms, as the search index stores them
+     */
+    private static List<int[]> offsets(String text, String... terms) {
+
+        List<String> searched = List.of(terms);
+        List<int[]> offsets = new ArrayList<>();
+
+        for (TextAnalyzer.Token token : TextAnalyzer.tokenize(text)) {
+            if (searched.contains(token.term())) { offsets.add(new int[] {token.start(), token.end()}); }
+        }
+
+        return offsets;
+
+    }
+
+
+    @Nested
+    @DisplayName("Marking tests")
+    @Tag("Highlight")
+    class markingTests {
+
+        @Test
+        @DisplayName("A short text is returned whole, with every match marked")
+        public void shortText() {
+
+            String text = "Local elections and the elections of Αθήνα";
+
+            assertEquals("Local <em>elections</em> and the <em>elections</em> of <em>Αθήνα</em>",
+                    Highlighter.snippet(text, offsets(text, "elections", "αθην")));
+
+        }
+
+
+        @Test
+        @DisplayName("Matches are marked in any order, overlapping matches are merged")
+        public void overlapping() {
+
+            String text = "Local Elections";
+
+            assertEquals("<em>Local</em> <em>Elections</em>",
+                    Highlighter.snippet(text, List.of(new int[] {8, 15}, new int[] {0, 5}, new int[] {6, 10})));
+
+        }
+
+
+        @Test
+        @DisplayName("The text is HTML escaped, only the marks are markup")
+        public void escaped() {
+
+            String text = "<b>Tom & Jerry</b>";
+
+            assertEquals("&lt;b&gt;<em>Tom</em> &amp; Jerry&lt;/b&gt;", Highlighter.snippet(text, offsets(text, "tom")));
+
+        }
+
+
+        @Test
+        @DisplayName("Without any match within the text there is no snippet")
+        public void noMatch() {
+
+            assertAll(
+                    () -> assertNull(Highlighter.snippet(null, List.of(new int[] {0, 1}))),
+                    () -> assertNull(Highlighter.snippet("Local Elections", List.of())),
+                    () -> assertNull(Highlighter.snippet("Local Elections", List.of(new int[] {10, 20}, new int[] {3, 3})))
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Window tests")
+    @Tag("Highlight")
+    class windowTests {
+
+        private final String text = "word ".repeat(100) + "elections " + "word ".repeat(100);
+
+
+        @Test
+        @DisplayName("A long text is cut around its first match, without cutting words in half")
+        public void longText() {
+
+            String snippet = Highlighter.snippet(text, offsets(text, "elections"));
+            String shown = snippet.substring(1, snippet.length() - 1).replace("<em>", "").replace("</em>", "");
+
+            assertAll(
+                    () -> assertTrue(snippet.startsWith("…word ")),
+                    () -> assertTrue(snippet.endsWith(" word…")),
+                    () -> assertTrue(snippet.contains("<em>elections</em>")),
+                    () -> assertTrue(shown.length() <= 160),
+                    () -> assertTrue(shown.indexOf("elections") < shown.length() / 2,
+                            "The match should be placed in the first half of the snippet")
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A text starting with its match is not cut before it")
+        public void leadingMatch() {
+
+            String leading = "Elections " + text;
+
+            String snippet = Highlighter.snippet(leading, offsets(leading, "elections"));
+
+            assertAll(
+                    () -> assertTrue(snippet.startsWith("<em>Elections</em> word")),
+                    () -> assertTrue(snippet.endsWith("…"))
+            );
+
+        }
+
+    }
+
+}
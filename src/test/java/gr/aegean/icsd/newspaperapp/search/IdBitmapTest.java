@@ -0,0 +1,93 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.IdBitmap;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the compressed bitmap of IDs
+ */
+@DisplayName("ID Bitmap tests")
+@Tag("Search")
+public class IdBitmapTest {
+
+
+    private static IdBitmap of(long from, long to, long step) {
+
+        IdBitmap bitmap = new IdBitmap();
+
+        for (long id = from; id < to; id += step) {
+            bitmap.add(id);
+        }
+
+        return bitmap;
+    }
+
+
+    @Test
+    @DisplayName("IDs can be added and removed, in sparse and dense containers")
+    public void addAndRemove() {
+
+        IdBitmap sparse = of(1, 100, 3);
+        IdBitmap dense = of(0, 10_000, 1);
+
+        sparse.remove(4);
+        dense.remove(5_000);
+        dense.remove(20_000);
+
+        assertAll(
+                () -> assertEquals(32, sparse.cardinality()),
+                () -> assertFalse(sparse.contains(4)),
+                () -> assertTrue(sparse.contains(7)),
+                () -> assertEquals(9_999, dense.cardinality()),
+                () -> assertFalse(dense.contains(5_000)),
+                () -> assertTrue(dense.contains(9_999))
+        );
+    }
+
+    @Test
+    @DisplayName("Intersection and union match across containers of every kind")
+    public void andOr() {
+
+        IdBitmap evens = of(0, 200_000, 2);
+        IdBitmap sparse = of(0, 200_000, 1_000);
+
+        IdBitmap intersection = evens.and(sparse);
+        IdBitmap union = evens.or(of(1, 11, 2));
+
+        assertAll(
+                () -> assertEquals(200, intersection.cardinality()),
+                () -> assertTrue(intersection.contains(199_000)),
+                () -> assertEquals(100_005, union.cardinality()),
+                () -> assertTrue(union.contains(9)),
+                () -> assertEquals(100_000, evens.cardinality(), "Operands should not be modified")
+        );
+    }
+
+    @Test
+    @DisplayName("Pages list IDs highest first, across containers")
+    public void pageDescending() {
+
+        IdBitmap bitmap = of(65_530, 65_542, 1);
+
+        assertAll(
+                () -> assertEquals(List.of(65_541L, 65_540L, 65_539L), bitmap.pageDescending(0, 3)),
+                () -> assertEquals(List.of(65_536L, 65_535L, 65_534L), bitmap.pageDescending(5, 3)),
+                () -> assertEquals(List.of(65_531L, 65_530L), bitmap.pageDescending(10, 3)),
+                () -> assertEquals(List.of(), bitmap.pageDescending(12, 3))
+        );
+    }
+
+    @Test
+    @DisplayName("Pages of dense containers skip whole containers")
+    public void pageDescendingDense() {
+
+        IdBitmap bitmap = of(0, 140_000, 1);
+
+        assertEquals(List.of(9L, 8L), bitmap.pageDescending(139_990, 2));
+    }
+
+}
@@ -0,0 +1,164 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.IndexSnapshot;
+import gr.aegean.icsd.newspaperapp.model.search.IndexedStory;
+import gr.aegean.icsd.newspaperapp.model.search.InvertedIndex;
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import org.junit.jupiter.api.*;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the Story inverted index
+ */
+@DisplayName("Inverted Index tests")
+@Tag("Search")
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void initialize() {
+
+        index = new InvertedIndex();
+
+        index.put(new IndexedStory(1L, StoryState.PUBLISHED, "testJournalist"),
+                text("Elections results", "The elections were held on Sunday, elections again"));
+
+        index.put(new IndexedStory(2L, StoryState.CREATED, "testJournalist"),
+                text("Weather forecast", "Sunny weather expected"));
+
+    }
+
+    private static Map<SearchField, String> text(String name, String content) {
+
+        Map<SearchField, String> text = new EnumMap<>(SearchField.class);
+        text.put(SearchField.NAME, name);
+        text.put(SearchField.CONTENT, content);
+
+        return text;
+    }
+
+    @Nested
+    @DisplayName("Match Tests")
+    @Tag("Match")
+    class matchTests {
+
+        @Test
+        @DisplayName("Whole term, counts every occurrence")
+        public void wholeTerm() {
+
+            Map<Long, Integer> matches = index.match(SearchField.CONTENT, "elections");
+
+            assertAll(
+                    () -> assertEquals(1, matches.size(), "Only one Story contains the term"),
+                    () -> assertEquals(2, matches.get(1L), "The term occurs twice in the content")
+            );
+        }
+
+        @Test
+        @DisplayName("Prefix of a term")
+        public void prefix() {
+
+            Map<Long, Integer> matches = index.match(SearchField.CONTENT, "sun");
+
+            assertEquals(2, matches.size(), "'Sunday' and 'Sunny' should both match");
+        }
+
+        @Test
+        @DisplayName("Term is case insensitive and limited to its field")
+        public void caseAndField() {
+
+            assertAll(
+                    () -> assertTrue(index.match(SearchField.NAME, "weather").containsKey(2L)),
+                    () -> assertTrue(index.match(SearchField.NAME, "held").isEmpty(),
+                            "Content terms should not match the name")
+            );
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Update Tests")
+    @Tag("Update")
+    class updateTests {
+
+        @Test
+        @DisplayName("Re-indexing a Story replaces its terms and attributes")
+        public void reindex() {
+
+            index.put(new IndexedStory(2L, StoryState.SUBMITTED, "testJournalist"),
+                    text("Storm warning", "Heavy rain expected"));
+
+            assertAll(
+                    () -> assertTrue(index.match(SearchField.NAME, "weather").isEmpty(),
+                            "Old terms should be removed"),
+                    () -> assertTrue(index.match(SearchField.NAME, "storm").containsKey(2L)),
+                    () -> assertEquals(StoryState.SUBMITTED, index.document(2L).orElseThrow().state()),
+                    () -> assertEquals(2, index.size())
+            );
+        }
+
+        @Test
+        @DisplayName("Removing a Story")
+        public void remove() {
+
+            index.remove(1L);
+            index.remove(42L);
+
+            assertAll(
+                    () -> assertTrue(index.match(SearchField.CONTENT, "elections").isEmpty()),
+                    () -> assertTrue(index.document(1L).isEmpty()),
+                    () -> assertEquals(1, index.size())
+            );
+        }
+
+        @Test
+        @DisplayName("An attribute update changes the Story, while its postings stay in the older segment")
+        public void attributeUpdate() {
+
+            InvertedIndex newerIndex = new InvertedIndex();
+            newerIndex.updateAttributes(new IndexedStory(1L, StoryState.SUBMITTED, "testJournalist"));
+            newerIndex.updateAttributes(new IndexedStory(1L, StoryState.PUBLISHED, "testJournalist"));
+            index.updateAttributes(new IndexedStory(2L, StoryState.SUBMITTED, "testJournalist"));
+
+            IndexSnapshot snapshot = new IndexSnapshot(List.of(index, newerIndex));
+
+            assertAll(
+                    () -> assertEquals(StoryState.PUBLISHED, snapshot.document(1L).orElseThrow().state()),
+                    () -> assertEquals(Set.of(1L), snapshot.match(SearchField.CONTENT, "elections").keySet()),
+                    () -> assertEquals(2, snapshot.size()),
+                    () -> assertEquals(Set.of(1L), newerIndex.attributeUpdates().keySet()),
+                    () -> assertEquals(StoryState.SUBMITTED, index.document(2L).orElseThrow().state(),
+                            "A Story held by the index itself is updated in place"),
+                    () -> assertTrue(index.attributeUpdates().isEmpty())
+            );
+        }
+
+        @Test
+        @DisplayName("The postings of a Story are collected from the segments holding its current version")
+        public void collectPostings() {
+
+            InvertedIndex newerIndex = new InvertedIndex();
+            newerIndex.put(new IndexedStory(2L, StoryState.SUBMITTED, "testJournalist"),
+                    text("Storm warning", "Heavy rain expected"));
+
+            Map<Long, Map<SearchField, Map<String, int[]>>> postings =
+                    new IndexSnapshot(List.of(index, newerIndex)).postings(Set.of(1L, 2L));
+
+            assertAll(
+                    () -> assertEquals(Set.of("elections", "results"), postings.get(1L).get(SearchField.NAME).keySet()),
+                    () -> assertEquals(4, postings.get(1L).get(SearchField.CONTENT).get("elections").length),
+                    () -> assertEquals(Set.of("storm", "warning"), postings.get(2L).get(SearchField.NAME).keySet())
+            );
+        }
+
+    }
+
+}
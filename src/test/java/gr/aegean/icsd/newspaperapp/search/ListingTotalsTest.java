@@ -0,0 +1,131 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.repository.CommentRepository;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import gr.aegean.icsd.newspaperapp.model.search.ListingTotals;
+import gr.aegean.icsd.newspaperapp.model.search.TopicVisibility;
+import gr.aegean.icsd.newspaperapp.util.enums.CommentState;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class for the in-memory totals of the Topic and Comment listings
+ */
+@DisplayName("Listing Totals tests")
+@Tag("Search")
+public class ListingTotalsTest {
+
+    private static final TopicVisibility everyTopic = new TopicVisibility(Set.of(TopicState.values()), null);
+
+    private TopicRepository topicRepository;
+
+    private ListingTotals totals;
+
+    // Rows returned by the Topic count of the database
+    private List<Object[]> topicRows;
+
+    @BeforeEach
+    public void initialize() {
+
+        topicRepository = mock(TopicRepository.class);
+        CommentRepository commentRepository = mock(CommentRepository.class);
+
+        topicRows = new ArrayList<>();
+        topicRows.add(new Object[] {TopicState.APPROVED, "testCurator", 2L});
+
+        when(topicRepository.countByStateAndAuthor()).thenAnswer(count -> List.copyOf(topicRows));
+        when(commentRepository.countByStoryStateAndAuthor())
+                .thenReturn(List.<Object[]>of(new Object[] {1L, CommentState.APPROVED, null, 3L}));
+
+        totals = new ListingTotals(topicRepository, commentRepository);
+
+    }
+
+
+    @Test
+    @DisplayName("Totals are counted, and follow the changes committed afterwards")
+    public void counted() {
+
+        assertFalse(totals.isReady());
+
+        totals.reconcile();
+
+        totals.topicChanged(null, TopicState.SUBMITTED, "testJournalist");
+        totals.commentChanged(1L, null, CommentState.SUBMITTED, null);
+        totals.commentChanged(1L, CommentState.APPROVED, null, null);
+
+        assertAll(
+                () -> assertTrue(totals.isReady()),
+                () -> assertEquals(3, totals.countTopics(everyTopic)),
+                () -> assertEquals(1, totals.countTopics(new TopicVisibility(Set.of(), "testJournalist"))),
+                () -> assertEquals(3, totals.countComments(1L, Set.of(CommentState.values()), null)),
+                () -> assertEquals(2, totals.countComments(1L, Set.of(CommentState.APPROVED), null))
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("Changes committed before the database is counted are not counted twice")
+    public void committedBeforeCount() {
+
+        // Queued until the totals are counted, and read by the count
+        totals.topicChanged(null, TopicState.SUBMITTED, "testJournalist");
+        topicRows.add(new Object[] {TopicState.SUBMITTED, "testJournalist", 1L});
+
+        totals.reconcile();
+
+        assertAll(
+                () -> assertTrue(totals.isReady()),
+                () -> assertEquals(3, totals.countTopics(everyTopic))
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("Changes committed while the database is counted lead to another recount")
+    public void committedDuringRecount() {
+
+        // The first count sees a Topic whose change commits while the database is being counted
+        when(topicRepository.countByStateAndAuthor()).thenAnswer(count -> {
+            totals.topicChanged(null, TopicState.SUBMITTED, "testJournalist");
+            topicRows.add(new Object[] {TopicState.SUBMITTED, "testJournalist", 1L});
+            return List.copyOf(topicRows);
+        }).thenAnswer(count -> List.copyOf(topicRows));
+
+        totals.reconcile();
+
+        assertAll(
+                () -> assertTrue(totals.isReady()),
+                () -> assertEquals(3, totals.countTopics(everyTopic))
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("The database counts the totals while every recount overlaps a change")
+    public void alwaysOverlapped() {
+
+        when(topicRepository.countByStateAndAuthor()).thenAnswer(count -> {
+            totals.topicChanged(null, TopicState.SUBMITTED, "testJournalist");
+            return List.copyOf(topicRows);
+        });
+
+        totals.reconcile();
+
+        assertFalse(totals.isReady());
+
+    }
+
+
+}
@@ -0,0 +1,336 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Story;
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryRepository;
+import gr.aegean.icsd.newspaperapp.model.search.*;
+import gr.aegean.icsd.newspaperapp.util.enums.SearchField;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class for the files of the persisted Story search index
+ */
+@DisplayName("Persisted Index tests")
+@Tag("Search")
+public class PersistedIndexTest {
+
+    @TempDir
+    private Path directory;
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void initialize() {
+
+        index = new InvertedIndex();
+
+        index.put(new IndexedStory(1L, StoryState.PUBLISHED, "testJournalist"),
+                text("Elections results", "The elections were held on Sunday, elections again"));
+
+        index.put(new IndexedStory(2L, StoryState.CREATED, "testJournalist"),
+                text("Weather forecast", "Sunny weather expected"));
+
+    }
+
+    private static Map<SearchField, String> text(String name, String content) {
+
+        Map<SearchField, String> text = new EnumMap<>(SearchField.class);
+        text.put(SearchField.NAME, name);
+        text.put(SearchField.CONTENT, content);
+
+        return text;
+    }
+
+    private MappedSegment write(String name, List<? extends IndexSegment> sources) throws IOException {
+
+        Path path = directory.resolve(name);
+        SegmentWriter.write(path, sources, TextAnalyzer.version);
+
+        return MappedSegment.open(path, TextAnalyzer.version);
+    }
+
+    @Nested
+    @DisplayName("Segment Tests")
+    @Tag("Segment")
+    class segmentTests {
+
+        @Test
+        @DisplayName("Segment answers like the index it was written from")
+        public void roundTrip() throws IOException {
+
+            MappedSegment segment = write("segment-1.idx", List.of(index));
+
+            assertAll(
+                    () -> assertEquals(2, segment.size()),
+                    () -> assertEquals(index.match(SearchField.CONTENT, "sun"), segment.match(SearchField.CONTENT, "sun")),
+                    () -> assertEquals(index.match(SearchField.CONTENT, "elections"),
+                            segment.match(SearchField.CONTENT, "elections")),
+                    () -> assertEquals(index.document(2L), segment.document(2L)),
+                    () -> assertTrue(segment.document(3L).isEmpty())
+            );
+        }
+
+        @Test
+        @DisplayName("Newer segments hide older versions of a Story")
+        public void newestVersion() throws IOException {
+
+            MappedSegment older = write("segment-1.idx", List.of(index));
+
+            InvertedIndex newer = new InvertedIndex();
+            newer.put(new IndexedStory(1L, StoryState.SUBMITTED, "testJournalist"),
+                    text("Referendum results", "No more mentions"));
+
+            IndexSnapshot snapshot = new IndexSnapshot(List.of(older, newer));
+            MappedSegment merged = write("segment-2.idx", List.of(older, newer));
+
+            assertAll(
+                    () -> assertEquals(2, snapshot.size()),
+                    () -> assertTrue(snapshot.match(SearchField.CONTENT, "elections").isEmpty()),
+                    () -> assertEquals(StoryState.SUBMITTED, snapshot.document(1L).orElseThrow().state()),
+                    () -> assertEquals(2, merged.size()),
+                    () -> assertTrue(merged.match(SearchField.CONTENT, "elections").isEmpty()),
+                    () -> assertEquals(Set.of(1L), merged.match(SearchField.NAME, "referendum").keySet())
+            );
+        }
+
+        @Test
+        @DisplayName("Damaged segment is rejected")
+        public void damaged() throws IOException {
+
+            Path path = write("segment-1.idx", List.of(index)).getPath();
+
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                int firstByte = file.read();
+                file.seek(0);
+                file.write(firstByte ^ 0xFF);
+            }
+
+            assertThrows(CorruptIndexException.class, () -> MappedSegment.open(path, TextAnalyzer.version));
+        }
+
+        @Test
+        @DisplayName("Segment written by another analyzer is rejected")
+        public void otherAnalyzer() throws IOException {
+
+            Path path = write("segment-1.idx", List.of(index)).getPath();
+
+            assertThrows(CorruptIndexException.class, () -> MappedSegment.open(path, TextAnalyzer.version + 1));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Write-Ahead Log Tests")
+    @Tag("Log")
+    class logTests {
+
+        @Test
+        @DisplayName("Log is replayed up to a torn record")
+        public void tornRecord() throws IOException {
+
+            Path path = directory.resolve("wal-1.log");
+
+            try (WriteAheadLog log = WriteAheadLog.open(path, 0)) {
+                log.append(new WriteAheadLog.Entry(new IndexedStory(1L, StoryState.CREATED, "testJournalist"),
+                        text("First", "Story")));
+                log.append(new WriteAheadLog.Entry(new IndexedStory(2L, StoryState.CREATED, "testJournalist"),
+                        text("Second", "Story")));
+            }
+
+            // Simulate a crash in the middle of writing the second record
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(file.length() - 3);
+            }
+
+            List<WriteAheadLog.Entry> entries = new ArrayList<>();
+            long validLength = WriteAheadLog.read(path, entries);
+
+            WriteAheadLog.open(path, validLength).close();
+
+            assertAll(
+                    () -> assertEquals(1, entries.size()),
+                    () -> assertEquals("First", entries.get(0).text().get(SearchField.NAME)),
+                    () -> assertEquals(validLength, Files.size(path), "The torn record should be truncated")
+            );
+        }
+
+        @Test
+        @DisplayName("An attribute update is logged without text")
+        public void attributeUpdate() throws IOException {
+
+            Path path = directory.resolve("wal-1.log");
+
+            try (WriteAheadLog log = WriteAheadLog.open(path, 0)) {
+                log.append(new WriteAheadLog.Entry(new IndexedStory(1L, StoryState.CREATED, "testJournalist"),
+                        text("First", "Story")));
+                log.write(new WriteAheadLog.Entry(new IndexedStory(1L, StoryState.SUBMITTED, "testJournalist"), null));
+                log.sync();
+            }
+
+            List<WriteAheadLog.Entry> entries = new ArrayList<>();
+            WriteAheadLog.read(path, entries);
+
+            assertAll(
+                    () -> assertEquals(2, entries.size()),
+                    () -> assertEquals(StoryState.SUBMITTED, entries.get(1).story().state()),
+                    () -> assertNull(entries.get(1).text())
+            );
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Manifest Tests")
+    @Tag("Manifest")
+    class manifestTests {
+
+        @Test
+        @DisplayName("Logs of an interrupted flush are kept")
+        public void interruptedFlush() throws IOException {
+
+            SegmentWriter.write(directory.resolve("segment-1.idx"), List.of(index), TextAnalyzer.version);
+            WriteAheadLog.open(directory.resolve("wal-2.log"), 0).close();
+            WriteAheadLog.open(directory.resolve("wal-4.log"), 0).close();
+            Files.createFile(directory.resolve("segment-3.idx"));
+
+            // The manifest written before switching logs, the segment of the flush was never referenced
+            new IndexManifest(TextAnalyzer.version, List.of("segment-1.idx"), List.of("wal-2.log", "wal-4.log"), 4,
+                    1700000000000L).write(directory);
+
+            IndexManifest manifest = IndexManifest.read(directory).orElseThrow();
+            manifest.deleteUnreferenced(directory);
+
+            assertAll(
+                    () -> assertEquals(List.of("wal-2.log", "wal-4.log"), manifest.logs()),
+                    () -> assertEquals("wal-4.log", manifest.activeLog()),
+                    () -> assertEquals(1700000000000L, manifest.watermark()),
+                    () -> assertTrue(Files.exists(directory.resolve("wal-2.log"))),
+                    () -> assertTrue(Files.exists(directory.resolve("wal-4.log"))),
+                    () -> assertFalse(Files.exists(directory.resolve("segment-3.idx")))
+            );
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Open Tests")
+    @Tag("Index")
+    class openTests {
+
+        private final User author = new User("testJournalist", "testPassword", UserType.JOURNALIST);
+
+        private final StoryVisibility published = new StoryVisibility(Set.of(StoryState.PUBLISHED), null);
+
+        private StoryRepository storyRepository;
+
+        // Stories returned by the next poll for modified Stories
+        private List<Story> modifiedStories;
+
+        @BeforeEach
+        public void initialize() {
+
+            Story story = story(StoryState.SUBMITTED, 1000);
+            modifiedStories = new ArrayList<>();
+
+            storyRepository = mock(StoryRepository.class);
+
+            when(storyRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(story)));
+            when(storyRepository.findContentsByIdIn(any()))
+                    .thenReturn(List.<Object[]>of(new Object[] {1L, "The elections were held on Sunday"}));
+            when(storyRepository.findLastModified()).thenReturn(new Date(1000));
+            when(storyRepository.count()).thenReturn(1L);
+            when(storyRepository.findMaxID()).thenReturn(1L);
+            when(storyRepository.findModifiedAfter(any(), any(), any())).thenAnswer(poll -> {
+                List<Story> batch = List.copyOf(modifiedStories);
+                modifiedStories.clear();
+                return batch;
+            });
+        }
+
+        private Story story(StoryState state, long lastModified) {
+
+            Story story = new Story("Elections results", author, "The elections were held on Sunday",
+                    new Topic("Politics", author));
+            story.setState(state);
+
+            ReflectionTestUtils.setField(story, "id", 1L);
+            ReflectionTestUtils.setField(story, "lastModified", new Date(lastModified));
+
+            return story;
+        }
+
+        private StoryIndex open() {
+
+            StoryIndex storyIndex = new StoryIndex(storyRepository, directory.toString(), 1000, 4, 100, 60000, 30000);
+            storyIndex.open();
+
+            return storyIndex;
+        }
+
+        @Test
+        @DisplayName("A change committed but never logged is caught up from the watermark when the index is opened")
+        public void unloggedChange() {
+
+            StoryIndex builtIndex = open();
+            builtIndex.close();
+
+            assertTrue(builtIndex.search("elections", null, published).isEmpty());
+
+            // Published, but the process stopped before the change was logged, the count and greatest ID are unchanged
+            modifiedStories.add(story(StoryState.PUBLISHED, 2000));
+
+            StoryIndex openedIndex = open();
+            openedIndex.close();
+
+            assertAll(
+                    () -> assertTrue(openedIndex.isReady()),
+                    () -> assertEquals(List.of(1L), openedIndex.search("elections", null, published)),
+                    () -> assertTrue(Files.exists(directory.resolve("manifest.properties")))
+            );
+        }
+
+        @Test
+        @DisplayName("A state transition is logged, flushed along with the postings it keeps, and reopened")
+        public void stateTransition() {
+
+            StoryIndex builtIndex = new StoryIndex(storyRepository, directory.toString(), 1, 4, 100, 60000, 30000);
+            builtIndex.open();
+
+            builtIndex.updateState(story(StoryState.PUBLISHED, 2000));
+
+            assertEquals(List.of(1L), builtIndex.search("elections", "sunday", published));
+
+            // The transition is the only Story held in memory, and is written to a segment of its own
+            builtIndex.maintain();
+            builtIndex.close();
+
+            StoryIndex openedIndex = open();
+            openedIndex.close();
+
+            assertAll(
+                    () -> assertEquals(List.of(1L), openedIndex.search("elections", "sunday", published)),
+                    () -> assertEquals(1, openedIndex.matchOffsets(List.of(1L), null, "sunday").size())
+            );
+        }
+
+    }
+
+}
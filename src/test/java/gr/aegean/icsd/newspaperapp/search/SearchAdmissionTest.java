@@ -0,0 +1,183 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.SearchAdmission;
+import org.junit.jupiter.api.*;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the admission control of the searches answered by the database
+ */
+@DisplayName("Search Admission tests")
+@Tag("Search")
+public class SearchAdmissionTest {
+
+    // Searches costing 2 or more are expensive, one of them can run at once
+    private final SearchAdmission admission = new SearchAdmission(2, 1);
+
+
+    @Nested
+    @DisplayName("Cost estimation tests")
+    @Tag("Admission")
+    class estimationTests {
+
+        @Test
+        @DisplayName("A search without any term costs nothing, however deep its page")
+        public void noTerms() {
+
+            assertAll(
+                    () -> assertEquals(0, SearchAdmission.estimateCost(1, 0)),
+                    () -> assertEquals(0, SearchAdmission.estimateCost(1, 0, (String) null)),
+                    () -> assertEquals(0, SearchAdmission.estimateCost(1, 0, null, " ", "")),
+                    () -> assertEquals(0, SearchAdmission.estimateCost(1, 1_000_000, (String) null))
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Short terms cost more, the longest term decides and surrounding blanks are ignored")
+        public void termLength() {
+
+            assertAll(
+                    () -> assertEquals(3, SearchAdmission.estimateCost(1, 0, "a")),
+                    () -> assertEquals(1.5, SearchAdmission.estimateCost(1, 0, "ab")),
+                    () -> assertEquals(1, SearchAdmission.estimateCost(1, 0, "abc")),
+                    () -> assertEquals(1, SearchAdmission.estimateCost(1, 0, "elections")),
+                    () -> assertEquals(3, SearchAdmission.estimateCost(1, 0, "  a  ")),
+                    () -> assertEquals(1, SearchAdmission.estimateCost(1, 0, "a", null, "elections"))
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Indexed criteria lower the cost, deep pages raise it")
+        public void selectivityAndDepth() {
+
+            assertAll(
+                    () -> assertEquals(0.1, SearchAdmission.estimateCost(0.1, 0, "abc"), 1e-9),
+                    () -> assertEquals(2, SearchAdmission.estimateCost(1, 1000, "abc")),
+                    () -> assertEquals(303, SearchAdmission.estimateCost(1, 100_000, "a")),
+                    () -> assertTrue(Double.isFinite(SearchAdmission.estimateCost(1, Long.MAX_VALUE, "a")))
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Admission tests")
+    @Tag("Admission")
+    class admissionTests {
+
+        @Test
+        @DisplayName("Cheap searches run while the budget of expensive searches is exhausted")
+        public void cheap() {
+
+            String result = admission.admit(2, () -> admission.admit(1.9, () -> "cheap"));
+
+            assertEquals("cheap", result);
+
+        }
+
+
+        @Test
+        @DisplayName("An expensive search over the budget is rejected with 429 Too Many Requests, without running")
+        public void rejected() {
+
+            boolean[] ran = {false};
+
+            ResponseStatusException rejection = admission.admit(2, () -> assertThrows(ResponseStatusException.class,
+                    () -> admission.admit(5, () -> ran[0] = true)));
+
+            assertAll(
+                    () -> assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejection.getStatusCode()),
+                    () -> assertFalse(ran[0])
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("The budget is released once an expensive search completes, fails or times out")
+        public void released() {
+
+            assertEquals("first", admission.admit(2, () -> "first"));
+
+            assertThrows(IllegalStateException.class, () -> admission.admit(2, () -> {
+                throw new IllegalStateException("Failed search");
+            }));
+
+            assertThrows(ResponseStatusException.class, () -> admission.admit(2, () -> {
+                throw new QueryTimeoutException("Timed out search");
+            }));
+
+            assertEquals("last", admission.admit(2, () -> "last"));
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Timeout tests")
+    @Tag("Admission")
+    class timeoutTests {
+
+        private void assertUnavailable(double cost, RuntimeException timeout) {
+
+            Supplier<Object> search = () -> { throw timeout; };
+
+            ResponseStatusException answer = assertThrows(ResponseStatusException.class, () -> admission.admit(cost, search));
+
+            assertAll(
+                    () -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE, answer.getStatusCode()),
+                    () -> assertSame(timeout, answer.getCause())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A search whose query times out is answered with 503 Service Unavailable")
+        public void queryTimeout() {
+
+            assertUnavailable(1, new QueryTimeoutException("Query timed out"));
+            assertUnavailable(2, new QueryTimeoutException("Query timed out"));
+
+        }
+
+
+        @Test
+        @DisplayName("A search whose transaction times out is answered with 503 Service Unavailable")
+        public void transactionTimeout() {
+
+            assertUnavailable(1, new TransactionTimedOutException("Transaction timed out"));
+            assertUnavailable(2, new TransactionTimedOutException("Transaction timed out"));
+
+        }
+
+
+        @Test
+        @DisplayName("Other failures of a search are not mistaken for timeouts")
+        public void otherFailure() {
+
+            IllegalArgumentException failure = new IllegalArgumentException("Damaged search");
+
+            assertSame(failure, assertThrows(IllegalArgumentException.class, () -> admission.admit(1, () -> {
+                throw failure;
+            })));
+
+        }
+
+    }
+
+}
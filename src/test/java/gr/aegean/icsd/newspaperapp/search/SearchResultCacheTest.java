@@ -0,0 +1,127 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.SearchResultCache;
+import gr.aegean.icsd.newspaperapp.model.search.StoryVisibility;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the cache of search results
+ */
+@DisplayName("Search Result Cache tests")
+@Tag("Search")
+public class SearchResultCacheTest {
+
+    private final StoryVisibility visitor = new StoryVisibility(Set.of(StoryState.PUBLISHED), null);
+
+    private final StoryVisibility journalist = new StoryVisibility(Set.of(StoryState.PUBLISHED), "testJournalist");
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+
+    private List<Long> search() {
+        searches.incrementAndGet();
+        return List.of(3L, 2L, 1L);
+    }
+
+
+    @Test
+    @DisplayName("Identical searches are only run once")
+    public void hit() {
+
+        SearchResultCache cache = new SearchResultCache(10, 60_000);
+        SearchResultCache.Key key = new SearchResultCache.Key("name", "εκλογ", visitor);
+
+        cache.get(key, this::search);
+
+        assertAll(
+                () -> assertEquals(List.of(3L, 2L, 1L), cache.get(key, this::search)),
+                () -> assertEquals(1, searches.get())
+        );
+    }
+
+    @Test
+    @DisplayName("Users with different visibility do not share results")
+    public void visibility() {
+
+        SearchResultCache cache = new SearchResultCache(10, 60_000);
+
+        cache.get(new SearchResultCache.Key("name", "εκλογ", visitor), this::search);
+        cache.get(new SearchResultCache.Key("name", "εκλογ", journalist), this::search);
+        cache.get(new SearchResultCache.Key("name", "εκλογ", new StoryVisibility(Set.of(StoryState.PUBLISHED), null)),
+                this::search);
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    @DisplayName("Least recently used search is evicted once the cache is full")
+    public void eviction() {
+
+        SearchResultCache cache = new SearchResultCache(2, 60_000);
+        SearchResultCache.Key first = new SearchResultCache.Key("name", "a", visitor);
+        SearchResultCache.Key second = new SearchResultCache.Key("name", "b", visitor);
+        SearchResultCache.Key third = new SearchResultCache.Key("name", "c", visitor);
+
+        cache.get(first, this::search);
+        cache.get(second, this::search);
+        cache.get(first, this::search);
+        cache.get(third, this::search);
+
+        cache.get(first, this::search);
+        assertEquals(3, searches.get(), "Recently used search should still be cached");
+
+        cache.get(second, this::search);
+        assertEquals(4, searches.get(), "Least recently used search should have been evicted");
+    }
+
+    @Test
+    @DisplayName("Expired searches are run again")
+    public void expiry() {
+
+        SearchResultCache cache = new SearchResultCache(10, 0);
+        SearchResultCache.Key key = new SearchResultCache.Key("name", "εκλογ", visitor);
+
+        cache.get(key, this::search);
+        cache.get(key, this::search);
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    @DisplayName("Invalidation removes every cached search")
+    public void invalidation() {
+
+        SearchResultCache cache = new SearchResultCache(10, 60_000);
+        SearchResultCache.Key key = new SearchResultCache.Key("name", "εκλογ", visitor);
+
+        cache.get(key, this::search);
+        cache.invalidate();
+        cache.get(key, this::search);
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    @DisplayName("Search running during an invalidation is not cached")
+    public void concurrentInvalidation() {
+
+        SearchResultCache cache = new SearchResultCache(10, 60_000);
+        SearchResultCache.Key key = new SearchResultCache.Key("name", "εκλογ", visitor);
+
+        cache.get(key, () -> {
+            cache.invalidate();
+            return search();
+        });
+        cache.get(key, this::search);
+
+        assertEquals(2, searches.get());
+    }
+
+}
@@ -0,0 +1,128 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.repository.CommentView;
+import gr.aegean.icsd.newspaperapp.model.repository.StoryView;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicView;
+import gr.aegean.icsd.newspaperapp.model.search.HeavyHitters;
+import gr.aegean.icsd.newspaperapp.model.search.SearchTermStatistics;
+import gr.aegean.icsd.newspaperapp.model.service.CommentService;
+import gr.aegean.icsd.newspaperapp.model.service.SearchService;
+import gr.aegean.icsd.newspaperapp.model.service.StoryService;
+import gr.aegean.icsd.newspaperapp.model.service.TopicService;
+import gr.aegean.icsd.newspaperapp.util.enums.StoryState;
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Class for the unified search of Stories, Topics and Comments <br>
+ *
+ * The services are mocked, the search only merges what they return
+ */
+@DisplayName("Search Service tests")
+@Tag("Search")
+public class SearchServiceTest {
+
+    private StoryService storyService;
+
+    private SearchTermStatistics statistics;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private SearchService service;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        storyService = mock(StoryService.class);
+        TopicService topicService = mock(TopicService.class);
+        CommentService commentService = mock(CommentService.class);
+
+        when(storyService.searchStoriesByName(anyString(), any())).thenReturn(stories(1L, 2L));
+        when(storyService.searchStoriesByContent(anyString(), any())).thenReturn(stories(2L, 3L));
+        when(topicService.searchTopicByName(anyString(), any())).thenReturn(Page.empty());
+        when(commentService.searchCommentsByContent(anyString(), any())).thenReturn(Page.empty());
+
+        statistics = new SearchTermStatistics(256, 4, 10);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+
+        service = new SearchService(storyService, topicService, commentService, statistics, executor,
+                mock(PlatformTransactionManager.class), 5000, 5);
+
+    }
+
+
+    @AfterEach
+    public void shutDown() {
+        executor.shutdown();
+    }
+
+
+    private static Page<StoryView> stories(Long... ids) {
+        return new PageImpl<>(List.of(ids).stream()
+                .map(id -> new StoryView(id, new Date(), StoryState.PUBLISHED, "story" + id, null, null, null, "author"))
+                .toList());
+    }
+
+
+    private SearchService.SearchResults<Long, TopicView, CommentView> search(String query) {
+        return service.search(query, 10, StoryView::id, Function.identity(), Function.identity());
+    }
+
+
+    @Nested
+    @DisplayName("Statistics tests")
+    @Tag("Analytics")
+    class statisticsTests {
+
+        @Test
+        @DisplayName("A unified search counts its terms once, although Stories are searched by name and by content")
+        public void countedOnce() {
+
+            search("Elections");
+            search("Elections results");
+
+            HeavyHitters terms = statistics.getStoryTerms();
+
+            assertAll(
+                    () -> assertEquals(3, terms.total()),
+                    () -> assertEquals(List.of(new HeavyHitters.Estimate("elections", 2)), terms.top().subList(0, 1))
+            );
+
+            verify(storyService, never()).findStoriesByName(anyString(), any());
+            verify(storyService, never()).findStoriesByContent(anyString(), any());
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Merge tests")
+    @Tag("Search")
+    class mergeTests {
+
+        @Test
+        @DisplayName("Stories matching by name are ranked before those matching only by content, once each")
+        public void merged() {
+            assertEquals(List.of(1L, 2L, 3L), search("Elections").stories());
+        }
+
+    }
+
+
+}
@@ -0,0 +1,94 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the text analysis shared by indexing and querying
+ */
+@DisplayName("Text Analyzer tests")
+@Tag("Search")
+public class TextAnalyzerTest {
+
+    @Nested
+    @DisplayName("Normalization Tests")
+    @Tag("Normalization")
+    class normalizationTests {
+
+        @Test
+        @DisplayName("Tonos, diaeresis and case are ignored")
+        public void diacritics() {
+
+            assertAll(
+                    () -> assertEquals(TextAnalyzer.normalize("Πρόεδρος"), TextAnalyzer.normalize("ΠΡΟΕΔΡΟΣ")),
+                    () -> assertEquals(TextAnalyzer.normalize("προϋπολογισμός"), TextAnalyzer.normalize("προυπολογισμος")),
+                    () -> assertEquals(TextAnalyzer.normalize("Café"), TextAnalyzer.normalize("cafe"))
+            );
+        }
+
+        @Test
+        @DisplayName("Final sigma is folded into sigma")
+        public void finalSigma() {
+
+            assertFalse(TextAnalyzer.normalize("Σςσ").contains("ς"));
+        }
+
+        @Test
+        @DisplayName("Inflections of a Greek word share a stem")
+        public void stemming() {
+
+            assertAll(
+                    () -> assertEquals(TextAnalyzer.normalize("εκλογή"), TextAnalyzer.normalize("εκλογές")),
+                    () -> assertEquals(TextAnalyzer.normalize("εκλογών"), TextAnalyzer.normalize("Εκλογές")),
+                    () -> assertEquals(TextAnalyzer.normalize("δρόμος"), TextAnalyzer.normalize("δρόμου")),
+                    () -> assertEquals("και", TextAnalyzer.normalize("και"), "Short words should not be stemmed"),
+                    () -> assertEquals("elections", TextAnalyzer.normalize("Elections"), "Only Greek words are stemmed")
+            );
+        }
+
+        @Test
+        @DisplayName("Normalized query is found inside a normalized text")
+        public void normalizedText() {
+
+            String text = TextAnalyzer.normalizeText("Οι εκλογές, στην Ελλάδα!");
+
+            assertAll(
+                    () -> assertTrue(text.contains(TextAnalyzer.normalizeText("ΕΚΛΟΓΗ στην"))),
+                    () -> assertEquals("", TextAnalyzer.normalizeText(null))
+            );
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Tokenization Tests")
+    @Tag("Tokenization")
+    class tokenizationTests {
+
+        @Test
+        @DisplayName("Offsets point to the original words")
+        public void offsets() {
+
+            String text = "Η Βουλή, ψήφισε";
+            List<TextAnalyzer.Token> tokens = TextAnalyzer.tokenize(text);
+
+            assertAll(
+                    () -> assertEquals(3, tokens.size()),
+                    () -> assertEquals("Βουλή", text.substring(tokens.get(1).start(), tokens.get(1).end()))
+            );
+        }
+
+        @Test
+        @DisplayName("Decomposed accents do not split a word")
+        public void decomposed() {
+
+            assertEquals(1, TextAnalyzer.tokenize("\u03b5\u0301\u03ba\u03bb\u03bf\u03b3\u03b7").size());
+        }
+
+    }
+
+}
@@ -0,0 +1,342 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.entity.Topic;
+import gr.aegean.icsd.newspaperapp.model.entity.User;
+import gr.aegean.icsd.newspaperapp.model.repository.TopicRepository;
+import gr.aegean.icsd.newspaperapp.model.search.*;
+import gr.aegean.icsd.newspaperapp.model.service.TopicService;
+import gr.aegean.icsd.newspaperapp.util.enums.TopicState;
+import gr.aegean.icsd.newspaperapp.util.enums.UserType;
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Class for the in-process index of Topics
+ */
+@DisplayName("Topic Index tests")
+@Tag("Search")
+public class TopicIndexTest {
+
+    private static final TopicVisibility everyTopic = new TopicVisibility(Set.of(TopicState.values()), null);
+
+    private static final User author = new User("testJournalist", "testPassword", UserType.JOURNALIST);
+
+    private TopicRepository topicRepository;
+
+    private TopicIndex index;
+
+    // Topics persisted in the database when the index is built
+    private List<Topic> persistedTopics;
+
+    // Topics modified by other instances, returned by the next poll
+    private List<Topic> modifiedTopics;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        topicRepository = mock(TopicRepository.class);
+
+        persistedTopics = new ArrayList<>();
+        modifiedTopics = new ArrayList<>();
+
+        when(topicRepository.findAll(any(Pageable.class))).thenAnswer(batch -> new PageImpl<>(List.copyOf(persistedTopics)));
+        when(topicRepository.findLastModified()).thenReturn(new Date(1000));
+        when(topicRepository.findModifiedAfter(any(), any(), any())).thenAnswer(poll -> {
+            List<Topic> batch = List.copyOf(modifiedTopics);
+            modifiedTopics.clear();
+            return batch;
+        });
+
+        index = new TopicIndex(topicRepository, 100, 60000, 30000);
+
+    }
+
+
+    private static Topic topic(long id, String name, TopicState state, long lastModified) {
+
+        Topic topic = new Topic(name, author);
+        topic.setState(state);
+
+        ReflectionTestUtils.setField(topic, "id", id);
+        ReflectionTestUtils.setField(topic, "lastModified", new Date(lastModified));
+
+        return topic;
+
+    }
+
+
+    @Nested
+    @DisplayName("Refresh tests")
+    @Tag("Index")
+    class refreshTests {
+
+        @Test
+        @DisplayName("Topics created or changed by other instances are indexed by the next refresh")
+        public void otherInstances() {
+
+            persistedTopics.add(topic(1, "Elections", TopicState.APPROVED, 1000));
+            index.rebuild();
+
+            modifiedTopics.add(topic(2, "Economy", TopicState.APPROVED, 2000));
+            modifiedTopics.add(topic(1, "Local Elections", TopicState.APPROVED, 2000));
+            index.refresh();
+
+            assertAll(
+                    () -> assertEquals(List.of(2L), index.searchName("economy", everyTopic)),
+                    () -> assertEquals(List.of(1L), index.searchName("local", everyTopic)),
+                    () -> assertEquals(List.of(1L), index.suggest("loc", 10).stream()
+                            .map(PrefixIndex.Suggestion::id).toList())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A refresh does not replace a Topic with an older version of it")
+        public void olderVersion() {
+
+            index.rebuild();
+
+            index.update(topic(1, "Local Elections", TopicState.APPROVED, 3000));
+
+            modifiedTopics.add(topic(1, "Elections", TopicState.SUBMITTED, 2000));
+            index.refresh();
+
+            assertAll(
+                    () -> assertEquals(List.of(1L), index.searchName("local", everyTopic)),
+                    () -> assertEquals(1, index.suggest("loc", 10).size())
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Nothing is polled before the index has been built")
+        public void notBuilt() {
+
+            modifiedTopics.add(topic(2, "Economy", TopicState.APPROVED, 2000));
+            index.refresh();
+
+            assertFalse(index.isReady());
+            assertEquals(1, modifiedTopics.size());
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Suggestion tests")
+    @Tag("Index")
+    class suggestionTests {
+
+        @BeforeEach
+        public void build() {
+
+            persistedTopics.add(topic(1, "Local Elections", TopicState.APPROVED, 1000));
+            persistedTopics.add(topic(2, "Elections 2024", TopicState.APPROVED, 1000));
+            persistedTopics.add(topic(3, "Electric Cars", TopicState.SUBMITTED, 1000));
+            persistedTopics.add(topic(4, "Εκλογές στην Αθήνα", TopicState.APPROVED, 1000));
+            index.rebuild();
+
+        }
+
+
+        private List<Long> suggested(String prefix, int limit) {
+            return index.suggest(prefix, limit).stream().map(PrefixIndex.Suggestion::id).toList();
+        }
+
+
+        @Test
+        @DisplayName("Approved Topics whose name, or a later word of it, starts with the prefix are suggested")
+        public void prefix() {
+
+            assertAll(
+                    () -> assertEquals(List.of(1L, 2L), suggested("Elec", 10)),
+                    () -> assertEquals(List.of(1L), suggested("local el", 10)),
+                    () -> assertEquals(List.of(), suggested("lections", 10)),
+                    () -> assertEquals(List.of(4L), suggested("ΑΘΗΝΑ", 10)),
+                    () -> assertEquals(List.of(4L), suggested("εκλογε", 10))
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("Suggestions hold the original name and are limited")
+        public void limited() {
+
+            assertAll(
+                    () -> assertEquals(List.of(new PrefixIndex.Suggestion(1, "Local Elections")), index.suggest("elections", 1)),
+                    () -> assertEquals(List.of(), suggested("elec", 0)),
+                    () -> assertEquals(List.of(), suggested(" ", 10))
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Update tests")
+    @Tag("Index")
+    class updateTests {
+
+        @AfterEach
+        public void endTransaction() {
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+        }
+
+
+        /**
+         * Complete the transaction simulated by the test, running its synchronizations if it commits
+         */
+        private void complete(boolean commit) {
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+
+            if (commit) { synchronizations.forEach(TransactionSynchronization::afterCommit); }
+
+        }
+
+
+        @Test
+        @DisplayName("A Topic changed in a transaction is only suggested once the transaction commits")
+        public void afterCommit() {
+
+            index.rebuild();
+
+            TransactionSynchronizationManager.initSynchronization();
+            index.update(topic(1, "Economy", TopicState.APPROVED, 2000));
+
+            assertEquals(List.of(), index.suggest("eco", 10));
+
+            complete(true);
+
+            assertEquals(List.of(new PrefixIndex.Suggestion(1, "Economy")), index.suggest("eco", 10));
+
+        }
+
+
+        @Test
+        @DisplayName("A Topic changed in a transaction that rolls back is not suggested")
+        public void rollback() {
+
+            index.rebuild();
+
+            TransactionSynchronizationManager.initSynchronization();
+            index.update(topic(1, "Economy", TopicState.APPROVED, 2000));
+            complete(false);
+
+            assertEquals(List.of(), index.suggest("eco", 10));
+
+        }
+
+
+        @Test
+        @DisplayName("A Topic that is no longer approved, or deleted, is no longer suggested")
+        public void withdrawn() {
+
+            persistedTopics.add(topic(1, "Economy", TopicState.APPROVED, 1000));
+            persistedTopics.add(topic(2, "Ecology", TopicState.APPROVED, 1000));
+            index.rebuild();
+
+            index.update(topic(1, "Economy", TopicState.SUBMITTED, 2000));
+            index.remove(2);
+
+            assertAll(
+                    () -> assertEquals(List.of(), index.suggest("eco", 10)),
+                    () -> assertEquals(List.of(1L), index.searchName("economy", everyTopic))
+            );
+
+        }
+
+
+        @Test
+        @DisplayName("A Topic renamed while the index is built is suggested by its new name once it is ready")
+        public void duringBuild() {
+
+            persistedTopics.add(topic(1, "Economy", TopicState.APPROVED, 1000));
+
+            index.update(topic(1, "World Economy", TopicState.APPROVED, 2000));
+            assertFalse(index.isReady());
+
+            index.rebuild();
+
+            assertAll(
+                    () -> assertEquals(List.of(new PrefixIndex.Suggestion(1, "World Economy")), index.suggest("wor", 10)),
+                    () -> assertEquals(1, index.suggest("eco", 10).size())
+            );
+
+        }
+
+    }
+
+
+    @Nested
+    @DisplayName("Fallback tests")
+    @Tag("Index")
+    class fallbackTests {
+
+        private TopicService service;
+
+
+        @BeforeEach
+        public void createService() {
+
+            service = new TopicService(topicRepository, index, mock(ListingTotals.class), mock(SearchTermStatistics.class));
+
+            when(topicRepository.findByNormalizedNameContainingAndState(any(), any(), any()))
+                    .thenReturn(List.of(topic(1, "Local Elections", TopicState.APPROVED, 1000)));
+
+        }
+
+
+        @Test
+        @DisplayName("Until the index is ready, approved Topics are suggested from the database")
+        public void notReady() {
+
+            assertEquals(List.of(new PrefixIndex.Suggestion(1, "Local Elections")), service.suggestTopics("Elec", 50));
+
+            verify(topicRepository).findByNormalizedNameContainingAndState("elec", TopicState.APPROVED, PageRequest.of(0, 20));
+
+        }
+
+
+        @Test
+        @DisplayName("Once the index is ready, the database is not asked for suggestions")
+        public void ready() {
+
+            persistedTopics.add(topic(2, "Elections 2024", TopicState.APPROVED, 1000));
+            index.rebuild();
+
+            assertEquals(List.of(new PrefixIndex.Suggestion(2, "Elections 2024")), service.suggestTopics("Elec", 50));
+
+            verify(topicRepository, never()).findByNormalizedNameContainingAndState(any(), any(), any());
+
+        }
+
+    }
+
+
+}
@@ -0,0 +1,104 @@
+package gr.aegean.icsd.newspaperapp.search;
+
+import gr.aegean.icsd.newspaperapp.model.search.TextAnalyzer;
+import gr.aegean.icsd.newspaperapp.model.search.TrigramIndex;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Class for the trigram index of the similar name searches
+ */
+@DisplayName("Trigram Index tests")
+@Tag("Search")
+public class TrigramIndexTest {
+
+    // Minimum similarity used by the Story and Topic indexes
+    private static final double minimumSimilarity = 0.5;
+
+    private TrigramIndex index;
+
+
+    @BeforeEach
+    public void initialize() {
+
+        index = new TrigramIndex();
+
+        index.put(1, TextAnalyzer.terms("Local Elections"));
+        index.put(2, TextAnalyzer.terms("Electoral Reform"));
+        index.put(3, TextAnalyzer.terms("Selection of the Jury"));
+
+    }
+
+
+    private List<Long> search(String query) {
+        return index.search(TextAnalyzer.terms(query), minimumSimilarity).stream().map(TrigramIndex.Match::id).toList();
+    }
+
+
+    @Test
+    @DisplayName("Misspelled names match, names sharing a few trigrams with the query do not")
+    public void misspelled() {
+
+        assertAll(
+                () -> assertEquals(List.of(1L), search("elcetions")),
+                () -> assertEquals(List.of(1L), search("Locl Electons")),
+                () -> assertEquals(List.of(2L, 1L), search("electorl")),
+                () -> assertEquals(List.of(3L), search("JURRY selection"))
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("Matches are ranked by similarity, then by overlap, then by highest ID first")
+    public void ranking() {
+
+        index.put(4, TextAnalyzer.terms("Elections"));
+        index.put(5, TextAnalyzer.terms("Elcetions"));
+        index.put(6, TextAnalyzer.terms("Elections"));
+
+        List<TrigramIndex.Match> matches = index.search(TextAnalyzer.terms("elections"), minimumSimilarity);
+
+        assertAll(
+                () -> assertEquals(List.of(6L, 4L, 1L, 5L, 3L, 2L), matches.stream().map(TrigramIndex.Match::id).toList()),
+                () -> assertEquals(1, matches.get(0).similarity()),
+                () -> assertEquals(1, matches.get(0).overlap()),
+                () -> assertTrue(matches.get(2).overlap() < 1),
+                () -> assertTrue(matches.get(3).similarity() < 1)
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("A replaced name is only found by its new terms, a removed name is not found")
+    public void replaceAndRemove() {
+
+        index.put(1, TextAnalyzer.terms("Economy"));
+        index.remove(2);
+        index.remove(42);
+
+        assertAll(
+                () -> assertEquals(List.of(1L), search("econmy")),
+                () -> assertEquals(List.of(3L), search("elections")),
+                () -> assertEquals(List.of(), search("electoral"))
+        );
+
+    }
+
+
+    @Test
+    @DisplayName("A query without terms matches nothing")
+    public void emptyQuery() {
+
+        assertAll(
+                () -> assertEquals(List.of(), search("")),
+                () -> assertEquals(List.of(), search(" ... "))
+        );
+
+    }
+
+}
@@ -1,21 +1,27 @@
 package gr.aegean.icsd.newspaperapp.security;
 
 import gr.aegean.icsd.newspaperapp.configuration.SecurityConfiguration;
+import gr.aegean.icsd.newspaperapp.model.repository.UserRepository;
 import gr.aegean.icsd.newspaperapp.model.representation.comment.CommentModelAssembler;
 import gr.aegean.icsd.newspaperapp.model.representation.story.StoryModelAssembler;
 import gr.aegean.icsd.newspaperapp.model.representation.topic.TopicModelAssembler;
 import gr.aegean.icsd.newspaperapp.model.service.CommentService;
+import gr.aegean.icsd.newspaperapp.model.service.SearchService;
 import gr.aegean.icsd.newspaperapp.model.service.StoryService;
 import gr.aegean.icsd.newspaperapp.model.service.TopicService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -28,7 +34,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
-@Import(SecurityConfiguration.class)
+@Import({SecurityConfiguration.class, RequestMappingTests.StoryServiceConfiguration.class})
 @WebMvcTest
 
 @DisplayName("Request Mapping Tests")
@@ -49,7 +55,7 @@ public class RequestMappingTests {
     @MockBean
     private CommentModelAssembler commentModelAssembler;
 
-    @MockBean
+    @Autowired
     private StoryService storyService;
     @MockBean
     private StoryModelAssembler storyModelAssembler;
@@ -59,6 +65,25 @@ public class RequestMappingTests {
     @MockBean
     private TopicModelAssembler topicModelAssembler;
 
+    @MockBean
+    private SearchService searchService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    /**
+     * Stories' service mocked as a bean, unlike the other services, so that its method security applies
+     */
+    @TestConfiguration
+    static class StoryServiceConfiguration {
+
+        @Bean
+        StoryService storyService() {
+            return Mockito.mock(StoryService.class);
+        }
+
+    }
+
     private final String getUrlGenerator = "gr.aegean.icsd.newspaperapp.security.RequestMappingTests#getUrlGenerator";
     private static Stream<String>  getUrlGenerator() {
         return Stream.of(
@@ -116,6 +141,14 @@ public class RequestMappingTests {
                     .andExpect(status().isOk());
         }
 
+        @Test
+        @DisplayName("Stories by state, paged with a cursor")
+        void storiesByStateWithCursor() throws Exception {
+            // Denied Visitors are asked to authenticate, like on the paged variant
+            mvc.perform(get(storiesMapping + "?state=SUBMITTED&cursor=").secure(true))
+                    .andExpect(status().isUnauthorized());
+        }
+
     }
 
 